@@ -0,0 +1,74 @@
+#!/bin/bash
+
+#    Copyright (c) 2018 Grzegorz Stepien
+#
+#    This file and its contents are provided under the BSD 3-clause license.
+#    For more details, see './LICENSE.md'
+#    (where '.' represents this program's root directory).
+
+# Executes the transceiver framework configuration in './config/transceiver_structure.json' distributed over two
+# JVMs on this host (where '.' represents the folder containing this script): Node "node_a" sends a number
+# sequence per lane via TCP to node "node_b" which checks that the sequences arrive completely and in order.
+# Both nodes use the same transceiver structure, each only creates the closed multi task chains placed on it.
+# The port used by node_b is determined via gs.utils.TCP_IP.
+
+# Helper method for error printing
+error_msg()
+{
+    TITLE="Unsuccessful execution of this script via: \"$0 $CONSOLE_PARAMS\""
+    "$PRINTF" "ERROR: $TITLE\n\tMessage: $1\n"
+}
+CONSOLE_PARAMS=$@
+
+# Check tool availability
+DIRNAME=$(which dirname)
+READLINK=$(which readlink)
+SHELL=$(which bash)
+if [ -z "$SHELL" ]; then
+    SHELL=$(which sh)
+fi
+JAVA=$(which java)
+PRINTF=$(which printf)
+
+if [ -z "$DIRNAME" -o -z "$READLINK" -o -z "$SHELL" -o -z "$JAVA" -o -z "$PRINTF" ]; then
+  error_msg "At least one required tool is missing. See \"Check tool availability\" paragraph of \"$0\" for more details."
+  exit 1
+fi
+
+# Folder containing this script
+THIS_FOLDER=$("$DIRNAME" "$0")
+THIS_FOLDER=$("$READLINK" -e "$THIS_FOLDER")
+
+# Transceiver framework's root folder - adapt this if you move this script somewhere else!
+ROOT_FOLDER=$("$READLINK" -e "${THIS_FOLDER}/../../..")
+
+# Starter script and the jar it creates if necessary
+RUN_SCRIPT="${ROOT_FOLDER}/transceiver_framework/transceiver_framework.sh"
+INSTALL_SCRIPT="${ROOT_FOLDER}/install.sh"
+JAR_FILE="${ROOT_FOLDER}/transceiver_framework/transceiver_framework/transceiver_framework.jar"
+
+# Compile first if necessary (not concurrently by both nodes)
+if [ ! -f "$JAR_FILE" ]; then
+    "$SHELL" "$INSTALL_SCRIPT" "${ROOT_FOLDER}/transceiver_framework/pom.xml"
+    if [ ! -f "$JAR_FILE" ]; then
+        error_msg "Jar file not where expected after compilation."
+        exit 1
+    fi
+fi
+
+PORT=$("$JAVA" -cp "$JAR_FILE" gs.utils.TCP_IP)
+if [ -z "$PORT" ]; then
+    error_msg "Could not determine a free port."
+    exit 1
+fi
+"$PRINTF" "Using port $PORT.\n"
+
+# Start both nodes (the sending node reconnects until the receiving node is available)
+export TF_JAVA_OPTS="-Dgs.tf.remote.port=${PORT}"
+"$SHELL" "$RUN_SCRIPT" "${THIS_FOLDER}/config/node_b/driver_config.json" &
+NODE_B_PID=$!
+"$SHELL" "$RUN_SCRIPT" "${THIS_FOLDER}/config/node_a/driver_config.json" &
+NODE_A_PID=$!
+
+wait $NODE_A_PID
+wait $NODE_B_PID
@@ -26,6 +26,7 @@ import gs.utils.datatypes.LabeledTimestampedData;
 import gs.utils.datatypes.GenericDoubleData;
 import gs.utils.datatypes.GenericStringData;
 import gs.tf.core.GenericDemuxMultiTransmitterTask;
+import gs.tf.core.TimestampWatermark;
 import gs.utils.r.RException;
 import gs.mdp.utils.r.SimpleConcurrentR;
 import gs.utils.r.SimpleRInterface;
@@ -43,6 +44,9 @@ public class SyntheticDatastreamTransmitter extends
 
     private final SimpleRInterface m_rInterface;
     private final UnmodifiableSet<Integer> m_numericStreamIndices;
+    // i-th entry: Timestamp of the last element of the i-th stream (streams are ordered by timestamp),
+    // Long.MIN_VALUE if none yet. No volatile necessary, access only via Thread executing this task
+    private final long[] m_lastTimestamps;
 
     public SyntheticDatastreamTransmitter(int maxDataChunkSize,
                                           int numDemuxTransmitters,
@@ -101,6 +105,21 @@ public class SyntheticDatastreamTransmitter extends
         }
         this.m_numericStreamIndices = (UnmodifiableSet<Integer>) UnmodifiableSet.unmodifiableSet(numericStreamIndicesSet);
 
+        this.m_lastTimestamps = new long[numDemuxTransmitters];
+        Arrays.fill(this.m_lastTimestamps, Long.MIN_VALUE);
+    }
+
+    // Smallest timestamp over the streams' last elements (null until each stream has provided an element)
+    @Override
+    protected LabeledTimestampedData<?> createDemuxWatermark() {
+        long minTimestamp = Long.MAX_VALUE;
+        for(long lastTimestamp : this.m_lastTimestamps){
+            if(lastTimestamp == Long.MIN_VALUE){
+                return null;
+            }
+            minTimestamp = Math.min(minTimestamp, lastTimestamp);
+        }
+        return new TimestampWatermark<>(minTimestamp);
     }
 
     @Override
@@ -140,6 +159,9 @@ public class SyntheticDatastreamTransmitter extends
                     result.add(new GenericStringData(timestamps[i], labels[i], dataString[i]));
                 }
             }
+            if (numRetrieve > 0) {
+                this.m_lastTimestamps[demuxIndex] = timestamps[numRetrieve - 1];
+            }
             return result;
         }
         catch(RException e){
@@ -24,6 +24,7 @@ package gs.mdp.evaluation;
 
 import gs.utils.datatypes.StringData;
 import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.RoutedChunk;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
 import java.io.BufferedWriter;
@@ -262,6 +263,8 @@ public class StringDataF1Receiver extends GenericMuxMultiReceiverTask.AbstractTa
     private static final Logger LOGGER = Logger.getLogger(StringDataF1Receiver.class.getName());
 
     private final BufferedWriter m_outWriter;
+    // No volatile necessary, access only via Thread executing this task
+    private boolean m_flushPerRow;
     private long m_dataNo;
 
     private static final String S_CSV_HEAD =
@@ -344,6 +347,7 @@ public class StringDataF1Receiver extends GenericMuxMultiReceiverTask.AbstractTa
         this.m_outWriter.write(S_CSV_HEAD);
         this.m_outWriter.newLine();
         this.m_outWriter.flush();
+        this.m_flushPerRow = true;
 
         this.m_f1PositivesPrecision = 0.0;
         this.m_f1PositivesRecall = 0.0;
@@ -667,7 +671,9 @@ public class StringDataF1Receiver extends GenericMuxMultiReceiverTask.AbstractTa
             try {
                 this.m_outWriter.write(msg);
                 this.m_outWriter.newLine();
-                this.m_outWriter.flush();
+                if(this.m_flushPerRow) {
+                    this.m_outWriter.flush();
+                }
             }
             catch(IOException e) {
                 throw new RuntimeException(e); // No recovery
@@ -677,6 +683,24 @@ public class StringDataF1Receiver extends GenericMuxMultiReceiverTask.AbstractTa
     }
 
 
+    // Flushes the output once per chunk instead of once per row
+    @Override
+    protected void processDataChunkFromMux(List<RoutedChunk<StringData>> dataChunk) throws InterruptedException {
+        this.m_flushPerRow = false;
+        try {
+            super.processDataChunkFromMux(dataChunk);
+        }
+        finally {
+            this.m_flushPerRow = true;
+            try {
+                this.m_outWriter.flush();
+            }
+            catch(IOException e) {
+                throw new RuntimeException(e); // No recovery
+            }
+        }
+    }
+
     @Override
     protected void postWork() {
         super.postWork();
@@ -176,6 +176,11 @@ public class MotifDetectorTransceiver extends AbstractTransceiverTask<LabeledTim
         return false;
     }
 
+    // Detected motifs refer to older buffered input (and are no LabeledTimestampedData): Watermarks are not forwarded
+    @Override
+    protected void processWatermark(LabeledTimestampedData<?> watermark) {
+    }
+
     // TODO: Clean up this method -> divide into submethods
     @Override
     protected void processDataElement(LabeledTimestampedData<?> doubleDataElement) throws InterruptedException {
@@ -364,6 +369,12 @@ public class MotifDetectorTransceiver extends AbstractTransceiverTask<LabeledTim
         }
     }
 
+    // Relies on midPostWork() and may emit more elements per input element than m_outData can hold
+    @Override
+    public boolean isFusionAllowed() {
+        return false;
+    }
+
     @Override
     protected Collection<StringData> getNextDataChunk() {
         List<StringData> dataChunk = new LinkedList<>();
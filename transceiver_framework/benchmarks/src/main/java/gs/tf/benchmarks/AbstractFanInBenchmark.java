@@ -0,0 +1,57 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericMultiTransmitterTask;
+import gs.tf.core.GenericMuxMultiReceiverTask;
+
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+// numInputs transmitters -> mux -> target receiver
+public abstract class AbstractFanInBenchmark extends AbstractPipelineBenchmark {
+
+    @Param({"2", "16", "128"})
+    public int numInputs;
+
+    @Override
+    protected Pipeline createPipeline(int queueCapacity,
+                                      int maxDataChunkSize,
+                                      Long timeoutInterval,
+                                      ExecutorService executorService) {
+        AtomicLong counter = new AtomicLong(0);
+        List<GatedSourceTransmitterTask> sourceList = new ArrayList<>(this.numInputs);
+        for(int i = 0; i < this.numInputs; i++){
+            sourceList.add(new GatedSourceTransmitterTask(maxDataChunkSize, this.requiresOrderedInput()));
+        }
+        GenericMultiTransmitterTask<BenchmarkElement, GatedSourceTransmitterTask> sources =
+                new GenericMultiTransmitterTask<>(sourceList, executorService);
+        GenericMuxMultiReceiverTask<BenchmarkElement> mux = this.createMux(
+                new CountingTargetReceiverTask(queueCapacity, timeoutInterval, this.numInputs, counter),
+                this.numInputs, maxDataChunkSize, queueCapacity, timeoutInterval, executorService);
+
+        return new Pipeline(Collections.singletonList(Pipeline.createChain(executorService, sources, mux)),
+                executorService, sourceList, counter, 1);
+    }
+
+    // True: Sources produce increasing elements and watermarks
+    protected abstract boolean requiresOrderedInput();
+
+    protected abstract GenericMuxMultiReceiverTask<BenchmarkElement> createMux(CountingTargetReceiverTask targetReceiver,
+                                                                              int numInputs,
+                                                                              int maxDataChunkSize,
+                                                                              int queueCapacity,
+                                                                              Long timeoutInterval,
+                                                                              ExecutorService executorService);
+}
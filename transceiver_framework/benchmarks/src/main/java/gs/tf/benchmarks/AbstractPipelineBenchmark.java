@@ -0,0 +1,92 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.utils.Concurrency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// One pipeline per trial (i.e., per parameter combination). throughput(): Elements per ms through the whole
+// structure. latency(): Time until a single element per source has arrived at the sinks.
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractPipelineBenchmark {
+
+    // Elements released per throughput() invocation: Divisible by all benchmarked numbers of sources
+    public static final int BATCH_SIZE = 1024;
+
+    // JMH parameters must be non final public fields
+    @Param({"16", "1024"})
+    public int queueCapacity;
+
+    @Param({"1", "64"})
+    public int maxDataChunkSize;
+
+    @Param({"BLOCKING", "TIMEOUT"})
+    public TimeoutMode timeoutMode;
+
+    private Pipeline m_pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        this.m_pipeline = this.createPipeline(this.queueCapacity,
+                this.maxDataChunkSize,
+                this.timeoutMode.getTimeoutInterval(),
+                Concurrency.ExceptionHandlerThreadPoolExecutor.newCachedThreadPoolExecutor());
+        if(BATCH_SIZE % this.m_pipeline.getNumSources() != 0){
+            throw new IllegalStateException("Number of sources must divide " + BATCH_SIZE + ".");
+        }
+        this.m_pipeline.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        this.m_pipeline.stop();
+        this.m_pipeline = null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void throughput(){
+        this.m_pipeline.transfer(BATCH_SIZE / this.m_pipeline.getNumSources());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency(){
+        this.m_pipeline.transfer(1);
+    }
+
+    // The returned pipeline is not started yet
+    protected abstract Pipeline createPipeline(int queueCapacity,
+                                               int maxDataChunkSize,
+                                               Long timeoutInterval,
+                                               ExecutorService executorService);
+}
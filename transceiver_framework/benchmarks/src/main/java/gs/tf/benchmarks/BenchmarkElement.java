@@ -0,0 +1,51 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.Watermark;
+
+// Data element of the benchmarked structures: Ordered by value (as required by GenericSyncMuxMultiReceiverTask)
+public class BenchmarkElement implements Comparable<BenchmarkElement> {
+
+    // Forwarded by unordered sources (i.e., no allocation per transferred element)
+    public static final BenchmarkElement SHARED = new BenchmarkElement(0);
+
+    private final long m_value;
+
+    public BenchmarkElement(long value){
+        this.m_value = value;
+    }
+
+    public long getValue(){
+        return this.m_value;
+    }
+
+    @Override
+    public int compareTo(BenchmarkElement other){
+        return Long.compare(this.m_value, other.m_value);
+    }
+
+    @Override
+    public String toString(){
+        return Long.toString(this.m_value);
+    }
+
+    // Not passed to the benchmark sinks' processing methods (see Watermark)
+    public static final class BenchmarkWatermark extends BenchmarkElement implements Watermark {
+
+        public BenchmarkWatermark(long value){
+            super(value);
+        }
+
+        @Override
+        public String toString(){
+            return "Watermark: " + this.getValue();
+        }
+    }
+}
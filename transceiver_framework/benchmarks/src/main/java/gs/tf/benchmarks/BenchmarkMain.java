@@ -0,0 +1,44 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+// Runs the benchmarks selected by the provided JMH command line options (all by default) with the GC profiler
+// (allocation rate per operation) enabled
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if(commandLineOptions.shouldHelp()){
+            commandLineOptions.showHelp();
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Runner runner = new Runner(options);
+        if(commandLineOptions.shouldList()){
+            runner.list();
+        }
+        else {
+            runner.run();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.AbstractReceiverTask;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Adds the number of received elements to a counter shared by all sinks of a benchmarked structure
+// (watermarks are not passed to processDataElement(...)/processDataChunk(...))
+public class CountingReceiverTask extends AbstractReceiverTask<BenchmarkElement> {
+
+    private final AtomicLong m_counter;
+
+    public CountingReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval, AtomicLong counter) {
+        super(inDataQueueCapacity, timeoutInterval);
+        if(counter == null){
+            throw new NullPointerException();
+        }
+        this.m_counter = counter;
+    }
+
+    @Override
+    protected void processDataElement(BenchmarkElement dataElement) {
+        this.m_counter.incrementAndGet();
+    }
+
+    @Override
+    protected void processDataChunk(List<BenchmarkElement> dataChunk) {
+        this.m_counter.addAndGet(dataChunk.size());
+    }
+}
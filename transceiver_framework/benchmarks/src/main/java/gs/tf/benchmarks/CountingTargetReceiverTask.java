@@ -0,0 +1,48 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.RoutedChunk;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Adds the number of received elements to a counter shared by all sinks of a benchmarked structure
+// (watermarks are passed to processWatermarkFromMux(...) instead)
+public class CountingTargetReceiverTask
+        extends GenericMuxMultiReceiverTask.AbstractTargetReceiverTask<BenchmarkElement> {
+
+    private final AtomicLong m_counter;
+
+    public CountingTargetReceiverTask(Integer inDataQueueCapacity,
+                                      Long timeoutInterval,
+                                      int numMuxTransmitters,
+                                      AtomicLong counter) {
+        super(inDataQueueCapacity, timeoutInterval, numMuxTransmitters);
+        if(counter == null){
+            throw new NullPointerException();
+        }
+        this.m_counter = counter;
+    }
+
+    @Override
+    protected void processDataElementFromMux(int muxIndex, BenchmarkElement dataElement) {
+        this.m_counter.incrementAndGet();
+    }
+
+    @Override
+    protected void processDataChunkFromMux(List<RoutedChunk<BenchmarkElement>> dataChunk) {
+        int numElements = 0;
+        for(RoutedChunk<BenchmarkElement> routedChunk : dataChunk){
+            numElements += routedChunk.size();
+        }
+        this.m_counter.addAndGet(numElements);
+    }
+}
@@ -0,0 +1,47 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+import gs.tf.core.GenericMultiReceiverTask;
+
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Source transmitter -> demux -> numOutputs receivers
+public class DemuxBenchmark extends AbstractPipelineBenchmark {
+
+    @Param({"2", "16", "128"})
+    public int numOutputs;
+
+    @Override
+    protected Pipeline createPipeline(int queueCapacity,
+                                      int maxDataChunkSize,
+                                      Long timeoutInterval,
+                                      ExecutorService executorService) {
+        AtomicLong counter = new AtomicLong(0);
+        GatedDemuxSourceTransmitterTask source = new GatedDemuxSourceTransmitterTask(maxDataChunkSize, this.numOutputs);
+        GenericDemuxMultiTransmitterTask<BenchmarkElement> demux = new GenericDemuxMultiTransmitterTask<>(
+                source, this.numOutputs, maxDataChunkSize, queueCapacity, timeoutInterval, executorService);
+        List<CountingReceiverTask> sinkList = new ArrayList<>(this.numOutputs);
+        for(int i = 0; i < this.numOutputs; i++){
+            sinkList.add(new CountingReceiverTask(queueCapacity, timeoutInterval, counter));
+        }
+        GenericMultiReceiverTask<BenchmarkElement, CountingReceiverTask> sinks =
+                new GenericMultiReceiverTask<>(sinkList, executorService);
+
+        return new Pipeline(Collections.singletonList(Pipeline.createChain(executorService, demux, sinks)),
+                executorService, Collections.singletonList(source), counter, 1);
+    }
+}
@@ -0,0 +1,47 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+
+import java.util.Collection;
+import java.util.Collections;
+
+// Released elements are distributed round robin per data chunk over the demux transmitters
+public class GatedDemuxSourceTransmitterTask
+        extends GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask<BenchmarkElement>
+        implements GatedSource {
+
+    private final ReleaseGate m_gate;
+
+    public GatedDemuxSourceTransmitterTask(int maxDataChunkSize, int numDemuxTransmitters) {
+        super(maxDataChunkSize, numDemuxTransmitters);
+        this.m_gate = new ReleaseGate();
+    }
+
+    @Override
+    public void release(long numElements){
+        this.m_gate.release(numElements);
+        this.signalWork();
+    }
+
+    @Override
+    protected boolean isSignalledOnNewWork() {
+        return true;
+    }
+
+    @Override
+    protected Collection<BenchmarkElement> getNextDataChunkForDemux(int demuxIndex) {
+        int numElements = this.m_gate.acquire(this.getMaxDataChunkSize());
+        if(numElements == 0){
+            return null;
+        }
+        return Collections.nCopies(numElements, BenchmarkElement.SHARED);
+    }
+}
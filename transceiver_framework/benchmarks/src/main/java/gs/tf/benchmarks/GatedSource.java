@@ -0,0 +1,15 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+// Source task producing exactly as many elements as have been released (from any thread) so far
+public interface GatedSource {
+
+    void release(long numElements);
+}
@@ -0,0 +1,73 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.AbstractTransmitterTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Ordered: Produces increasing element values and a watermark after the last released element (i.e., synchronizing
+// muxes do not wait for further input, see createWatermark()). Otherwise, BenchmarkElement.SHARED is forwarded.
+public class GatedSourceTransmitterTask extends AbstractTransmitterTask<BenchmarkElement> implements GatedSource {
+
+    private final boolean m_ordered;
+    private final ReleaseGate m_gate;
+    // No volatile necessary, access only via Thread executing this task
+    private long m_nextValue;
+    private boolean m_watermarkPending;
+
+    public GatedSourceTransmitterTask(int maxDataChunkSize, boolean ordered) {
+        super(maxDataChunkSize);
+        this.m_ordered = ordered;
+        this.m_gate = new ReleaseGate();
+        this.m_nextValue = 0;
+        this.m_watermarkPending = false;
+        if(ordered){
+            // createWatermark() is consulted after each getNextDataChunk() call
+            this.setWatermarkInterval(0L);
+        }
+    }
+
+    @Override
+    public void release(long numElements){
+        this.m_gate.release(numElements);
+        this.signalWork();
+    }
+
+    @Override
+    protected boolean isSignalledOnNewWork() {
+        return true;
+    }
+
+    @Override
+    protected Collection<BenchmarkElement> getNextDataChunk() {
+        int numElements = this.m_gate.acquire(this.getMaxDataChunkSize());
+        if(numElements == 0){
+            return null;
+        }
+
+        List<BenchmarkElement> result = new ArrayList<>(numElements);
+        for(int i = 0; i < numElements; i++){
+            result.add(this.m_ordered ? new BenchmarkElement(this.m_nextValue++) : BenchmarkElement.SHARED);
+        }
+        this.m_watermarkPending = this.m_ordered;
+        return result;
+    }
+
+    @Override
+    protected BenchmarkElement createWatermark() {
+        if(!this.m_watermarkPending || !this.m_gate.isExhausted()){
+            return null;
+        }
+        this.m_watermarkPending = false;
+        return new BenchmarkElement.BenchmarkWatermark(this.m_nextValue);
+    }
+}
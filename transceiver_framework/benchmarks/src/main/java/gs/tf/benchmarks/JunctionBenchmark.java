@@ -0,0 +1,56 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.ClosedMultiTaskChain;
+import gs.tf.core.GenericJunctionMultiTransceiverTask;
+import gs.tf.core.GenericMultiReceiverTask;
+import gs.tf.core.GenericMultiTransmitterTask;
+import gs.tf.core.JunctionTransmitterAlreadyFetchedException;
+import gs.tf.core.MultiTransmitterTask;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transmitter -> junction -> receiver, junction -> receiver (i.e., each element arrives at both receivers)
+public class JunctionBenchmark extends AbstractPipelineBenchmark {
+
+    @Override
+    protected Pipeline createPipeline(int queueCapacity,
+                                      int maxDataChunkSize,
+                                      Long timeoutInterval,
+                                      ExecutorService executorService) {
+        AtomicLong counter = new AtomicLong(0);
+        GatedSourceTransmitterTask source = new GatedSourceTransmitterTask(maxDataChunkSize, false);
+        GenericMultiTransmitterTask<BenchmarkElement, GatedSourceTransmitterTask> sources =
+                new GenericMultiTransmitterTask<>(Collections.singletonList(source), executorService);
+        GenericJunctionMultiTransceiverTask<BenchmarkElement> junction = new GenericJunctionMultiTransceiverTask<>(
+                1, queueCapacity, timeoutInterval, maxDataChunkSize, executorService);
+        GenericMultiReceiverTask<BenchmarkElement, CountingReceiverTask> sinks = new GenericMultiReceiverTask<>(
+                Collections.singletonList(new CountingReceiverTask(queueCapacity, timeoutInterval, counter)),
+                executorService);
+
+        MultiTransmitterTask<BenchmarkElement, ?> junctionTransmitter;
+        try {
+            junctionTransmitter = junction.createMultiTransmitterFromJunction();
+        } catch (JunctionTransmitterAlreadyFetchedException e) {
+            throw new IllegalStateException(e);
+        }
+        GenericMultiReceiverTask<BenchmarkElement, CountingReceiverTask> junctionSinks = new GenericMultiReceiverTask<>(
+                Collections.singletonList(new CountingReceiverTask(queueCapacity, timeoutInterval, counter)),
+                executorService);
+
+        ClosedMultiTaskChain chain = Pipeline.createChain(executorService, sources, junction, sinks);
+        ClosedMultiTaskChain junctionChain = Pipeline.createChain(executorService, junctionTransmitter, junctionSinks);
+        return new Pipeline(Arrays.asList(chain, junctionChain), executorService,
+                Collections.singletonList(source), counter, 2);
+    }
+}
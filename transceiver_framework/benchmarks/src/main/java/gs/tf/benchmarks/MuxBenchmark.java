@@ -0,0 +1,32 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericMuxMultiReceiverTask;
+
+import java.util.concurrent.ExecutorService;
+
+public class MuxBenchmark extends AbstractFanInBenchmark {
+
+    @Override
+    protected boolean requiresOrderedInput() {
+        return false;
+    }
+
+    @Override
+    protected GenericMuxMultiReceiverTask<BenchmarkElement> createMux(CountingTargetReceiverTask targetReceiver,
+                                                                     int numInputs,
+                                                                     int maxDataChunkSize,
+                                                                     int queueCapacity,
+                                                                     Long timeoutInterval,
+                                                                     ExecutorService executorService) {
+        return new GenericMuxMultiReceiverTask<>(targetReceiver, numInputs, maxDataChunkSize, queueCapacity,
+                timeoutInterval, executorService);
+    }
+}
@@ -0,0 +1,119 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.ClosedMultiTaskChain;
+import gs.tf.core.GenericClosedMultiTaskChain;
+import gs.tf.core.MultiTask;
+import gs.tf.core.NotStartedException;
+import gs.tf.core.UnacceptedConcurrentTaskException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Running benchmarked structure: transfer(...) releases elements at its gated sources and waits until all of them
+// have arrived at its sinks. Not thread safe (i.e., only used by the benchmark thread).
+public final class Pipeline {
+
+    // Guards against hanging benchmarks (e.g., lost elements)
+    private static final long AWAIT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final List<ClosedMultiTaskChain> m_chains;
+    private final ExecutorService m_executorService;
+    private final List<GatedSource> m_sources;
+    private final AtomicLong m_counter;
+    // Number of sinks each released element arrives at
+    private final int m_numCopies;
+    private long m_numExpected;
+
+    // Chains are started in the provided order and terminated in the same order. counter must be the counter
+    // shared by all sinks.
+    public Pipeline(List<? extends ClosedMultiTaskChain> chains,
+                    ExecutorService executorService,
+                    List<? extends GatedSource> sources,
+                    AtomicLong counter,
+                    int numCopies){
+        if(chains == null || executorService == null || sources == null || counter == null){
+            throw new NullPointerException();
+        }
+        if(chains.isEmpty() || sources.isEmpty() || numCopies <= 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_chains = new ArrayList<>(chains);
+        this.m_executorService = executorService;
+        this.m_sources = new ArrayList<>(sources);
+        this.m_counter = counter;
+        this.m_numCopies = numCopies;
+        this.m_numExpected = 0;
+    }
+
+    // Closed chain consisting of the provided multi tasks connected in the provided order
+    public static ClosedMultiTaskChain createChain(ExecutorService executorService, MultiTask<?>... multiTasks){
+        Map<MultiTask<?>, Collection<MultiTask<?>>> multiTaskConnectionDAG = new HashMap<>();
+        for(int i = 0; i < multiTasks.length - 1; i++){
+            multiTaskConnectionDAG.put(multiTasks[i], Collections.<MultiTask<?>>singletonList(multiTasks[i + 1]));
+        }
+        try {
+            return new GenericClosedMultiTaskChain(Arrays.asList(multiTasks), multiTaskConnectionDAG, executorService);
+        } catch (UnacceptedConcurrentTaskException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getNumSources(){
+        return this.m_sources.size();
+    }
+
+    public void start(){
+        for(ClosedMultiTaskChain chain : this.m_chains){
+            this.m_executorService.submit(chain);
+        }
+        for(ClosedMultiTaskChain chain : this.m_chains){
+            chain.started().join();
+        }
+    }
+
+    // Releases numElementsPerSource elements at each source
+    public void transfer(int numElementsPerSource){
+        for(GatedSource source : this.m_sources){
+            source.release(numElementsPerSource);
+        }
+        this.m_numExpected += (long) numElementsPerSource * this.m_sources.size() * this.m_numCopies;
+
+        long start = System.nanoTime();
+        while(this.m_counter.get() < this.m_numExpected){
+            if(System.nanoTime() - start > AWAIT_TIMEOUT_NANOS){
+                throw new IllegalStateException("Only " + this.m_counter.get() + " of " + this.m_numExpected
+                        + " elements arrived within " + TimeUnit.NANOSECONDS.toSeconds(AWAIT_TIMEOUT_NANOS) + " s.");
+            }
+            Thread.yield();
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        for(ClosedMultiTaskChain chain : this.m_chains){
+            try {
+                chain.terminate(false);
+            } catch (NotStartedException e) {
+                throw new IllegalStateException(e);
+            }
+            chain.terminated().join();
+        }
+        this.m_executorService.shutdown();
+        this.m_executorService.awaitTermination(AWAIT_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,44 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Number of elements a gated source may still produce: Released by the benchmark thread, acquired by the thread
+// executing the source
+final class ReleaseGate {
+
+    private final AtomicLong m_released;
+    // No volatile necessary, access only via Thread executing the source
+    private long m_acquired;
+
+    ReleaseGate(){
+        this.m_released = new AtomicLong(0);
+        this.m_acquired = 0;
+    }
+
+    void release(long numElements){
+        if(numElements < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_released.addAndGet(numElements);
+    }
+
+    // True if all released elements have been acquired
+    boolean isExhausted(){
+        return this.m_released.get() == this.m_acquired;
+    }
+
+    // Returns the number of acquired elements (at most maxNumElements, 0 if no elements have been released)
+    int acquire(int maxNumElements){
+        int result = (int) Math.min(maxNumElements, this.m_released.get() - this.m_acquired);
+        this.m_acquired += result;
+        return result;
+    }
+}
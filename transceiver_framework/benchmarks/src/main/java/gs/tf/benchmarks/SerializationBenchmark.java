@@ -0,0 +1,144 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.utils.datatypes.DoubleData;
+import gs.utils.datatypes.GenericDoubleData;
+import gs.utils.serialization.DoubleDataSerializer;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Round trip (encode and decode) of BATCH_SIZE DoubleData elements: Compact codec batch wise and element wise
+// versus Java serialization (one object stream per batch) and JSON (one array per batch). Throughput in elements per ms.
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+
+    public static final int BATCH_SIZE = 1024;
+
+    // JMH parameters must be non final public fields
+    @Param({"8", "1024"})
+    public int numLabels;
+
+    private List<DoubleData> m_elements;
+    private DoubleDataSerializer m_serializer;
+    private ByteBuffer m_buffer;
+    private List<DoubleData> m_decoded;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Random random = new Random(0);
+        long timestamp = System.currentTimeMillis();
+        this.m_elements = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < BATCH_SIZE; i++){
+            timestamp += random.nextInt(10);
+            this.m_elements.add(new GenericDoubleData(timestamp, "sensor_" + random.nextInt(this.numLabels),
+                    random.nextGaussian()));
+        }
+        this.m_serializer = new DoubleDataSerializer();
+        this.m_buffer = ByteBuffer.allocate(1 << 20);
+        this.m_decoded = new ArrayList<>(BATCH_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<DoubleData> compactBatch(){
+        this.m_buffer.clear();
+        this.m_serializer.serializeBatch(this.m_elements, 0, BATCH_SIZE, this.m_buffer);
+        this.m_buffer.flip();
+        this.m_decoded.clear();
+        this.m_serializer.deserializeBatch(this.m_buffer, this.m_decoded);
+        return this.m_decoded;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<DoubleData> compactElementWise(){
+        this.m_buffer.clear();
+        for(DoubleData element : this.m_elements){
+            this.m_serializer.serialize(element, this.m_buffer);
+        }
+        this.m_buffer.flip();
+        this.m_decoded.clear();
+        for(int i = 0; i < BATCH_SIZE; i++){
+            this.m_decoded.add(this.m_serializer.deserialize(this.m_buffer));
+        }
+        return this.m_decoded;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    @SuppressWarnings("unchecked")
+    public List<DoubleData> javaSerialization() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this.m_elements);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (List<DoubleData>) in.readObject();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    @SuppressWarnings("unchecked")
+    public List<DoubleData> json() throws ParseException {
+        JSONArray array = new JSONArray();
+        JSONObject object;
+        for(DoubleData element : this.m_elements){
+            object = new JSONObject();
+            object.put("timestamp", element.getTimestamp());
+            object.put("label", element.getLabel());
+            object.put("data", element.getData());
+            array.add(object);
+        }
+        byte[] bytes = array.toJSONString().getBytes(StandardCharsets.UTF_8);
+
+        array = (JSONArray) new JSONParser().parse(new String(bytes, StandardCharsets.UTF_8));
+        this.m_decoded.clear();
+        for(Object element : array){
+            object = (JSONObject) element;
+            this.m_decoded.add(new GenericDoubleData((Long) object.get("timestamp"), (String) object.get("label"),
+                    (Double) object.get("data")));
+        }
+        return this.m_decoded;
+    }
+}
@@ -0,0 +1,37 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.GenericSyncMuxMultiReceiverTask;
+
+import java.util.concurrent.ExecutorService;
+
+public class SyncMuxBenchmark extends AbstractFanInBenchmark {
+
+    // Inputs are never discarded (sources provide watermarks instead), fixed seed for reproducible tie breaking
+    private static final long DISCARD_TIMEOUT_INTERVAL = Long.MAX_VALUE;
+    private static final long RANDOM_SEED = 42;
+
+    @Override
+    protected boolean requiresOrderedInput() {
+        return true;
+    }
+
+    @Override
+    protected GenericMuxMultiReceiverTask<BenchmarkElement> createMux(CountingTargetReceiverTask targetReceiver,
+                                                                     int numInputs,
+                                                                     int maxDataChunkSize,
+                                                                     int queueCapacity,
+                                                                     Long timeoutInterval,
+                                                                     ExecutorService executorService) {
+        return new GenericSyncMuxMultiReceiverTask<>(targetReceiver, numInputs, maxDataChunkSize, queueCapacity,
+                timeoutInterval, executorService, DISCARD_TIMEOUT_INTERVAL, RANDOM_SEED);
+    }
+}
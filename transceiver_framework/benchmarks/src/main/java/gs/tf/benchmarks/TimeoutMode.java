@@ -0,0 +1,30 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+// Receiver queue insertion: Blocking or with timeout (large enough for no element to be discarded, i.e., only the
+// overhead of the timed insertion is measured)
+public enum TimeoutMode {
+    BLOCKING,
+    TIMEOUT;
+
+    private static final long TIMEOUT_INTERVAL = 60000L;
+
+    // Timeout interval in ms as expected by the receiver constructors (null: blocking)
+    public Long getTimeoutInterval(){
+        switch(this){
+            case BLOCKING:
+                return null;
+            case TIMEOUT:
+                return TIMEOUT_INTERVAL;
+            default:
+                throw new IllegalStateException("Unknown timeout mode: " + this);
+        }
+    }
+}
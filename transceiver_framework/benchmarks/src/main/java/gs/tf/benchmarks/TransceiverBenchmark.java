@@ -0,0 +1,42 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.benchmarks;
+
+import gs.tf.core.GenericMultiReceiverTask;
+import gs.tf.core.GenericMultiTransceiverTask;
+import gs.tf.core.GenericMultiTransmitterTask;
+import gs.tf.load.PassThroughTransceiverTask;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transmitter -> pass through transceiver -> receiver
+public class TransceiverBenchmark extends AbstractPipelineBenchmark {
+
+    @Override
+    protected Pipeline createPipeline(int queueCapacity,
+                                      int maxDataChunkSize,
+                                      Long timeoutInterval,
+                                      ExecutorService executorService) {
+        AtomicLong counter = new AtomicLong(0);
+        GatedSourceTransmitterTask source = new GatedSourceTransmitterTask(maxDataChunkSize, false);
+        GenericMultiTransmitterTask<BenchmarkElement, GatedSourceTransmitterTask> sources =
+                new GenericMultiTransmitterTask<>(Collections.singletonList(source), executorService);
+        GenericMultiTransceiverTask<BenchmarkElement, BenchmarkElement, PassThroughTransceiverTask<BenchmarkElement>> transceivers =
+                new GenericMultiTransceiverTask<>(Collections.singletonList(new PassThroughTransceiverTask<BenchmarkElement>(
+                        queueCapacity, timeoutInterval, maxDataChunkSize, executorService)), executorService);
+        GenericMultiReceiverTask<BenchmarkElement, CountingReceiverTask> sinks = new GenericMultiReceiverTask<>(
+                Collections.singletonList(new CountingReceiverTask(queueCapacity, timeoutInterval, counter)),
+                executorService);
+
+        return new Pipeline(Collections.singletonList(Pipeline.createChain(executorService, sources, transceivers, sinks)),
+                executorService, Collections.singletonList(source), counter, 1);
+    }
+}
@@ -16,6 +16,11 @@
 # Compiles the java sources into a jar (via the command './install.sh "./<name>/pom.xml"') 
 # if the latter is not already present at './<name>/<name>/<name>.jar' 
 # (where '.' represents the project root folder).
+#
+# An optional third argument is passed on to gs.utils.mains.GenericMain as the class name
+# of the gs.utils.drivers.Driver implementation to use instead of the default JSON driver.
+#
+# Additional JVM options (e.g., system properties) can be provided via the environment variable TF_JAVA_OPTS.
 
 # Helper method for error printing
 error_msg()
@@ -77,12 +82,16 @@ JAR_FILE="${ROOT_FOLDER}/${NAME}/${NAME}/${NAME}.jar"
 # VM arguments
 JAVA_VM_ARGS="-Xms${JAVA_XMS} "\
 "-Xmx${JAVA_XMX} "\
+"${TF_JAVA_OPTS} "\
 "-Djava.util.logging.manager=\"gs.tf.drivers.JSONClosedMultiTaskDriver\\\$ManualResetLogManager\" "\
 "-jar \"${JAR_FILE}\""\
 
 # Composed commands to execute
 INSTALL_COMMAND="\"$SHELL\" \"$INSTALL_SCRIPT\" $INSTALL_ARGS"
 RUN_COMMAND="\"$JAVA\" $JAVA_VM_ARGS \"$1\""
+if [ $# -ge 3 ]; then
+    RUN_COMMAND="$RUN_COMMAND \"$3\""
+fi
 
 if [ -z "$1" ]; then
     error_msg "No JSON driver file provided as argument."
@@ -9,6 +9,7 @@
 package gs.examples.tf.muxdemux;
 
 import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.RoutedChunk;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
@@ -17,6 +18,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class FooTargetReceiverTask
@@ -66,17 +69,65 @@ public class FooTargetReceiverTask
     @Override
     protected void processDataElementFromMux(int muxIndex,
                                              Pair<Long, Triple<Long, Integer, Integer>> dataElement) {
+        LOGGER.info(this.createLogMessage(muxIndex, dataElement));
+
+        try {
+            this.outputWriter.newLine();
+            this.outputWriter.write(this.createCSVRow(muxIndex, dataElement));
+        } catch (IOException e) {
+            throw new RuntimeException("Error during writing.", e);
+        }
+    }
+
+    // One log record and one write call per chunk instead of per element
+    @Override
+    protected void processDataChunkFromMux(List<RoutedChunk<Pair<Long, Triple<Long, Integer, Integer>>>> dataChunk) {
+        boolean log = LOGGER.isLoggable(Level.INFO);
+        StringBuilder logMessage = log ? new StringBuilder() : null;
+        StringBuilder output = new StringBuilder();
+
+        for(RoutedChunk<Pair<Long, Triple<Long, Integer, Integer>>> routedChunk : dataChunk){
+            int muxIndex = routedChunk.getIndex();
+            for(int i = 0; i < routedChunk.size(); i++) {
+                Pair<Long, Triple<Long, Integer, Integer>> dataElement = routedChunk.get(i);
+                if (log) {
+                    if (logMessage.length() > 0) {
+                        logMessage.append(System.lineSeparator());
+                    }
+                    logMessage.append(this.createLogMessage(muxIndex, dataElement));
+                }
+                output.append(System.lineSeparator());
+                output.append(this.createCSVRow(muxIndex, dataElement));
+            }
+        }
+
+        if(log){
+            LOGGER.info(logMessage.toString());
+        }
+        try {
+            this.outputWriter.write(output.toString());
+        } catch (IOException e) {
+            throw new RuntimeException("Error during writing.", e);
+        }
+    }
+
+    private String createCSVRow(int muxIndex,
+                                Pair<Long, Triple<Long, Integer, Integer>> dataElement){
         Triple<Long, Integer, Integer> payload = dataElement.getRight();
 
-        String output =
-                payload.getRight() + ", " +
-                        payload.getLeft() + ", " +
-                        payload.getMiddle() + ", " +
-                        dataElement.getLeft() + ", " +
-                        muxIndex + ", " +
-                        this.getID();
+        return payload.getRight() + ", " +
+                payload.getLeft() + ", " +
+                payload.getMiddle() + ", " +
+                dataElement.getLeft() + ", " +
+                muxIndex + ", " +
+                this.getID();
+    }
+
+    private String createLogMessage(int muxIndex,
+                                    Pair<Long, Triple<Long, Integer, Integer>> dataElement){
+        Triple<Long, Integer, Integer> payload = dataElement.getRight();
 
-        LOGGER.info("Target receiver (ID: " + this.getID() + ")" +
+        return "Target receiver (ID: " + this.getID() + ")" +
                 " processes data element by storing the following " +
                 "information in a csv file: " + this.outputPath + System.lineSeparator() +
                 "\tData element with ID " + payload.getRight() +
@@ -87,14 +138,7 @@ public class FooTargetReceiverTask
                 " -> DemuxTransmitterTask of index " + payload.getMiddle() +
                 " -> transceiver " + dataElement.getLeft() +
                 " -> MuxReceiverTask of index " + muxIndex +
-                " -> target receiver " + this.getID());
-
-        try {
-            this.outputWriter.newLine();
-            this.outputWriter.write(output);
-        } catch (IOException e) {
-            throw new RuntimeException("Error during writing.", e);
-        }
+                " -> target receiver " + this.getID();
     }
 
     @Override
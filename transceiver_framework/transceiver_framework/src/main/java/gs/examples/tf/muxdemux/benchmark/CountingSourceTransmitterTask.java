@@ -0,0 +1,62 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.examples.tf.muxdemux.benchmark;
+
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Emits the numbers 0, ..., numElements - 1 as fast as possible (chunk wise, round robin to the first
+// numActiveDemuxTransmitters demux transmitters)
+public class CountingSourceTransmitterTask
+        extends GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask<Long> {
+
+    private final long m_numElements;
+    private final int m_numActiveDemuxTransmitters;
+    // No volatile necessary, access only via Thread executing this task
+    private long m_nextElement;
+
+    public CountingSourceTransmitterTask(int maxDataChunkSize,
+                                         int numDemuxTransmitters,
+                                         long numElements) {
+        this(maxDataChunkSize, numDemuxTransmitters, numDemuxTransmitters, numElements);
+    }
+
+    public CountingSourceTransmitterTask(int maxDataChunkSize,
+                                         int numDemuxTransmitters,
+                                         int numActiveDemuxTransmitters,
+                                         long numElements) {
+        super(maxDataChunkSize, numDemuxTransmitters);
+        if(numElements < 0 || numActiveDemuxTransmitters < 1 || numActiveDemuxTransmitters > numDemuxTransmitters){
+            throw new IllegalArgumentException();
+        }
+        this.m_numElements = numElements;
+        this.m_numActiveDemuxTransmitters = numActiveDemuxTransmitters;
+        this.m_nextElement = 0;
+    }
+
+    @Override
+    protected Collection<Long> getNextDataChunkForDemux(int demuxIndex) {
+        if(demuxIndex >= this.m_numActiveDemuxTransmitters){
+            return null;
+        }
+        int chunkSize = (int) Math.min(this.getMaxDataChunkSize(), this.m_numElements - this.m_nextElement);
+        if(chunkSize <= 0){
+            return null;
+        }
+
+        List<Long> result = new ArrayList<>(chunkSize);
+        for(int i = 0; i < chunkSize; i++){
+            result.add(this.m_nextElement++);
+        }
+        return result;
+    }
+}
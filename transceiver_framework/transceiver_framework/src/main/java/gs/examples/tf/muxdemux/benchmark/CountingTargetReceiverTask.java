@@ -0,0 +1,66 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.examples.tf.muxdemux.benchmark;
+
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.RoutedChunk;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Counts received elements and releases waiting threads as soon as numElements elements have been received
+public class CountingTargetReceiverTask
+        extends GenericMuxMultiReceiverTask.AbstractTargetReceiverTask<Long> {
+
+    private final long m_numElements;
+    // No volatile necessary, access only via Thread executing this task
+    private long m_numReceived;
+    private final CountDownLatch m_allReceived;
+
+    public CountingTargetReceiverTask(int inDataQueueCapacity,
+                                      int numMuxTransmitters,
+                                      long numElements) {
+        super(inDataQueueCapacity, null, numMuxTransmitters);
+        if(numElements < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_numElements = numElements;
+        this.m_numReceived = 0;
+        this.m_allReceived = new CountDownLatch(1);
+        if(numElements == 0){
+            this.m_allReceived.countDown();
+        }
+    }
+
+    @Override
+    protected void processDataElementFromMux(int muxIndex, Long dataElement) {
+        this.m_numReceived++;
+        if(this.m_numReceived == this.m_numElements){
+            this.m_allReceived.countDown();
+        }
+    }
+
+    @Override
+    protected void processDataChunkFromMux(List<RoutedChunk<Long>> dataChunk) {
+        long numReceived = this.m_numReceived;
+        for(RoutedChunk<Long> routedChunk : dataChunk){
+            numReceived += routedChunk.size();
+        }
+        if(this.m_numReceived < this.m_numElements && numReceived >= this.m_numElements){
+            this.m_allReceived.countDown();
+        }
+        this.m_numReceived = numReceived;
+    }
+
+    // Returns false if not all elements have been received within the provided timeout
+    public boolean awaitAllReceived(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.m_allReceived.await(timeout, unit);
+    }
+}
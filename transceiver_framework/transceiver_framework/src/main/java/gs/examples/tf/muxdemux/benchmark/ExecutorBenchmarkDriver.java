@@ -0,0 +1,318 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.examples.tf.muxdemux.benchmark;
+
+import gs.tf.core.ClosedMultiTaskChain;
+import gs.tf.core.CooperativeTaskExecutor;
+import gs.tf.core.FusedTransceiverTask;
+import gs.tf.core.GenericClosedMultiTaskChain;
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+import gs.tf.core.GenericMultiTransceiverTask;
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.MultiTask;
+import gs.tf.core.NotStartedException;
+import gs.tf.core.UnacceptedConcurrentTaskException;
+import gs.utils.Concurrency;
+import gs.utils.drivers.AbstractDriver;
+import gs.utils.json.JSONTypedArray;
+import gs.utils.json.JSONTypedObject;
+import gs.utils.queues.BlockingQueues;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Measures the time required to push a fixed number of elements through the muxdemux example topology
+// (source -> demux -> num_parallel_lanes transceivers -> mux -> target) for different executor services
+// (and, optionally, different queue types - see "queue_types").
+// Optionally, each lane consists of "num_stages" consecutive transceivers which are either executed as separate tasks or
+// fused into a single FusedTransceiverTask (see "fusion").
+// Runs can be repeated with credit based flow control enabled (see "credit_based_flow_control") and with different
+// mux scheduling policies (see "mux_scheduling_policies"). Optionally, the source only feeds the first "num_active_lanes"
+// lanes (e.g., to measure many mostly idle mux inputs).
+// Usage (no ManualResetLogManager required):
+//   java -cp <jar> gs.utils.mains.GenericMain <benchmark config json> gs.examples.tf.muxdemux.benchmark.ExecutorBenchmarkDriver
+// See './examples/transceiver_framework/muxdemux_benchmark/benchmark_config.json' for an example config.
+public class ExecutorBenchmarkDriver extends AbstractDriver<String> {
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutorBenchmarkDriver.class.getName());
+
+    public enum ExecutorType {
+        CACHED_THREAD_POOL,
+        VIRTUAL_THREAD_POOL,
+        COOPERATIVE;
+
+        public ExecutorService createExecutorService(){
+            switch(this){
+                case CACHED_THREAD_POOL:
+                    return Concurrency.ExceptionHandlerThreadPoolExecutor.newCachedThreadPoolExecutor();
+                case VIRTUAL_THREAD_POOL:
+                    return Concurrency.ExceptionHandlerThreadPoolExecutor.newVirtualThreadPoolExecutor();
+                case COOPERATIVE:
+                    return CooperativeTaskExecutor.newCooperativeTaskExecutor();
+                default:
+                    throw new IllegalStateException("Unknown executor type: " + this);
+            }
+        }
+    }
+
+    private volatile JSONTypedObject m_config;
+
+    @Override
+    protected void initialize2(String jsonPath) {
+        if(jsonPath == null){
+            throw new NullPointerException("Missing benchmark config json file path argument.");
+        }
+
+        byte[] readAllBytes;
+        try {
+            readAllBytes = java.nio.file.Files.readAllBytes(Paths.get(jsonPath));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        this.m_config = new JSONTypedObject(new String(readAllBytes));
+    }
+
+    @Override
+    protected void execute2() {
+        JSONTypedObject config = this.m_config;
+
+        JSONTypedArray executorsArray = config.getJSONTypedArray("executors");
+        List<ExecutorType> executorTypes = new ArrayList<>(executorsArray.length());
+        for(int i = 0; i < executorsArray.length(); i++){
+            executorTypes.add(ExecutorType.valueOf(executorsArray.getString(i)));
+        }
+        JSONTypedArray lanesArray = config.getJSONTypedArray("num_parallel_lanes");
+        List<Integer> numLanesList = new ArrayList<>(lanesArray.length());
+        for(int i = 0; i < lanesArray.length(); i++){
+            numLanesList.add(lanesArray.getInt(i));
+        }
+        // Optional
+        List<BlockingQueues.QueueType> queueTypes = new ArrayList<>();
+        if(config.containsKey("queue_types")){
+            JSONTypedArray queueTypesArray = config.getJSONTypedArray("queue_types");
+            for(int i = 0; i < queueTypesArray.length(); i++){
+                queueTypes.add(BlockingQueues.QueueType.valueOf(queueTypesArray.getString(i)));
+            }
+        }
+        else{
+            queueTypes.add(BlockingQueues.DEFAULT_QUEUE_TYPE);
+        }
+        int numStages = config.containsKey("num_stages") ? config.getInt("num_stages") : 1;
+        List<Boolean> fusionList = new ArrayList<>();
+        if(config.containsKey("fusion")){
+            JSONTypedArray fusionArray = config.getJSONTypedArray("fusion");
+            for(int i = 0; i < fusionArray.length(); i++){
+                fusionList.add(fusionArray.getBoolean(i));
+            }
+        }
+        else{
+            fusionList.add(false);
+        }
+        List<Boolean> creditsList = new ArrayList<>();
+        if(config.containsKey("credit_based_flow_control")){
+            JSONTypedArray creditsArray = config.getJSONTypedArray("credit_based_flow_control");
+            for(int i = 0; i < creditsArray.length(); i++){
+                creditsList.add(creditsArray.getBoolean(i));
+            }
+        }
+        else{
+            creditsList.add(false);
+        }
+        List<GenericMuxMultiReceiverTask.SchedulingPolicy> muxPolicies = new ArrayList<>();
+        if(config.containsKey("mux_scheduling_policies")){
+            JSONTypedArray muxPoliciesArray = config.getJSONTypedArray("mux_scheduling_policies");
+            for(int i = 0; i < muxPoliciesArray.length(); i++){
+                muxPolicies.add(GenericMuxMultiReceiverTask.SchedulingPolicy.valueOf(muxPoliciesArray.getString(i)));
+            }
+        }
+        else{
+            muxPolicies.add(GenericMuxMultiReceiverTask.SchedulingPolicy.READY_ROUND_ROBIN);
+        }
+        // Optional, null: All lanes active
+        Integer numActiveLanes = config.containsKey("num_active_lanes") ? config.getInt("num_active_lanes") : null;
+        long numElements = config.getLong("num_elements");
+        int maxDataChunkSize = config.getInt("max_data_chunk_size");
+        int inQueueCapacity = config.getInt("in_queue_capacity");
+        int warmupRuns = config.getInt("warmup_runs");
+        int measuredRuns = config.getInt("measured_runs");
+        long timeout = config.getLong("timeout");
+        String resultCSVFile = config.getString("result_csv_file");
+
+        if(executorTypes.isEmpty() || numLanesList.isEmpty() || queueTypes.isEmpty() || numStages < 1 || fusionList.isEmpty() || creditsList.isEmpty() || muxPolicies.isEmpty() ||
+                (numActiveLanes != null && numActiveLanes < 1) || numElements < 1 || warmupRuns < 0 || measuredRuns < 1 || timeout < 1){
+            throw new IllegalArgumentException("Invalid benchmark config.");
+        }
+
+        File directory = new File(Paths.get(resultCSVFile).toAbsolutePath().getParent().toString());
+        if(!directory.exists() && !directory.mkdirs()){
+            throw new RuntimeException(new IOException("Could not create directories: " + directory));
+        }
+
+        try(BufferedWriter resultWriter = new BufferedWriter(new FileWriter(resultCSVFile, false))) {
+            resultWriter.write("executor, queue_type, num_stages, fused, credit_based_flow_control, mux_scheduling_policy, num_parallel_lanes, num_active_lanes, run, num_elements, elapsed_ms, elements_per_second, shutdown_ms, peak_platform_threads");
+            for(ExecutorType executorType : executorTypes){
+                for(BlockingQueues.QueueType queueType : queueTypes){
+                    for(boolean fused : fusionList){
+                        for(boolean credits : creditsList) {
+                            for(GenericMuxMultiReceiverTask.SchedulingPolicy muxPolicy : muxPolicies) {
+                                for (int numLanes : numLanesList) {
+                                    int activeLanes = numActiveLanes == null ? numLanes : Math.min(numActiveLanes, numLanes);
+                                    for (int run = -warmupRuns; run < measuredRuns; run++) {
+                                        RunResult result = this.executeRun(executorType, queueType, numStages, fused, credits, muxPolicy,
+                                                numLanes, activeLanes, numElements, maxDataChunkSize, inQueueCapacity, timeout);
+                                        String line = executorType + ", " +
+                                                queueType + ", " +
+                                                numStages + ", " +
+                                                fused + ", " +
+                                                credits + ", " +
+                                                muxPolicy + ", " +
+                                                numLanes + ", " +
+                                                activeLanes + ", " +
+                                                (run < 0 ? "warmup" : Integer.toString(run)) + ", " +
+                                                numElements + ", " +
+                                                TimeUnit.NANOSECONDS.toMillis(result.m_elapsedNanos) + ", " +
+                                                Math.round(numElements / (result.m_elapsedNanos / 1e9)) + ", " +
+                                                TimeUnit.NANOSECONDS.toMillis(result.m_shutdownNanos) + ", " +
+                                                result.m_peakPlatformThreads;
+                                        LOGGER.info(line);
+                                        if (run >= 0) {
+                                            resultWriter.newLine();
+                                            resultWriter.write(line);
+                                            resultWriter.flush();
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error during writing of benchmark results.", e);
+        }
+    }
+
+    private static class RunResult {
+        private final long m_elapsedNanos;
+        private final long m_shutdownNanos;
+        private final int m_peakPlatformThreads;
+
+        private RunResult(long elapsedNanos, long shutdownNanos, int peakPlatformThreads){
+            this.m_elapsedNanos = elapsedNanos;
+            this.m_shutdownNanos = shutdownNanos;
+            this.m_peakPlatformThreads = peakPlatformThreads;
+        }
+    }
+
+    private RunResult executeRun(ExecutorType executorType,
+                                 BlockingQueues.QueueType queueType,
+                                 int numStages,
+                                 boolean fused,
+                                 boolean creditBasedFlowControl,
+                                 GenericMuxMultiReceiverTask.SchedulingPolicy muxPolicy,
+                                 int numLanes,
+                                 int numActiveLanes,
+                                 long numElements,
+                                 int maxDataChunkSize,
+                                 int inQueueCapacity,
+                                 long timeout){
+        ExecutorService executorService = executorType.createExecutorService();
+
+        CountingSourceTransmitterTask source = new CountingSourceTransmitterTask(maxDataChunkSize, numLanes, numActiveLanes, numElements);
+        GenericDemuxMultiTransmitterTask<Long> demux = new GenericDemuxMultiTransmitterTask<>(
+                source, numLanes, maxDataChunkSize, inQueueCapacity, null, executorService);
+
+        List<MultiTask<?>> multiTransceivers = new ArrayList<>();
+        if(fused){
+            List<FusedTransceiverTask<Long, Long>> transceivers = new ArrayList<>(numLanes);
+            for(int i = 0; i < numLanes; i++){
+                List<ForwardingTransceiverTask> stages = new ArrayList<>(numStages);
+                for(int j = 0; j < numStages; j++){
+                    stages.add(new ForwardingTransceiverTask(inQueueCapacity, maxDataChunkSize, executorService));
+                }
+                transceivers.add(new FusedTransceiverTask<Long, Long>(stages, inQueueCapacity, null, executorService));
+            }
+            multiTransceivers.add(new GenericMultiTransceiverTask<>(transceivers, executorService));
+        }
+        else {
+            for(int j = 0; j < numStages; j++){
+                List<ForwardingTransceiverTask> transceivers = new ArrayList<>(numLanes);
+                for(int i = 0; i < numLanes; i++){
+                    transceivers.add(new ForwardingTransceiverTask(inQueueCapacity, maxDataChunkSize, executorService));
+                }
+                multiTransceivers.add(new GenericMultiTransceiverTask<>(transceivers, executorService));
+            }
+        }
+
+        CountingTargetReceiverTask target = new CountingTargetReceiverTask(inQueueCapacity, numLanes, numElements);
+        GenericMuxMultiReceiverTask<Long> mux = new GenericMuxMultiReceiverTask<>(
+                target, numLanes, maxDataChunkSize, inQueueCapacity, null, executorService);
+        mux.setSchedulingPolicy(muxPolicy);
+
+        List<MultiTask<?>> multiTasks = new ArrayList<>();
+        multiTasks.add(demux);
+        multiTasks.addAll(multiTransceivers);
+        multiTasks.add(mux);
+        Map<MultiTask<?>, Collection<MultiTask<?>>> dag = new HashMap<>();
+        for(int i = 0; i < multiTasks.size() - 1; i++){
+            dag.put(multiTasks.get(i), Collections.<MultiTask<?>>singletonList(multiTasks.get(i + 1)));
+        }
+        ClosedMultiTaskChain chain;
+        try {
+            chain = new GenericClosedMultiTaskChain(multiTasks, dag, executorService);
+        } catch (UnacceptedConcurrentTaskException e) {
+            throw new IllegalStateException(e);
+        }
+        chain.setQueueType(queueType);
+        chain.setCreditBasedFlowControl(creditBasedFlowControl);
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        long elapsedNanos;
+        long shutdownNanos;
+        try {
+            // Includes the start up of all tasks
+            long startNanos = System.nanoTime();
+            executorService.submit(chain);
+            if(!target.awaitAllReceived(timeout, TimeUnit.MILLISECONDS)){
+                throw new RuntimeException("Benchmark run with executor " + executorType + " and " + numLanes +
+                        " lanes did not finish within " + timeout + " ms.");
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+
+            chain.started().join();
+            long shutdownStartNanos = System.nanoTime();
+            chain.terminate(false);
+            chain.terminated().join();
+            shutdownNanos = System.nanoTime() - shutdownStartNanos;
+            executorService.shutdown();
+            if(!executorService.awaitTermination(timeout, TimeUnit.MILLISECONDS)){
+                throw new RuntimeException("Executor service did not terminate within " + timeout + " ms.");
+            }
+        } catch (InterruptedException | NotStartedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return new RunResult(elapsedNanos, shutdownNanos, threadMXBean.getPeakThreadCount());
+    }
+}
@@ -0,0 +1,44 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.examples.tf.muxdemux.benchmark;
+
+import gs.tf.core.AbstractTransceiverTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+// Forwards its input unchanged (i.e., only measures the framework's overhead per hop)
+public class ForwardingTransceiverTask extends AbstractTransceiverTask<Long, Long> {
+
+    // Thread safe since processDataElement(...) and getNextDataChunk() are executed by different threads
+    private final BlockingQueue<Long> m_buffer;
+
+    public ForwardingTransceiverTask(int inDataQueueCapacity,
+                                     int maxDataChunkSize,
+                                     ExecutorService executorService) {
+        super(inDataQueueCapacity, null, maxDataChunkSize, executorService);
+        this.m_buffer = new ArrayBlockingQueue<>(inDataQueueCapacity);
+    }
+
+    @Override
+    protected void processDataElement(Long dataElement) throws InterruptedException {
+        putToQueue(this.m_buffer, dataElement);
+    }
+
+    @Override
+    protected Collection<Long> getNextDataChunk() {
+        List<Long> result = new ArrayList<>(this.getMaxDataChunkSize());
+        this.m_buffer.drainTo(result, this.getMaxDataChunkSize());
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+
+package gs.examples.tf.remote;
+
+import gs.tf.core.AbstractReceiverTask;
+
+import java.util.logging.Logger;
+
+// Checks that the numbers emitted by a SequenceSourceTransmitterTask arrive completely and in order
+// (e.g., after having been sent to another JVM) and logs the number of received elements periodically.
+public class SequenceCheckingReceiverTask extends AbstractReceiverTask<Long> {
+
+    private static final Logger LOGGER = Logger.getLogger(SequenceCheckingReceiverTask.class.getName());
+
+    private final long m_logInterval;
+    // No volatile necessary, access only via Thread executing this task
+    private long m_expected;
+    private long m_numMismatches;
+
+    public SequenceCheckingReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval, long logInterval) {
+        super(inDataQueueCapacity, timeoutInterval);
+        if(logInterval < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_logInterval = logInterval;
+        this.m_expected = 0;
+        this.m_numMismatches = 0;
+    }
+
+    @Override
+    protected void processDataElement(Long dataElement) {
+        if(dataElement != this.m_expected){
+            this.m_numMismatches++;
+            LOGGER.warning("Receiver with ID " + this.getID() + " expected " + this.m_expected +
+                    " but received " + dataElement + ".");
+        }
+        this.m_expected = dataElement + 1;
+        if(this.m_expected % this.m_logInterval == 0){
+            LOGGER.info("Receiver with ID " + this.getID() + " received " + this.m_expected + " elements.");
+        }
+    }
+
+    @Override
+    protected void postWork() {
+        super.postWork();
+        LOGGER.info("Receiver with ID " + this.getID() + " received elements 0 to " + (this.m_expected - 1) +
+                " (" + this.m_numMismatches + " mismatches).");
+    }
+}
@@ -0,0 +1,53 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+
+package gs.examples.tf.remote;
+
+import gs.tf.core.AbstractTransmitterTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Emits the numbers 0, 1, 2, ... at a rate of (at most) elementsPerSecond elements per second
+public class SequenceSourceTransmitterTask extends AbstractTransmitterTask<Long> {
+
+    private final long m_elementsPerSecond;
+    // No volatile necessary, access only via Thread executing this task
+    private long m_startNanos;
+    private long m_nextElement;
+
+    public SequenceSourceTransmitterTask(int maxDataChunkSize, long elementsPerSecond) {
+        super(maxDataChunkSize);
+        if(elementsPerSecond < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_elementsPerSecond = elementsPerSecond;
+        this.m_startNanos = -1;
+        this.m_nextElement = 0;
+    }
+
+    @Override
+    protected Collection<Long> getNextDataChunk() {
+        long now = System.nanoTime();
+        if(this.m_startNanos < 0){
+            this.m_startNanos = now;
+        }
+        long due = (long) ((now - this.m_startNanos) / 1e9 * this.m_elementsPerSecond) + 1;
+        int chunkSize = (int) Math.min(this.getMaxDataChunkSize(), due - this.m_nextElement);
+        if(chunkSize <= 0){
+            return null;
+        }
+        List<Long> result = new ArrayList<>(chunkSize);
+        for(int i = 0; i < chunkSize; i++){
+            result.add(this.m_nextElement++);
+        }
+        return result;
+    }
+}
@@ -8,36 +8,109 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.tf.metrics.MetricsRegistry;
+import gs.tf.metrics.TaskMetrics;
 import gs.utils.Concurrency;
+import gs.utils.queues.BlockingQueues;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
+// Explicit locks instead of synchronized blocks: Threads blocking while holding a monitor
+// would pin the carrier thread if tasks are executed on virtual threads.
+// The life cycle itself is a lock-free state machine (see LifeCycleState): Status checks are single volatile reads.
 public abstract class AbstractConcurrentTask implements ConcurrentTask {
-    final Object WAIT_LOCK = new Object();
+
+    // TaskStatus plus the interrupt argument of the terminate(...) call that initiated termination (null if none yet).
+    // Valid transitions: NOT_STARTED -> RUNNING -> TERMINATING* -> TERMINATED*
+    // (and TERMINATING_INTERRUPT_PENDING -> TERMINATING_WITH_INTERRUPT).
+    private enum LifeCycleState {
+        NOT_STARTED(TaskStatus.NOT_STARTED, null),
+        RUNNING(TaskStatus.RUNNING, null),
+        TERMINATING(TaskStatus.TERMINATING, false),
+        // The run thread is about to be interrupted: It must not leave this task before
+        // the interrupt has been delivered (it might otherwise hit the next task executed by the same thread)
+        TERMINATING_INTERRUPT_PENDING(TaskStatus.TERMINATING, true),
+        TERMINATING_WITH_INTERRUPT(TaskStatus.TERMINATING, true),
+        TERMINATED(TaskStatus.TERMINATED, false),
+        TERMINATED_WITH_INTERRUPT(TaskStatus.TERMINATED, true);
+
+        private final TaskStatus m_taskStatus;
+        private final Boolean m_withInterrupt;
+
+        LifeCycleState(TaskStatus taskStatus, Boolean withInterrupt){
+            this.m_taskStatus = taskStatus;
+            this.m_withInterrupt = withInterrupt;
+        }
+    }
+
+    private final ReentrantLock WAIT_LOCK = new ReentrantLock();
+    private final Condition m_terminateCalledCondition = WAIT_LOCK.newCondition();
 
     private static final Logger LOGGER = Logger.getLogger(AbstractConcurrentTask.class.getName());
     private volatile Thread m_runThread;
 
     private final long m_id;
-    private final Object STATUS_LOCK;
-    // No volatile required -> access only via STATUS_LOCK
-    private TaskStatus m_status;
-    private Boolean m_terminateCalleddWithInterrupt;
+    private final AtomicReference<LifeCycleState> m_state;
+    // Completed upon the NOT_STARTED -> RUNNING and TERMINATING -> TERMINATED transitions respectively
+    // (or exceptionally if the run thread fails). Only exposed via read-only views (see started() and terminated()).
+    private final CompletableFuture<Void> m_started;
+    private final CompletableFuture<Void> m_terminated;
+    private final CompletableFuture<Void> m_startedView;
+    private final CompletableFuture<Void> m_terminatedView;
 
     private volatile String m_threadName;
     private volatile Long m_threadID;
 
+    private volatile IdleStrategy m_idleStrategy;
+    // True if the idle strategy was set on this instance directly (i.e., not inherited from an enclosing task)
+    private volatile boolean m_idleStrategyExplicitlySet;
+    // Non-null if this task is executed by a CooperativeTaskExecutor - replaces the idle strategy in that case
+    private volatile WorkSignal m_cooperativeScheduler;
+
+    private volatile BlockingQueues.QueueType m_queueType;
+    // True if the queue type was set on this instance directly (i.e., not inherited from an enclosing task)
+    private volatile boolean m_queueTypeExplicitlySet;
+
+    private volatile boolean m_creditBasedFlowControl;
+    // True if credit based flow control was enabled/disabled on this instance directly (i.e., not inherited from an enclosing task)
+    private volatile boolean m_creditBasedFlowControlExplicitlySet;
+
+    private final TaskMetrics m_metrics;
+    // Written once by runStart() (i.e., before any work chunk): Work is only timed if metrics are enabled upon start
+    private boolean m_timed;
+
     public AbstractConcurrentTask(){
         this.m_id = Concurrency.getNextID();
         if(this.m_id < 0){
             throw new RuntimeException("ID overflow occurred.");
         }
-        this.m_status = TaskStatus.NOT_STARTED;
-        this.STATUS_LOCK = new Object();
+        this.m_state = new AtomicReference<>(LifeCycleState.NOT_STARTED);
+        this.m_started = new CompletableFuture<>();
+        this.m_terminated = new CompletableFuture<>();
+        this.m_startedView = this.m_started.thenApply(Function.<Void>identity());
+        this.m_terminatedView = this.m_terminated.thenApply(Function.<Void>identity());
         this.m_threadName = null;
         this.m_threadID = null;
         this.m_runThread = null;
-        this.m_terminateCalleddWithInterrupt = null;
+        this.m_idleStrategy = IdleStrategies.defaultIdleStrategy();
+        this.m_idleStrategyExplicitlySet = false;
+        this.m_cooperativeScheduler = null;
+        this.m_queueType = BlockingQueues.DEFAULT_QUEUE_TYPE;
+        this.m_queueTypeExplicitlySet = false;
+        this.m_creditBasedFlowControl = false;
+        this.m_creditBasedFlowControlExplicitlySet = false;
+        this.m_metrics = new TaskMetrics(this.getClass().getName(), this.m_id);
+        this.m_timed = false;
     }
 
     @Override
@@ -45,12 +118,26 @@ public abstract class AbstractConcurrentTask implements ConcurrentTask {
         return m_id;
     }
 
+    // Always recorded, registered in MetricsRegistry upon start if enabled there (timings are only recorded if registered)
+    public final TaskMetrics getMetrics(){
+        return this.m_metrics;
+    }
+
+    // True if this task's work is timed in its metrics (see getMetrics())
+    protected final boolean isTimed(){
+        return this.m_timed;
+    }
+
+    // Records discarded elements in this task's metrics and as flight recorder event (reason: see FlightRecording)
+    protected final void discarded(long numElements, String reason){
+        this.m_metrics.discarded(numElements);
+        FlightRecording.discarded(this.getClass(), this.m_id, numElements, reason);
+    }
+
     // Note: Result is immediately outdated.
     @Override
     public final TaskStatus getTaskStatus() {
-        synchronized (this.STATUS_LOCK) {
-            return this.m_status;
-        }
+        return this.m_state.get().m_taskStatus;
     }
 
     // Note: Result is immediately outdated.
@@ -81,39 +168,278 @@ public abstract class AbstractConcurrentTask implements ConcurrentTask {
         return status == TaskStatus.TERMINATED;
     }
 
+    // Completes as soon as this task is running (i.e., as soon as isNotStarted() returns false).
+    // Completing the returned future has no effect on this task.
+    @Override
+    public final CompletableFuture<Void> started(){
+        return this.m_startedView;
+    }
+
+    // Completes as soon as this task has terminated (i.e., as soon as isTerminated() returns true).
+    // Completing the returned future has no effect on this task.
+    @Override
+    public final CompletableFuture<Void> terminated(){
+        return this.m_terminatedView;
+    }
+
     // Returns null if terminate has not been called yet
     protected Boolean terminateCalledWithInterrupt(){
-    	synchronized(this.STATUS_LOCK) {
-    		return this.m_terminateCalleddWithInterrupt;
-    	}
+        return this.m_state.get().m_withInterrupt;
     }
 
     @Override
     public final boolean terminate(boolean interrupt) throws NotStartedException{
-        assert(this.getTaskStatus() != null);
-
-        synchronized (this.STATUS_LOCK){
-            if(this.isTerminated() || this.isTerminating()){
+        LifeCycleState state;
+        do {
+            state = this.m_state.get();
+            if(state.m_taskStatus == TaskStatus.TERMINATING || state.m_taskStatus == TaskStatus.TERMINATED){
                 return false;
             }
-            else if(this.isRunning()){
-                this.m_status = TaskStatus.TERMINATING;
-                this.m_terminateCalleddWithInterrupt = interrupt;
-                if(interrupt) {
-                    this.m_runThread.interrupt();
-                }
-                synchronized (WAIT_LOCK) {
-                    WAIT_LOCK.notifyAll();
-                }
+            else if(state != LifeCycleState.RUNNING){
+                throw new NotStartedException();
+            }
+        } while(!this.m_state.compareAndSet(LifeCycleState.RUNNING,
+                interrupt ? LifeCycleState.TERMINATING_INTERRUPT_PENDING : LifeCycleState.TERMINATING));
 
-                return true;
+        if(interrupt) {
+            // Cooperatively executed tasks share their run thread with other tasks
+            // and stop at the next work chunk boundary instead
+            if(this.m_cooperativeScheduler == null) {
+                this.m_runThread.interrupt();
+            }
+            this.m_state.set(LifeCycleState.TERMINATING_WITH_INTERRUPT);
+        }
+        this.signalWork();
+
+        this.WAIT_LOCK.lock();
+        try {
+            this.m_terminateCalledCondition.signalAll();
+        }
+        finally {
+            this.WAIT_LOCK.unlock();
+        }
+        return true;
+    }
+
+    // Blocks until terminate(...) has been called. Used by tasks which merely manage other tasks.
+    final void awaitTerminateCall() throws InterruptedException {
+        this.WAIT_LOCK.lock();
+        try {
+            while(this.isRunning()){
+                this.m_terminateCalledCondition.await();
+            }
+        }
+        finally {
+            this.WAIT_LOCK.unlock();
+        }
+    }
+
+    // Sets the idle strategy of this task and of all tasks managed by it (see getManagedTasks()),
+    // unless the idle strategy of the latter has been set explicitly.
+    // Each task works on its own copy of the provided template.
+    @Override
+    public final void setIdleStrategy(IdleStrategy idleStrategy){
+        if(idleStrategy == null){
+            throw new NullPointerException();
+        }
+        this.applyIdleStrategy(idleStrategy, true);
+    }
+
+    private void applyIdleStrategy(IdleStrategy idleStrategy, boolean explicit){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Idle strategies should only be set when tasks have not started yet."));
+        }
+        if(explicit || !this.m_idleStrategyExplicitlySet) {
+            this.m_idleStrategy = idleStrategy.copy();
+            this.m_idleStrategyExplicitlySet = explicit;
+        }
+
+        for(ConcurrentTask task : this.getManagedTasks()){
+            if(task instanceof AbstractConcurrentTask){
+                ((AbstractConcurrentTask) task).applyIdleStrategy(idleStrategy, false);
             }
             else{
-                throw new NotStartedException();
+                task.setIdleStrategy(idleStrategy);
+            }
+        }
+    }
+
+    @Override
+    public final IdleStrategy getIdleStrategy(){
+        return this.m_idleStrategy;
+    }
+
+    // Sets the type of the internal data queues of this task and of all tasks managed by it (see getManagedTasks()),
+    // unless the queue type of the latter has been set explicitly.
+    @Override
+    public final void setQueueType(BlockingQueues.QueueType queueType){
+        if(queueType == null){
+            throw new NullPointerException();
+        }
+        this.applyQueueType(queueType, true);
+    }
+
+    private void applyQueueType(BlockingQueues.QueueType queueType, boolean explicit){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Queue types should only be set when tasks have not started yet."));
+        }
+        if(explicit || !this.m_queueTypeExplicitlySet) {
+            this.m_queueType = queueType;
+            this.m_queueTypeExplicitlySet = explicit;
+            this.recreateQueues(queueType);
+        }
+
+        for(ConcurrentTask task : this.getManagedTasks()){
+            if(task instanceof AbstractConcurrentTask){
+                ((AbstractConcurrentTask) task).applyQueueType(queueType, false);
+            }
+            else{
+                task.setQueueType(queueType);
             }
         }
     }
 
+    @Override
+    public final BlockingQueues.QueueType getQueueType(){
+        return this.m_queueType;
+    }
+
+    // Enables/disables credit based flow control for this task and all tasks managed by it (see getManagedTasks()),
+    // unless it has been enabled/disabled explicitly for the latter.
+    // If enabled, transmitters only fetch the next data chunk if their receiver has enough free capacity (i.e., credits)
+    // and receivers only process elements if the element consumers have free capacity (see AbstractReceiverTask.getProcessingCredits()).
+    // Tasks lacking credits idle instead of blocking and are signalled as soon as credits become available.
+    @Override
+    public final void setCreditBasedFlowControl(boolean creditBasedFlowControl){
+        this.applyCreditBasedFlowControl(creditBasedFlowControl, true);
+    }
+
+    private void applyCreditBasedFlowControl(boolean creditBasedFlowControl, boolean explicit){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Flow control should only be set when tasks have not started yet."));
+        }
+        if(explicit || !this.m_creditBasedFlowControlExplicitlySet) {
+            this.m_creditBasedFlowControl = creditBasedFlowControl;
+            this.m_creditBasedFlowControlExplicitlySet = explicit;
+        }
+
+        for(ConcurrentTask task : this.getManagedTasks()){
+            if(task instanceof AbstractConcurrentTask){
+                ((AbstractConcurrentTask) task).applyCreditBasedFlowControl(creditBasedFlowControl, false);
+            }
+            else{
+                task.setCreditBasedFlowControl(creditBasedFlowControl);
+            }
+        }
+    }
+
+    @Override
+    public final boolean isCreditBasedFlowControl(){
+        return this.m_creditBasedFlowControl;
+    }
+
+    // Replaces the (still empty) internal data queues of this task by queues of the provided type.
+    // Only called before this task has started: The queues are published to the run thread via task submission.
+    protected void recreateQueues(BlockingQueues.QueueType queueType){
+    }
+
+    // Wakes up the run thread of this task if it is currently idling.
+    // Should be called (from arbitrary threads) whenever new work for this task becomes available.
+    protected final void signalWork(){
+        WorkSignal cooperativeScheduler = this.m_cooperativeScheduler;
+        if(cooperativeScheduler != null){
+            cooperativeScheduler.signal();
+        }
+        else {
+            this.m_idleStrategy.signal();
+        }
+    }
+
+    // Called by CooperativeTaskExecutor upon submission: From then on, the task is not executed via run() anymore
+    // but via runStart(), runWorkQuantum(...) and runFinish(). Signals are forwarded to the provided scheduler.
+    final void setCooperativeScheduler(WorkSignal cooperativeScheduler){
+        assert(cooperativeScheduler != null);
+        if(!this.isNotStarted() || this.m_cooperativeScheduler != null){
+            throw new RuntimeException(new IllegalStatusException("Task has already been submitted."));
+        }
+        this.m_cooperativeScheduler = cooperativeScheduler;
+    }
+
+    // Returns false if doWorkChunk() is never expected to make progress (i.e., if this task only manages other tasks).
+    // Cooperatively executed tasks without work loop are only resumed upon termination.
+    protected boolean requiresWorkLoop(){
+        return true;
+    }
+
+    // Returns true if signalWork() is guaranteed to be called whenever new work for this task becomes available.
+    // Otherwise, cooperatively executed idle tasks are polled periodically.
+    protected boolean isSignalledOnNewWork(){
+        return false;
+    }
+
+    // Replacement for Thread.yield() in loops waiting for other tasks (e.g., for them to start or terminate).
+    // If the calling thread is a worker of a CooperativeTaskExecutor, the executor is notified first so that it
+    // can compensate for the blocked worker (the awaited task might otherwise never be executed).
+    protected static void yieldToOtherTasks(){
+        CooperativeTaskExecutor.beginBlocking();
+        Thread.yield();
+    }
+
+    // Replacement for while(task.isNotStarted()){ yieldToOtherTasks(); } (see yieldToOtherTasks())
+    protected static void awaitStarted(ConcurrentTask task){
+        awaitCompletion(task instanceof AbstractConcurrentTask ? ((AbstractConcurrentTask) task).m_started : task.started());
+    }
+
+    // Replacement for while(!task.isTerminated()){ yieldToOtherTasks(); } (see yieldToOtherTasks())
+    protected static void awaitTerminated(ConcurrentTask task){
+        awaitCompletion(task instanceof AbstractConcurrentTask ? ((AbstractConcurrentTask) task).m_terminated : task.terminated());
+    }
+
+    // Waits for all provided tasks at once
+    protected static void awaitAllStarted(Collection<? extends ConcurrentTask> tasks){
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        int i = 0;
+        for(ConcurrentTask task : tasks){
+            futures[i++] = task instanceof AbstractConcurrentTask ? ((AbstractConcurrentTask) task).m_started : task.started();
+        }
+        awaitCompletion(CompletableFuture.allOf(futures));
+    }
+
+    protected static void awaitAllTerminated(Collection<? extends ConcurrentTask> tasks){
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        int i = 0;
+        for(ConcurrentTask task : tasks){
+            futures[i++] = task instanceof AbstractConcurrentTask ? ((AbstractConcurrentTask) task).m_terminated : task.terminated();
+        }
+        awaitCompletion(CompletableFuture.allOf(futures));
+    }
+
+    // Throws a CompletionException if the awaited task failed. The interrupt flag of the calling thread is preserved.
+    static void awaitCompletion(CompletableFuture<?> future){
+        if(!future.isDone()){
+            CooperativeTaskExecutor.beginBlocking();
+            future.join();
+        }
+        else if(future.isCompletedExceptionally()){
+            future.join();
+        }
+    }
+
+    // Replacement for BlockingQueue.put(...) in task code (see yieldToOtherTasks()).
+    protected static <E> void putToQueue(BlockingQueue<E> queue, E element) throws InterruptedException {
+        CooperativeTaskExecutor.put(queue, element);
+    }
+
+    // Replacement for BlockingQueue.offer(..., timeout, unit) in task code (see yieldToOtherTasks()).
+    protected static <E> boolean offerToQueue(BlockingQueue<E> queue, E element, long timeout, TimeUnit unit) throws InterruptedException {
+        return CooperativeTaskExecutor.offer(queue, element, timeout, unit);
+    }
+
+    // Returns the tasks whose life cycle is controlled by this instance (i.e., which are started and terminated by it).
+    protected Collection<? extends ConcurrentTask> getManagedTasks(){
+        return Collections.emptyList();
+    }
+
     protected String getRunThreadName(){
         return this.m_threadName;
     }
@@ -128,6 +454,43 @@ public abstract class AbstractConcurrentTask implements ConcurrentTask {
 
     @Override
     public final void run(){
+        try {
+            this.runStart();
+
+            IdleStrategy idleStrategy = this.m_idleStrategy;
+            TaskMetrics metrics = this.m_metrics;
+            boolean timed = this.m_timed;
+            long startNanos = 0;
+            while (this.continueWorkLoop()) {
+                if(timed) {
+                    startNanos = System.nanoTime();
+                }
+                if (this.doWorkChunk()) {
+                    if(timed) {
+                        metrics.busy(System.nanoTime() - startNanos);
+                    }
+                    idleStrategy.reset();
+                }
+                else {
+                    idleStrategy.idle();
+                }
+            }
+
+            this.runFinish();
+        }
+        catch(RuntimeException | Error e){
+            this.runFailed(e);
+            throw e;
+        }
+    }
+
+    // Tasks waiting for this task via started() or terminated() would otherwise wait forever
+    final void runFailed(Throwable t){
+        this.m_started.completeExceptionally(t);
+        this.m_terminated.completeExceptionally(t);
+    }
+
+    final void runStart(){
         assert(this.getTaskStatus() != null);
         this.m_runThread = Thread.currentThread();
         this.m_threadName = this.m_runThread.getName();
@@ -136,41 +499,68 @@ public abstract class AbstractConcurrentTask implements ConcurrentTask {
                 "Classname: "+this.getClass().getName()+", ID: "+this.getID()+
                 ", Thread ID: "+ this.m_threadID+", Thread name: "+ this.m_threadName);
 
-        // Synchronized is enough here since there is only one instance
-        // that should be able to start / terminate this -> the corresponding TransmittersBoss instance.
-        synchronized (this.STATUS_LOCK) {
-            assert (this.isNotStarted());
-            this.m_status = TaskStatus.RUNNING;
-            assert (this.isRunning());
+        if(!this.m_state.compareAndSet(LifeCycleState.NOT_STARTED, LifeCycleState.RUNNING)){
+            throw new IllegalStateException("Task has already been started.");
         }
+        this.m_started.complete(null);
 
+        this.m_metrics.started();
+        FlightRecording.taskStarted(this.getClass(), this.m_id);
+        if(this.requiresWorkLoop()) {
+            this.m_timed = MetricsRegistry.isEnabled();
+            MetricsRegistry.register(this.m_metrics);
+        }
         this.preWork();
+    }
 
-        while (true) {
-            synchronized (this.STATUS_LOCK) {
-                if (this.isTerminating()) {
-                    break;
-                } else {
-                    assert (this.isRunning());
-                }
-            }
+    // Returns false if this task is terminating
+    private boolean continueWorkLoop(){
+        return this.m_state.get() == LifeCycleState.RUNNING;
+    }
 
-            this.doWorkChunk();
+    // Executes at most maxWorkChunks work chunks, stops early if one of them made no progress or if this task is terminating.
+    // Returns true if all executed work chunks made progress.
+    final boolean runWorkQuantum(int maxWorkChunks){
+        assert(maxWorkChunks > 0);
+        boolean timed = this.m_timed;
+        long startNanos = timed ? System.nanoTime() : 0;
+        long endNanos;
+        for(int i = 0; i < maxWorkChunks; i++){
+            if(!this.continueWorkLoop()){
+                return true;
+            }
+            if(!this.doWorkChunk()){
+                return false;
+            }
+            if(timed) {
+                endNanos = System.nanoTime();
+                this.m_metrics.busy(endNanos - startNanos);
+                startNanos = endNanos;
+            }
         }
+        return true;
+    }
 
-        assert (this.isTerminating());
+    final void runFinish(){
+        // The interrupt (if any) must be delivered before postWork() and before the run thread leaves this task
+        LifeCycleState state;
+        while((state = this.m_state.get()) == LifeCycleState.TERMINATING_INTERRUPT_PENDING){
+            Thread.yield();
+        }
+        assert(state.m_taskStatus == TaskStatus.TERMINATING);
         this.postWork();
+        this.m_metrics.finished();
+        FlightRecording.taskTerminated(this.getClass(), this.m_id, state.m_withInterrupt,
+                this.m_metrics.getRunNanos(), this.m_metrics.getDiscarded());
 
-
-        synchronized (this.STATUS_LOCK) {
-            assert (this.isTerminating());
-            this.m_status = TaskStatus.TERMINATED;
-        }
+        this.m_state.set(state.m_withInterrupt ? LifeCycleState.TERMINATED_WITH_INTERRUPT : LifeCycleState.TERMINATED);
         assert (this.isTerminated());
+        this.m_terminated.complete(null);
     }
 
     protected abstract void preWork();
-    protected abstract void doWorkChunk();
+    // Returns true if progress was made, false if the idle strategy should be applied before the next call.
+    protected abstract boolean doWorkChunk();
     protected abstract void postWork();
 
     @Override
@@ -11,7 +11,6 @@ package gs.tf.core;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -112,6 +111,16 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
         return this.m_taskIDSet;
     }
 	
+	@Override
+	protected Collection<? extends ConcurrentTask> getManagedTasks() {
+		return this.m_tasks;
+	}
+
+	@Override
+	protected boolean requiresWorkLoop() {
+		return false;
+	}
+
 	@Override
 	protected void preWork() {
 		assert(this.isRunning());
@@ -119,7 +128,7 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
 			throw new RuntimeException(new MissingConnectionException());
 		}
 		
-		// start all tasks and wait for them to leave "isNotStarted state"
+		// start all tasks (without waiting for them to leave "isNotStarted state" - this happens in postWork())
 		List<TASK_TYPE> nonStartedTasks = new ArrayList<>(this.m_tasks);
 
 		assert(nonStartedTasks.size() == this.m_taskIDSet.size());
@@ -131,30 +140,15 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
 			}
 			this.m_executorService.submit(task);
 		}
-
-		TASK_TYPE task;
-		Iterator<TASK_TYPE> it;
-		while(nonStartedTasks.size() > 0){
-			it = nonStartedTasks.iterator();
-			while(it.hasNext()){
-				task = it.next();
-				if(!task.isNotStarted()){
-					it.remove();
-				}
-			}
-			Thread.yield();
-		}
 	}
 
 	@Override
-    protected final void doWorkChunk() {
+    protected final boolean doWorkChunk() {
         InterruptedException interruptException = null;
-		synchronized (WAIT_LOCK) {
-            try {
-                WAIT_LOCK.wait();
-            } catch (InterruptedException e) {
-                interruptException = e;
-            }
+        try {
+            this.awaitTerminateCall();
+        } catch (InterruptedException e) {
+            interruptException = e;
         }
         if(interruptException != null) {
             Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
@@ -162,6 +156,8 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
                 throw new IllegalStateException("Thread should only be interrupted during termination.", interruptException);
             }
         }
+        // Waiting on WAIT_LOCK already is the idle phase of this task
+        return true;
 	}
 
 	@Override
@@ -169,6 +165,7 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
 		// terminate all tasks and wait for them to actually terminate
         assert(this.terminateCalledWithInterrupt() != null);
         List<TASK_TYPE> runningTasks = new ArrayList<>(this.m_tasks);
+        awaitAllStarted(runningTasks);
         for(TASK_TYPE task : runningTasks) {
             if(!task.isRunning()) {
             	throw new IllegalStateException("Tasks managed by this instance should only be started and terminated by the same.");
@@ -181,18 +178,8 @@ public abstract class AbstractMultiTask<TASK_TYPE extends ConcurrentTask>
             }
         }
 
-        TASK_TYPE task;
-        Iterator<TASK_TYPE> it;
-        while(runningTasks.size() > 0){
-            it = runningTasks.iterator();
-            while(it.hasNext()){
-            	task = it.next();
-                if(task.isTerminated()){
-                    it.remove();
-                }
-            }
-            Thread.yield();
-        }
+        // All tasks terminate in parallel
+        awaitAllTerminated(runningTasks);
 	}
 	
 
@@ -8,17 +8,25 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.tf.metrics.LatencyTraceStatistics;
+import gs.tf.metrics.LatencyTracing;
+import gs.tf.metrics.TaskMetrics;
+import gs.utils.queues.BlockingQueues;
+import gs.utils.queues.SpillingBlockingQueue;
+import gs.utils.serialization.ElementSerializer;
+
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
 import java.util.logging.Logger;
 
 public abstract class AbstractReceiverTask<DATA_IN_TYPE>
@@ -32,31 +40,57 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
     private final ReentrantLock CONNECTION_LOCK;
     // No volatile required - access only via CONNECTION_LOCK
     private TransmitterTask<? extends DATA_IN_TYPE> m_transmitterTask;
-    private final BlockingQueue<DATA_IN_TYPE> m_inQueue;
+    private final Integer m_inDataQueueCapacity;
+    // No volatile required - only replaced before this task has started (see recreateQueues(...))
+    private BlockingQueue<DATA_IN_TYPE> m_inQueue;
 
-    private final Object IN_QUEUE_LOCK;
+    // Null: No spilling (default). No volatile required - only set before this task has started (see setSpilling(...))
+    private ElementSerializer<DATA_IN_TYPE> m_spillSerializer;
+    private Path m_spillDirectory;
+    private int m_spillSegmentSize;
+    private long m_maxSpillBytes;
+
+    // Explicit lock since adding to the in queue may block
+    private final ReentrantLock IN_QUEUE_LOCK;
 
     private final Long m_timeoutInterval;
     // No volatile required - access only via IN_QUEUE_LOCK
     private boolean m_lastWasTimeout;
 
+    // Default upper bound for the number of elements passed to processDataChunk(...) at once
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private volatile int m_maxBatchSize;
+    // Reused for each batch. No volatile required - access only via Thread executing this task
+    private final ArrayList<DATA_IN_TYPE> m_batch;
+
+    // Transmitters (or receivers, see getProcessingCredits()) waiting for credits of this instance
+    private final CreditWaiters m_creditWaiters;
+    private final CreditStallStatistics m_processingStallStatistics;
+
+    // Null: No work stealing (default). No volatile required - only set before this task has started (see setWorkStealingGroup(...))
+    private WorkStealingGroup m_workStealingGroup;
+    private int m_workStealingIndex;
+
+    // Only set by the run thread, see getOrCreateLatencyTraceStatistics()
+    private volatile LatencyTraceStatistics m_latencyTraceStatistics;
+
     // If *dataQueueCapacity is null, the respective internal BlockingQueue is initialized as LinkedBlockingQueue.
-    // Otherwise it is initialized as an ArrayBlockingQueue with the provided capacity.
+    // Otherwise it is initialized as an ArrayBlockingQueue with the provided capacity
+    // (other queue types can be selected via setQueueType(...)).
     public AbstractReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval) {
         super();
 
-        if(inDataQueueCapacity == null){
-            this.m_inQueue = new LinkedBlockingQueue<>();
-        }
-        else{
-            if(inDataQueueCapacity < 1){
-                throw new IllegalArgumentException();
-            }
-
-            this.m_inQueue = new ArrayBlockingQueue<>(inDataQueueCapacity, true);
+        if(inDataQueueCapacity != null && inDataQueueCapacity < 1){
+            throw new IllegalArgumentException();
         }
+        this.m_inDataQueueCapacity = inDataQueueCapacity;
+        this.m_spillSerializer = null;
+        this.m_spillDirectory = null;
+        this.m_spillSegmentSize = 0;
+        this.m_maxSpillBytes = 0;
+        this.m_inQueue = this.createInQueue(this.getQueueType());
         
-        this.IN_QUEUE_LOCK = new Object();
+        this.IN_QUEUE_LOCK = new ReentrantLock();
 
         if(timeoutInterval != null && timeoutInterval < 0){
             throw new IllegalArgumentException();
@@ -64,6 +98,104 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
         this.m_lastWasTimeout = false;
         this.m_timeoutInterval = timeoutInterval;
         this.CONNECTION_LOCK = new ReentrantLock(true);
+        this.m_maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        this.m_batch = new ArrayList<>();
+        this.m_creditWaiters = new CreditWaiters();
+        this.m_processingStallStatistics = new CreditStallStatistics();
+        this.m_workStealingGroup = null;
+        this.m_workStealingIndex = -1;
+        this.m_latencyTraceStatistics = null;
+        this.getMetrics().setQueueDepthGauge(new IntSupplier() {
+            @Override
+            public int getAsInt() {
+                return AbstractReceiverTask.this.getInQueueSize();
+            }
+        });
+    }
+
+    // A max batch size of 1 results in per element processing (i.e., one status check per element).
+    public final void setMaxBatchSize(int maxBatchSize){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Max batch size should only be set when tasks have not started yet."));
+        }
+        if(maxBatchSize < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_maxBatchSize = maxBatchSize;
+    }
+
+    public final int getMaxBatchSize(){
+        return this.m_maxBatchSize;
+    }
+
+    // Enables spilling (see SpillingBlockingQueue): Elements exceeding the input data queue capacity are appended to
+    // memory-mapped segment files (of segmentSize bytes) in spillDirectory and replayed in order once this task has
+    // caught up. Adding to the input data queue only blocks (or discards elements after the timeout interval) if the
+    // spilled elements would exceed maxSpillBytes. Requires a bounded input data queue, the queue type
+    // (see setQueueType(...)) is ignored for the input data queue while spilling is enabled.
+    // A null serializer disables spilling.
+    public final void setSpilling(ElementSerializer<DATA_IN_TYPE> serializer, Path spillDirectory, int segmentSize, long maxSpillBytes){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Spilling should only be set when tasks have not started yet."));
+        }
+        if(serializer != null){
+            if(spillDirectory == null){
+                throw new NullPointerException();
+            }
+            if(this.m_inDataQueueCapacity == null){
+                throw new IllegalStateException("Spilling requires a bounded input data queue.");
+            }
+        }
+        this.m_spillSerializer = serializer;
+        this.m_spillDirectory = spillDirectory;
+        this.m_spillSegmentSize = segmentSize;
+        this.m_maxSpillBytes = maxSpillBytes;
+        assert(this.m_inQueue.isEmpty());
+        this.m_inQueue = this.createInQueue(this.getQueueType());
+    }
+
+    public final boolean isSpilling(){
+        return this.m_spillSerializer != null;
+    }
+
+    private BlockingQueue<DATA_IN_TYPE> createInQueue(BlockingQueues.QueueType queueType){
+        if(this.m_spillSerializer != null){
+            return new SpillingBlockingQueue<>(this.m_inDataQueueCapacity, this.m_spillSerializer, this.m_spillDirectory,
+                    this.m_spillSegmentSize, this.m_maxSpillBytes);
+        }
+        return this.createInQueue(queueType, this.m_inDataQueueCapacity);
+    }
+
+    // Creates the non-spilling input queue (capacity: null if unbounded). Overridden by receivers whose input elements
+    // bundle several data elements (see GenericDemuxMultiTransmitterTask and GenericMuxMultiReceiverTask), the capacity
+    // remains measured in data elements. Note: Called from the constructor, i.e., overrides must not access instance state.
+    BlockingQueue<DATA_IN_TYPE> createInQueue(BlockingQueues.QueueType queueType, Integer capacity){
+        return BlockingQueues.create(queueType, capacity);
+    }
+
+    // Null: No work stealing. See GenericMultiTransceiverTask.setWorkStealing(...)
+    final void setWorkStealingGroup(WorkStealingGroup workStealingGroup, int workStealingIndex){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Work stealing should only be set when tasks have not started yet."));
+        }
+        assert(workStealingGroup == null || (workStealingIndex >= 0 && workStealingIndex < workStealingGroup.size()));
+        this.m_workStealingGroup = workStealingGroup;
+        this.m_workStealingIndex = workStealingGroup == null ? -1 : workStealingIndex;
+    }
+
+    // Drains up to half of the queued elements (but at most maxElements) to the batch of a stealing member of this
+    // instance's work stealing group. The elements of batch must be processable by this instance.
+    @SuppressWarnings("unchecked")
+    final int drainForStealing(List<?> batch, int maxElements){
+        int numElements = Math.min(maxElements, (this.m_inQueue.size() + 1) / 2);
+        if(numElements < 1){
+            return 0;
+        }
+        numElements = this.m_inQueue.drainTo((List<? super DATA_IN_TYPE>) batch, numElements);
+        if(numElements > 0){
+            this.m_creditWaiters.signalAll();
+        }
+        return numElements;
     }
 
     @Override
@@ -139,17 +271,28 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
     // Blocking.
     @Override
     public final void addToInDataQueue(Collection<? extends DATA_IN_TYPE> dataSet) throws InterruptedException, IllegalStatusException {
-        synchronized (this.IN_QUEUE_LOCK) {
+        this.IN_QUEUE_LOCK.lock();
+        try {
             if(dataSet == null){
                 throw new NullPointerException();
             }
             if (!this.isRunning()){
                 throw new IllegalStatusException();
             }
+            if(LatencyTracing.isEnabled()){
+                LatencyTracer.stamp(dataSet, this, LatencyTracer.ENQUEUE);
+            }
             if(dataSet.size() > 0) {
                 if(this.m_timeoutInterval == null) {
+                    int put = 0;
                     for (DATA_IN_TYPE dataElement : dataSet) {
-                        this.m_inQueue.put(dataElement);
+                        // Only the blocking slow path is recorded as (potential) queue stall
+                        if(!this.m_inQueue.offer(dataElement)) {
+                            Object stall = FlightRecording.beginQueueStall();
+                            putToQueue(this.m_inQueue, dataElement);
+                            FlightRecording.endQueueStall(stall, this.getClass(), this.getID(), dataSet.size() - put, false);
+                        }
+                        put++;
                     }
                 }
                 else{
@@ -160,16 +303,20 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
                     		timeout = false;
                     	}
                     	else if(!this.m_lastWasTimeout){
-                    		timeout = !this.m_inQueue.offer(
+                    		Object stall = FlightRecording.beginQueueStall();
+                    		timeout = !offerToQueue(this.m_inQueue,
                     				dataElement, 
                     				this.m_timeoutInterval, 
-                    				TimeUnit.MILLISECONDS);                    		
+                    				TimeUnit.MILLISECONDS);
+                    		FlightRecording.endQueueStall(stall, this.getClass(), this.getID(), dataSet.size() - offered, timeout);
                     	}
 
                     	if(!timeout){
                     		offered++;
                     	}
                     	else {
+                    		this.discarded(dataSet.size() - offered, FlightRecording.REASON_TIMEOUT);
+                    		this.discardedInput(dataSet, offered);
                     		LOGGER.warning("Discarding "+(dataSet.size() - offered)+ " input elements due to timeout in "+
                     				this.getClass().getName()+", running in thread with ID "+this.getRunThreadID()+" and name "+
                     				this.getRunThreadName()+ ".");
@@ -178,18 +325,61 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
                     }
                     this.m_lastWasTimeout = timeout;
                 }
+                this.signalWork();
+                // A backlog indicates that this instance is busy
+                if(this.m_workStealingGroup != null && this.m_inQueue.size() > 1){
+                    this.m_workStealingGroup.signalIdleMember(this.m_workStealingIndex);
+                }
             }
         }
+        finally {
+            this.IN_QUEUE_LOCK.unlock();
+        }
     }
 
     // Blocking.
     @Override
     public final void addToInDataQueue(DATA_IN_TYPE dataElement) throws InterruptedException, IllegalStatusException {
-        synchronized (this.IN_QUEUE_LOCK) {
+        this.IN_QUEUE_LOCK.lock();
+        try {
             List<DATA_IN_TYPE> list = new ArrayList<>(1);
             list.add(dataElement);
             this.addToInDataQueue(list);
         }
+        finally {
+            this.IN_QUEUE_LOCK.unlock();
+        }
+    }
+
+    // Producers are serialized via IN_QUEUE_LOCK, hence single producer queues are sufficient
+    @Override
+    protected void recreateQueues(BlockingQueues.QueueType queueType) {
+        super.recreateQueues(queueType);
+        assert(this.m_inQueue.isEmpty());
+        this.m_inQueue = this.createInQueue(queueType);
+    }
+
+    @Override
+    public final int getAvailableCredits(){
+        return this.m_inQueue.remainingCapacity();
+    }
+
+    @Override
+    public final int getMaxCredits(){
+        return this.m_inDataQueueCapacity == null ? Integer.MAX_VALUE : this.m_inDataQueueCapacity;
+    }
+
+    // Returns the available credits if at least requiredCredits are available. Otherwise, 0 is returned and
+    // waiter is signalled as soon as this instance has consumed elements.
+    final int acquireCredits(AbstractConcurrentTask waiter, int requiredCredits){
+        int credits = this.m_inQueue.remainingCapacity();
+        if(credits >= requiredCredits){
+            return credits;
+        }
+        this.m_creditWaiters.register(waiter);
+        // Re-check: Elements might have been consumed before registration
+        credits = this.m_inQueue.remainingCapacity();
+        return credits >= requiredCredits ? credits : 0;
     }
 
     @Override
@@ -207,6 +397,9 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
         // No connection lock synchronization required because implicit 
         // happens-after synchronization happened in hasInConnection()
         assert(!(this.m_transmitterTask instanceof AbstractTransceiverTask));
+        if(this.m_workStealingGroup != null && !BlockingQueues.isMultiConsumer(this.getQueueType())){
+            throw new IllegalStateException("Work stealing requires a multi consumer queue type (queue type: " + this.getQueueType() + ").");
+        }
 
         // Check predecessors to ensure no cycles present
         // ... but only if this receiver is a leaf/sink (i.e., not part of a transceiver)
@@ -251,37 +444,60 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
     
     // Blocking, but only for short time: Until m_inQueue is unlocked.
     @Override
-    protected final void doWorkChunk(){
-        if(this.m_inQueue.size() > 0) {
-            DATA_IN_TYPE nextElem;
-            try {
-                nextElem = this.m_inQueue.take();
-            } catch (InterruptedException e) {
-                Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
-                if(terminatedWithInterrupt == null || !terminatedWithInterrupt){
-                    throw new IllegalStateException("Thread should only be interrupted during termination.");
-                }
-                else{
-                    LOGGER.warning("Discarding unprocessed element due to interrupt-termination.");
-                    return;
+    protected final boolean doWorkChunk(){
+        int maxBatchSize = this.m_maxBatchSize;
+        if(this.isCreditBasedFlowControl()){
+            int credits = this.getProcessingCredits();
+            if(credits < 1){
+                if(!this.m_inQueue.isEmpty()) {
+                    this.m_processingStallStatistics.stalled();
                 }
+                return false;
             }
+            this.m_processingStallStatistics.resumed();
+            maxBatchSize = Math.min(maxBatchSize, credits);
+        }
 
+        int numElements = this.m_inQueue.drainTo(this.m_batch, maxBatchSize);
+        if(numElements == 0 && this.m_workStealingGroup != null){
+            numElements = this.m_workStealingGroup.steal(this.m_workStealingIndex, this.m_batch, maxBatchSize);
+        }
+        if(numElements > 0) {
+            this.m_creditWaiters.signalAll();
+            boolean latencyTracing = LatencyTracing.isEnabled();
+            if(latencyTracing){
+                LatencyTracer.stamp(this.m_batch, this, LatencyTracer.DEQUEUE);
+            }
+            TaskMetrics metrics = this.getMetrics();
+            boolean timed = this.isTimed();
+            long startNanos = timed ? System.nanoTime() : 0;
             try {
-                this.processDataElement(nextElem);
+                int numDataElements = this.processBatch();
+                if(timed) {
+                    metrics.processed(numDataElements, System.nanoTime() - startNanos);
+                }
+                else {
+                    metrics.processed(numDataElements);
+                }
+                if(latencyTracing && this.endsLatencyTraces()){
+                    LatencyTracer.finish(this.m_batch, this, this.getOrCreateLatencyTraceStatistics());
+                }
             } catch (InterruptedException e) {
                 Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
                 if(terminatedWithInterrupt == null || !terminatedWithInterrupt){
                     throw new IllegalStateException("Thread should only be interrupted during termination.");
                 }
                 else{
-                    LOGGER.warning("Discarding unprocessed element due to interrupt-termination.");
-                    return;
+                    LOGGER.warning("Discarding unprocessed elements of current batch due to interrupt-termination.");
+                    return true;
                 }
+            } finally {
+                this.m_batch.clear();
             }
+            return true;
         }
         else{
-            Thread.yield();
+            return false;
         }
     }
 
@@ -297,28 +513,91 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
 
         assert(this.terminateCalledWithInterrupt() != null);
         if(!this.terminateCalledWithInterrupt()) {
-            while (this.m_inQueue.size() > 0) {
-                DATA_IN_TYPE nextElem;
-                try {
-                    nextElem = this.m_inQueue.take();
-                } catch (InterruptedException e) {
-                    throw new IllegalStateException("No interrupt should happen at this point.", e);
-                }
+            // Remaining elements are processed regardless of credits (i.e., processing might block)
+            TaskMetrics metrics = this.getMetrics();
+            boolean timed = this.isTimed();
+            long startNanos;
+            while (this.m_inQueue.drainTo(this.m_batch, this.m_maxBatchSize) > 0) {
+                this.m_creditWaiters.signalAll();
+                startNanos = timed ? System.nanoTime() : 0;
                 try {
-                    this.processDataElement(nextElem);
+                    int numDataElements = this.processBatch();
+                    if(timed) {
+                        metrics.processed(numDataElements, System.nanoTime() - startNanos);
+                    }
+                    else {
+                        metrics.processed(numDataElements);
+                    }
                 } catch (InterruptedException e) {
                     throw new IllegalStateException("No interrupt should happen at this point.", e);
+                } finally {
+                    this.m_batch.clear();
                 }
             }
         }
         else{
-            ArrayList<DATA_IN_TYPE> remainingData = new ArrayList<>(this.m_inQueue.size());
-            this.m_inQueue.drainTo(remainingData);
-            if(remainingData.size() > 0) {
-                LOGGER.warning("Discarding " + remainingData.size() + " elements due to interrupt-termination.");
+            // No producers left (the transmitter has terminated). Note: Spilled elements are discarded without replaying them.
+            int numRemaining;
+            if(this.isSpilling()) {
+                numRemaining = this.m_inQueue.size();
+                this.m_inQueue.clear();
+            }
+            else {
+                List<DATA_IN_TYPE> remaining = new ArrayList<>(this.m_inQueue.size());
+                numRemaining = this.m_inQueue.drainTo(remaining);
+                this.discardedInput(remaining, 0);
+            }
+            if(numRemaining > 0) {
+                this.discarded(numRemaining, FlightRecording.REASON_INTERRUPT);
+                LOGGER.warning("Discarding " + numRemaining + " elements due to interrupt-termination.");
             }
             assert(this.m_inQueue.isEmpty());
         }
+        if(this.isSpilling()){
+            // Deletes the spill segment files
+            this.m_inQueue.clear();
+        }
+        this.m_creditWaiters.signalAll();
+
+        if(this.m_processingStallStatistics.getNumStalls() > 0) {
+            LOGGER.config("Processing credit stalls of " + this.getClass().getName() + " with ID " + this.getID() + ": " +
+                    this.m_processingStallStatistics + ".");
+        }
+        if(this.m_latencyTraceStatistics != null) {
+            LOGGER.info(this.m_latencyTraceStatistics.toString());
+        }
+    }
+
+    // Called with the input elements discarded due to timeout (by the producing thread) or interrupt-termination
+    // (not called for spilling queues): All elements of dataSet from position fromIndex on have been discarded.
+    // Intended for internal receivers which track elements in flight.
+    void discardedInput(Collection<? extends DATA_IN_TYPE> dataSet, int fromIndex){
+    }
+
+    // Returns false for receivers which only pass elements on to other tasks (e.g., internal receivers of transceivers).
+    // Traces of elements processed by other receivers are completed and aggregated (see LatencyTracing).
+    boolean endsLatencyTraces(){
+        return true;
+    }
+
+    // Run thread only: Created upon the first processed chunk while latency tracing is enabled
+    private LatencyTraceStatistics getOrCreateLatencyTraceStatistics(){
+        if(this.m_latencyTraceStatistics == null){
+            this.m_latencyTraceStatistics = new LatencyTraceStatistics(LatencyTracer.getSinkName(this));
+            LatencyTracing.register(this.m_latencyTraceStatistics);
+        }
+        return this.m_latencyTraceStatistics;
+    }
+
+    // Null if this task has not completed any latency traces (yet)
+    public final LatencyTraceStatistics getLatencyTraceStatistics(){
+        return this.m_latencyTraceStatistics;
+    }
+
+    // New input always arrives via addToInDataQueue(...)
+    @Override
+    protected final boolean isSignalledOnNewWork(){
+        return true;
     }
 
     @Override
@@ -326,9 +605,74 @@ public abstract class AbstractReceiverTask<DATA_IN_TYPE>
         return this.m_inQueue.size();
     }
 
+    // Only relevant if credit based flow control is enabled: Returns the max number of elements that can currently be
+    // processed without blocking (e.g., the free capacity of the queues filled by processDataElement(...)).
+    // If the result is 0, the caller of this method must be signalled (via signalProcessingCredits() or by a
+    // receiver registered via AbstractTransmitterTask.acquireReceiverCredits(...)) as soon as credits become available.
+    protected int getProcessingCredits(){
+        return Integer.MAX_VALUE;
+    }
+
+    // Should be called by consumers of the elements produced by processDataElement(...) whenever they have
+    // consumed elements (see getProcessingCredits())
+    protected final void signalProcessingCredits(){
+        if(this.isCreditBasedFlowControl()){
+            this.signalWork();
+        }
+    }
+
+    public final CreditStallStatistics getProcessingStallStatistics(){
+        return this.m_processingStallStatistics;
+    }
+
+    // Passes the data elements of the current batch to processDataChunk(...) and its watermarks to processWatermark(...)
+    // (in arrival order). Returns the number of data elements.
+    private int processBatch() throws InterruptedException {
+        List<DATA_IN_TYPE> batch = this.m_batch;
+        int batchSize = batch.size();
+        int from = 0;
+        int numWatermarks = 0;
+        for(int i = 0; i < batchSize; i++){
+            if(this.isWatermark(batch.get(i))){
+                if(i > from){
+                    this.processDataChunk(batch.subList(from, i));
+                }
+                this.processWatermark(batch.get(i));
+                from = i + 1;
+                numWatermarks++;
+            }
+        }
+        if(from == 0){
+            this.processDataChunk(batch);
+        }
+        else if(from < batchSize){
+            this.processDataChunk(batch.subList(from, batchSize));
+        }
+        return batchSize - numWatermarks;
+    }
+
+    // Overridden by receivers whose input elements bundle several data elements (see RoutedChunk.isWatermark())
+    boolean isWatermark(DATA_IN_TYPE dataElement){
+        return dataElement instanceof Watermark;
+    }
+
+    // Called instead of processDataElement(...) for each received watermark (see Watermark), in order w.r.t. the data
+    // elements. By default, watermarks are discarded. Overridden by receivers passing elements on to other tasks.
+    protected void processWatermark(DATA_IN_TYPE watermark) throws InterruptedException {
+    }
+
     // No blocking.
     protected abstract void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException;
 
+    // Processes up to getMaxBatchSize() elements (in arrival order) at once. Override to amortize per element overhead.
+    // Never called with watermarks (see processWatermark(...)).
+    // Note: dataChunk is reused after this method returns and must therefore not be retained.
+    protected void processDataChunk(List<DATA_IN_TYPE> dataChunk) throws InterruptedException {
+        for(DATA_IN_TYPE dataElement : dataChunk){
+            this.processDataElement(dataElement);
+        }
+    }
+
     @Override
     public String toString(){
         return super.toString() + ", receiving from: "+(this.hasInConnection() ? this.getSourceTransmitterTask().getID() : null);
@@ -8,8 +8,14 @@
  
 package gs.tf.core;
 
+import gs.utils.serialization.ElementSerializer;
+
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
 	extends 
@@ -29,6 +35,12 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
             super(inDataQueueCapacity, timeoutInterval);            
         }
 
+        // Elements are passed on to the enclosing transceiver
+        @Override
+        boolean endsLatencyTraces(){
+            return false;
+        }
+
         public void setEnclosingTransceiverTask(AbstractTransceiverTask<DATA_IN_TYPE, ?> enclosingInstance) {
         	assert(enclosingInstance != null);
         	assert(enclosingInstance.getInternalReceiverTask() == this);
@@ -43,16 +55,48 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
         protected final void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException{
         	assert(this.m_enclosingInstance != null);
             this.m_enclosingInstance.processDataElement(dataElement);
+            // Processed element might have produced output for the internal transmitter
+            this.m_enclosingInstance.getInternalTransmitterTask().signalWork();
+        }
+
+        @Override
+        protected final void processDataChunk(List<DATA_IN_TYPE> dataChunk) throws InterruptedException {
+            assert(this.m_enclosingInstance != null);
+            this.m_enclosingInstance.processDataChunk(dataChunk);
+            this.m_enclosingInstance.getInternalTransmitterTask().signalWork();
+        }
+
+        @Override
+        protected final void processWatermark(DATA_IN_TYPE watermark) throws InterruptedException {
+            assert(this.m_enclosingInstance != null);
+            this.m_enclosingInstance.processWatermark(watermark);
+            this.m_enclosingInstance.getInternalTransmitterTask().signalWork();
+        }
+
+        @Override
+        protected final int getProcessingCredits(){
+            assert(this.m_enclosingInstance != null);
+            return this.m_enclosingInstance.getProcessingCredits();
         }
     }
 
     static class InternalTransmitterTask<DATA_OUT_TYPE> extends AbstractTransmitterTask<DATA_OUT_TYPE>{
 
     	private volatile AbstractTransceiverTask<?, DATA_OUT_TYPE> m_enclosingInstance;
+        // Watermark to be forwarded once the enclosing transceiver has no further output (see forwardWatermark(...)),
+        // null if none. Set by the internal receiver thread.
+        private final AtomicReference<DATA_OUT_TYPE> m_pendingWatermark;
     	    	
         public InternalTransmitterTask(        		
         		int maxDataChunkSize) {
             super(maxDataChunkSize);
+            this.m_pendingWatermark = new AtomicReference<>(null);
+        }
+
+        // Elements are produced by the enclosing transceiver
+        @Override
+        boolean startsLatencyTraces(){
+            return false;
         }
         
         public void setEnclosingTransceiverTask(AbstractTransceiverTask<?, DATA_OUT_TYPE> enclosingInstance) {
@@ -65,13 +109,54 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
         	return this.m_enclosingInstance;
         }
         
+        // A pending watermark is forwarded once the enclosing transceiver returned no output after the watermark had
+        // been set (i.e., all output produced for input preceding the watermark has been forwarded)
         @Override
         protected Collection<DATA_OUT_TYPE> getNextDataChunk() {
         	assert(this.m_enclosingInstance != null);            
-            return this.m_enclosingInstance.getNextDataChunk();
-        }        
+            DATA_OUT_TYPE watermark = this.m_pendingWatermark.get();
+            Collection<DATA_OUT_TYPE> result = this.m_enclosingInstance.getNextDataChunk();
+            if((result == null || result.isEmpty()) && watermark != null &&
+                    this.m_pendingWatermark.compareAndSet(watermark, null)){
+                return Collections.singletonList(watermark);
+            }
+            return result;
+        }
+
+        // A more recent pending watermark replaces the previous one
+        void setPendingWatermark(DATA_OUT_TYPE watermark){
+            this.m_pendingWatermark.set(watermark);
+        }
+
+        // Removes the pending watermark (see FusedTransceiverTask), null if none
+        DATA_OUT_TYPE pollPendingWatermark(){
+            return this.m_pendingWatermark.getAndSet(null);
+        }
+
+        // The internal receiver has terminated before this instance (see DelegatorTransceiverTask.postWork()):
+        // Forward output produced by it which has not been fetched yet.
+        @Override
+        protected void postWork() {
+            assert(this.terminateCalledWithInterrupt() != null);
+            if(!this.terminateCalledWithInterrupt()) {
+                Collection<DATA_OUT_TYPE> dataChunk;
+                while ((dataChunk = this.getNextDataChunk()) != null && dataChunk.size() > 0) {
+                    try {
+                        this.forwardToReceiver(dataChunk);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException("No interrupt should happen at this point.", e);
+                    } catch (IllegalStatusException e) {
+                        throw new RuntimeException("Should not happen here.", e);
+                    }
+                }
+            }
+            super.postWork();
+        }
     }
 
+    // See setFusionAllowed(...)
+    private volatile boolean m_fusionAllowed;
+
     public AbstractTransceiverTask(
     		Integer inDataQueueCapacity,
     		Long timeoutInterval,
@@ -84,6 +169,20 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
 
     	this.getInternalReceiverTask().setEnclosingTransceiverTask(this);
     	this.getInternalTransmitterTask().setEnclosingTransceiverTask(this);    	
+    	this.m_fusionAllowed = true;
+    }
+
+    // Determines whether this instance may be used as a stage of a FusedTransceiverTask.
+    public final void setFusionAllowed(boolean fusionAllowed){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Fusion should only be allowed/denied when tasks have not started yet."));
+        }
+        this.m_fusionAllowed = fusionAllowed;
+    }
+
+    // Override and return false if this transceiver does not meet the requirements listed in FusedTransceiverTask.
+    public boolean isFusionAllowed(){
+        return this.m_fusionAllowed;
     }
 
 
@@ -91,6 +190,44 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
     // If this method and getNextDataChunk() access a common field, said access must be synchronized!
     protected abstract void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException;
 
+    // Note: This method is called by internal receiver thread (see AbstractReceiverTask.processDataChunk(...))
+    protected void processDataChunk(List<DATA_IN_TYPE> dataChunk) throws InterruptedException {
+        for(DATA_IN_TYPE dataElement : dataChunk){
+            this.processDataElement(dataElement);
+        }
+    }
+
+    // Note: This method is called by internal receiver thread for each received watermark (see Watermark) instead of
+    // processDataElement(...). By default, the watermark is forwarded unchanged once all output produced for the
+    // preceding input has been fetched via getNextDataChunk(), i.e., watermarks must be valid output elements and output
+    // elements must not be smaller than the input elements they are produced for. Override otherwise (e.g., to drop
+    // watermarks or to forward a converted watermark via forwardWatermark(...)).
+    @SuppressWarnings("unchecked")
+    protected void processWatermark(DATA_IN_TYPE watermark) throws InterruptedException {
+        this.forwardWatermark((DATA_OUT_TYPE) watermark);
+    }
+
+    // Forwards the provided watermark once all output produced so far has been fetched via getNextDataChunk()
+    // (replaces a previously provided watermark which has not been forwarded yet)
+    protected final void forwardWatermark(DATA_OUT_TYPE watermark){
+        if(watermark == null){
+            throw new NullPointerException();
+        }
+        this.getInternalTransmitterTask().setPendingWatermark(watermark);
+    }
+
+    // Note: This method is called by internal receiver thread (see AbstractReceiverTask.getProcessingCredits())
+    // By default, input is only processed while the downstream receiver has enough credits for a full data chunk.
+    // Override (e.g., if the output of processDataElement(...) is buffered in internal queues) and call
+    // signalProcessingCredits() whenever credits become available.
+    protected int getProcessingCredits(){
+        return this.getInternalTransmitterTask().acquireReceiverCredits(this.getInternalReceiverTask());
+    }
+
+    protected final void signalProcessingCredits(){
+        this.getInternalReceiverTask().signalProcessingCredits();
+    }
+
     // Note: This method is called by internal transmitter thread 
     // Non blocking: Return either null or a collection of size zero to indicate no data available
     // Result size may not succeed getMaxDataChunkSize
@@ -99,15 +236,33 @@ public abstract class AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE>
     
     // Blocking
     // TODO make forward methods private, remove while(this.m_receiverTask.isNotStarted()) (this is already done in preWork()
-    protected final synchronized void forwardToReceiver(Collection<? extends DATA_OUT_TYPE> dataSet) throws InterruptedException, IllegalStatusException {
+    protected final void forwardToReceiver(Collection<? extends DATA_OUT_TYPE> dataSet) throws InterruptedException, IllegalStatusException {
         this.getInternalTransmitterTask().forwardToReceiver(dataSet);
     }
 
     // Blocking
-    protected final synchronized void forwardToReceiver(DATA_OUT_TYPE dataElement) throws InterruptedException, IllegalStatusException {
+    protected final void forwardToReceiver(DATA_OUT_TYPE dataElement) throws InterruptedException, IllegalStatusException {
        this.getInternalTransmitterTask().forwardToReceiver(dataElement);
     }
 
+    // See AbstractReceiverTask.setMaxBatchSize(...)
+    public final void setMaxBatchSize(int maxBatchSize){
+        this.getInternalReceiverTask().setMaxBatchSize(maxBatchSize);
+    }
+
+    public final int getMaxBatchSize(){
+        return this.getInternalReceiverTask().getMaxBatchSize();
+    }
+
+    // See AbstractReceiverTask.setSpilling(...)
+    public final void setSpilling(ElementSerializer<DATA_IN_TYPE> serializer, Path spillDirectory, int segmentSize, long maxSpillBytes){
+        this.getInternalReceiverTask().setSpilling(serializer, spillDirectory, segmentSize, maxSpillBytes);
+    }
+
+    public final boolean isSpilling(){
+        return this.getInternalReceiverTask().isSpilling();
+    }
+
     protected int getMaxDataChunkSize(){
         return this.getInternalTransmitterTask().getMaxDataChunkSize();
     }
@@ -8,7 +8,13 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.tf.metrics.LatencyTracing;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
@@ -18,6 +24,20 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
  // No volatile required - access only via CONNECTION_LOCK    
     private ReceiverTask<? super DATA_OUT_TYPE> m_receiverTask = null;
     private final int m_maxDataChunkSize;
+    // Serializes forwardToReceiver(...) calls (explicit lock since forwarding may block)
+    private final ReentrantLock FORWARD_LOCK;
+    // Set once the run thread has established that the receiver is connected and running:
+    // From then on, forwarding skips the connection and start up checks.
+    private volatile boolean m_receiverStarted;
+    // Stalls of the edge from this transmitter to its receiver due to missing receiver credits
+    private final CreditStallStatistics m_creditStallStatistics;
+    // Min. interval (ms) between watermarks appended to forwarded chunks (see createWatermark()), null if none.
+    // No volatile required - only set before this task has started (see setWatermarkInterval(...))
+    private Long m_watermarkInterval;
+    // No volatile required - access only via run thread
+    private long m_lastWatermarkTime;
+    // Forwarded elements since the last started latency trace. No volatile required - access only via FORWARD_LOCK
+    private int m_elementsSinceLastTrace;
 
     private static final Logger LOGGER = Logger.getLogger(AbstractTransmitterTask.class.getName());
 
@@ -29,6 +49,12 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
         }
         this.m_maxDataChunkSize = maxDataChunkSize;
         this.CONNECTION_LOCK = new ReentrantLock(true);
+        this.FORWARD_LOCK = new ReentrantLock();
+        this.m_receiverStarted = false;
+        this.m_creditStallStatistics = new CreditStallStatistics();
+        this.m_watermarkInterval = null;
+        this.m_lastWatermarkTime = -1;
+        this.m_elementsSinceLastTrace = 0;
     }
 
     @Override
@@ -104,48 +130,78 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
 
     // Blocking
     // TODO make forward methods private, remove while(this.m_receiverTask.isNotStarted()) (this is already done in preWork()
-    protected final synchronized void forwardToReceiver(Collection<? extends DATA_OUT_TYPE> dataSet) throws InterruptedException, IllegalStatusException {
-    	if(!this.hasOutConnection()) {
-    		throw new IllegalStateException("Instance not connected yet.");
-    	}
-    	
-    	// Receiver might not have started yet
-    	// (No connection lock synchronization required because implicit 
-        // happens-after synchronization happened in hasOutConnection())
-    	while(this.m_receiverTask.isNotStarted()) {
-    		Thread.yield();
-    	}
-    	
-        if (!this.isRunning() && !this.isTerminating()) {
-            throw new IllegalStatusException();
+    protected final void forwardToReceiver(Collection<? extends DATA_OUT_TYPE> dataSet) throws InterruptedException, IllegalStatusException {
+        this.FORWARD_LOCK.lock();
+        try {
+            this.checkForwardPreconditions();
+            if(dataSet == null) {
+                LOGGER.warning("Null data set provided. Discarding.");
+            }
+            if(dataSet != null && LatencyTracing.isEnabled()){
+                this.traceForwarded(dataSet);
+            }
+            this.m_receiverTask.addToInDataQueue(dataSet);
+            this.getMetrics().forwarded(this.countDataElements(dataSet));
+            FlightRecording.chunkForwarded(this.getClass(), this.getID(), dataSet.size());
         }
-        if(dataSet == null) {
-            LOGGER.warning("Null data set provided. Discarding.");
+        finally {
+            this.FORWARD_LOCK.unlock();
         }
-        this.m_receiverTask.addToInDataQueue(dataSet);
     }
 
     // Blocking
-    protected final synchronized void forwardToReceiver(DATA_OUT_TYPE dataElement) throws InterruptedException, IllegalStatusException {
-    	if(!this.hasOutConnection()) {
-    		throw new IllegalStateException("Instance not connected yet.");
-    	}
-    	
-    	// Receiver might not have started yet
-    	// (No connection lock synchronization required because implicit 
-        // happens-after synchronization happened in hasOutConnection())
-    	while(this.m_receiverTask.isNotStarted()) {
-    		Thread.yield();
-    	}
-    	
-        if (!this.isRunning() && !this.isTerminating()) {
-            throw new IllegalStatusException();
+    protected final void forwardToReceiver(DATA_OUT_TYPE dataElement) throws InterruptedException, IllegalStatusException {
+        this.FORWARD_LOCK.lock();
+        try {
+            this.checkForwardPreconditions();
+            if(dataElement == null) {
+                LOGGER.warning("Null data element provided. Discarding.");
+            }
+            if(LatencyTracing.isEnabled()){
+                this.traceForwarded(Collections.singletonList(dataElement));
+            }
+            this.m_receiverTask.addToInDataQueue(dataElement);
+            this.getMetrics().forwarded(this.isWatermark(dataElement) ? 0 : 1);
+            FlightRecording.chunkForwarded(this.getClass(), this.getID(), 1);
+        }
+        finally {
+            this.FORWARD_LOCK.unlock();
         }
+    }
 
-        if(dataElement == null) {
-            LOGGER.warning("Null data element provided. Discarding.");
+    // Requires FORWARD_LOCK
+    private void traceForwarded(Collection<?> dataSet){
+        int samplingInterval = LatencyTracing.getSamplingInterval();
+        if(samplingInterval > 0 && this.startsLatencyTraces()){
+            this.m_elementsSinceLastTrace = LatencyTracer.sample(dataSet, this.m_elementsSinceLastTrace, samplingInterval);
+        }
+        LatencyTracer.stamp(dataSet, this, LatencyTracer.FORWARD);
+    }
+
+    // Returns false for transmitters which only pass on elements of other tasks (e.g., internal transmitters of
+    // transceivers). Other transmitters start latency traces of sampled elements (see LatencyTracing).
+    boolean startsLatencyTraces(){
+        return true;
+    }
+
+    // Requires FORWARD_LOCK
+    private void checkForwardPreconditions() throws IllegalStatusException {
+        if(!this.m_receiverStarted) {
+            if(!this.hasOutConnection()) {
+                throw new IllegalStateException("Instance not connected yet.");
+            }
+
+            // Receiver might not have started yet
+            // (No connection lock synchronization required because implicit
+            // happens-after synchronization happened in hasOutConnection())
+            awaitStarted(this.m_receiverTask);
+        }
+        // (Otherwise, happens-after synchronization w.r.t. m_receiverTask happened via the m_receiverStarted read)
+
+        TaskStatus status = this.getTaskStatus();
+        if (status != TaskStatus.RUNNING && status != TaskStatus.TERMINATING) {
+            throw new IllegalStatusException();
         }
-        this.m_receiverTask.addToInDataQueue(dataElement);
     }
 
     @Override
@@ -164,31 +220,170 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
         // No connection lock synchronization required because implicit 
         // happens-after synchronization happened in hasOutConnection()
         assert(!(this.m_receiverTask instanceof AbstractTransceiverTask));
-        // Wait for receiver to start
-        while(this.m_receiverTask.isNotStarted()){
-            Thread.yield();
+        // No waiting for the receiver to start: doWorkChunk() makes no progress until it has started
+        // and this instance is signalled as soon as it has
+        if(this.m_receiverTask.isNotStarted()) {
+            this.m_receiverTask.started().thenRun(new Runnable() {
+                @Override
+                public void run() {
+                    AbstractTransmitterTask.this.signalWork();
+                }
+            });
+        }
+        else {
+            this.m_receiverStarted = true;
         }
     }
 
     protected int getMaxDataChunkSize(){
         return this.m_maxDataChunkSize;
     }
+
+    // Max number of elements forwarded to the receiver per getNextDataChunk() call. Differs from getMaxDataChunkSize()
+    // for transmitters bundling several data elements into a single forwarded element (e.g., RoutedChunk).
+    protected int getMaxForwardedChunkSize(){
+        return this.m_maxDataChunkSize;
+    }
+
+    // Returns the currently available credits of the receiver if they suffice for a full data chunk
+    // (or for a full receiver queue if its capacity is smaller than the max data chunk size).
+    // Otherwise, 0 is returned and waiter is signalled as soon as the receiver has consumed elements.
+    // Returns Integer.MAX_VALUE if the receiver has not been found to be running yet or does not support credits.
+    final int acquireReceiverCredits(AbstractConcurrentTask waiter){
+        if(!this.m_receiverStarted){
+            return Integer.MAX_VALUE;
+        }
+        // (Happens-after synchronization w.r.t. m_receiverTask happened via the m_receiverStarted read)
+        if(!(this.m_receiverTask instanceof AbstractReceiverTask)){
+            return Integer.MAX_VALUE;
+        }
+        AbstractReceiverTask<?> receiverTask = (AbstractReceiverTask<?>) this.m_receiverTask;
+        return receiverTask.acquireCredits(waiter, Math.min(this.getRequiredReceiverCredits(), receiverTask.getMaxCredits()));
+    }
+
+    // Receiver credits required for a full data chunk: One per forwarded element unless the receiver's input queue
+    // is weighted (see GenericDemuxMultiTransmitterTask and GenericMuxMultiReceiverTask)
+    int getRequiredReceiverCredits(){
+        return this.getMaxForwardedChunkSize();
+    }
+
+    public final CreditStallStatistics getCreditStallStatistics(){
+        return this.m_creditStallStatistics;
+    }
+
+    // If set, a watermark (see createWatermark()) is appended to forwarded chunks at most every watermarkInterval ms
+    // (also if no data is available). Null: No watermarks (default).
+    public final void setWatermarkInterval(Long watermarkInterval){
+        if(watermarkInterval != null && watermarkInterval < 0){
+            throw new IllegalArgumentException();
+        }
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Watermark interval should only be set when tasks have not started yet."));
+        }
+        this.m_watermarkInterval = watermarkInterval;
+    }
+
+    public final Long getWatermarkInterval(){
+        return this.m_watermarkInterval;
+    }
+
+    // Returns a Watermark instance which is not larger than any data element subsequently returned by
+    // getNextDataChunk() or null if no such watermark is known (yet). Only called if a watermark interval is set,
+    // right after getNextDataChunk(). TimestampedData streams may use TimestampWatermark.
+    protected DATA_OUT_TYPE createWatermark(){
+        return null;
+    }
+
+    // Overridden by transmitters whose forwarded elements bundle several data elements (see RoutedChunk.isWatermark())
+    boolean isWatermark(DATA_OUT_TYPE dataElement){
+        return dataElement instanceof Watermark;
+    }
+
+    // Number of data elements (i.e., without watermarks) of the provided forwarded elements (metrics)
+    int countDataElements(Collection<? extends DATA_OUT_TYPE> dataSet){
+        int result = 0;
+        for(DATA_OUT_TYPE dataElement : dataSet){
+            if(!this.isWatermark(dataElement)){
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // The resulting chunk may exceed getMaxForwardedChunkSize() by one
+    private Collection<DATA_OUT_TYPE> appendWatermark(Collection<DATA_OUT_TYPE> nextChunk){
+        assert(this.m_watermarkInterval != null);
+        int chunkSize = nextChunk == null ? 0 : nextChunk.size();
+        long now = System.currentTimeMillis();
+        if(this.m_lastWatermarkTime >= 0 && now - this.m_lastWatermarkTime < this.m_watermarkInterval){
+            return nextChunk;
+        }
+        DATA_OUT_TYPE watermark = this.createWatermark();
+        if(watermark == null){
+            return nextChunk;
+        }
+        if(!this.isWatermark(watermark)){
+            throw new IllegalStateException("Created watermark does not implement " + Watermark.class.getName() + ".");
+        }
+        this.m_lastWatermarkTime = now;
+        List<DATA_OUT_TYPE> result = new ArrayList<>(chunkSize + 1);
+        if(nextChunk != null){
+            result.addAll(nextChunk);
+        }
+        result.add(watermark);
+        return result;
+    }
+
     // Non blocking: Return either null or a collection of size zero to indicate no data available
-    // Result size may not succeed getMaxDataChunkSize
+    // Result size may not succeed getMaxForwardedChunkSize
     protected abstract Collection<DATA_OUT_TYPE> getNextDataChunk();
 
     // Blocking.
     @Override
-    protected final void doWorkChunk() {
-        Collection<DATA_OUT_TYPE> nextChunk = this.getNextDataChunk();
+    protected final boolean doWorkChunk() {
+        if(!this.m_receiverStarted){
+            if(this.m_receiverTask.isNotStarted()){
+                return false;
+            }
+            this.m_receiverStarted = true;
+        }
+
+        if(this.isCreditBasedFlowControl()){
+            if(this.acquireReceiverCredits(this) == 0){
+                this.m_creditStallStatistics.stalled();
+                return false;
+            }
+            this.m_creditStallStatistics.resumed();
+        }
 
-        if(nextChunk != null && nextChunk.size() > this.m_maxDataChunkSize){
+        boolean timed = this.isTimed();
+        long startNanos = timed ? System.nanoTime() : 0;
+        Collection<DATA_OUT_TYPE> nextChunk = this.getNextDataChunk();
+        if(timed && nextChunk != null && nextChunk.size() > 0){
+            this.getMetrics().fetched(System.nanoTime() - startNanos);
+        }
+        if(nextChunk != null && nextChunk.size() > this.getMaxForwardedChunkSize()){
             throw new IllegalStateException();
         }
+        if(this.m_watermarkInterval != null){
+            nextChunk = this.appendWatermark(nextChunk);
+        }
 
         if(nextChunk != null && nextChunk.size() > 0) {
             try {
-                this.forwardToReceiver(nextChunk);
+                // No life cycle checks required: Called by the run thread after preWork() and before postWork()
+                this.FORWARD_LOCK.lock();
+                try {
+                    if(LatencyTracing.isEnabled()){
+                        this.traceForwarded(nextChunk);
+                    }
+                    this.m_receiverTask.addToInDataQueue(nextChunk);
+                }
+                finally {
+                    this.FORWARD_LOCK.unlock();
+                }
+                this.getMetrics().forwarded(this.countDataElements(nextChunk));
+                FlightRecording.chunkForwarded(this.getClass(), this.getID(), nextChunk.size());
             } catch (InterruptedException e) {
                 Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
                 if(terminatedWithInterrupt == null || !terminatedWithInterrupt){
@@ -197,14 +392,15 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
                 else{
                     LOGGER.warning("Could not forward full chunk of size "+nextChunk.size()+" to receiver, due to " +
                             "interrupt-termination.");
-                    return;
+                    return true;
                 }
             } catch (IllegalStatusException e) {
                 throw new IllegalStateException(e);
             }
+            return true;
         }
         else{
-            Thread.yield();
+            return false;
         }
     }
 
@@ -214,9 +410,18 @@ public abstract class AbstractTransmitterTask<DATA_OUT_TYPE> extends AbstractCon
         // No connection lock synchronization required because implicit 
         // happens-after synchronization happened in hasInConnection() in preWork() 
         // (which is executed by the same thread)       
+        if(!this.m_receiverStarted){
+            awaitStarted(this.m_receiverTask);
+            this.m_receiverStarted = true;
+        }
         if(!this.m_receiverTask.isRunning()){
             throw new RuntimeException(new IllegalStatusException("This task is terminating while the output receiver is not running."));
         }
+
+        if(this.m_creditStallStatistics.getNumStalls() > 0) {
+            LOGGER.config("Credit stalls of edge from " + this.getClass().getName() + " with ID " + this.getID() +
+                    " to receiver with ID " + this.m_receiverTask.getID() + ": " + this.m_creditStallStatistics + ".");
+        }
     }
 
     @Override
@@ -0,0 +1,205 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded ring shared by one producer and a fixed number of consumers ("cursors"): Each published element is read by
+// every cursor, i.e., the ring is the broadcast counterpart of a queue per consumer (elements are stored only once).
+// A slot is reclaimed (and set to null) once the slowest attached cursor has passed it. The producer blocks (or fails)
+// while the slowest attached cursor lags capacity elements behind - detached cursors (see detachSlowCursors())
+// do not hold back the producer anymore and never receive further elements.
+// Threading: All methods marked as "producer" must be called by the same thread, each cursor may only be consumed
+// by a single thread at a time (which may be the producer).
+final class BroadcastRing<E> {
+
+    // Upper bound for a waiting producer's park phase (a wakeup by a consumer may be missed, see drainTo(...))
+    private static final long MAX_PARK_NANOS = 100_000L;
+    // Cursors are stored with this stride to keep them in separate cache lines
+    private static final int CURSOR_STRIDE = 8;
+
+    private final int m_capacity;
+    private final int m_mask;
+    private final int m_numCursors;
+    private final AtomicReferenceArray<E> m_buffer;
+    // Index of the next element to be published
+    private final AtomicLong m_producerIndex;
+    // Index of the next element to be read per cursor
+    private final AtomicLongArray m_cursors;
+    private final AtomicIntegerArray m_detached;
+    // No volatile necessary, access only via producer: All slots below this index have been reclaimed
+    private long m_reclaimedIndex;
+    // Set while the producer waits for free slots
+    private volatile Thread m_waitingProducer;
+
+    // The capacity is rounded up to the next power of two
+    BroadcastRing(int capacity, int numCursors){
+        if(capacity <= 0 || capacity > (1 << 30) || numCursors <= 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.m_mask = this.m_capacity - 1;
+        this.m_numCursors = numCursors;
+        this.m_buffer = new AtomicReferenceArray<>(this.m_capacity);
+        this.m_producerIndex = new AtomicLong(0);
+        this.m_cursors = new AtomicLongArray(numCursors * CURSOR_STRIDE);
+        this.m_detached = new AtomicIntegerArray(numCursors);
+        this.m_reclaimedIndex = 0;
+        this.m_waitingProducer = null;
+    }
+
+    int capacity(){
+        return this.m_capacity;
+    }
+
+    int getNumCursors(){
+        return this.m_numCursors;
+    }
+
+    // Producer: Returns false if the slowest attached cursor lags capacity() elements behind
+    boolean offer(E element){
+        long index = this.m_producerIndex.get();
+        if(index - this.m_reclaimedIndex >= this.m_capacity){
+            this.reclaim();
+            if(index - this.m_reclaimedIndex >= this.m_capacity){
+                return false;
+            }
+        }
+        this.m_buffer.lazySet((int) index & this.m_mask, element);
+        this.m_producerIndex.lazySet(index + 1);
+        return true;
+    }
+
+    // Producer
+    void put(E element) throws InterruptedException {
+        if(!this.offer(element)) {
+            this.await(element, Long.MAX_VALUE);
+        }
+    }
+
+    // Producer
+    boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        return this.offer(element) || this.await(element, unit.toNanos(timeout));
+    }
+
+    private boolean await(E element, long timeoutNanos) throws InterruptedException {
+        CooperativeTaskExecutor.beginBlocking();
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            this.m_waitingProducer = Thread.currentThread();
+            while (!this.offer(element)) {
+                long remaining = timeoutNanos == Long.MAX_VALUE ? MAX_PARK_NANOS : deadline - System.nanoTime();
+                if(remaining <= 0){
+                    return false;
+                }
+                LockSupport.parkNanos(this, Math.min(remaining, MAX_PARK_NANOS));
+                if(Thread.interrupted()){
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        }
+        finally {
+            this.m_waitingProducer = null;
+        }
+    }
+
+    // Producer: Number of elements which can be published without blocking
+    int remainingCapacity(){
+        this.reclaim();
+        return (int) (this.m_capacity - (this.m_producerIndex.get() - this.m_reclaimedIndex));
+    }
+
+    // Producer: Detaches all attached cursors lagging capacity() elements behind (i.e., the cursors currently blocking
+    // the producer). Returns the indices of the detached cursors.
+    int[] detachSlowCursors(){
+        long index = this.m_producerIndex.get();
+        int[] detached = new int[this.m_numCursors];
+        int numDetached = 0;
+        for(int i = 0; i < this.m_numCursors; i++){
+            if(this.m_detached.get(i) == 0 && index - this.m_cursors.get(i * CURSOR_STRIDE) >= this.m_capacity){
+                this.m_detached.set(i, 1);
+                detached[numDetached++] = i;
+            }
+        }
+        this.reclaim();
+        int[] result = new int[numDetached];
+        System.arraycopy(detached, 0, result, 0, numDetached);
+        return result;
+    }
+
+    // Detaches all cursors (e.g., for discarding the remaining elements upon termination)
+    void detachAll(){
+        for(int i = 0; i < this.m_numCursors; i++){
+            this.m_detached.set(i, 1);
+        }
+    }
+
+    boolean isDetached(int cursor){
+        return this.m_detached.get(cursor) != 0;
+    }
+
+    // Number of published elements not read by the provided cursor yet (0 if detached)
+    int size(int cursor){
+        if(this.isDetached(cursor)){
+            return 0;
+        }
+        return (int) (this.m_producerIndex.get() - this.m_cursors.get(cursor * CURSOR_STRIDE));
+    }
+
+    // Consumer of the provided cursor: Appends at most maxElements elements to the provided list and returns their number
+    int drainTo(int cursor, List<? super E> list, int maxElements){
+        if(this.isDetached(cursor)){
+            return 0;
+        }
+        int cursorIndex = cursor * CURSOR_STRIDE;
+        long index = this.m_cursors.get(cursorIndex);
+        int numElements = (int) Math.min(maxElements, this.m_producerIndex.get() - index);
+        if(numElements <= 0){
+            return 0;
+        }
+        int listSize = list.size();
+        for(int i = 0; i < numElements; i++){
+            list.add(this.m_buffer.get((int) (index + i) & this.m_mask));
+        }
+        // The producer may reuse the slots of a cursor as soon as it is detached: Discard what might have been overwritten
+        if(this.isDetached(cursor)){
+            list.subList(listSize, list.size()).clear();
+            return 0;
+        }
+        this.m_cursors.lazySet(cursorIndex, index + numElements);
+        Thread waitingProducer = this.m_waitingProducer;
+        if(waitingProducer != null){
+            LockSupport.unpark(waitingProducer);
+        }
+        return numElements;
+    }
+
+    // Producer: Sets all slots passed by all attached cursors to null
+    private void reclaim(){
+        long minIndex = this.m_producerIndex.get();
+        for(int i = 0; i < this.m_numCursors; i++){
+            if(this.m_detached.get(i) == 0){
+                minIndex = Math.min(minIndex, this.m_cursors.get(i * CURSOR_STRIDE));
+            }
+        }
+        for(long index = this.m_reclaimedIndex; index < minIndex; index++){
+            this.m_buffer.lazySet((int) index & this.m_mask, null);
+        }
+        if(minIndex > this.m_reclaimedIndex){
+            this.m_reclaimedIndex = minIndex;
+        }
+    }
+}
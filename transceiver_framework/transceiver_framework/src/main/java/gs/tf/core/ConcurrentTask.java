@@ -8,6 +8,10 @@
  
 package gs.tf.core;
 
+import gs.utils.queues.BlockingQueues;
+
+import java.util.concurrent.CompletableFuture;
+
 public interface ConcurrentTask extends Runnable {
 
     long getID();
@@ -28,6 +32,23 @@ public interface ConcurrentTask extends Runnable {
 
     boolean terminate(boolean interrupt) throws NotStartedException;
 
+    // Life cycle transitions as futures (completed exceptionally if the task fails).
+    // Preferable over polling isNotStarted()/isTerminated() in loops.
+    CompletableFuture<Void> started();
+    CompletableFuture<Void> terminated();
+
+    // Must only be called before the task has started.
+    void setIdleStrategy(IdleStrategy idleStrategy);
+    IdleStrategy getIdleStrategy();
+
+    // Must only be called before the task has started.
+    void setQueueType(BlockingQueues.QueueType queueType);
+    BlockingQueues.QueueType getQueueType();
+
+    // Must only be called before the task has started.
+    void setCreditBasedFlowControl(boolean creditBasedFlowControl);
+    boolean isCreditBasedFlowControl();
+
     enum TaskStatus {
 
         RUNNING, NOT_STARTED, TERMINATING, TERMINATED
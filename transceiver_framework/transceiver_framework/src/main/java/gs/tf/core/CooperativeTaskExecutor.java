@@ -0,0 +1,579 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.Concurrency;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Alternative to the thread-per-task execution via a cached thread pool:
+// Submitted AbstractConcurrentTask instances are executed by a fixed number of worker threads. Instead of
+// looping in run(), each task is executed in quanta of at most maxWorkChunksPerQuantum work chunks.
+// A task whose work chunk made no progress is parked until it is signalled (see AbstractConcurrentTask.signalWork())
+// or - if it is not guaranteed to be signalled on new work - until it is re-polled after a backoff interval.
+// Tasks without work loop (i.e., tasks managing other tasks) do not occupy any thread between start and termination.
+// Workers blocking in task code (e.g., waiting for other tasks to start or for space in a full queue) are compensated
+// for by temporary spare workers (similar to ForkJoinPool.managedBlock(...)), which retire after being idle for a while.
+// Like ForkJoinPool, at most maxSpareWorkers spare workers are started: Beyond that, blocked workers are not compensated.
+//
+// Configured idle strategies are ignored for cooperatively executed tasks.
+// Other Runnable instances are executed once by one of the workers (and should therefore not block for long).
+public class CooperativeTaskExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = Logger.getLogger(CooperativeTaskExecutor.class.getName());
+
+    private static final long SPARE_WORKER_KEEP_ALIVE_MILLIS = 1000L;
+    // Same as ForkJoinPool's default for its common pool
+    public static final int DEFAULT_MAX_SPARE_WORKERS = 256;
+
+    public static CooperativeTaskExecutor newCooperativeTaskExecutor(){
+        return new CooperativeTaskExecutor(
+                Runtime.getRuntime().availableProcessors(),
+                64,
+                10000L,
+                10000000L,
+                new Concurrency.PrintExceptionHandler(null));
+    }
+
+    public static CooperativeTaskExecutor newCooperativeTaskExecutor(int numWorkers){
+        return new CooperativeTaskExecutor(
+                numWorkers,
+                64,
+                10000L,
+                10000000L,
+                new Concurrency.PrintExceptionHandler(null));
+    }
+
+    private final class WorkerThread extends Thread {
+
+        // No volatile required - only accessed by this thread
+        private boolean m_blocked;
+
+        public WorkerThread(Runnable r, String name){
+            super(r, name);
+            this.m_blocked = false;
+        }
+
+        CooperativeTaskExecutor getExecutor(){
+            return CooperativeTaskExecutor.this;
+        }
+    }
+
+    // Completed when the corresponding task terminated (or failed). The task is executed by its scheduler once the
+    // future has been submitted, i.e., running the future itself has no effect.
+    private static final class TaskFuture extends FutureTask<Void> {
+
+        private final AbstractConcurrentTask m_task;
+
+        public TaskFuture(AbstractConcurrentTask task){
+            super(task, null);
+            this.m_task = task;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        void finish(Throwable t){
+            if(t == null){
+                this.set(null);
+            }
+            else{
+                this.setException(t);
+            }
+        }
+    }
+
+    // Schedules a single task. Signals of the task are forwarded to it (see AbstractConcurrentTask.signalWork()).
+    private final class TaskScheduler implements WorkSignal, Runnable {
+        private static final int PARKED = 0;
+        private static final int SCHEDULED = 1;
+        private static final int RUNNING = 2;
+        private static final int RUNNING_SIGNALLED = 3;
+        private static final int DONE = 4;
+
+        private final AbstractConcurrentTask m_task;
+        private final TaskFuture m_future;
+        private final AtomicInteger m_state;
+        // No volatile required - only accessed while in RUNNING state
+        private long m_repollNanos;
+
+        private final Runnable m_repoll = new Runnable() {
+            @Override
+            public void run() {
+                TaskScheduler.this.signal();
+            }
+        };
+
+        public TaskScheduler(AbstractConcurrentTask task, TaskFuture future){
+            this.m_task = task;
+            this.m_future = future;
+            this.m_state = new AtomicInteger(SCHEDULED);
+            this.m_repollNanos = CooperativeTaskExecutor.this.m_minRepollNanos;
+        }
+
+        @Override
+        public void run() {
+            if(!this.m_state.compareAndSet(SCHEDULED, RUNNING)){
+                return;
+            }
+
+            boolean progress;
+            try {
+                if (this.m_task.isNotStarted()) {
+                    this.m_task.runStart();
+                    progress = this.m_task.requiresWorkLoop();
+                }
+                else if (this.m_task.requiresWorkLoop()) {
+                    progress = this.m_task.runWorkQuantum(CooperativeTaskExecutor.this.m_maxWorkChunksPerQuantum);
+                }
+                else {
+                    progress = false;
+                }
+
+                if (this.m_task.isTerminating()) {
+                    this.m_task.runFinish();
+                    this.finish(null);
+                    return;
+                }
+            }
+            catch (Throwable t){
+                this.m_task.runFailed(t);
+                this.finish(t);
+                return;
+            }
+
+            if(progress){
+                this.m_repollNanos = CooperativeTaskExecutor.this.m_minRepollNanos;
+                this.m_state.set(SCHEDULED);
+                CooperativeTaskExecutor.this.enqueue(this);
+            }
+            else {
+                boolean repoll = this.m_task.requiresWorkLoop() && !this.m_task.isSignalledOnNewWork();
+                long repollNanos = this.m_repollNanos;
+                if(repoll){
+                    this.m_repollNanos = Math.min(repollNanos << 1, CooperativeTaskExecutor.this.m_maxRepollNanos);
+                }
+
+                if (this.m_state.compareAndSet(RUNNING, PARKED)) {
+                    if (repoll) {
+                        CooperativeTaskExecutor.this.m_repollTimer.schedule(this.m_repoll, repollNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+                else {
+                    // Signalled during execution
+                    assert (this.m_state.get() == RUNNING_SIGNALLED);
+                    this.m_state.set(SCHEDULED);
+                    CooperativeTaskExecutor.this.enqueue(this);
+                }
+            }
+        }
+
+        private void finish(Throwable t){
+            this.m_state.set(DONE);
+            this.m_future.finish(t);
+            CooperativeTaskExecutor.this.taskFinished(this.m_task, t);
+        }
+
+        @Override
+        public void signal() {
+            int state;
+            while(true){
+                state = this.m_state.get();
+                if(state == PARKED){
+                    if(this.m_state.compareAndSet(PARKED, SCHEDULED)){
+                        CooperativeTaskExecutor.this.enqueue(this);
+                        return;
+                    }
+                }
+                else if(state == RUNNING){
+                    if(this.m_state.compareAndSet(RUNNING, RUNNING_SIGNALLED)){
+                        return;
+                    }
+                }
+                else{
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final Runnable WAKE_UP = new Runnable() {
+        @Override
+        public void run() {}
+    };
+
+    private final int m_maxWorkChunksPerQuantum;
+    private final long m_minRepollNanos;
+    private final long m_maxRepollNanos;
+    private final Concurrency.ExceptionHandler m_exceptionHandler;
+
+    private final int m_numWorkers;
+    private final long m_executorID;
+    private final LinkedBlockingQueue<Runnable> m_readyQueue;
+    private final Set<WorkerThread> m_workers;
+    private final int m_maxSpareWorkers;
+    // Number of workers which are not blocked in task code (including spare workers)
+    private final AtomicInteger m_numActiveWorkers;
+    // Number of started workers which have not retired (including spare workers)
+    private final AtomicInteger m_numLiveWorkers;
+    private final AtomicLong m_nextWorkerIndex;
+    private final Runnable m_workLoop;
+    private final ScheduledThreadPoolExecutor m_repollTimer;
+
+    private final Object LIFECYCLE_LOCK;
+    // Written only via LIFECYCLE_LOCK
+    private volatile boolean m_shutdown;
+    // Number of submitted tasks and runnables which have not finished yet
+    private final AtomicInteger m_numPending;
+
+    public CooperativeTaskExecutor(int numWorkers,
+                                   int maxWorkChunksPerQuantum,
+                                   long minRepollNanos,
+                                   long maxRepollNanos,
+                                   Concurrency.ExceptionHandler exceptionHandler) {
+        this(numWorkers, maxWorkChunksPerQuantum, minRepollNanos, maxRepollNanos, DEFAULT_MAX_SPARE_WORKERS,
+                exceptionHandler);
+    }
+
+    public CooperativeTaskExecutor(int numWorkers,
+                                   int maxWorkChunksPerQuantum,
+                                   long minRepollNanos,
+                                   long maxRepollNanos,
+                                   int maxSpareWorkers,
+                                   Concurrency.ExceptionHandler exceptionHandler) {
+        if(numWorkers < 1 || maxWorkChunksPerQuantum < 1 || minRepollNanos < 1 || maxRepollNanos < minRepollNanos
+                || maxSpareWorkers < 0){
+            throw new IllegalArgumentException();
+        }
+        if(exceptionHandler == null){
+            throw new NullPointerException();
+        }
+        this.m_numWorkers = numWorkers;
+        this.m_maxWorkChunksPerQuantum = maxWorkChunksPerQuantum;
+        this.m_minRepollNanos = minRepollNanos;
+        this.m_maxRepollNanos = maxRepollNanos;
+        this.m_maxSpareWorkers = maxSpareWorkers;
+        this.m_exceptionHandler = exceptionHandler;
+        this.m_readyQueue = new LinkedBlockingQueue<>();
+        this.LIFECYCLE_LOCK = new Object();
+        this.m_shutdown = false;
+        this.m_numPending = new AtomicInteger(0);
+
+        this.m_executorID = Concurrency.getNextID(CooperativeTaskExecutor.class.getName());
+        final long executorID = this.m_executorID;
+        this.m_repollTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, "cooperative-executor-" + executorID + "-timer");
+                result.setDaemon(true);
+                return result;
+            }
+        });
+        this.m_repollTimer.setRemoveOnCancelPolicy(true);
+
+        this.m_workers = Collections.newSetFromMap(new ConcurrentHashMap<WorkerThread, Boolean>());
+        this.m_numActiveWorkers = new AtomicInteger(0);
+        this.m_numLiveWorkers = new AtomicInteger(0);
+        this.m_nextWorkerIndex = new AtomicLong(0);
+        this.m_workLoop = new Runnable() {
+            @Override
+            public void run() {
+                CooperativeTaskExecutor.this.workLoop((WorkerThread) Thread.currentThread());
+            }
+        };
+        for(int i = 0; i < numWorkers; i++){
+            this.m_numLiveWorkers.incrementAndGet();
+            this.startWorker();
+        }
+    }
+
+    // Number of workers executing tasks in parallel (excluding spare workers)
+    public int getNumWorkers(){
+        return this.m_numWorkers;
+    }
+
+    public int getMaxSpareWorkers(){
+        return this.m_maxSpareWorkers;
+    }
+
+    // Note: Result is immediately outdated.
+    public int getNumSpareWorkers(){
+        return Math.max(this.m_numLiveWorkers.get() - this.m_numWorkers, 0);
+    }
+
+    private void startWorker(){
+        WorkerThread worker = new WorkerThread(this.m_workLoop,
+                "cooperative-executor-" + this.m_executorID + "-worker-" + this.m_nextWorkerIndex.getAndIncrement());
+        this.m_numActiveWorkers.incrementAndGet();
+        this.m_workers.add(worker);
+        worker.start();
+    }
+
+    private void workLoop(WorkerThread worker){
+        Runnable next;
+        while(true){
+            if(this.m_shutdown && this.m_numPending.get() == 0 && this.m_readyQueue.isEmpty()){
+                return;
+            }
+            try {
+                if(this.m_numActiveWorkers.get() > this.m_numWorkers){
+                    next = this.m_readyQueue.poll(SPARE_WORKER_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+                    if(next == null){
+                        if(this.tryRetire(worker)){
+                            return;
+                        }
+                        continue;
+                    }
+                }
+                else {
+                    next = this.m_readyQueue.take();
+                }
+            } catch (InterruptedException e) {
+                // Only shutdownNow() interrupts workers
+                return;
+            }
+            // Each worker consumes at most one WAKE_UP (see wakeUpIfDone()): Exit regardless of other queued
+            // WAKE_UPs, which are left for the workers still waiting in take()
+            if(next == WAKE_UP && this.m_shutdown && this.m_numPending.get() == 0){
+                return;
+            }
+            this.runSafely(next);
+            if(worker.m_blocked){
+                worker.m_blocked = false;
+                this.m_numActiveWorkers.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean tryRetire(WorkerThread worker){
+        int numActiveWorkers;
+        while(true){
+            numActiveWorkers = this.m_numActiveWorkers.get();
+            if(numActiveWorkers <= this.m_numWorkers){
+                return false;
+            }
+            if(this.m_numActiveWorkers.compareAndSet(numActiveWorkers, numActiveWorkers - 1)){
+                this.m_numLiveWorkers.decrementAndGet();
+                this.m_workers.remove(worker);
+                return true;
+            }
+        }
+    }
+
+    private void runSafely(Runnable r){
+        try {
+            r.run();
+        }
+        catch(Throwable t){
+            // Task schedulers handle exceptions of their tasks themselves
+            if(!(r instanceof TaskScheduler)) {
+                this.m_numPending.decrementAndGet();
+            }
+            this.m_exceptionHandler.handleException(r, t);
+            this.wakeUpIfDone();
+        }
+    }
+
+    private void enqueue(Runnable r){
+        this.m_readyQueue.add(r);
+    }
+
+    private void taskFinished(AbstractConcurrentTask task, Throwable t){
+        if(t != null){
+            LOGGER.severe("Cooperatively executed task failed: " + task.getClass().getName() + ", ID: " + task.getID());
+            this.m_exceptionHandler.handleException(task, t);
+        }
+        this.m_numPending.decrementAndGet();
+        this.wakeUpIfDone();
+    }
+
+    private void wakeUpIfDone(){
+        if(this.m_shutdown && this.m_numPending.get() == 0){
+            this.m_repollTimer.shutdownNow();
+            for(int i = 0; i < this.m_workers.size(); i++){
+                this.m_readyQueue.add(WAKE_UP);
+            }
+        }
+    }
+
+    // Must be called before the calling thread blocks in task code. If the calling thread is a worker of a
+    // CooperativeTaskExecutor, it is considered blocked until its current task quantum is finished and
+    // a spare worker is started if required, since the awaited task might otherwise never be executed.
+    static void beginBlocking(){
+        Thread currentThread = Thread.currentThread();
+        if(currentThread instanceof WorkerThread){
+            WorkerThread worker = (WorkerThread) currentThread;
+            if(!worker.m_blocked){
+                worker.m_blocked = true;
+                worker.getExecutor().compensateBlockedWorker();
+            }
+        }
+    }
+
+    private void compensateBlockedWorker(){
+        if(this.m_numActiveWorkers.decrementAndGet() >= this.m_numWorkers){
+            return;
+        }
+        int numLiveWorkers;
+        while(true){
+            numLiveWorkers = this.m_numLiveWorkers.get();
+            if(numLiveWorkers >= this.m_numWorkers + this.m_maxSpareWorkers){
+                LOGGER.warning("Maximum number of spare workers reached, blocked worker is not compensated.");
+                return;
+            }
+            if(this.m_numLiveWorkers.compareAndSet(numLiveWorkers, numLiveWorkers + 1)){
+                this.startWorker();
+                return;
+            }
+        }
+    }
+
+    static <E> void put(BlockingQueue<E> queue, E element) throws InterruptedException {
+        if(!queue.offer(element)){
+            beginBlocking();
+            queue.put(element);
+        }
+    }
+
+    static <E> boolean offer(BlockingQueue<E> queue, E element, long timeout, TimeUnit unit) throws InterruptedException {
+        if(queue.offer(element)){
+            return true;
+        }
+        beginBlocking();
+        return queue.offer(element, timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        if(runnable instanceof AbstractConcurrentTask && value == null){
+            @SuppressWarnings("unchecked")
+            RunnableFuture<T> result = (RunnableFuture<T>) new TaskFuture((AbstractConcurrentTask) runnable);
+            return result;
+        }
+        else {
+            return super.newTaskFor(runnable, value);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if(command == null){
+            throw new NullPointerException();
+        }
+
+        synchronized (this.LIFECYCLE_LOCK) {
+            if (this.m_shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down.");
+            }
+            this.m_numPending.incrementAndGet();
+        }
+
+        if(command instanceof TaskFuture){
+            this.schedule(((TaskFuture) command).m_task, (TaskFuture) command);
+        }
+        else if(command instanceof AbstractConcurrentTask){
+            this.schedule((AbstractConcurrentTask) command, new TaskFuture((AbstractConcurrentTask) command));
+        }
+        else{
+            final Runnable plainCommand = command;
+            this.enqueue(new Runnable() {
+                @Override
+                public void run() {
+                    plainCommand.run();
+                    CooperativeTaskExecutor.this.m_numPending.decrementAndGet();
+                    CooperativeTaskExecutor.this.wakeUpIfDone();
+                }
+            });
+        }
+    }
+
+    private void schedule(AbstractConcurrentTask task, TaskFuture future){
+        TaskScheduler scheduler = new TaskScheduler(task, future);
+        try {
+            task.setCooperativeScheduler(scheduler);
+        }
+        catch(RuntimeException e){
+            this.m_numPending.decrementAndGet();
+            throw e;
+        }
+        this.enqueue(scheduler);
+    }
+
+    // Tasks which have already been submitted are executed until they terminate.
+    @Override
+    public void shutdown() {
+        synchronized (this.LIFECYCLE_LOCK) {
+            this.m_shutdown = true;
+        }
+        this.wakeUpIfDone();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown();
+        List<Runnable> result = new ArrayList<>();
+        this.m_readyQueue.drainTo(result);
+        this.m_repollTimer.shutdownNow();
+        for(WorkerThread worker : this.m_workers){
+            worker.interrupt();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.m_shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        if(!this.m_shutdown){
+            return false;
+        }
+        for(WorkerThread worker : this.m_workers){
+            if(worker.isAlive()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long remainingMillis;
+        while(!this.isTerminated()){
+            for(WorkerThread worker : this.m_workers){
+                remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if(remainingMillis <= 0){
+                    return this.isTerminated();
+                }
+                worker.join(remainingMillis);
+            }
+        }
+        return true;
+    }
+}
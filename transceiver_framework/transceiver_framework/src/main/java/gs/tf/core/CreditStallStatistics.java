@@ -0,0 +1,53 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Counts how often (and how long) a task could not proceed due to missing credits (see setCreditBasedFlowControl(...)).
+// Only updated by the run thread of the owning task, may be read from arbitrary threads.
+public class CreditStallStatistics {
+
+    private volatile long m_numStalls;
+    private volatile long m_stalledNanos;
+    // Start of the current stall or -1 if not stalled. No volatile required - access only via owning run thread
+    private long m_stallStart;
+
+    CreditStallStatistics(){
+        this.m_numStalls = 0;
+        this.m_stalledNanos = 0;
+        this.m_stallStart = -1;
+    }
+
+    void stalled(){
+        if(this.m_stallStart < 0){
+            this.m_stallStart = System.nanoTime();
+            this.m_numStalls++;
+        }
+    }
+
+    void resumed(){
+        if(this.m_stallStart >= 0){
+            this.m_stalledNanos += System.nanoTime() - this.m_stallStart;
+            this.m_stallStart = -1;
+        }
+    }
+
+    public long getNumStalls(){
+        return this.m_numStalls;
+    }
+
+    // Note: Does not include a currently ongoing stall.
+    public long getStalledNanos(){
+        return this.m_stalledNanos;
+    }
+
+    @Override
+    public String toString(){
+        return "stalls: "+this.m_numStalls+", stalled ms: "+(this.m_stalledNanos / 1000000L);
+    }
+}
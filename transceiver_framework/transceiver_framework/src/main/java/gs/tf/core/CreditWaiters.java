@@ -0,0 +1,41 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tasks waiting for credits of a receiver: Each registered task is signalled (and deregistered)
+// as soon as the receiver has consumed elements.
+class CreditWaiters {
+
+    private final Set<AbstractConcurrentTask> m_waiters;
+
+    CreditWaiters(){
+        this.m_waiters = ConcurrentHashMap.newKeySet();
+    }
+
+    // Must be called BEFORE re-checking the credits (otherwise a signal might get lost)
+    void register(AbstractConcurrentTask waiter){
+        assert(waiter != null);
+        this.m_waiters.add(waiter);
+    }
+
+    void signalAll(){
+        if(!this.m_waiters.isEmpty()) {
+            Iterator<AbstractConcurrentTask> it = this.m_waiters.iterator();
+            while (it.hasNext()) {
+                AbstractConcurrentTask waiter = it.next();
+                it.remove();
+                waiter.signalWork();
+            }
+        }
+    }
+}
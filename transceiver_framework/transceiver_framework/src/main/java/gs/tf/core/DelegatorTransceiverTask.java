@@ -8,7 +8,9 @@
  
 package gs.tf.core;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Lock;
 
@@ -105,6 +107,16 @@ public class DelegatorTransceiverTask<
 		return this.m_receiver.getInQueueSize();
 	}
 
+	@Override
+	public int getAvailableCredits() {
+		return this.m_receiver.getAvailableCredits();
+	}
+
+	@Override
+	public int getMaxCredits() {
+		return this.m_receiver.getMaxCredits();
+	}
+
 	@Override
 	public Lock getOutConnectionLock() {
 		return this.m_transmitter.getOutConnectionLock();
@@ -153,6 +165,21 @@ public class DelegatorTransceiverTask<
 		}
 	}
 
+	@Override
+	protected Collection<? extends ConcurrentTask> getManagedTasks() {
+		if(this.m_hasLifeCycle) {
+			return Arrays.asList(this.m_receiver, this.m_transmitter);
+		}
+		else {
+			return Collections.emptyList();
+		}
+	}
+
+	@Override
+	protected boolean requiresWorkLoop() {
+		return false;
+	}
+
 	@Override
 	protected void preWork() {
 		if(!this.m_hasLifeCycle) {
@@ -166,21 +193,17 @@ public class DelegatorTransceiverTask<
 
         this.m_executorService.submit(this.m_receiver);
         this.m_executorService.submit(this.m_transmitter);
-        while(this.m_receiver.isNotStarted() || this.m_transmitter.isNotStarted()){
-            Thread.yield();
-        }
+        // (Waiting for both to start happens in postWork())
 	}
 
 	@Override
-	protected void doWorkChunk() {
+	protected boolean doWorkChunk() {
 		assert(this.m_hasLifeCycle);
 		InterruptedException interruptException = null;
-		synchronized (WAIT_LOCK) {
-			try {
-				WAIT_LOCK.wait();
-			} catch (InterruptedException e) {
-				interruptException = e;
-			}
+		try {
+			this.awaitTerminateCall();
+		} catch (InterruptedException e) {
+			interruptException = e;
 		}
 		if(interruptException != null) {
 			Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
@@ -188,11 +211,16 @@ public class DelegatorTransceiverTask<
 				throw new IllegalStateException("Thread should only be interrupted during termination.", interruptException);
 			}
 		}
+		// Waiting on WAIT_LOCK already is the idle phase of this task
+		return true;
 	}
 
 	@Override
 	protected void postWork() {
 		assert(this.m_hasLifeCycle);
+		awaitStarted(this.m_receiver);
+		awaitStarted(this.m_transmitter);
+		awaitStarted(this.m_transmitter.getTargetReceiverTask());
 		assert(this.m_receiver.isRunning());
 		if(!this.m_receiver.getSourceTransmitterTask().isTerminated()){
 			throw new RuntimeException(
@@ -209,17 +237,13 @@ public class DelegatorTransceiverTask<
 			assert(this.terminateCalledWithInterrupt() != null);
 			this.m_receiver.terminate(this.terminateCalledWithInterrupt());
 			assert (this.m_receiver.isTerminating() || this.m_receiver.isTerminated());
-			while (!this.m_receiver.isTerminated()) {
-				Thread.yield();
-			}
+			awaitTerminated(this.m_receiver);
 
 			this.midPostWork();
 
 			this.m_transmitter.terminate(this.terminateCalledWithInterrupt());
 			assert (this.m_transmitter.isTerminating() || this.m_transmitter.isTerminated());
-			while (!this.m_transmitter.isTerminated()) {
-				Thread.yield();
-			}
+			awaitTerminated(this.m_transmitter);
 		}
 		catch(NotStartedException e){
 			throw new IllegalStateException("This should not happen.", e);
@@ -0,0 +1,165 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+// Runs a linear sequence of transceivers (stages) as a single transceiver: Each stage's output (via getNextDataChunk())
+// is handed directly to the next stage's processDataChunk(...) by the thread that processed the input, i.e., there are
+// no intermediate queues and thread handoffs between stages.
+// Only the output of the last stage is fetched by a separate thread (i.e., the internal transmitter of this instance) -
+// the last stage can therefore be an arbitrary transceiver.
+// Requirements for all other stages:
+// - processDataElement(...) must not block waiting for the stage's own getNextDataChunk() to be called. Elements are
+//   passed on depth-first (i.e., each stage's output is drained after each single input element), so buffering the
+//   output produced for a single input element must not block.
+// - Output is only emitted via getNextDataChunk() (i.e., no forwardToReceiver(...) calls)
+// Watermarks (see Watermark) are passed to the stages' processWatermark(...) and handed to the next stage once the
+// stage's output produced before the watermark has been drained.
+// For all stages: The stages themselves are never started - life cycle hooks (preWork(), midPostWork(), ...) of the stages
+// are not called. Stages for which this is not acceptable must deny fusion (see AbstractTransceiverTask.setFusionAllowed(...)).
+public class FusedTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE> extends AbstractTransceiverTask<DATA_IN_TYPE, DATA_OUT_TYPE> {
+
+    private final List<AbstractTransceiverTask<Object, Object>> m_stages;
+    private final AbstractTransceiverTask<Object, Object> m_firstStage;
+    private final AbstractTransceiverTask<Object, Object> m_lastStage;
+
+    private static int getLastStageMaxDataChunkSize(List<? extends AbstractTransceiverTask<?, ?>> stages){
+        if(stages == null){
+            throw new NullPointerException();
+        }
+        if(stages.isEmpty()){
+            throw new IllegalArgumentException("At least one stage required.");
+        }
+        return stages.get(stages.size() - 1).getMaxDataChunkSize();
+    }
+
+    // Note: Type compatibility of consecutive stages cannot be checked at run time - the output type of the i-th stage
+    // must be assignable to the input type of the (i+1)-th stage, DATA_IN_TYPE to the input type of the first stage
+    // and the output type of the last stage to DATA_OUT_TYPE.
+    // The max data chunk size of this instance is the one of the last stage.
+    @SuppressWarnings("unchecked")
+    public FusedTransceiverTask(List<? extends AbstractTransceiverTask<?, ?>> stages,
+                                Integer inDataQueueCapacity,
+                                Long timeoutInterval,
+                                ExecutorService executorService) {
+        super(inDataQueueCapacity, timeoutInterval, getLastStageMaxDataChunkSize(stages), executorService);
+
+        Map<AbstractTransceiverTask<?, ?>, Boolean> visited = new IdentityHashMap<>();
+        List<AbstractTransceiverTask<Object, Object>> stageList = new ArrayList<>(stages.size());
+        for(AbstractTransceiverTask<?, ?> stage : stages){
+            if(stage == null){
+                throw new NullPointerException();
+            }
+            if(visited.put(stage, Boolean.TRUE) != null){
+                throw new IllegalArgumentException("Stages must be distinct.");
+            }
+            if(!stage.isFusionAllowed()){
+                throw new IllegalArgumentException("Stage does not allow fusion: " + stage.getID());
+            }
+            if(!stage.isNotStarted() ||
+                    stage.getInternalReceiverTask().hasInConnection() ||
+                    stage.getInternalTransmitterTask().hasOutConnection()){
+                throw new IllegalArgumentException("Stages must neither be started nor connected.");
+            }
+            stageList.add((AbstractTransceiverTask<Object, Object>) stage);
+        }
+
+        this.m_stages = Collections.unmodifiableList(stageList);
+        this.m_firstStage = this.m_stages.get(0);
+        this.m_lastStage = this.m_stages.get(this.m_stages.size() - 1);
+    }
+
+    public List<AbstractTransceiverTask<?, ?>> getStages(){
+        return Collections.<AbstractTransceiverTask<?, ?>>unmodifiableList(this.m_stages);
+    }
+
+    @Override
+    protected void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException {
+        this.feedStage(0, dataElement);
+    }
+
+    @Override
+    protected void processDataChunk(List<DATA_IN_TYPE> dataChunk) throws InterruptedException {
+        if(this.m_stages.size() == 1){
+            this.m_lastStage.processDataChunk(Collections.<Object>unmodifiableList(dataChunk));
+        }
+        else {
+            for (DATA_IN_TYPE dataElement : dataChunk) {
+                this.feedStage(0, dataElement);
+            }
+        }
+    }
+
+    @Override
+    protected void processWatermark(DATA_IN_TYPE watermark) throws InterruptedException {
+        this.feedStage(0, watermark);
+    }
+
+    private static boolean containsWatermark(Collection<?> dataChunk){
+        for(Object dataElement : dataChunk){
+            if(dataElement instanceof Watermark){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Processes dataElement in the stageIndex-th stage and immediately passes the resulting output on to the next stage
+    @SuppressWarnings("unchecked")
+    private void feedStage(int stageIndex, Object dataElement) throws InterruptedException {
+        AbstractTransceiverTask<Object, Object> stage = this.m_stages.get(stageIndex);
+        if(dataElement instanceof Watermark){
+            stage.processWatermark(dataElement);
+        }
+        else {
+            stage.processDataElement(dataElement);
+        }
+        Object watermark;
+        if(stage == this.m_lastStage){
+            // The last stage's output is drained concurrently by the internal transmitter of this instance, which
+            // forwards the watermark once said output has been fetched
+            if((watermark = stage.getInternalTransmitterTask().pollPendingWatermark()) != null){
+                this.forwardWatermark((DATA_OUT_TYPE) watermark);
+            }
+            return;
+        }
+
+        int nextStageIndex = stageIndex + 1;
+        Collection<Object> dataChunk;
+        while((dataChunk = stage.getNextDataChunk()) != null && dataChunk.size() > 0){
+            if(this.m_stages.get(nextStageIndex) == this.m_lastStage && !containsWatermark(dataChunk)){
+                this.m_lastStage.processDataChunk(dataChunk instanceof List ?
+                        (List<Object>) dataChunk :
+                        new ArrayList<>(dataChunk));
+            }
+            else {
+                for(Object nextDataElement : dataChunk){
+                    this.feedStage(nextStageIndex, nextDataElement);
+                }
+            }
+        }
+        // The stage's output preceding the watermark has been passed on
+        if((watermark = stage.getInternalTransmitterTask().pollPendingWatermark()) != null){
+            this.feedStage(nextStageIndex, watermark);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Collection<DATA_OUT_TYPE> getNextDataChunk() {
+        return (Collection<DATA_OUT_TYPE>) this.m_lastStage.getNextDataChunk();
+    }
+}
@@ -0,0 +1,351 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.tf.jfr.FlightRecording;
+
+import org.apache.commons.collections4.list.UnmodifiableList;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+// N-way counterpart of GenericJunctionMultiTransceiverTask: Each internal transceiver publishes its input to a single
+// ring (see BroadcastRing) read by numOutputs independent cursors instead of inserting it into one queue per output.
+// Output 0 is this multi transceiver itself, outputs 1, ..., numOutputs - 1 are multi transmitters fetched via
+// createMultiTransmitterFromBroadcast(...) (each of which must be fetched before this instance is started).
+// The ring capacity is the provided input queue capacity (DEFAULT_RING_CAPACITY if null), rounded up to the next power
+// of two. Upon a full ring (i.e., the slowest output lags the ring capacity behind), this instance blocks if the timeout
+// interval is null. Otherwise, after a timeout, either the lagging outputs are detached (see setDetachSlowOutputs(...))
+// and receive no further data or the element is discarded for all outputs.
+public class GenericBroadcastMultiTransceiverTask<DATA_IN_OUT_TYPE>
+	extends GenericMultiTransceiverTask<
+		DATA_IN_OUT_TYPE,
+		DATA_IN_OUT_TYPE,
+        TransceiverTask<DATA_IN_OUT_TYPE, DATA_IN_OUT_TYPE>> {
+
+    public static final int DEFAULT_RING_CAPACITY = 1024;
+
+    private static class BroadcastTransceiverTask<DATA_IN_OUT_TYPE> extends AbstractTransceiverTask<DATA_IN_OUT_TYPE, DATA_IN_OUT_TYPE> {
+        private static final Logger LOGGER = Logger.getLogger(BroadcastTransceiverTask.class.getName());
+
+        private final BroadcastRing<DATA_IN_OUT_TYPE> m_ring;
+        private final Long m_timeoutInterval;
+        // Transmitters of outputs 1, ..., numOutputs - 1 (index i: output i + 1), set by the enclosing instance
+        private volatile List<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>> m_broadcastTransmitters;
+        // No volatile required - only set before this task has started (see setDetachSlowOutputs(...))
+        private boolean m_detachSlowOutputs;
+
+        // No volatile necessary, access only via Thread executing this task
+        private boolean m_lastWasTimeout;
+
+        public BroadcastTransceiverTask(int numOutputs, Integer inDataQueueCapacity, Long timeoutInterval, int maxDataChunkSize, ExecutorService executorService) {
+            super(inDataQueueCapacity, timeoutInterval, maxDataChunkSize, executorService);
+            this.m_ring = new BroadcastRing<>(inDataQueueCapacity == null ? DEFAULT_RING_CAPACITY : inDataQueueCapacity, numOutputs);
+            this.m_timeoutInterval = timeoutInterval;
+            this.m_broadcastTransmitters = null;
+            this.m_detachSlowOutputs = false;
+            this.m_lastWasTimeout = false;
+            // processDataElement(...) blocks until all outputs have fetched enough elements
+            this.setFusionAllowed(false);
+        }
+
+        private void setBroadcastTransmitters(List<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>> broadcastTransmitters){
+            assert(broadcastTransmitters.size() == this.m_ring.getNumCursors() - 1);
+            this.m_broadcastTransmitters = broadcastTransmitters;
+        }
+
+        @Override
+        protected void processDataElement(DATA_IN_OUT_TYPE dataElement) throws InterruptedException {
+            this.publish(dataElement);
+            this.signalBroadcastTransmitters();
+        }
+
+        // Watermarks are passed on in-band to all outputs
+        @Override
+        protected void processWatermark(DATA_IN_OUT_TYPE watermark) throws InterruptedException {
+            this.processDataElement(watermark);
+        }
+
+        // Signals the other outputs once per chunk (the internal transmitter is signalled by the internal receiver)
+        @Override
+        protected void processDataChunk(List<DATA_IN_OUT_TYPE> dataChunk) throws InterruptedException {
+            for(DATA_IN_OUT_TYPE dataElement : dataChunk){
+                this.publish(dataElement);
+            }
+            this.signalBroadcastTransmitters();
+        }
+
+        private void publish(DATA_IN_OUT_TYPE dataElement) throws InterruptedException {
+            if(this.m_timeoutInterval == null){
+                this.m_ring.put(dataElement);
+                return;
+            }
+
+            boolean timeout = this.m_lastWasTimeout;
+            if(this.m_ring.offer(dataElement)){
+                timeout = false;
+            }
+            else if(!this.m_lastWasTimeout){
+                timeout = !this.m_ring.offer(dataElement, this.m_timeoutInterval, TimeUnit.MILLISECONDS);
+            }
+            if(timeout && this.m_detachSlowOutputs){
+                int[] detachedOutputs = this.m_ring.detachSlowCursors();
+                LOGGER.warning("Detaching outputs " + Arrays.toString(detachedOutputs) + " due to timeout in " +
+                        this.getClass().getName() + ", running in thread with ID " + this.getRunThreadID() + " and name " +
+                        this.getRunThreadName() + ".");
+                timeout = !this.m_ring.offer(dataElement);
+                assert(!timeout);
+            }
+            if(timeout){
+                this.discarded(1, FlightRecording.REASON_TIMEOUT);
+                LOGGER.warning("Discarding input element due to timeout in " +
+                        this.getClass().getName() + ", running in thread with ID " + this.getRunThreadID() + " and name " +
+                        this.getRunThreadName() + ".");
+            }
+            this.m_lastWasTimeout = timeout;
+        }
+
+        private void signalBroadcastTransmitters(){
+            for(BroadcastTransmitterTask<DATA_IN_OUT_TYPE> broadcastTransmitter : this.m_broadcastTransmitters){
+                broadcastTransmitter.signalWork();
+            }
+        }
+
+        // All outputs are drained via drain(...) (which signals new credits)
+        @Override
+        protected int getProcessingCredits(){
+            return this.m_ring.remainingCapacity();
+        }
+
+        @Override
+        protected Collection<DATA_IN_OUT_TYPE> getNextDataChunk() {
+            return this.drain(0);
+        }
+
+        private List<DATA_IN_OUT_TYPE> drain(int output) {
+            List<DATA_IN_OUT_TYPE> dataChunk = new ArrayList<>(Math.min(this.m_ring.size(output), this.getMaxDataChunkSize()));
+            if(this.m_ring.drainTo(output, dataChunk, this.getMaxDataChunkSize()) > 0){
+                this.signalProcessingCredits();
+            }
+            return dataChunk;
+        }
+
+        @Override
+        protected void preWork() {
+            assert(this.m_broadcastTransmitters != null);
+            super.preWork();
+        }
+
+        // Output 0 is drained by the internal transmitter (see InternalTransmitterTask.postWork()), outputs
+        // 1, ..., numOutputs - 1 by their broadcast transmitters unless these have already terminated.
+        @Override
+        protected void midPostWork(){
+            super.midPostWork();
+            assert(this.terminateCalledWithInterrupt() != null);
+            if(this.terminateCalledWithInterrupt()) {
+                StringBuilder sb = new StringBuilder();
+                for(int i = 0; i < this.m_ring.getNumCursors(); i++){
+                    int size = this.m_ring.size(i);
+                    if(size > 0){
+                        this.discarded(size, FlightRecording.REASON_INTERRUPT);
+                        sb.append(sb.length() == 0 ? "Discarding " : ", ").append(size).append(" elements of output ").append(i);
+                    }
+                }
+                this.m_ring.detachAll();
+                if(sb.length() > 0){
+                    LOGGER.warning(sb.append(" due to interrupt-termination.").toString());
+                }
+            }
+            else{
+                for(BroadcastTransmitterTask<DATA_IN_OUT_TYPE> broadcastTransmitter : this.m_broadcastTransmitters){
+                    int output = broadcastTransmitter.m_output;
+                    while(this.m_ring.size(output) > 0 && !broadcastTransmitter.isTerminated()){
+                        yieldToOtherTasks();
+                    }
+                    int size = this.m_ring.size(output);
+                    if(size > 0) {
+                        this.discarded(size, FlightRecording.REASON_OUTPUT_TERMINATED);
+                        LOGGER.warning("Discarding " + size + " elements of output " + output + " due to the "
+                                + "MultiTransmitterTask managing this output's BroadcastTransmitterTasks having already terminated.");
+                    }
+                }
+            }
+        }
+    }
+
+    private static class BroadcastTransmitterTask<DATA_IN_OUT_TYPE> extends AbstractTransmitterTask<DATA_IN_OUT_TYPE> {
+
+        private final BroadcastTransceiverTask<DATA_IN_OUT_TYPE> m_assignedTransceiver;
+        private final int m_output;
+
+        public BroadcastTransmitterTask(BroadcastTransceiverTask<DATA_IN_OUT_TYPE> assignedTransceiver, int output, int maxDataChunkSize) {
+            super(maxDataChunkSize);
+            assert(output > 0);
+            this.m_assignedTransceiver = assignedTransceiver;
+            this.m_output = output;
+        }
+
+        // Elements are provided by the assigned broadcast transceiver
+        @Override
+        boolean startsLatencyTraces(){
+            return false;
+        }
+
+        // The assigned broadcast transceiver signals this task whenever it publishes new elements
+        @Override
+        protected boolean isSignalledOnNewWork() {
+            return true;
+        }
+
+        @Override
+        protected Collection<DATA_IN_OUT_TYPE> getNextDataChunk() {
+            return this.m_assignedTransceiver.drain(this.m_output);
+        }
+
+        @Override
+        protected void postWork(){
+            if(!this.m_assignedTransceiver.isTerminated()) {
+                throw new IllegalStateException(new IllegalStatusException("Assigned BroadcastTransceiverTask must "
+                        + "be already terminated when its corresponding BroadcastTransmitterTask gets terminated."));
+            }
+            // The assigned transceiver waits for this instance to drain its output upon termination (see midPostWork())
+            assert(this.m_assignedTransceiver.m_ring.size(this.m_output) == 0);
+            super.postWork();
+        }
+    }
+
+    private final int m_numOutputs;
+    // Index i: Transmitters of output i + 1 (one per internal transceiver)
+    private final List<UnmodifiableList<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>>> m_transmitterLists;
+
+    private final Object TRANSMITTER_FETCH_LOCK;
+    // Index i: Multi transmitter of output i + 1
+    // No volatile required - access only via synchronization via TRANSMITTER_FETCH_LOCK
+    private final List<MultiTransmitterTask<DATA_IN_OUT_TYPE, ?>> m_multiTransmitters;
+
+    private final ExecutorService m_executorService;
+
+    private static<DATA_IN_OUT_TYPE> List<TransceiverTask<DATA_IN_OUT_TYPE, DATA_IN_OUT_TYPE>> createInternalTransceiverTasks(
+            int numInternalTransceivers,
+            int numOutputs,
+            Integer inDataQueueCapacity,
+            Long timeoutInterval,
+            int maxDataChunkSize,
+            ExecutorService executorService){
+        if(numInternalTransceivers <= 0 || numOutputs <= 0){
+            throw new IllegalArgumentException();
+        }
+
+        List<TransceiverTask<DATA_IN_OUT_TYPE, DATA_IN_OUT_TYPE>> result = new ArrayList<>(numInternalTransceivers);
+        for(int i = 0; i < numInternalTransceivers; i++){
+            result.add(new BroadcastTransceiverTask<DATA_IN_OUT_TYPE>(numOutputs, inDataQueueCapacity, timeoutInterval, maxDataChunkSize, executorService));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public GenericBroadcastMultiTransceiverTask(
+            int numInternalTransceivers,
+            int numOutputs,
+            Integer inDataQueueCapacity,
+            Long timeoutInterval,
+            int maxDataChunkSize,
+            ExecutorService executorService) {
+        super(createInternalTransceiverTasks(
+                numInternalTransceivers,
+                numOutputs,
+                inDataQueueCapacity,
+                timeoutInterval,
+                maxDataChunkSize,
+                executorService),
+                executorService);
+        assert(numInternalTransceivers == this.getNumInternalTasks());
+        this.m_numOutputs = numOutputs;
+        this.TRANSMITTER_FETCH_LOCK = new Object();
+        this.m_executorService = executorService;
+
+        List<UnmodifiableList<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>>> transmitterLists = new ArrayList<>(numOutputs - 1);
+        for(int output = 1; output < numOutputs; output++){
+            List<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>> transmitterList = new ArrayList<>(numInternalTransceivers);
+            for(int i = 0; i < numInternalTransceivers; i++){
+                BroadcastTransceiverTask<DATA_IN_OUT_TYPE> transceiver = (BroadcastTransceiverTask<DATA_IN_OUT_TYPE>) this.getInternalTaskByIndex(i);
+                transmitterList.add(new BroadcastTransmitterTask<>(transceiver, output, maxDataChunkSize));
+            }
+            transmitterLists.add((UnmodifiableList<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>>) UnmodifiableList.unmodifiableList(transmitterList));
+        }
+        this.m_transmitterLists = Collections.unmodifiableList(transmitterLists);
+        this.m_multiTransmitters = new ArrayList<>(Collections.<MultiTransmitterTask<DATA_IN_OUT_TYPE, ?>>nCopies(numOutputs - 1, null));
+
+        for(int i = 0; i < numInternalTransceivers; i++){
+            List<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>> broadcastTransmitters = new ArrayList<>(numOutputs - 1);
+            for(UnmodifiableList<BroadcastTransmitterTask<DATA_IN_OUT_TYPE>> transmitterList : this.m_transmitterLists){
+                broadcastTransmitters.add(transmitterList.get(i));
+            }
+            ((BroadcastTransceiverTask<DATA_IN_OUT_TYPE>) this.getInternalTaskByIndex(i)).setBroadcastTransmitters(
+                    Collections.unmodifiableList(broadcastTransmitters));
+        }
+    }
+
+    public int getNumOutputs(){
+        return this.m_numOutputs;
+    }
+
+    // If true, outputs lagging the ring capacity behind are detached after a timeout (see class comment) instead of
+    // discarding the element for all outputs. Requires a non-null timeout interval.
+    @SuppressWarnings("unchecked")
+    public final void setDetachSlowOutputs(boolean detachSlowOutputs){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Slow output detachment should only be set when tasks have not started yet."));
+        }
+        for(int i = 0; i < this.getNumInternalTasks(); i++){
+            ((BroadcastTransceiverTask<DATA_IN_OUT_TYPE>) this.getInternalTaskByIndex(i)).m_detachSlowOutputs = detachSlowOutputs;
+        }
+    }
+
+    public MultiTransmitterTask<DATA_IN_OUT_TYPE, ?> createMultiTransmitterFromBroadcast(int output) throws JunctionTransmitterAlreadyFetchedException {
+        return createMultiTransmitterFromBroadcast(this, output);
+    }
+
+    // Output must be in [1, getNumOutputs()) (output 0 is the provided multi transceiver itself)
+    public static <DATA_OUT_TYPE> MultiTransmitterTask<DATA_OUT_TYPE, ?> createMultiTransmitterFromBroadcast(
+            GenericBroadcastMultiTransceiverTask<DATA_OUT_TYPE> broadcastMultiTransceiverTask, int output) throws JunctionTransmitterAlreadyFetchedException {
+        if(broadcastMultiTransceiverTask == null){
+            throw new NullPointerException();
+        }
+        if(output <= 0 || output >= broadcastMultiTransceiverTask.m_numOutputs){
+            throw new IllegalArgumentException("Output must be in [1, " + broadcastMultiTransceiverTask.m_numOutputs + ").");
+        }
+
+        synchronized (broadcastMultiTransceiverTask.TRANSMITTER_FETCH_LOCK) {
+            if (broadcastMultiTransceiverTask.m_multiTransmitters.get(output - 1) != null) {
+                throw new JunctionTransmitterAlreadyFetchedException();
+            }
+
+            MultiTransmitterTask<DATA_OUT_TYPE, ?> result = new GenericMultiTransmitterTask<>(
+                    broadcastMultiTransceiverTask.m_transmitterLists.get(output - 1),
+                    broadcastMultiTransceiverTask.m_executorService);
+
+            broadcastMultiTransceiverTask.m_multiTransmitters.set(output - 1, result);
+            return result;
+        }
+    }
+
+    @Override
+    protected void preWork() {
+        // Note: Waiting for the fetched MultiTransmitterTasks to start will result
+        // in a deadlock in the driver, as each ClosedMultiTaskChain is started subsequently there
+        super.preWork();
+        synchronized (this.TRANSMITTER_FETCH_LOCK) {
+            if(this.m_multiTransmitters.contains(null)){
+                throw new IllegalStateException("Not all multi transmitters of multi transceiver broadcast fetched.");
+            }
+        }
+    }
+}
@@ -8,12 +8,15 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.utils.queues.BlockingQueues;
+import gs.utils.queues.WeightedBlockingQueue;
+
 import org.apache.commons.collections4.list.UnmodifiableList;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Logger;
 // Demux = Demultiplexer = From single source to multiple targets (transmitters)
 public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE> 
@@ -22,11 +25,30 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
 			DATA_OUT_TYPE,
                 TransmitterTask<DATA_OUT_TYPE>> {
 
-    public abstract static class AbstractSourceTransmitterTask<DATA_OUT_TYPE> extends AbstractTransmitterTask<Pair<Integer, DATA_OUT_TYPE>> {
+    // Forwards the data elements of each getNextDataChunkForDemux(...) call as a single RoutedChunk (instead of
+    // one index/element pair per element). If a partitioner is set, the demux index provided to
+    // getNextDataChunkForDemux(...) merely selects which data to produce next: The partitioner decides for each
+    // element which demux transmitter it is routed to (one RoutedChunk per target demux transmitter).
+    // Watermarks (see createDemuxWatermark() and Watermark) are broadcast to all demux transmitters: Watermarks returned
+    // by getNextDataChunkForDemux(...) are never partitioned but forwarded (the last one per call) after the data.
+    public abstract static class AbstractSourceTransmitterTask<DATA_OUT_TYPE> extends AbstractTransmitterTask<RoutedChunk<DATA_OUT_TYPE>> {
 
         private final int m_numDemuxTransmitters;
         // No volatile necessary, access only via Thread executing this task
         private int m_nextOutIndex;
+        // Null: Round robin per data chunk (default).
+        // No volatile required - only set before this task has started (see setPartitioner(...))
+        private Partitioner<? super DATA_OUT_TYPE> m_partitioner;
+        // Set by the demux this task is the source of (before it has started)
+        private GenericDemuxMultiTransmitterTask<?>.DemuxBacklog m_backlog;
+        // Partitioning state of the current data chunk - access only via Thread executing this task:
+        // Number of elements per partition, partition per element, partitions in order of first occurrence
+        // and per partition elements
+        private int[] m_partitionCounts;
+        private int[] m_elementPartitions;
+        private int[] m_usedPartitions;
+        private List<List<DATA_OUT_TYPE>> m_partitionData;
+        private final Partitioner.PartitionLoad m_partitionLoad;
 
         public AbstractSourceTransmitterTask(int maxDataChunkSize, int numDemuxTransmitters) {
             super(maxDataChunkSize);
@@ -35,102 +57,421 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
             }
             this.m_numDemuxTransmitters = numDemuxTransmitters;
             this.m_nextOutIndex = 0;
+            this.m_partitioner = null;
+            this.m_backlog = null;
+            this.m_partitionLoad = new Partitioner.PartitionLoad() {
+                @Override
+                public int getNumPartitions() {
+                    return AbstractSourceTransmitterTask.this.m_numDemuxTransmitters;
+                }
+
+                @Override
+                public int getQueueSize(int partition) {
+                    AbstractSourceTransmitterTask<?> source = AbstractSourceTransmitterTask.this;
+                    if(partition < 0 || partition >= source.m_numDemuxTransmitters){
+                        throw new IndexOutOfBoundsException();
+                    }
+                    assert(source.m_backlog != null);
+                    return source.m_partitionCounts[partition] + source.m_backlog.getBacklog(partition);
+                }
+            };
         }
 
         public int getNumDemuxTransmitters(){
             return this.m_numDemuxTransmitters;
         }
 
+        // Null: Round robin per data chunk (default). See Partitioner for the handling of partitioner state.
+        public final void setPartitioner(Partitioner<? super DATA_OUT_TYPE> partitioner){
+            if(!this.isNotStarted()){
+                throw new RuntimeException(new IllegalStatusException("Partitioner should only be set when tasks have not started yet."));
+            }
+            this.m_partitioner = partitioner == null ? null : partitioner.copy();
+        }
+
+        public final boolean hasPartitioner(){
+            return this.m_partitioner != null;
+        }
+
+        // The copy used by this instance (e.g., for monitoring, see Partitioners.ElasticPartitioner), null if not set
+        public final Partitioner<? super DATA_OUT_TYPE> getPartitioner(){
+            return this.m_partitioner;
+        }
+
+        // At most one routed chunk per getNextDataChunk() call (one per target demux transmitter if partitioned), plus
+        // a watermark chunk
+        @Override
+        protected final int getMaxForwardedChunkSize(){
+            return (this.m_partitioner == null ? 1 : Math.min(this.m_numDemuxTransmitters, this.getMaxDataChunkSize())) + 1;
+        }
+
+        @Override
+        protected final RoutedChunk<DATA_OUT_TYPE> createWatermark(){
+            DATA_OUT_TYPE watermark = this.createDemuxWatermark();
+            return watermark == null ? null : RoutedChunk.watermark(watermark);
+        }
+
+        // Returns a Watermark instance which is not larger than any data element subsequently returned by
+        // getNextDataChunkForDemux(...) (for any demux index) or null if no such watermark is known (yet). Only called
+        // if a watermark interval is set (see AbstractTransmitterTask.createWatermark()).
+        protected DATA_OUT_TYPE createDemuxWatermark(){
+            return null;
+        }
+
+        @Override
+        final boolean isWatermark(RoutedChunk<DATA_OUT_TYPE> routedChunk){
+            return routedChunk.isWatermark();
+        }
+
+        @Override
+        final int countDataElements(Collection<? extends RoutedChunk<DATA_OUT_TYPE>> routedChunks){
+            int result = 0;
+            for(RoutedChunk<DATA_OUT_TYPE> routedChunk : routedChunks){
+                result += routedChunk.getNumDataElements();
+            }
+            return result;
+        }
+
+        // The demux receiver's input queue is weighted by the routed chunks' sizes
+        @Override
+        final int getRequiredReceiverCredits(){
+            return this.getMaxDataChunkSize();
+        }
+
+        @Override
+        protected void preWork(){
+            super.preWork();
+            if(this.m_partitioner != null){
+                if(this.m_backlog == null){
+                    throw new IllegalStateException("Partitioned source must be part of a demux.");
+                }
+                this.m_partitionCounts = new int[this.m_numDemuxTransmitters];
+                this.m_elementPartitions = new int[this.getMaxDataChunkSize()];
+                this.m_usedPartitions = new int[this.m_numDemuxTransmitters];
+                this.m_partitionData = new ArrayList<>(Collections.<List<DATA_OUT_TYPE>>nCopies(this.m_numDemuxTransmitters, null));
+            }
+        }
+
+        // Skips demux transmitters without data: An empty result implies that no demux transmitter received data
+        // (otherwise, each demux transmitter without data would cost a full idle phase of this task)
         @Override
-        protected Collection<Pair<Integer, DATA_OUT_TYPE>> getNextDataChunk() {
-            assert(this.m_nextOutIndex >= 0 && this.m_nextOutIndex < this.m_numDemuxTransmitters);
-            Collection<DATA_OUT_TYPE> data = this.getNextDataChunkForDemux(this.m_nextOutIndex);
-
-            int dataNum = data == null ? 0 : data.size();
-            List<Pair<Integer, DATA_OUT_TYPE>> result = new ArrayList<>(dataNum);
-            if(data != null) {
-                for (DATA_OUT_TYPE element : data) {
-                    result.add(new ImmutablePair<>(this.m_nextOutIndex, element));
+        protected Collection<RoutedChunk<DATA_OUT_TYPE>> getNextDataChunk() {
+            for(int i = 0; i < this.m_numDemuxTransmitters; i++) {
+                assert(this.m_nextOutIndex >= 0 && this.m_nextOutIndex < this.m_numDemuxTransmitters);
+                int demuxIndex = this.m_nextOutIndex;
+                this.m_nextOutIndex = (this.m_nextOutIndex + 1) % this.m_numDemuxTransmitters;
+
+                Collection<DATA_OUT_TYPE> data = this.getNextDataChunkForDemux(demuxIndex);
+                if(data != null && !data.isEmpty()) {
+                    if(data.size() > this.getMaxDataChunkSize()){
+                        throw new IllegalStateException();
+                    }
+                    for(DATA_OUT_TYPE element : data){
+                        if(element instanceof Watermark){
+                            return this.routeWithWatermarks(demuxIndex, data);
+                        }
+                    }
+                    return this.route(demuxIndex, data);
                 }
             }
+            return Collections.emptyList();
+        }
 
-            this.m_nextOutIndex = (this.m_nextOutIndex + 1) % this.m_numDemuxTransmitters;
+        private Collection<RoutedChunk<DATA_OUT_TYPE>> route(int demuxIndex, Collection<DATA_OUT_TYPE> data){
+            if(this.m_partitioner != null){
+                return this.partition(data);
+            }
+            return Collections.singletonList(new RoutedChunk<>(demuxIndex, data));
+        }
 
+        // Routes the data elements and appends the last watermark as a watermark chunk
+        private Collection<RoutedChunk<DATA_OUT_TYPE>> routeWithWatermarks(int demuxIndex, Collection<DATA_OUT_TYPE> data){
+            List<DATA_OUT_TYPE> dataElements = new ArrayList<>(data.size());
+            DATA_OUT_TYPE watermark = null;
+            for(DATA_OUT_TYPE element : data){
+                if(element instanceof Watermark){
+                    watermark = element;
+                }
+                else {
+                    dataElements.add(element);
+                }
+            }
+            assert(watermark != null);
+            List<RoutedChunk<DATA_OUT_TYPE>> result = new ArrayList<>(this.getMaxForwardedChunkSize());
+            if(!dataElements.isEmpty()){
+                result.addAll(this.route(demuxIndex, dataElements));
+            }
+            result.add(RoutedChunk.watermark(watermark));
             return result;
         }
 
+        private Collection<RoutedChunk<DATA_OUT_TYPE>> partition(Collection<DATA_OUT_TYPE> data){
+            int numUsedPartitions = 0;
+            int elementIndex = 0;
+            for(DATA_OUT_TYPE element : data){
+                int partition = this.m_partitioner.partition(element, this.m_partitionLoad);
+                if(partition < 0 || partition >= this.m_numDemuxTransmitters){
+                    throw new IllegalStateException("Partitioner returned invalid partition " + partition + ".");
+                }
+                if(this.m_partitionCounts[partition]++ == 0){
+                    this.m_usedPartitions[numUsedPartitions++] = partition;
+                }
+                this.m_elementPartitions[elementIndex++] = partition;
+            }
+
+            List<RoutedChunk<DATA_OUT_TYPE>> result;
+            if(numUsedPartitions == 1){
+                result = Collections.singletonList(new RoutedChunk<>(this.m_usedPartitions[0], data));
+            }
+            else{
+                for(int i = 0; i < numUsedPartitions; i++){
+                    int partition = this.m_usedPartitions[i];
+                    this.m_partitionData.set(partition, new ArrayList<DATA_OUT_TYPE>(this.m_partitionCounts[partition]));
+                }
+                elementIndex = 0;
+                for(DATA_OUT_TYPE element : data){
+                    this.m_partitionData.get(this.m_elementPartitions[elementIndex++]).add(element);
+                }
+                result = new ArrayList<>(numUsedPartitions);
+                for(int i = 0; i < numUsedPartitions; i++){
+                    int partition = this.m_usedPartitions[i];
+                    result.add(new RoutedChunk<>(partition, this.m_partitionData.get(partition)));
+                    this.m_partitionData.set(partition, null);
+                }
+            }
+
+            for(int i = 0; i < numUsedPartitions; i++){
+                int partition = this.m_usedPartitions[i];
+                this.m_backlog.routed(partition, this.m_partitionCounts[partition]);
+                this.m_partitionCounts[partition] = 0;
+            }
+            return result;
+        }
+
+        // Result size may not succeed getMaxDataChunkSize. The returned collection must not be modified afterwards.
+        // Watermarks contained in the result are forwarded to all demux transmitters.
         protected abstract Collection<DATA_OUT_TYPE> getNextDataChunkForDemux(int demuxIndex);
     }
 
-    private class DemuxReceiverTask extends AbstractReceiverTask<Pair<Integer, DATA_OUT_TYPE>> {
+    // Load of the demux transmitters as seen by the source's partitioner: Data elements routed by the source but not
+    // yet put to a demux transmitter's queue, in that queue and in the input queue of the connected receiver.
+    private class DemuxBacklog {
+        private final AtomicIntegerArray m_inFlight;
+        // Cached target receivers (fixed once running) - access only via the source's run thread
+        private final ReceiverTask<?>[] m_targetReceivers;
+
+        DemuxBacklog(int numDemuxTransmitters){
+            this.m_inFlight = new AtomicIntegerArray(numDemuxTransmitters);
+            this.m_targetReceivers = new ReceiverTask<?>[numDemuxTransmitters];
+        }
+
+        // Called by the source's run thread
+        void routed(int index, int numElements){
+            this.m_inFlight.addAndGet(index, numElements);
+        }
+
+        // Called by the demux receiver's run thread once a routed chunk has been put to the demux transmitter's queue
+        void distributed(int index, int numElements){
+            this.m_inFlight.addAndGet(index, -numElements);
+        }
+
+        // Called for routed chunks discarded at the demux receiver's input (timeout or interrupt-termination)
+        void dropped(int index, int numElements){
+            this.m_inFlight.addAndGet(index, -numElements);
+        }
+
+        // Called by the source's run thread
+        int getBacklog(int index){
+            DemuxTransmitterTask<DATA_OUT_TYPE> demuxTransmitter = GenericDemuxMultiTransmitterTask.this.m_demuxTransmitterList.get(index);
+            ReceiverTask<?> targetReceiver = this.m_targetReceivers[index];
+            if(targetReceiver == null){
+                targetReceiver = demuxTransmitter.getTargetReceiverTask();
+                this.m_targetReceivers[index] = targetReceiver;
+            }
+            long result = (long) this.m_inFlight.get(index) + demuxTransmitter.m_outQueue.size() +
+                    (targetReceiver == null ? 0 : targetReceiver.getInQueueSize());
+            return (int) Math.min(Integer.MAX_VALUE, result);
+        }
+    }
+
+    // The capacity of this task's input queue is counted in data elements (i.e., routed chunks are weighted by their
+    // size, see WeightedBlockingQueue). Bounded input queues are therefore always lock based (the queue type is ignored).
+    private class DemuxReceiverTask extends AbstractReceiverTask<RoutedChunk<DATA_OUT_TYPE>> {
         private final Long m_timeoutInterval;
         // No volatile necessary, access only via Thread executing this task
         private boolean m_lastWasTimeout;
         private final int m_numDemuxTransmitters;
+        private final int m_maxChunkSize;
 
-        public DemuxReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval, int numDemuxTransmitters) {
+        public DemuxReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval, int numDemuxTransmitters, int maxChunkSize) {
             super(inDataQueueCapacity, timeoutInterval);
             this.m_timeoutInterval = timeoutInterval;
             this.m_lastWasTimeout = false;
             this.m_numDemuxTransmitters = numDemuxTransmitters;
+            this.m_maxChunkSize = maxChunkSize;
+        }
+
+        @Override
+        BlockingQueue<RoutedChunk<DATA_OUT_TYPE>> createInQueue(BlockingQueues.QueueType queueType, Integer capacity){
+            if(capacity == null){
+                return super.createInQueue(queueType, null);
+            }
+            return new WeightedBlockingQueue<>(capacity, RoutedChunk.SIZE_WEIGHER);
+        }
+
+        // Elements are passed on to the demux transmitters
+        @Override
+        boolean endsLatencyTraces(){
+            return false;
+        }
+
+        @Override
+        final boolean isWatermark(RoutedChunk<DATA_OUT_TYPE> routedChunk){
+            return routedChunk.isWatermark();
         }
 
+        // Watermark chunks are broadcast to all demux transmitters (not counted as backlog)
         @Override
-        protected void processDataElement(Pair<Integer, DATA_OUT_TYPE> dataElement) throws InterruptedException {
+        protected void processWatermark(RoutedChunk<DATA_OUT_TYPE> watermark) throws InterruptedException {
+            List<DemuxTransmitterTask<DATA_OUT_TYPE>> demuxTransmitters = GenericDemuxMultiTransmitterTask.this.m_demuxTransmitterList;
+            for(int i = 0; i < this.m_numDemuxTransmitters; i++){
+                this.distribute(watermark, i, demuxTransmitters.get(i).m_outQueue);
+            }
+            for(DemuxTransmitterTask<DATA_OUT_TYPE> demuxTransmitter : demuxTransmitters){
+                demuxTransmitter.signalWork();
+            }
+        }
+
+        @Override
+        protected void processDataElement(RoutedChunk<DATA_OUT_TYPE> dataElement) throws InterruptedException {
             assert(dataElement != null);
-            int demuxTransmitterIndex = dataElement.getLeft();
-            assert(dataElement.getLeft() >= 0 && dataElement.getLeft() < this.m_numDemuxTransmitters);
-            BlockingQueue<DATA_OUT_TYPE> outQueue = 
-            		GenericDemuxMultiTransmitterTask.this.m_demuxTransmitterList.get(demuxTransmitterIndex).m_outQueue;
-            if(this.m_timeoutInterval == null) {
-            	outQueue.put(dataElement.getRight());
+            int demuxTransmitterIndex = dataElement.getIndex();
+            assert(demuxTransmitterIndex >= 0 && demuxTransmitterIndex < this.m_numDemuxTransmitters);
+            DemuxTransmitterTask<DATA_OUT_TYPE> demuxTransmitter =
+                    GenericDemuxMultiTransmitterTask.this.m_demuxTransmitterList.get(demuxTransmitterIndex);
+            BlockingQueue<DATA_OUT_TYPE> outQueue = demuxTransmitter.m_outQueue;
+            int chunkSize = dataElement.size();
+            try {
+                this.distribute(dataElement, demuxTransmitterIndex, outQueue);
             }
-            else{
-                boolean timeout = this.m_lastWasTimeout;
-                if(outQueue.offer(dataElement.getRight())){
-                	timeout = false;
+            finally {
+                // Also if interrupted: Remaining elements are lost
+                if(GenericDemuxMultiTransmitterTask.this.m_sourceTransmitter.m_partitioner != null){
+                    GenericDemuxMultiTransmitterTask.this.m_backlog.distributed(demuxTransmitterIndex, chunkSize);
                 }
-                else if(!this.m_lastWasTimeout){
-                	timeout = !outQueue.offer(
-                					dataElement.getRight(), 
-                					this.m_timeoutInterval, 
-                					TimeUnit.MILLISECONDS);
+            }
+            demuxTransmitter.signalWork();
+        }
+
+        private void distribute(RoutedChunk<DATA_OUT_TYPE> dataElement, int demuxTransmitterIndex,
+                                BlockingQueue<DATA_OUT_TYPE> outQueue) throws InterruptedException {
+            int chunkSize = dataElement.size();
+            for(int i = 0; i < chunkSize; i++) {
+                DATA_OUT_TYPE element = dataElement.get(i);
+                if (this.m_timeoutInterval == null) {
+                    putToQueue(outQueue, element);
                 }
-                
-                if(timeout){
-                    LOGGER.warning("Discarding input element to "+demuxTransmitterIndex+"-th demux transmitter's "
-                    		+ "input queue due to timeout in "+
-                            this.getClass().getName()+", running in thread with ID "+this.getRunThreadID()+" and name "+
-                            this.getRunThreadName()+ ".");
+                else {
+                    boolean timeout = this.m_lastWasTimeout;
+                    if (outQueue.offer(element)) {
+                        timeout = false;
+                    }
+                    else if (!this.m_lastWasTimeout) {
+                        timeout = !offerToQueue(outQueue,
+                                element,
+                                this.m_timeoutInterval,
+                                TimeUnit.MILLISECONDS);
+                    }
+
+                    if (timeout) {
+                        this.discarded(1, FlightRecording.REASON_TIMEOUT);
+                        LOGGER.warning("Discarding input element to " + demuxTransmitterIndex + "-th demux transmitter's "
+                                + "input queue due to timeout in " +
+                                this.getClass().getName() + ", running in thread with ID " + this.getRunThreadID() + " and name " +
+                                this.getRunThreadName() + ".");
+                    }
+
+                    this.m_lastWasTimeout = timeout;
                 }
-                
-                this.m_lastWasTimeout = timeout;
             }
         }
+
+        @Override
+        void discardedInput(Collection<? extends RoutedChunk<DATA_OUT_TYPE>> dataSet, int fromIndex){
+            if(GenericDemuxMultiTransmitterTask.this.m_sourceTransmitter.m_partitioner == null){
+                return;
+            }
+            int index = 0;
+            for(RoutedChunk<DATA_OUT_TYPE> routedChunk : dataSet){
+                if(index++ >= fromIndex && !routedChunk.isWatermark()){
+                    GenericDemuxMultiTransmitterTask.this.m_backlog.dropped(routedChunk.getIndex(), routedChunk.size());
+                }
+            }
+        }
+
+        // Target demux transmitters are only known per routed chunk: The smallest free capacity among all of them
+        // (in full chunks) guarantees that no element of the next batch has to wait for a full queue.
+        @Override
+        protected int getProcessingCredits(){
+            int credits = Integer.MAX_VALUE;
+            for(DemuxTransmitterTask<DATA_OUT_TYPE> demuxTransmitter : GenericDemuxMultiTransmitterTask.this.m_demuxTransmitterList){
+                int remainingCapacity = demuxTransmitter.m_outQueue.remainingCapacity();
+                if(remainingCapacity != Integer.MAX_VALUE) {
+                    int chunkSize = demuxTransmitter.m_inDataQueueCapacity == null ?
+                            this.m_maxChunkSize :
+                            Math.min(this.m_maxChunkSize, demuxTransmitter.m_inDataQueueCapacity);
+                    credits = Math.min(credits, remainingCapacity / chunkSize);
+                }
+            }
+            return credits;
+        }
     }
 
     private static class DemuxTransmitterTask<DATA_OUT_TYPE> extends AbstractTransmitterTask<DATA_OUT_TYPE>{
 
-    	final BlockingQueue<DATA_OUT_TYPE> m_outQueue;
+        private final Integer m_inDataQueueCapacity;
+        // No volatile required - only replaced before this task has started (see recreateQueues(...))
+    	BlockingQueue<DATA_OUT_TYPE> m_outQueue;
+        // Task filling m_outQueue (i.e., the demux receiver)
+        volatile AbstractReceiverTask<?> m_producerTask;
 
         public DemuxTransmitterTask(int maxDataChunkSize, Integer inDataQueueCapacity) {
             super(maxDataChunkSize);
-            if(inDataQueueCapacity == null){
-                this.m_outQueue = new LinkedBlockingQueue<>();
-            }
-            else{
-                if(inDataQueueCapacity < 1){
-                    throw new IllegalArgumentException();
-                }
-                this.m_outQueue = new ArrayBlockingQueue<>(inDataQueueCapacity, true);
+            if(inDataQueueCapacity != null && inDataQueueCapacity < 1){
+                throw new IllegalArgumentException();
             }
+            this.m_inDataQueueCapacity = inDataQueueCapacity;
+            this.m_outQueue = BlockingQueues.create(this.getQueueType(), inDataQueueCapacity);
+        }
+
+        // Elements are provided by the demux receiver
+        @Override
+        boolean startsLatencyTraces(){
+            return false;
+        }
+
+        // Only producer: The demux receiver
+        @Override
+        protected void recreateQueues(BlockingQueues.QueueType queueType) {
+            super.recreateQueues(queueType);
+            assert(this.m_outQueue.isEmpty());
+            this.m_outQueue = BlockingQueues.create(queueType, this.m_inDataQueueCapacity);
+        }
+
+        // The demux receiver signals this task whenever it enqueues new elements
+        @Override
+        protected boolean isSignalledOnNewWork() {
+            return true;
         }
 
         @Override
         protected Collection<DATA_OUT_TYPE> getNextDataChunk() {
             assert(this.m_outQueue != null);
             List<DATA_OUT_TYPE> dataChunk = new LinkedList<>();
-            this.m_outQueue.drainTo(dataChunk, this.getMaxDataChunkSize());
+            if(this.m_outQueue.drainTo(dataChunk, this.getMaxDataChunkSize()) > 0){
+                assert(this.m_producerTask != null);
+                this.m_producerTask.signalProcessingCredits();
+            }
 
             return dataChunk;
         }
@@ -143,6 +484,7 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
                 ArrayList<DATA_OUT_TYPE> remainingData = new ArrayList<>(this.m_outQueue.size());
                 this.m_outQueue.drainTo(remainingData);
                 if (remainingData.size() > 0) {
+                    this.discarded(remainingData.size(), FlightRecording.REASON_INTERRUPT);
                     LOGGER.warning("Discarding " + remainingData.size() + " elements from input queue due to interrupt-termination.");
                 }
             }
@@ -166,6 +508,7 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
     private final AbstractSourceTransmitterTask<DATA_OUT_TYPE> m_sourceTransmitter;
     private final ExecutorService m_executorService;
     private final DemuxReceiverTask m_demuxReceiver;
+    private final DemuxBacklog m_backlog;
 
     private static final Logger LOGGER = Logger.getLogger(GenericDemuxMultiTransmitterTask.class.getName());
 
@@ -217,7 +560,13 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
         }
         this.m_demuxTransmitterList = (UnmodifiableList<DemuxTransmitterTask<DATA_OUT_TYPE>>) UnmodifiableList.unmodifiableList(demuxTransmitterList);
 
-        this.m_demuxReceiver = new DemuxReceiverTask(inDataQueueCapacity, timeoutInterval, numInternalTransmitters);
+        this.m_demuxReceiver = new DemuxReceiverTask(inDataQueueCapacity, timeoutInterval, numInternalTransmitters,
+                sourceTransmitter.getMaxDataChunkSize());
+        for(DemuxTransmitterTask<DATA_OUT_TYPE> demuxTransmitter : this.m_demuxTransmitterList){
+            demuxTransmitter.m_producerTask = this.m_demuxReceiver;
+        }
+        this.m_backlog = new DemuxBacklog(numInternalTransmitters);
+        sourceTransmitter.m_backlog = this.m_backlog;
         try {
             this.m_sourceTransmitter.setOutConnection(this.m_demuxReceiver);
         } catch (UnacceptedConcurrentTaskException e) {
@@ -226,6 +575,14 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
         assert(numInternalTransmitters == this.m_demuxTransmitterList.size());
     }
 
+    @Override
+    protected Collection<? extends ConcurrentTask> getManagedTasks() {
+        List<ConcurrentTask> result = new ArrayList<>(super.getManagedTasks());
+        result.add(this.m_sourceTransmitter);
+        result.add(this.m_demuxReceiver);
+        return result;
+    }
+
     @Override
     protected void preWork() {
         assert(this.isRunning());
@@ -236,23 +593,21 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
         assert(this.m_sourceTransmitter.hasOutConnection());
         assert(this.m_sourceTransmitter.getTargetReceiverTask() == this.m_demuxReceiver);
 
+        // Transmitters wait for their receivers anyway, hence no particular start order required
         this.m_executorService.submit(this.m_sourceTransmitter);
-        while(this.m_sourceTransmitter.isNotStarted()){
-            Thread.yield();
-        }
 
         assert(this.m_demuxReceiver.isNotStarted());
         assert(this.m_demuxReceiver.hasInConnection());
         assert(this.m_demuxReceiver.getSourceTransmitterTask() == this.m_sourceTransmitter);
         this.m_executorService.submit(this.m_demuxReceiver);
-        while(this.m_demuxReceiver.isNotStarted()){
-            Thread.yield();
-        }
         super.preWork(); // Starts demux transmitters
+        // (Waiting for all of them to start happens in postWork())
     }
 
     @Override
     protected void postWork() {
+        awaitStarted(this.m_sourceTransmitter);
+        awaitStarted(this.m_demuxReceiver);
         assert(this.m_sourceTransmitter.isRunning());
         assert(this.terminateCalledWithInterrupt() != null);
         try {
@@ -260,9 +615,7 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
         } catch (NotStartedException e) {
             throw new IllegalStateException("This should not happen here.", e);
         }
-        while(!this.m_sourceTransmitter.isTerminated()){
-            Thread.yield();
-        }
+        awaitTerminated(this.m_sourceTransmitter);
 
         assert(this.m_demuxReceiver.isRunning());
         try {
@@ -270,9 +623,7 @@ public class GenericDemuxMultiTransmitterTask<DATA_OUT_TYPE>
         } catch (NotStartedException e) {
             throw new IllegalStateException("This should not happen here.", e);
         }
-        while(!this.m_demuxReceiver.isTerminated()){
-            Thread.yield();
-        }
+        awaitTerminated(this.m_demuxReceiver);
         super.postWork(); // Terminates demux transmitters
     }
 
@@ -8,6 +8,9 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.utils.queues.BlockingQueues;
+
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 import org.apache.commons.collections4.bidimap.UnmodifiableBidiMap;
@@ -28,7 +31,9 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
     private static class JunctionTransceiverTask<DATA_IN_OUT_TYPE> extends AbstractTransceiverTask<DATA_IN_OUT_TYPE, DATA_IN_OUT_TYPE> {
         private static final Logger LOGGER = Logger.getLogger(JunctionTransceiverTask.class.getName());
 
-        private final BlockingQueue<DATA_IN_OUT_TYPE> m_inQueue1, m_inQueue2;
+        private final Integer m_inDataQueueCapacity;
+        // No volatile required - only replaced before this task has started (see recreateQueues(...))
+        private BlockingQueue<DATA_IN_OUT_TYPE> m_inQueue1, m_inQueue2;
         private final Long m_timeoutInterval;
 
         // No volatile necessary, access only via Thread executing this task
@@ -45,18 +50,18 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
             this.m_lastWasTimeout2 = false;
             this.m_enclosingJunctionMultiTransceiver = null;
             
-            if(inDataQueueCapacity == null){
-                this.m_inQueue1 = new LinkedBlockingQueue<>();
-                this.m_inQueue2 = new LinkedBlockingQueue<>();
-            }
-            else{
-                if(inDataQueueCapacity < 1){
-                    throw new IllegalArgumentException();
-                }
+            this.m_inDataQueueCapacity = inDataQueueCapacity;
+            this.m_inQueue1 = BlockingQueues.create(this.getQueueType(), inDataQueueCapacity);
+            this.m_inQueue2 = BlockingQueues.create(this.getQueueType(), inDataQueueCapacity);
+        }
 
-                this.m_inQueue1 = new ArrayBlockingQueue<>(inDataQueueCapacity, true);
-                this.m_inQueue2 = new ArrayBlockingQueue<>(inDataQueueCapacity, true);
-            }
+        // Only producer: The internal receiver task (via processDataElement(...))
+        @Override
+        protected void recreateQueues(BlockingQueues.QueueType queueType) {
+            super.recreateQueues(queueType);
+            assert(this.m_inQueue1.isEmpty() && this.m_inQueue2.isEmpty());
+            this.m_inQueue1 = BlockingQueues.create(queueType, this.m_inDataQueueCapacity);
+            this.m_inQueue2 = BlockingQueues.create(queueType, this.m_inDataQueueCapacity);
         }
         
         public void setEnclosingJunctionMultiTransceiver(
@@ -69,8 +74,8 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
         @Override
         protected void processDataElement(DATA_IN_OUT_TYPE dataElement) throws InterruptedException {
             if(this.m_timeoutInterval == null) {
-                this.m_inQueue1.put(dataElement);
-                this.m_inQueue2.put(dataElement);
+                putToQueue(this.m_inQueue1, dataElement);
+                putToQueue(this.m_inQueue2, dataElement);
             }
             else{
                 boolean timeout = this.m_lastWasTimeout1;
@@ -78,12 +83,13 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
                 	timeout = false;
                 }
                 else if(!this.m_lastWasTimeout1){
-                    timeout = !this.m_inQueue1.offer(
+                    timeout = !offerToQueue(this.m_inQueue1,
                     		dataElement, 
                     		this.m_timeoutInterval, 
                     		TimeUnit.MILLISECONDS);
                 }
                 if(timeout){
+                    this.discarded(1, FlightRecording.REASON_TIMEOUT);
                     LOGGER.warning("Discarding input element to first input queue due to timeout in "+
                             this.getClass().getName()+", running in thread with ID "+this.getRunThreadID()+" and name "+
                             this.getRunThreadName()+ ".");
@@ -95,31 +101,49 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
                 	timeout = false;
                 }
                 else if(!this.m_lastWasTimeout2){
-                    timeout = !this.m_inQueue2.offer(
+                    timeout = !offerToQueue(this.m_inQueue2,
                     		dataElement, 
                     		this.m_timeoutInterval, 
                     		TimeUnit.MILLISECONDS);
                 }
                 if(timeout){
+                    this.discarded(1, FlightRecording.REASON_TIMEOUT);
                     LOGGER.warning("Discarding input element to second input queue due to timeout in "+
                             this.getClass().getName()+", running in thread with ID "+this.getRunThreadID()+" and name "+
                             this.getRunThreadName()+ ".");
                 }
                 this.m_lastWasTimeout2 = timeout;
             }
+            this.m_enclosingJunctionMultiTransceiver.m_transmitterToTransceiverMap.getKey(this).signalWork();
+        }
+
+        // Watermarks are passed on in-band to both outputs
+        @Override
+        protected void processWatermark(DATA_IN_OUT_TYPE watermark) throws InterruptedException {
+            this.processDataElement(watermark);
+        }
+
+        // Both queues are drained via getNextDataChunk() and getNextDataChunk2() respectively (which signal new credits)
+        @Override
+        protected int getProcessingCredits(){
+            return Math.min(this.m_inQueue1.remainingCapacity(), this.m_inQueue2.remainingCapacity());
         }
 
         @Override
         protected Collection<DATA_IN_OUT_TYPE> getNextDataChunk() {
             List<DATA_IN_OUT_TYPE> dataChunk = new LinkedList<>();
-            this.m_inQueue1.drainTo(dataChunk, this.getMaxDataChunkSize());
+            if(this.m_inQueue1.drainTo(dataChunk, this.getMaxDataChunkSize()) > 0){
+                this.signalProcessingCredits();
+            }
 
             return dataChunk;
         }
 
         private Collection<DATA_IN_OUT_TYPE> getNextDataChunk2() {
             List<DATA_IN_OUT_TYPE> dataChunk = new LinkedList<>();
-            this.m_inQueue2.drainTo(dataChunk, this.getMaxDataChunkSize());
+            if(this.m_inQueue2.drainTo(dataChunk, this.getMaxDataChunkSize()) > 0){
+                this.signalProcessingCredits();
+            }
 
             return dataChunk;
         }
@@ -145,6 +169,7 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
 
                 StringBuilder sb = new StringBuilder();
                 if(size1 > 0 || size2 > 0) {
+                    this.discarded(size1 + size2, FlightRecording.REASON_INTERRUPT);
                     sb.append("Discarding ");
                     if (size1 > 0) {
                         sb.append(size1).append(" elements in first queue ");
@@ -174,7 +199,7 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
                 GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>.JunctionTransmitterTask junctionTransmitter = this.m_enclosingJunctionMultiTransceiver.m_transmitterToTransceiverMap.getKey(this);
                 while(this.m_inQueue2.size() > 0){
                 	if(!junctionTransmitter.isTerminated()) {
-                		Thread.yield(); // JunctionTransmitterTask is responsible for draining this unless it is already terminated
+                		yieldToOtherTasks(); // JunctionTransmitterTask is responsible for draining this unless it is already terminated
                 	}
                 	else {
                 		ArrayList<DATA_IN_OUT_TYPE> remainingData2 = new ArrayList<>(this.m_inQueue2.size());
@@ -183,6 +208,7 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
 
                         StringBuilder sb = new StringBuilder();
                         if(size2 > 0) {
+                            this.discarded(size2, FlightRecording.REASON_OUTPUT_TERMINATED);
                             sb.append("Discarding ")
                             	.append(size2)
                             	.append(" elements from second queue due to the MultiTransmitterTask ")
@@ -208,6 +234,18 @@ public class GenericJunctionMultiTransceiverTask<DATA_IN_OUT_TYPE>
             super(maxDataChunkSize);
         }
 
+        // Elements are provided by the assigned junction transceiver
+        @Override
+        boolean startsLatencyTraces(){
+            return false;
+        }
+
+        // The assigned junction transceiver signals this task whenever it enqueues new elements
+        @Override
+        protected boolean isSignalledOnNewWork() {
+            return true;
+        }
+
         @Override
         protected Collection<DATA_IN_OUT_TYPE> getNextDataChunk() {
             assert(GenericJunctionMultiTransceiverTask.this.m_transmitterToTransceiverMap.containsKey(this));
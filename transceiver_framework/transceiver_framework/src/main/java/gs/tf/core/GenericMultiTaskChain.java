@@ -16,6 +16,7 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 // TODO DAG data structure with own consistency checks
 
@@ -444,34 +445,40 @@ public class GenericMultiTaskChain<
         return this.m_multiTaskIDConnectionDAG;
     }
 
+    @Override
+    protected Collection<? extends ConcurrentTask> getManagedTasks() {
+        return this.m_multiTaskIDToMultiTaskMap.values();
+    }
+
+    @Override
+    protected boolean requiresWorkLoop() {
+        return false;
+    }
+
     @Override
     protected final void preWork() {
         assert(this.isRunning());
 
         assert(this.m_multiTaskIDToposorted.size() > 0);
 
-        // Start in toposort order
+        // Submit in toposort order but start up in parallel
+        // (transmitters wait for their receivers anyway, hence no particular start order required).
+        // Waiting for the multi tasks to start happens in postWork().
         MultiTask<?> multiTask;
         for(long multiTaskID : this.m_multiTaskIDToposorted){
             multiTask = this.m_multiTaskIDToMultiTaskMap.get(multiTaskID);
             assert(multiTask.isNotStarted());
             this.m_executorService.submit(multiTask);
-
-            while(multiTask.isNotStarted()){
-                Thread.yield();
-            }
         }
     }
 
     @Override
-    protected void doWorkChunk() {
+    protected boolean doWorkChunk() {
         InterruptedException interruptException = null;
-        synchronized (WAIT_LOCK) {
-            try {
-                WAIT_LOCK.wait();
-            } catch (InterruptedException e) {
-                interruptException = e;
-            }
+        try {
+            this.awaitTerminateCall();
+        } catch (InterruptedException e) {
+            interruptException = e;
         }
         if(interruptException != null) {
             Boolean terminatedWithInterrupt = this.terminateCalledWithInterrupt();
@@ -479,27 +486,48 @@ public class GenericMultiTaskChain<
                 throw new IllegalStateException("Thread should only be interrupted during termination.", interruptException);
             }
         }
+        // Waiting on WAIT_LOCK already is the idle phase of this task
+        return true;
     }
 
     @Override
     protected final void postWork() {
-        // Terminate in toposort order
-        MultiTask<?> multiTask;
+        // Each multi task is terminated as soon as it has started and all of its predecessors have terminated
+        // (i.e., unrelated branches terminate in parallel). The terminate(...) calls are issued by the
+        // threads completing the predecessors' terminated() futures.
+        assert(this.terminateCalledWithInterrupt() != null);
+        final boolean interrupt = this.terminateCalledWithInterrupt();
+
+        Map<Long, List<CompletableFuture<Void>>> terminationPreconditions = new HashMap<>();
         for(long multiTaskID : this.m_multiTaskIDToposorted){
-            multiTask = this.m_multiTaskIDToMultiTaskMap.get(multiTaskID);
-            assert(multiTask.isRunning());
-            try {
-                assert(this.terminateCalledWithInterrupt() != null);
-                multiTask.terminate(this.terminateCalledWithInterrupt());
-            } catch (NotStartedException e) {
-                throw new IllegalStateException("This should not happen.", e);
+            terminationPreconditions.put(multiTaskID, new ArrayList<CompletableFuture<Void>>());
+            terminationPreconditions.get(multiTaskID).add(this.m_multiTaskIDToMultiTaskMap.get(multiTaskID).started());
+        }
+        for(long parentID : this.m_multiTaskIDConnectionDAG.keySet()){
+            for(long childID : this.m_multiTaskIDConnectionDAG.get(parentID)){
+                terminationPreconditions.get(childID).add(this.m_multiTaskIDToMultiTaskMap.get(parentID).terminated());
             }
+        }
 
-            while(!multiTask.isTerminated()){
-                Thread.yield();
-            }
+        List<CompletableFuture<Void>> terminateCalls = new ArrayList<>(this.m_multiTaskIDToposorted.size());
+        for(long multiTaskID : this.m_multiTaskIDToposorted){
+            final MultiTask<?> multiTask = this.m_multiTaskIDToMultiTaskMap.get(multiTaskID);
+            List<CompletableFuture<Void>> preconditions = terminationPreconditions.get(multiTaskID);
+            terminateCalls.add(CompletableFuture.allOf(preconditions.toArray(new CompletableFuture<?>[preconditions.size()]))
+                    .thenRun(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                multiTask.terminate(interrupt);
+                            } catch (NotStartedException e) {
+                                throw new IllegalStateException("This should not happen.", e);
+                            }
+                        }
+                    }));
         }
 
+        awaitCompletion(CompletableFuture.allOf(terminateCalls.toArray(new CompletableFuture<?>[terminateCalls.size()])));
+        awaitAllTerminated(this.m_multiTaskIDToMultiTaskMap.values());
     }
 
     @Override
@@ -12,6 +12,7 @@ import org.apache.commons.collections4.list.UnmodifiableList;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Lock;
 
@@ -27,6 +28,8 @@ public class GenericMultiTransceiverTask<
 	// Those are merely used as data structures - starting and terminating tasks performed by superclass AbstractMultiTask
     private final GenericMultiReceiverTask<DATA_IN_TYPE, TRANSCEIVER_TYPE> m_multiReceiver;
     private final GenericMultiTransmitterTask<DATA_OUT_TYPE, TRANSCEIVER_TYPE> m_multiTransmitter;
+    // No volatile required - only set before this task has started (see setWorkStealing(...))
+    private boolean m_workStealing;
 
     public GenericMultiTransceiverTask(Collection<TRANSCEIVER_TYPE> transceiverTasks,
                                        ExecutorService executorService) {
@@ -35,6 +38,37 @@ public class GenericMultiTransceiverTask<
                 executorService);
         this.m_multiTransmitter = new GenericMultiTransmitterTask<>(transceiverTasks,
                 executorService);
+        this.m_workStealing = false;
+    }
+
+    // If enabled, internal transceivers with empty input queue steal input elements of the internal transceiver
+    // with the largest input backlog (see WorkStealingGroup), e.g., to balance skewed per element processing cost.
+    // Only suitable for stateless transceivers: Elements are processed (and forwarded) by arbitrary internal
+    // transceivers, i.e., neither the assignment of elements to outputs nor their order is preserved.
+    // Requires AbstractTransceiverTask instances as internal transceivers and a multi consumer queue type
+    // (see BlockingQueues.isMultiConsumer(...)).
+    public final void setWorkStealing(boolean workStealing){
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Work stealing should only be set when tasks have not started yet."));
+        }
+        List<AbstractReceiverTask<?>> receivers = new ArrayList<>(this.getNumInternalTasks());
+        for(int i = 0; i < this.getNumInternalTasks(); i++){
+            TRANSCEIVER_TYPE transceiver = this.getInternalTaskByIndex(i);
+            if(!(transceiver instanceof AbstractTransceiverTask)){
+                throw new IllegalStateException("Work stealing requires internal transceivers of type " +
+                        AbstractTransceiverTask.class.getName() + ".");
+            }
+            receivers.add(((AbstractTransceiverTask<?, ?>) transceiver).getInternalReceiverTask());
+        }
+        WorkStealingGroup workStealingGroup = workStealing ? new WorkStealingGroup(receivers) : null;
+        for(int i = 0; i < receivers.size(); i++){
+            receivers.get(i).setWorkStealingGroup(workStealingGroup, i);
+        }
+        this.m_workStealing = workStealing;
+    }
+
+    public final boolean isWorkStealing(){
+        return this.m_workStealing;
     }
 
     @Override
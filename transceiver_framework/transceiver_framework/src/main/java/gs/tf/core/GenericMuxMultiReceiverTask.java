@@ -8,18 +8,20 @@
  
 package gs.tf.core;
 
+import gs.tf.jfr.FlightRecording;
+import gs.utils.queues.BlockingQueues;
+import gs.utils.queues.WeightedBlockingQueue;
+
 import org.apache.commons.collections4.list.UnmodifiableList;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Logger;
 
 // TODO GenericMuxMultiTransceiverTask & GenericDemuxMultiTransceiverTask
@@ -31,7 +33,24 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
 			DATA_IN_TYPE,
                 ReceiverTask<DATA_IN_TYPE>> {
 
-    public abstract static class AbstractTargetReceiverTask<DATA_IN_TYPE> extends AbstractReceiverTask<Pair<Integer, DATA_IN_TYPE>> {
+    // Order in which the sequential mux transmitter visits the mux receivers (see setSchedulingPolicy(...)).
+    // Not applicable to GenericSyncMuxMultiReceiverTask (which must inspect all mux receivers anyway).
+    public enum SchedulingPolicy {
+        // Round robin over all mux receivers, including empty ones
+        SCAN_ALL,
+        // Round robin over the mux receivers which signalled new input (default)
+        READY_ROUND_ROBIN,
+        // As READY_ROUND_ROBIN, but a mux receiver is visited for up to
+        // ceil(queue size / max data chunk size) consecutive chunks (times its weight, see setInputWeights(...))
+        READY_DEPTH_WEIGHTED
+    }
+
+    // Receives the data elements of each mux receiver as RoutedChunk instances (index: mux receiver index).
+    // Watermarks are received as watermark chunks carrying the minimum watermark over all mux receivers (see
+    // processWatermarkFromMux(...)).
+    // The capacity of this task's input queue is counted in data elements (i.e., routed chunks are weighted by their
+    // size, see WeightedBlockingQueue). Bounded input queues are therefore always lock based (the queue type is ignored).
+    public abstract static class AbstractTargetReceiverTask<DATA_IN_TYPE> extends AbstractReceiverTask<RoutedChunk<DATA_IN_TYPE>> {
 
         private final int m_numMuxTransmitters;
 
@@ -49,45 +68,117 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         }
 
         @Override
-        protected void processDataElement(Pair<Integer, DATA_IN_TYPE> dataElement) throws InterruptedException {
-            assert(dataElement != null);
+        final BlockingQueue<RoutedChunk<DATA_IN_TYPE>> createInQueue(BlockingQueues.QueueType queueType, Integer capacity){
+            if(capacity == null){
+                return super.createInQueue(queueType, null);
+            }
+            return new WeightedBlockingQueue<>(capacity, RoutedChunk.SIZE_WEIGHER);
+        }
+
+        @Override
+        final boolean isWatermark(RoutedChunk<DATA_IN_TYPE> routedChunk){
+            return routedChunk.isWatermark();
+        }
 
-            int sourceIndex = dataElement.getLeft();
-            DATA_IN_TYPE data = dataElement.getRight();
+        @Override
+        protected final void processWatermark(RoutedChunk<DATA_IN_TYPE> watermark) throws InterruptedException {
+            assert(watermark.isWatermark() && watermark.size() == 1);
+            this.processWatermarkFromMux(watermark.get(0));
+        }
+
+        @Override
+        protected void processDataElement(RoutedChunk<DATA_IN_TYPE> dataElement) throws InterruptedException {
+            assert(dataElement != null);
 
-            if(sourceIndex < 0 || sourceIndex >= this.m_numMuxTransmitters){
+            int sourceIndex = dataElement.getIndex();
+            if(sourceIndex >= this.m_numMuxTransmitters){
                 throw new IllegalArgumentException();
             }
-            this.processDataElementFromMux(sourceIndex, data);
+            int chunkSize = dataElement.size();
+            for(int i = 0; i < chunkSize; i++) {
+                this.processDataElementFromMux(sourceIndex, dataElement.get(i));
+            }
+        }
 
+        @Override
+        protected final void processDataChunk(List<RoutedChunk<DATA_IN_TYPE>> dataChunk) throws InterruptedException {
+            assert(dataChunk != null);
+            for(RoutedChunk<DATA_IN_TYPE> routedChunk : dataChunk){
+                if(routedChunk.getIndex() >= this.m_numMuxTransmitters){
+                    throw new IllegalArgumentException();
+                }
+            }
+            this.processDataChunkFromMux(dataChunk);
         }
 
         protected abstract void processDataElementFromMux(int muxIndex, DATA_IN_TYPE dataElement) throws InterruptedException;
+
+        // Called with the minimum watermark over all mux receivers whenever it advanced (see Watermark), in order
+        // w.r.t. the data elements. By default, watermarks are discarded.
+        protected void processWatermarkFromMux(DATA_IN_TYPE watermark) throws InterruptedException {
+        }
+
+        // Each routed chunk contains data elements from the same mux receiver (see RoutedChunk.getIndex()).
+        // Override to amortize per element overhead.
+        // Note: dataChunk is reused after this method returns and must therefore not be retained.
+        protected void processDataChunkFromMux(List<RoutedChunk<DATA_IN_TYPE>> dataChunk) throws InterruptedException {
+            for(RoutedChunk<DATA_IN_TYPE> routedChunk : dataChunk){
+                this.processDataElement(routedChunk);
+            }
+        }
     }
 
     protected static class MuxReceiverTask<DATA_IN_TYPE> extends AbstractReceiverTask<DATA_IN_TYPE>{
 
         private static final Logger LOGGER = Logger.getLogger(MuxReceiverTask.class.getName());
 
-        final BlockingQueue<DATA_IN_TYPE> m_inQueue;
+        private final Integer m_inDataQueueCapacity;
+        // No volatile required - only replaced before this task has started (see recreateQueues(...))
+        BlockingQueue<DATA_IN_TYPE> m_inQueue;
+        // Task consuming m_inQueue (i.e., the mux transmitter)
+        volatile AbstractConcurrentTask m_consumerTask;
+        // Index of this task among the mux receivers and the bitmap in which it marks m_inQueue as non-empty
+        volatile int m_muxIndex;
+        volatile ReadyBitmap m_readyBitmap;
 
         public MuxReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval) {
             super(inDataQueueCapacity, timeoutInterval);
-            if(inDataQueueCapacity == null){
-                this.m_inQueue = new LinkedBlockingQueue<>();
-            }
-            else{
-                if(inDataQueueCapacity < 1){
-                    throw new IllegalArgumentException();
-                }
+            this.m_inDataQueueCapacity = inDataQueueCapacity;
+            this.m_inQueue = BlockingQueues.create(this.getQueueType(), inDataQueueCapacity);
+        }
 
-                this.m_inQueue = new ArrayBlockingQueue<>(inDataQueueCapacity, true);
-            }
+        // Elements are passed on to the mux transmitter
+        @Override
+        boolean endsLatencyTraces(){
+            return false;
+        }
+
+        @Override
+        protected void recreateQueues(BlockingQueues.QueueType queueType) {
+            super.recreateQueues(queueType);
+            assert(this.m_inQueue.isEmpty());
+            this.m_inQueue = BlockingQueues.create(queueType, this.m_inDataQueueCapacity);
+        }
+
+        // Watermarks are passed on in-band to the mux transmitter
+        @Override
+        protected void processWatermark(DATA_IN_TYPE watermark) throws InterruptedException {
+            this.processDataElement(watermark);
         }
 
         @Override
         protected void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException {
-            this.m_inQueue.put(dataElement);
+            putToQueue(this.m_inQueue, dataElement);
+            assert(this.m_consumerTask != null && this.m_readyBitmap != null);
+            // After the put: The mux transmitter clears the bit before draining m_inQueue
+            this.m_readyBitmap.set(this.m_muxIndex);
+            this.m_consumerTask.signalWork();
+        }
+
+        // The mux transmitter calls signalProcessingCredits() after fetching elements from m_inQueue
+        @Override
+        protected int getProcessingCredits(){
+            return this.m_inQueue.remainingCapacity();
         }
 
         @Override
@@ -98,6 +189,7 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
                 ArrayList<DATA_IN_TYPE> remainingData = new ArrayList<>(this.m_inQueue.size());
                 this.m_inQueue.drainTo(remainingData);
                 if (remainingData.size() > 0) {
+                    this.discarded(remainingData.size(), FlightRecording.REASON_INTERRUPT);
                     LOGGER.warning("Discarding " + remainingData.size() + " elements from input queue due to interrupt-termination.");
                 }
                 assert(this.m_inQueue.isEmpty());
@@ -108,8 +200,20 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         }
     }
 
-    protected abstract class AbstractMuxTransmitterTask extends AbstractTransmitterTask<Pair<Integer, DATA_IN_TYPE>> {
+    // Forwards at most one RoutedChunk per getNextDataChunk() call (unless overridden), plus a watermark chunk.
+    // Watermarks received from the mux receivers are not forwarded as such: Subclasses track them (see
+    // updateWatermark(...)) and forward the minimum over all mux receivers once it advanced (see pollWatermarkChunk()).
+    // Watermarks must be mutually comparable.
+    protected abstract class AbstractMuxTransmitterTask extends AbstractTransmitterTask<RoutedChunk<DATA_IN_TYPE>> {
         protected final int m_numMuxReceivers;
+        // i-th entry: Largest watermark received from the i-th mux receiver, null if none received yet
+        private final List<DATA_IN_TYPE> m_watermarks;
+        // Minimum over all entries of m_watermarks (null if some mux receiver has not provided a watermark yet),
+        // only valid if !m_minWatermarkOutdated
+        private DATA_IN_TYPE m_minWatermark;
+        private boolean m_minWatermarkOutdated;
+        // Last watermark forwarded to the target receiver, null if none
+        private DATA_IN_TYPE m_forwardedWatermark;
 
         public AbstractMuxTransmitterTask(int maxDataChunkSize, int numMuxReceivers) {
             super(maxDataChunkSize);
@@ -117,6 +221,91 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
                 throw new IllegalArgumentException("Number of mux receivers must be positive.");
             }
             this.m_numMuxReceivers = numMuxReceivers;
+            this.m_watermarks = new ArrayList<>(Collections.<DATA_IN_TYPE>nCopies(numMuxReceivers, null));
+            this.m_minWatermark = null;
+            this.m_minWatermarkOutdated = false;
+            this.m_forwardedWatermark = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compareWatermarks(DATA_IN_TYPE watermark1, DATA_IN_TYPE watermark2){
+            return ((Comparable<DATA_IN_TYPE>) watermark1).compareTo(watermark2);
+        }
+
+        // Regressions are ignored
+        protected final void updateWatermark(int recNum, DATA_IN_TYPE watermark){
+            DATA_IN_TYPE currentWatermark = this.m_watermarks.get(recNum);
+            if(currentWatermark == null || this.compareWatermarks(watermark, currentWatermark) > 0){
+                this.m_watermarks.set(recNum, watermark);
+                this.m_minWatermarkOutdated = true;
+            }
+        }
+
+        // Null if none received yet
+        protected final DATA_IN_TYPE getWatermark(int recNum){
+            return this.m_watermarks.get(recNum);
+        }
+
+        protected final DATA_IN_TYPE getMinWatermark(){
+            if(this.m_minWatermarkOutdated){
+                DATA_IN_TYPE minWatermark = null;
+                DATA_IN_TYPE watermark;
+                for(int recNum = 0; recNum < this.m_numMuxReceivers; recNum++){
+                    watermark = this.m_watermarks.get(recNum);
+                    if(watermark == null){
+                        minWatermark = null;
+                        break;
+                    }
+                    else if(minWatermark == null || this.compareWatermarks(watermark, minWatermark) < 0){
+                        minWatermark = watermark;
+                    }
+                }
+                this.m_minWatermark = minWatermark;
+                this.m_minWatermarkOutdated = false;
+            }
+            return this.m_minWatermark;
+        }
+
+        // Watermark chunk carrying the minimum watermark over all mux receivers if it advanced since the last call,
+        // null otherwise. Must only be forwarded after all elements not larger than it.
+        protected final RoutedChunk<DATA_IN_TYPE> pollWatermarkChunk(){
+            DATA_IN_TYPE minWatermark = this.getMinWatermark();
+            if(minWatermark == null || minWatermark == this.m_forwardedWatermark){
+                return null;
+            }
+            this.m_forwardedWatermark = minWatermark;
+            return RoutedChunk.watermark(minWatermark);
+        }
+
+        @Override
+        final boolean isWatermark(RoutedChunk<DATA_IN_TYPE> routedChunk){
+            return routedChunk.isWatermark();
+        }
+
+        @Override
+        final int countDataElements(Collection<? extends RoutedChunk<DATA_IN_TYPE>> routedChunks){
+            int result = 0;
+            for(RoutedChunk<DATA_IN_TYPE> routedChunk : routedChunks){
+                result += routedChunk.getNumDataElements();
+            }
+            return result;
+        }
+
+        // Elements are provided by the mux receivers
+        @Override
+        boolean startsLatencyTraces(){
+            return false;
+        }
+
+        @Override
+        protected int getMaxForwardedChunkSize(){
+            return 2;
+        }
+
+        // The target receiver's input queue is weighted by the routed chunks' sizes
+        @Override
+        final int getRequiredReceiverCredits(){
+            return this.getMaxDataChunkSize();
         }
 
 
@@ -135,39 +324,154 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
 
     	// No need for volatile, only accessed in getNextDataChunk by executing Thread
         private int m_nextIndex;
+        // Mux receiver visited by the previous call and number of further consecutive chunks it may provide
+        // (READY_* scheduling policies only)
+        private int m_currentIndex;
+        private int m_remainingQuota;
 
         public SequentialMuxTransmitterTask(int maxDataChunkSize, int numMuxReceivers) {
             super(maxDataChunkSize, numMuxReceivers);
             this.m_nextIndex = 0;
+            this.m_currentIndex = -1;
+            this.m_remainingQuota = 0;
         }
 
         @Override
-        protected Collection<Pair<Integer, DATA_IN_TYPE>> getNextDataChunk() {
+        protected Collection<RoutedChunk<DATA_IN_TYPE>> getNextDataChunk() {
             assert(GenericMuxMultiReceiverTask.this.m_muxReceiverList.size() == GenericMuxMultiReceiverTask.this.getNumInternalTasks());
             assert(GenericMuxMultiReceiverTask.this.m_muxReceiverList.size() == this.m_numMuxReceivers);
-            Integer nextMuxReceiverIndex = this.getNextMuxReceiverIndex();
-
-            if(nextMuxReceiverIndex == null){
-                return new ArrayList<>(0);
+            if(GenericMuxMultiReceiverTask.this.m_schedulingPolicy == SchedulingPolicy.SCAN_ALL){
+                return this.getNextDataChunkScanAll();
             }
+            else{
+                return this.getNextDataChunkFromReady();
+            }
+        }
 
-            if(nextMuxReceiverIndex < 0 || nextMuxReceiverIndex >= GenericMuxMultiReceiverTask.this.getNumInternalTasks()){
-                throw new IllegalArgumentException();
+        private Collection<RoutedChunk<DATA_IN_TYPE>> getNextDataChunkScanAll() {
+            Integer nextMuxReceiverIndex = null;
+            MuxReceiverTask<DATA_IN_TYPE> muxReceiver;
+            List<DATA_IN_TYPE> dataChunk = null;
+
+            // Skip empty mux receivers: An empty result must imply that all mux receivers were empty, since
+            // cooperatively executed instances are only resumed upon new input (see isSignalledOnNewWork())
+            for(int i = 0; i < this.m_numMuxReceivers && dataChunk == null; i++) {
+                nextMuxReceiverIndex = this.getNextMuxReceiverIndex();
+
+                if (nextMuxReceiverIndex == null) {
+                    return Collections.emptyList();
+                }
+
+                if (nextMuxReceiverIndex < 0 || nextMuxReceiverIndex >= GenericMuxMultiReceiverTask.this.getNumInternalTasks()) {
+                    throw new IllegalArgumentException();
+                }
+
+                muxReceiver = GenericMuxMultiReceiverTask.this.m_muxReceiverList.get(nextMuxReceiverIndex);
+
+                assert (GenericMuxMultiReceiverTask.this.getInternalTaskByIndex(nextMuxReceiverIndex) == muxReceiver);
+
+                dataChunk = this.drain(muxReceiver);
             }
 
-            MuxReceiverTask<DATA_IN_TYPE> muxReceiver =  GenericMuxMultiReceiverTask.this.m_muxReceiverList.get(nextMuxReceiverIndex);
+            return this.withWatermarkChunk(dataChunk == null ? null : new RoutedChunk<>(nextMuxReceiverIndex, dataChunk));
+        }
 
-            assert(GenericMuxMultiReceiverTask.this.getInternalTaskByIndex(nextMuxReceiverIndex) == muxReceiver);
+        // Only visits mux receivers marked in the ready bitmap. The bit of each mux receiver with non-empty input queue
+        // is set (except between the mux receiver's put and its subsequent bit setting + signalWork() call).
+        // Hence, an empty result still implies that all mux receivers were empty.
+        private Collection<RoutedChunk<DATA_IN_TYPE>> getNextDataChunkFromReady() {
+            ReadyBitmap readyBitmap = GenericMuxMultiReceiverTask.this.m_readyBitmap;
+            // At most one visit per spuriously set bit plus one successful visit
+            for(int i = 0; i <= this.m_numMuxReceivers; i++) {
+                int index;
+                if(this.m_remainingQuota > 0){
+                    assert(this.m_currentIndex >= 0);
+                    index = this.m_currentIndex;
+                    this.m_remainingQuota--;
+                }
+                else{
+                    index = readyBitmap.nextSetBit(this.m_nextIndex);
+                    if(index < 0){
+                        return this.withWatermarkChunk(null);
+                    }
+                    this.m_nextIndex = index + 1 == this.m_numMuxReceivers ? 0 : index + 1;
+                    this.m_currentIndex = index;
+                    this.m_remainingQuota = this.getQuota(index) - 1;
+                }
 
-            List<DATA_IN_TYPE> dataChunk = new LinkedList<>();
-            muxReceiver.m_inQueue.drainTo(dataChunk, this.getMaxDataChunkSize());
+                MuxReceiverTask<DATA_IN_TYPE> muxReceiver = GenericMuxMultiReceiverTask.this.m_muxReceiverList.get(index);
+                // Clear before draining: Elements added after the drain set the bit again
+                readyBitmap.clear(index);
+                List<DATA_IN_TYPE> dataChunk = this.drain(muxReceiver);
+                if(!muxReceiver.m_inQueue.isEmpty()){
+                    readyBitmap.set(index);
+                }
+                else{
+                    this.m_remainingQuota = 0;
+                }
 
-            List<Pair<Integer, DATA_IN_TYPE>> result = new ArrayList<>(dataChunk.size());
-            for(DATA_IN_TYPE data : dataChunk){
-                result.add(new ImmutablePair<>(nextMuxReceiverIndex, data));
+                if(dataChunk != null){
+                    return this.withWatermarkChunk(new RoutedChunk<>(index, dataChunk));
+                }
             }
+            return this.withWatermarkChunk(null);
+        }
 
-            return result;
+        // Appends the watermark chunk (if any) to the provided routed chunk (may be null)
+        private Collection<RoutedChunk<DATA_IN_TYPE>> withWatermarkChunk(RoutedChunk<DATA_IN_TYPE> routedChunk){
+            RoutedChunk<DATA_IN_TYPE> watermarkChunk = this.pollWatermarkChunk();
+            if(watermarkChunk == null){
+                return routedChunk == null ?
+                        Collections.<RoutedChunk<DATA_IN_TYPE>>emptyList() :
+                        Collections.singletonList(routedChunk);
+            }
+            return routedChunk == null ?
+                    Collections.singletonList(watermarkChunk) :
+                    Arrays.asList(routedChunk, watermarkChunk);
+        }
+
+        // Number of consecutive chunks the mux receiver with the provided index may provide per visit
+        private int getQuota(int index){
+            int weight = GenericMuxMultiReceiverTask.this.m_inputWeights[index];
+            if(GenericMuxMultiReceiverTask.this.m_schedulingPolicy == SchedulingPolicy.READY_DEPTH_WEIGHTED){
+                int queueSize = GenericMuxMultiReceiverTask.this.m_muxReceiverList.get(index).m_inQueue.size();
+                int maxChunkSize = this.getMaxDataChunkSize();
+                int numChunks = Math.max(1, queueSize / maxChunkSize + (queueSize % maxChunkSize == 0 ? 0 : 1));
+                return (int) Math.min(Integer.MAX_VALUE, (long) weight * numChunks);
+            }
+            else{
+                return weight;
+            }
+        }
+
+        // Returns null if the input queue of the provided mux receiver is empty (apart from watermarks, which are
+        // consumed, see updateWatermark(...))
+        private List<DATA_IN_TYPE> drain(MuxReceiverTask<DATA_IN_TYPE> muxReceiver){
+            if(muxReceiver.m_inQueue.isEmpty()){
+                return null;
+            }
+            // Not reused: Handed over to the target receiver as part of the resulting routed chunk
+            List<DATA_IN_TYPE> dataChunk = new ArrayList<>(Math.min(muxReceiver.m_inQueue.size(), this.getMaxDataChunkSize()));
+            if(muxReceiver.m_inQueue.drainTo(dataChunk, this.getMaxDataChunkSize()) > 0){
+                muxReceiver.signalProcessingCredits();
+                Iterator<DATA_IN_TYPE> iterator = dataChunk.iterator();
+                DATA_IN_TYPE dataElement;
+                while(iterator.hasNext()){
+                    dataElement = iterator.next();
+                    if(dataElement instanceof Watermark){
+                        this.updateWatermark(muxReceiver.m_muxIndex, dataElement);
+                        iterator.remove();
+                    }
+                }
+                return dataChunk.isEmpty() ? null : dataChunk;
+            }
+            return null;
+        }
+
+        // Mux receivers signal this task whenever they enqueue new elements
+        @Override
+        protected boolean isSignalledOnNewWork() {
+            return true;
         }
 
         private Integer getNextMuxReceiverIndex() {
@@ -199,6 +503,7 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
                 }
 
                 if (remainingData.size() > 0) {
+                    this.discarded(remainingData.size(), FlightRecording.REASON_INTERRUPT);
                     LOGGER.warning("Discarding " + remainingData.size() + " elements from input queue due to interrupt-termination.");
                 }
             }
@@ -246,6 +551,11 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
     private final ExecutorService m_executorService;
     private final AbstractTargetReceiverTask<DATA_IN_TYPE> m_targetReceiver;
     private final AbstractMuxTransmitterTask m_muxTransmitter;
+    // Mux receivers with non-empty input queues (see SchedulingPolicy)
+    final ReadyBitmap m_readyBitmap;
+    // No volatile required - only set before this task has started (see setSchedulingPolicy(...), setInputWeights(...))
+    private SchedulingPolicy m_schedulingPolicy;
+    private final int[] m_inputWeights;
 
     private static final Logger LOGGER = Logger.getLogger(GenericMuxMultiReceiverTask.class.getName());
 
@@ -282,6 +592,15 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         }
         this.m_muxReceiverList = (UnmodifiableList<MuxReceiverTask<DATA_IN_TYPE>>) UnmodifiableList.unmodifiableList(muxReceiverList);
 
+        this.m_readyBitmap = new ReadyBitmap(numInternalReceivers);
+        this.m_schedulingPolicy = SchedulingPolicy.READY_ROUND_ROBIN;
+        this.m_inputWeights = new int[numInternalReceivers];
+        Arrays.fill(this.m_inputWeights, 1);
+        for(int i = 0; i < numInternalReceivers; i++){
+            this.m_muxReceiverList.get(i).m_muxIndex = i;
+            this.m_muxReceiverList.get(i).m_readyBitmap = this.m_readyBitmap;
+        }
+
         AbstractMuxTransmitterTask muxTransmitterTask = this.createMuxTransmitterTask(maxDataChunkSize, numInternalReceivers, additionalMuxTransmitterArgs);
         if(muxTransmitterTask == null){
             throw new NullPointerException();
@@ -291,6 +610,9 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
             throw new IllegalStateException();
         }
         this.m_muxTransmitter = muxTransmitterTask;
+        for(MuxReceiverTask<DATA_IN_TYPE> muxReceiver : this.m_muxReceiverList){
+            muxReceiver.m_consumerTask = this.m_muxTransmitter;
+        }
         try {
             this.m_muxTransmitter.setOutConnection(this.m_targetReceiver);
         } catch (UnacceptedConcurrentTaskException e) {
@@ -298,6 +620,44 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         }
     }
 
+    public final void setSchedulingPolicy(SchedulingPolicy schedulingPolicy){
+        if(schedulingPolicy == null){
+            throw new NullPointerException();
+        }
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Scheduling policy should only be set when tasks have not started yet."));
+        }
+        this.m_schedulingPolicy = schedulingPolicy;
+    }
+
+    public final SchedulingPolicy getSchedulingPolicy(){
+        return this.m_schedulingPolicy;
+    }
+
+    // i-th weight: Number of consecutive chunks the i-th mux receiver may provide per visit (default: 1 each).
+    // Only applicable to the READY_* scheduling policies.
+    public final void setInputWeights(int... inputWeights){
+        if(inputWeights == null){
+            throw new NullPointerException();
+        }
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Input weights should only be set when tasks have not started yet."));
+        }
+        if(inputWeights.length != this.m_inputWeights.length){
+            throw new IllegalArgumentException("Expected " + this.m_inputWeights.length + " weights.");
+        }
+        for(int weight : inputWeights){
+            if(weight < 1){
+                throw new IllegalArgumentException("Weights must be positive.");
+            }
+        }
+        System.arraycopy(inputWeights, 0, this.m_inputWeights, 0, inputWeights.length);
+    }
+
+    public final int getInputWeight(int muxIndex){
+        return this.m_inputWeights[muxIndex];
+    }
+
     protected AbstractMuxTransmitterTask createMuxTransmitterTask(int maxDataChunkSize, int numMuxReceivers, Object... additionalArgs){
         if(additionalArgs != null && additionalArgs.length != 0){
             throw new IllegalArgumentException();
@@ -306,41 +666,44 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         return new SequentialMuxTransmitterTask(maxDataChunkSize, numMuxReceivers);
     }
 
+    @Override
+    protected Collection<? extends ConcurrentTask> getManagedTasks() {
+        List<ConcurrentTask> result = new ArrayList<>(super.getManagedTasks());
+        result.add(this.m_muxTransmitter);
+        result.add(this.m_targetReceiver);
+        return result;
+    }
+
     @Override
     protected void preWork() {
-        super.preWork(); // Starts mux receivers
+        super.preWork(); // Starts mux receivers (transmitters wait for their receivers anyway, hence no particular start order required)
         assert(this.m_muxTransmitter.isNotStarted());
         assert(this.m_muxTransmitter.hasOutConnection());
         // There seem to be an error during "rebuild" compilation if the cast below (which in itself SHOULD be unnecessary) is not included - a compiler bug?
-        assert(this.m_muxTransmitter.getTargetReceiverTask() == (ReceiverTask<Pair<Integer, DATA_IN_TYPE>>)this.m_targetReceiver);
+        assert(this.m_muxTransmitter.getTargetReceiverTask() == (ReceiverTask<RoutedChunk<DATA_IN_TYPE>>)this.m_targetReceiver);
 
         this.m_executorService.submit(this.m_muxTransmitter);
-        while(this.m_muxTransmitter.isNotStarted()){
-            Thread.yield();
-        }
 
         assert(this.m_targetReceiver.isNotStarted());
         assert(this.m_targetReceiver.hasInConnection());
         assert(this.m_targetReceiver.getSourceTransmitterTask() == this.m_muxTransmitter);
         this.m_executorService.submit(this.m_targetReceiver);
-        while(this.m_targetReceiver.isNotStarted()){
-            Thread.yield();
-        }
+        // (Waiting for both to start happens in postWork())
     }
 
     @Override
     protected void postWork() {
         assert(this.terminateCalledWithInterrupt() != null);
         super.postWork(); // Terminates mux receivers
+        awaitStarted(this.m_muxTransmitter);
+        awaitStarted(this.m_targetReceiver);
         assert(this.m_muxTransmitter.isRunning());
         try {
             this.m_muxTransmitter.terminate(this.terminateCalledWithInterrupt());
         } catch (NotStartedException e) {
             throw new IllegalStateException("This should not happen.", e);
         }
-        while(!this.m_muxTransmitter.isTerminated()){
-            Thread.yield();
-        }
+        awaitTerminated(this.m_muxTransmitter);
 
         assert(this.m_targetReceiver.isRunning());
         try {
@@ -348,8 +711,6 @@ public class GenericMuxMultiReceiverTask<DATA_IN_TYPE>
         } catch (NotStartedException e) {
             throw new IllegalStateException("This should not happen.", e);
         }
-        while(!this.m_targetReceiver.isTerminated()){
-            Thread.yield();
-        }
+        awaitTerminated(this.m_targetReceiver);
     }
 }
@@ -8,8 +8,7 @@
  
 package gs.tf.core;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
+import gs.tf.jfr.FlightRecording;
 
 import java.util.*;
 import java.util.concurrent.ExecutorService;
@@ -20,24 +19,73 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
     
     // TODO: Better abstraction and less redundancy between SyncMuxTransmitterTask and SequentialMuxTransmitterTask
     //       - move more common functionality into AbstractMuxTransmitterTask (e.g., postWork())
+    // K-way merge of the mux receivers' input queues: The head element of each input is buffered and the buffered
+    // heads are organized in a binary min-heap. Forwards up to getMaxDataChunkSize() ordered elements per call
+    // (consecutive elements from the same input are bundled into a single RoutedChunk). Inputs without buffered
+    // element only hold back elements larger than their last watermark (see Watermark). The minimum watermark over all
+    // inputs is forwarded once no element smaller than it is held back anymore.
     protected class SyncMuxTransmitterTask extends AbstractMuxTransmitterTask{
 
 
+        // Last element forwarded to the target receiver
         private DATA_IN_TYPE m_lastElement;
-        private final Map<Integer, DATA_IN_TYPE> m_singleElementBuffer; // i-th entry refers to i-th receiver mux
+        // i-th entry refers to i-th receiver mux, null if no element buffered for it
+        private final List<DATA_IN_TYPE> m_singleElementBuffer;
+        // Number of buffered elements = heap size
+        private int m_numBufferedElements;
+        // Min-heap of the indices of the mux receivers with buffered element (ordered by buffered element),
+        // only the first m_numBufferedElements entries are valid
+        private final int[] m_heap;
+        // i-th entry: Position of the i-th mux receiver in m_heap (-1 if no element buffered for it)
+        private final int[] m_heapPositions;
+        // i-th bit set iff no element buffered for the i-th mux receiver (same word layout as ReadyBitmap)
+        private final long[] m_missingElements;
+        // Heap positions of the mux receivers currently holding the smallest element (reused, only the first entries are valid)
+        private final int[] m_smallestElementIndices;
+        // Lower bound for the next element of all mux receivers without buffered element (i.e., their smallest
+        // watermark), null if no such mux receiver. m_missingUnbounded: Some of them has not provided a watermark yet.
+        private DATA_IN_TYPE m_missingBound;
+        private boolean m_missingUnbounded;
+        // Merged elements held back to restore the order of out-of-order elements, null if out-of-order elements
+        // are not permitted (see setMaxOutOfOrderness(...)). Created in preWork().
+        private ReorderBuffer<DATA_IN_TYPE> m_reorderBuffer;
+        private int m_maxOutOfOrderness;
+        // Elements of the currently assembled RoutedChunk (reused, copied upon completion of the RoutedChunk)
+        private final List<DATA_IN_TYPE> m_currentRun;
+        private int m_currentRunIndex;
         private Long m_discardTimeoutInterval;
         private long m_lastEmitTime;
         private final Random m_rnd;
+        // Pending sync mux wait flight recorder event (see FlightRecording), null if not blocked or event disabled
+        private Object m_wait;
+        private int m_waitMissingInputs;
 
         public SyncMuxTransmitterTask(int maxDataChunkSize, int numMuxReceivers, Long discardTimeoutInterval, Long rnd_seed) {
             super(maxDataChunkSize, numMuxReceivers);
             this.m_lastElement = null;
-            this.m_singleElementBuffer = new HashMap<>();
+            this.m_singleElementBuffer = new ArrayList<>(Collections.<DATA_IN_TYPE>nCopies(numMuxReceivers, null));
+            this.m_numBufferedElements = 0;
+            this.m_heap = new int[numMuxReceivers];
+            this.m_heapPositions = new int[numMuxReceivers];
+            Arrays.fill(this.m_heapPositions, -1);
+            this.m_missingElements = new long[(numMuxReceivers + 63) >>> 6];
+            for(int i = 0; i < numMuxReceivers; i++){
+                this.m_missingElements[i >>> 6] |= 1L << i;
+            }
+            this.m_smallestElementIndices = new int[numMuxReceivers];
+            this.m_missingBound = null;
+            this.m_missingUnbounded = false;
+            this.m_reorderBuffer = null;
+            this.m_maxOutOfOrderness = 0;
+            this.m_currentRun = new ArrayList<>();
+            this.m_currentRunIndex = -1;
             if(discardTimeoutInterval != null && discardTimeoutInterval < 0){
                 throw new IllegalArgumentException();
             }
             this.m_discardTimeoutInterval = discardTimeoutInterval;
             this.m_lastEmitTime = -1;
+            this.m_wait = null;
+            this.m_waitMissingInputs = 0;
 
             if(rnd_seed == null){
                 this.m_rnd = new Random();
@@ -47,104 +95,124 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
             }
         }
 
+        // Up to getMaxDataChunkSize() routed chunks plus a watermark chunk
+        @Override
+        protected int getMaxForwardedChunkSize(){
+            return this.getMaxDataChunkSize() + 1;
+        }
+
+        @Override
+        protected void preWork(){
+            super.preWork();
+            // (Set before this task has started - happens-before via task start)
+            this.m_maxOutOfOrderness = GenericSyncMuxMultiReceiverTask.this.m_maxOutOfOrderness;
+            if(this.m_maxOutOfOrderness > 0){
+                this.m_reorderBuffer = new ReorderBuffer<>(this.m_maxOutOfOrderness + 1);
+            }
+        }
 
         @Override
-        protected Collection<Pair<Integer, DATA_IN_TYPE>> getNextDataChunk() {
+        protected Collection<RoutedChunk<DATA_IN_TYPE>> getNextDataChunk() {
             assert(GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.size() == GenericSyncMuxMultiReceiverTask.this.getNumInternalTasks());
             assert(GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.size() == m_numMuxReceivers);
-            DATA_IN_TYPE smallestElement = null;
-            ArrayList<Pair<Integer, DATA_IN_TYPE>> smallestElements = new ArrayList<>(this.m_numMuxReceivers);
+            this.fetchMissingElements();
+            this.computeMissingBound();
 
-            DATA_IN_TYPE currentElement;
-
-            assert(this.m_numMuxReceivers == GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.size());
-            MuxReceiverTask<DATA_IN_TYPE> muxReceiver;
-            boolean hasKey, emptyQueueEncountered = false;
-            boolean allEmpty = true;
-            for(int recNum = 0; recNum < this.m_numMuxReceivers; recNum++){
-                muxReceiver = GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.get(recNum);
-                assert(this.isRunning() || muxReceiver.isTerminated());
+            // Smallest element cannot be forwarded yet since a mux receiver without buffered element might still
+            // provide a smaller one
+            boolean blocked = this.m_numBufferedElements > 0 && !this.isForwardable(this.m_singleElementBuffer.get(this.m_heap[0]));
+            long now = this.m_discardTimeoutInterval == null ? -1 : System.currentTimeMillis();
+            if(blocked){
+                if(this.m_wait == null){
+                    this.m_wait = FlightRecording.beginSyncMuxWait();
+                    this.m_waitMissingInputs = this.m_numMuxReceivers - this.m_numBufferedElements;
+                }
+            }
+            else if(this.m_wait != null){
+                this.endWait(false);
+            }
 
-                assert(GenericSyncMuxMultiReceiverTask.this.getInternalTaskByIndex(recNum) == muxReceiver);
+            if(this.m_discardTimeoutInterval != null &&
+            		// 1. No timeout if not blocked (in particular, if no queue is empty or ALL queues are empty)
+            		// 2. No timeout if this code line reached for the first time
+                    (!blocked || this.m_lastEmitTime < 0)){
+                this.m_lastEmitTime = now;
+            }
 
-                hasKey = this.m_singleElementBuffer.containsKey(recNum);
+            ArrayList<RoutedChunk<DATA_IN_TYPE>> result = null;
+            int numElements = 0;
+            int maxDataChunkSize = this.getMaxDataChunkSize();
+            while(numElements < maxDataChunkSize) {
+                if(this.m_reorderBuffer != null && this.isReleasable()){
+                    if(result == null){
+                        result = new ArrayList<>();
+                    }
+                    this.m_lastElement = this.m_reorderBuffer.peekElement();
+                    this.appendToRun(this.m_reorderBuffer.peekIndex(), this.m_lastElement, result);
+                    this.m_reorderBuffer.remove();
+                    numElements++;
+                    continue;
+                }
 
-                if(!hasKey && muxReceiver.m_inQueue.size() == 0){
-                    emptyQueueEncountered = true;
+                if(this.m_numBufferedElements == 0 || !this.isForwardable(this.m_singleElementBuffer.get(this.m_heap[0]))){
+                    break;
                 }
-                else{
-                    allEmpty = false;
-                    if(hasKey){
-                        currentElement = this.m_singleElementBuffer.get(recNum);
 
-                    }
-                    else {
-                        assert(muxReceiver.m_inQueue.size() > 0);
-                        currentElement = muxReceiver.m_inQueue.poll();
-                        assert(currentElement != null);
-                        this.m_singleElementBuffer.put(recNum, currentElement);
-                    }
+                int bestResult = this.selectSmallestElement();
+                DATA_IN_TYPE smallestElement = this.m_singleElementBuffer.get(bestResult);
+                this.removeBufferedElement(bestResult);
+                // The next element of an input is only known once its predecessor has been removed
+                if(!this.fetchElement(bestResult)){
+                    this.includeMissing(bestResult);
+                }
 
-                    if(smallestElement == null){
-                        assert(smallestElements.isEmpty());
-                        smallestElement = currentElement;
-                        smallestElements.add(new ImmutablePair<>(recNum, currentElement));
-                    }
-                    else if(currentElement.compareTo(smallestElement) == 0){
-                        smallestElements.add(new ImmutablePair<>(recNum, currentElement));
+                if(this.m_lastElement != null && smallestElement.compareTo(this.m_lastElement) < 0){
+                    if(this.m_reorderBuffer == null) {
+                        throw new IllegalStateException("Data in input queues is not ordered.");
                     }
-                    else if (currentElement.compareTo(smallestElement) < 0){
-                        smallestElements.clear();
-                        smallestElement = currentElement;
-                        smallestElements.add(new ImmutablePair<>(recNum, currentElement));
+                    GenericSyncMuxMultiReceiverTask.this.m_numDroppedLateElements++;
+                    this.discarded(1, FlightRecording.REASON_LATE);
+                    LOGGER.warning("Discarding element arriving later than the max. out-of-orderness permits.");
+                }
+                else if(this.m_reorderBuffer != null){
+                    this.m_reorderBuffer.add(bestResult, smallestElement);
+                }
+                else{
+                    if(result == null){
+                        result = new ArrayList<>();
                     }
+                    this.m_lastElement = smallestElement;
+                    this.appendToRun(bestResult, smallestElement, result);
+                    numElements++;
                 }
             }
 
-            Pair<Integer, DATA_IN_TYPE> bestResultPair;
-            smallestElement = null;
-            Integer bestResult = null;
-
-            if(smallestElements.size() > 0) {
-                bestResultPair = smallestElements.get(this.m_rnd.nextInt(smallestElements.size()));
-                smallestElement = bestResultPair.getRight();
-                bestResult = bestResultPair.getLeft();
-            }
-            else{
-                assert(allEmpty);
-            }
-
-            if(this.m_discardTimeoutInterval != null &&
-            		// 1. No timeout if no queue is empty
-            		// 2. No timeout if this code line reached for the first time,
-            		// 3. No timeout ALL queues are empty
-                    (!emptyQueueEncountered || this.m_lastEmitTime < 0 || smallestElement == null)){
-                this.m_lastEmitTime = System.currentTimeMillis();
-            }
-
-            if((!emptyQueueEncountered || this.isTerminating()) && !allEmpty) { // If terminating -> output remaining elements
-                assert (smallestElement != null);
-
-                if (this.m_lastElement == null || smallestElement.compareTo(this.m_lastElement) >= 0) {
-                    this.m_lastElement = smallestElement;
-                    assert(this.m_singleElementBuffer.containsKey(bestResult));
-                    this.m_singleElementBuffer.remove(bestResult);
-                } else {
-                    throw new IllegalStateException("Data in input queues is not ordered.");
+            RoutedChunk<DATA_IN_TYPE> watermarkChunk = this.isWatermarkForwardable() ? this.pollWatermarkChunk() : null;
+            if(result != null){
+                result.add(this.completeRun());
+                if(watermarkChunk != null){
+                    result.add(watermarkChunk);
                 }
-                List<Pair<Integer, DATA_IN_TYPE>> result = new ArrayList<>(1);
-                result.add(new ImmutablePair<>(bestResult, smallestElement));
                 return result;
             }
+            else if(watermarkChunk != null){
+                return Collections.singletonList(watermarkChunk);
+            }
             else{
-                if (this.m_discardTimeoutInterval != null && smallestElement != null &&
-                        System.currentTimeMillis() - this.m_lastEmitTime >= this.m_discardTimeoutInterval) {
+                if (blocked && this.m_discardTimeoutInterval != null &&
+                        now - this.m_lastEmitTime >= this.m_discardTimeoutInterval) {
                     LOGGER.warning("Discarding currently oldest element due to timeout.");
+                    this.discarded(1, FlightRecording.REASON_SYNC_MUX_TIMEOUT);
+                    if(this.m_wait != null){
+                        this.endWait(true);
+                    }
+                    int bestResult = this.selectSmallestElement();
+                    DATA_IN_TYPE smallestElement = this.m_singleElementBuffer.get(bestResult);
                     // Do not set m_lastElement to smallest element, since at this point, a value older than the discarded one
                     // might still occur
-                    if (this.m_lastElement == null || smallestElement.compareTo(this.m_lastElement) >= 0) {
-                        assert (this.m_singleElementBuffer.containsKey(bestResult));
-                        this.m_singleElementBuffer.remove(bestResult);
+                    if (this.m_lastElement == null || smallestElement.compareTo(this.m_lastElement) >= 0 ||
+                            this.m_reorderBuffer != null) {
+                        this.removeBufferedElement(bestResult);
                         // No reset of lastEmitTime! ->
                         // Timout for all subsequent values until one of the three conditions above are met
                         //this.m_lastEmitTime = System.currentTimeMillis();
@@ -156,11 +224,232 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
             }
         }
 
+        private void endWait(boolean timeout){
+            FlightRecording.endSyncMuxWait(this.m_wait, this.getClass(), this.getID(), this.m_waitMissingInputs, timeout);
+            this.m_wait = null;
+        }
+
+        // True if the provided element (the smallest buffered one) can be forwarded (or moved to the reorder buffer):
+        // Each mux receiver without buffered element has provided a watermark not larger than it or this task is
+        // terminating (-> output remaining elements).
+        private boolean isForwardable(DATA_IN_TYPE smallestElement){
+            return this.m_numBufferedElements == this.m_numMuxReceivers || this.isTerminating() ||
+                    (!this.m_missingUnbounded && smallestElement.compareTo(this.m_missingBound) <= 0);
+        }
+
+        // True if the smallest element of the reorder buffer can be released: The reorder buffer exceeds the max.
+        // out-of-orderness, the element does not exceed all watermarks or this task is terminating and all
+        // buffered elements have been merged.
+        private boolean isReleasable(){
+            assert(this.m_reorderBuffer != null);
+            if(this.m_reorderBuffer.isEmpty()){
+                return false;
+            }
+            if(this.m_reorderBuffer.size() > this.m_maxOutOfOrderness ||
+                    (this.isTerminating() && this.m_numBufferedElements == 0)){
+                return true;
+            }
+            DATA_IN_TYPE minWatermark = this.getMinWatermark();
+            return minWatermark != null && this.m_reorderBuffer.peekElement().compareTo(minWatermark) <= 0;
+        }
+
+        // True if no element smaller than the minimum watermark is held back in the reorder buffer (buffered head
+        // elements follow their input's watermark and are therefore not smaller than it)
+        private boolean isWatermarkForwardable(){
+            if(this.m_reorderBuffer == null || this.m_reorderBuffer.isEmpty()){
+                return true;
+            }
+            DATA_IN_TYPE minWatermark = this.getMinWatermark();
+            return minWatermark != null && this.m_reorderBuffer.peekElement().compareTo(minWatermark) >= 0;
+        }
+
+        private void computeMissingBound(){
+            this.m_missingBound = null;
+            this.m_missingUnbounded = false;
+            if(this.m_numBufferedElements == this.m_numMuxReceivers){
+                return;
+            }
+            for(int wordIndex = 0; wordIndex < this.m_missingElements.length && !this.m_missingUnbounded; wordIndex++){
+                long missing = this.m_missingElements[wordIndex];
+                while(missing != 0){
+                    this.includeMissing((wordIndex << 6) + Long.numberOfTrailingZeros(missing));
+                    missing &= missing - 1;
+                }
+            }
+        }
+
+        // Updates m_missingBound/m_missingUnbounded w.r.t. the provided mux receiver without buffered element
+        private void includeMissing(int recNum){
+            assert(this.m_singleElementBuffer.get(recNum) == null);
+            DATA_IN_TYPE watermark = this.getWatermark(recNum);
+            if(watermark == null){
+                this.m_missingUnbounded = true;
+            }
+            else if(this.m_missingBound == null || watermark.compareTo(this.m_missingBound) < 0){
+                this.m_missingBound = watermark;
+            }
+        }
+
+        private void appendToRun(int index, DATA_IN_TYPE element, List<RoutedChunk<DATA_IN_TYPE>> result){
+            if(index != this.m_currentRunIndex && this.m_currentRunIndex >= 0){
+                result.add(this.completeRun());
+            }
+            this.m_currentRunIndex = index;
+            this.m_currentRun.add(element);
+        }
+
+        private RoutedChunk<DATA_IN_TYPE> completeRun(){
+            assert(!this.m_currentRun.isEmpty() && this.m_currentRunIndex >= 0);
+            RoutedChunk<DATA_IN_TYPE> result = this.m_currentRun.size() == 1 ?
+                    new RoutedChunk<>(this.m_currentRunIndex, this.m_currentRun.get(0)) :
+                    new RoutedChunk<>(this.m_currentRunIndex, new ArrayList<>(this.m_currentRun));
+            this.m_currentRun.clear();
+            this.m_currentRunIndex = -1;
+            return result;
+        }
+
+        // Buffers the next element of each mux receiver without buffered element but with non-empty input queue.
+        // Only visits mux receivers marked in the ready bitmap (see SequentialMuxTransmitterTask).
+        private void fetchMissingElements(){
+            ReadyBitmap readyBitmap = GenericSyncMuxMultiReceiverTask.this.m_readyBitmap;
+            assert(readyBitmap.getNumWords() == this.m_missingElements.length);
+            for(int wordIndex = 0;
+                wordIndex < this.m_missingElements.length && this.m_numBufferedElements < this.m_numMuxReceivers;
+                wordIndex++){
+                long candidates = this.m_missingElements[wordIndex] & readyBitmap.getWord(wordIndex);
+                while(candidates != 0){
+                    this.fetchElement((wordIndex << 6) + Long.numberOfTrailingZeros(candidates));
+                    candidates &= candidates - 1;
+                }
+            }
+        }
+
+        // Returns false if the input queue of the provided mux receiver is empty (apart from watermarks, which
+        // are consumed)
+        private boolean fetchElement(int recNum){
+            assert(this.m_singleElementBuffer.get(recNum) == null);
+            ReadyBitmap readyBitmap = GenericSyncMuxMultiReceiverTask.this.m_readyBitmap;
+            MuxReceiverTask<DATA_IN_TYPE> muxReceiver = GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.get(recNum);
+            assert(GenericSyncMuxMultiReceiverTask.this.getInternalTaskByIndex(recNum) == muxReceiver);
+            assert(this.isRunning() || muxReceiver.isTerminated());
+
+            // Clear before polling: Elements added after the poll set the bit again
+            readyBitmap.clear(recNum);
+            DATA_IN_TYPE element = muxReceiver.m_inQueue.poll();
+            boolean polled = element != null;
+            while(element instanceof Watermark){
+                this.updateWatermark(recNum, element);
+                element = muxReceiver.m_inQueue.poll();
+            }
+            if(!muxReceiver.m_inQueue.isEmpty()){
+                readyBitmap.set(recNum);
+            }
+            if(polled){
+                muxReceiver.signalProcessingCredits();
+            }
+            if(element == null){
+                return false;
+            }
+
+            this.m_singleElementBuffer.set(recNum, element);
+            this.m_missingElements[recNum >>> 6] &= ~(1L << recNum);
+            int pos = this.m_numBufferedElements++;
+            this.m_heap[pos] = recNum;
+            this.m_heapPositions[recNum] = pos;
+            this.siftUp(pos);
+            return true;
+        }
+
+        // Returns the index of a mux receiver holding the smallest buffered element, chosen uniformly at random
+        // among all mux receivers holding an element equal to it.
+        private int selectSmallestElement(){
+            assert(this.m_numBufferedElements > 0);
+            DATA_IN_TYPE smallestElement = this.m_singleElementBuffer.get(this.m_heap[0]);
+            // Breadth first search from the root: Elements equal to the smallest one only occur in subtrees
+            // whose roots are equal to it.
+            int numSmallestElements = 0;
+            this.m_smallestElementIndices[numSmallestElements++] = 0;
+            for(int i = 0; i < numSmallestElements; i++){
+                int child = 2 * this.m_smallestElementIndices[i] + 1;
+                for(int j = 0; j < 2 && child < this.m_numBufferedElements; j++, child++){
+                    if(this.m_singleElementBuffer.get(this.m_heap[child]).compareTo(smallestElement) == 0){
+                        this.m_smallestElementIndices[numSmallestElements++] = child;
+                    }
+                }
+            }
+
+            return numSmallestElements == 1 ?
+                    this.m_heap[0] :
+                    this.m_heap[this.m_smallestElementIndices[this.m_rnd.nextInt(numSmallestElements)]];
+        }
+
+        private void removeBufferedElement(int recNum){
+            assert(this.m_singleElementBuffer.get(recNum) != null);
+            int pos = this.m_heapPositions[recNum];
+            assert(pos >= 0 && this.m_heap[pos] == recNum);
+            int lastPos = --this.m_numBufferedElements;
+            assert(this.m_numBufferedElements >= 0);
+            if(pos != lastPos){
+                this.m_heap[pos] = this.m_heap[lastPos];
+                this.m_heapPositions[this.m_heap[pos]] = pos;
+                if(this.siftDown(pos) == pos){
+                    this.siftUp(pos);
+                }
+            }
+            this.m_heapPositions[recNum] = -1;
+            this.m_singleElementBuffer.set(recNum, null);
+            this.m_missingElements[recNum >>> 6] |= 1L << recNum;
+        }
+
+        private boolean isSmaller(int heapPos1, int heapPos2){
+            return this.m_singleElementBuffer.get(this.m_heap[heapPos1])
+                    .compareTo(this.m_singleElementBuffer.get(this.m_heap[heapPos2])) < 0;
+        }
+
+        private void swap(int heapPos1, int heapPos2){
+            int recNum = this.m_heap[heapPos1];
+            this.m_heap[heapPos1] = this.m_heap[heapPos2];
+            this.m_heap[heapPos2] = recNum;
+            this.m_heapPositions[this.m_heap[heapPos1]] = heapPos1;
+            this.m_heapPositions[this.m_heap[heapPos2]] = heapPos2;
+        }
+
+        private void siftUp(int pos){
+            while(pos > 0){
+                int parent = (pos - 1) >>> 1;
+                if(!this.isSmaller(pos, parent)){
+                    return;
+                }
+                this.swap(pos, parent);
+                pos = parent;
+            }
+        }
+
+        // Returns the final position
+        private int siftDown(int pos){
+            while(true){
+                int smallest = pos;
+                int child = 2 * pos + 1;
+                if(child < this.m_numBufferedElements && this.isSmaller(child, smallest)){
+                    smallest = child;
+                }
+                child++;
+                if(child < this.m_numBufferedElements && this.isSmaller(child, smallest)){
+                    smallest = child;
+                }
+                if(smallest == pos){
+                    return pos;
+                }
+                this.swap(pos, smallest);
+                pos = smallest;
+            }
+        }
+
         @Override
         protected void postWork(){
             assert(this.terminateCalledWithInterrupt() != null);
             if(this.terminateCalledWithInterrupt()) {
-                int numElems = this.m_singleElementBuffer.values().size();
+                int numElems = this.m_numBufferedElements;
                 MuxReceiverTask<DATA_IN_TYPE> muxReceiver;
                 for(int recNum = 0; recNum < this.m_numMuxReceivers; recNum++) {
                     muxReceiver = GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.get(recNum);
@@ -174,10 +463,19 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
                     muxReceiver = GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.get(recNum);
                     muxReceiver.m_inQueue.drainTo(remainingData);
                 }
-                remainingData.addAll(this.m_singleElementBuffer.values());
-                this.m_singleElementBuffer.clear();
+                for(int recNum = 0; recNum < this.m_numMuxReceivers; recNum++) {
+                    if(this.m_singleElementBuffer.get(recNum) != null) {
+                        remainingData.add(this.m_singleElementBuffer.get(recNum));
+                        this.removeBufferedElement(recNum);
+                    }
+                }
+                while(this.m_reorderBuffer != null && !this.m_reorderBuffer.isEmpty()){
+                    remainingData.add(this.m_reorderBuffer.peekElement());
+                    this.m_reorderBuffer.remove();
+                }
 
                 if (remainingData.size() > 0) {
+                    this.discarded(remainingData.size(), FlightRecording.REASON_INTERRUPT);
                     LOGGER.warning("Discarding " + remainingData.size() + " elements from input queues due to interrupt-termination.");
                 }
             }
@@ -186,7 +484,8 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
                 boolean oneNonEmpty = true;
 
                 while(oneNonEmpty) {
-                    oneNonEmpty = !this.m_singleElementBuffer.isEmpty();
+                    oneNonEmpty = this.m_numBufferedElements > 0 ||
+                            (this.m_reorderBuffer != null && !this.m_reorderBuffer.isEmpty());
                     for (int i = 0; i < this.m_numMuxReceivers && !oneNonEmpty; i++) {
                         muxReceiver = GenericSyncMuxMultiReceiverTask.this.m_muxReceiverList.get(i);
                         assert (GenericSyncMuxMultiReceiverTask.this.getInternalTaskByIndex(i) == muxReceiver);
@@ -197,8 +496,12 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
                         }
                     }
                     if(oneNonEmpty) {
+                        // Null if nothing could be forwarded
+                        Collection<RoutedChunk<DATA_IN_TYPE>> nextChunk = this.getNextDataChunk();
                         try {
-                            this.forwardToReceiver(this.getNextDataChunk());
+                            if(nextChunk != null) {
+                                this.forwardToReceiver(nextChunk);
+                            }
                         } catch (InterruptedException e) {
                             throw new IllegalStateException("No interrupt should happen at this point.", e);
                         } catch (IllegalStatusException e) {
@@ -212,7 +515,13 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
         }
     }
 
-    // Note: The data in each of the input queues must be ordered s.th. retrieved elements are in ascending order!
+    // No volatile required - only set before this task has started (see setMaxOutOfOrderness(...))
+    private int m_maxOutOfOrderness;
+    // Only written by the run thread of the sync mux transmitter
+    private volatile long m_numDroppedLateElements;
+
+    // Note: The data in each of the input queues must be ordered s.th. retrieved elements are in ascending order
+    // (unless a max. out-of-orderness is set)!
     public GenericSyncMuxMultiReceiverTask(AbstractTargetReceiverTask<DATA_IN_TYPE> targetReceiver,
                                            int numInternalReceivers,
                                            int maxDataChunkSize,
@@ -221,6 +530,30 @@ public class GenericSyncMuxMultiReceiverTask<DATA_IN_TYPE extends Comparable<DAT
                                            ExecutorService executorService,
                                            Object... additionalMuxTransmitterArgs) {
         super(targetReceiver, numInternalReceivers, maxDataChunkSize, inDataQueueCapacity, timeoutInterval, executorService, additionalMuxTransmitterArgs);
+        this.m_maxOutOfOrderness = 0;
+        this.m_numDroppedLateElements = 0;
+    }
+
+    // Max. number of merged elements held back in order to sort out-of-order elements (default: 0). If 0, out-of-order
+    // elements cause an IllegalStateException. Otherwise, elements smaller than an already forwarded element are
+    // discarded (see getNumDroppedLateElements()). Held back elements not larger than the minimum watermark over all
+    // inputs are forwarded immediately.
+    public final void setMaxOutOfOrderness(int maxOutOfOrderness){
+        if(maxOutOfOrderness < 0){
+            throw new IllegalArgumentException();
+        }
+        if(!this.isNotStarted()){
+            throw new RuntimeException(new IllegalStatusException("Max. out-of-orderness should only be set when tasks have not started yet."));
+        }
+        this.m_maxOutOfOrderness = maxOutOfOrderness;
+    }
+
+    public final int getMaxOutOfOrderness(){
+        return this.m_maxOutOfOrderness;
+    }
+
+    public final long getNumDroppedLateElements(){
+        return this.m_numDroppedLateElements;
     }
 
     @Override
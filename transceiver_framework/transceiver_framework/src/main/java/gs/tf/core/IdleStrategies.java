@@ -0,0 +1,214 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class IdleStrategies {
+
+    private IdleStrategies(){}
+
+    // Strategy used by tasks for which no idle strategy has been set (identical to the former hard-coded behavior)
+    public static IdleStrategy defaultIdleStrategy(){
+        return new YieldIdleStrategy();
+    }
+
+    // Lowest latency, but occupies a full core per idle task.
+    public static class BusySpinIdleStrategy implements IdleStrategy {
+
+        public BusySpinIdleStrategy(){}
+
+        @Override
+        public void idle() {}
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void signal() {}
+
+        @Override
+        public IdleStrategy copy() {
+            return new BusySpinIdleStrategy();
+        }
+    }
+
+    public static class YieldIdleStrategy implements IdleStrategy {
+
+        public YieldIdleStrategy(){}
+
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void signal() {}
+
+        @Override
+        public IdleStrategy copy() {
+            return new YieldIdleStrategy();
+        }
+    }
+
+    // Spins maxSpins times, then yields maxYields times and then parks with exponentially growing
+    // park intervals from minParkNanos up to maxParkNanos until the next reset().
+    public static class BackoffIdleStrategy implements IdleStrategy {
+
+        private final long m_maxSpins;
+        private final long m_maxYields;
+        private final long m_minParkNanos;
+        private final long m_maxParkNanos;
+
+        // No volatile required - only accessed by the run thread
+        private long m_spins;
+        private long m_yields;
+        private long m_parkNanos;
+
+        private volatile Thread m_parkedThread;
+        // Set by signal(), consumed by the next park (which is skipped)
+        private volatile boolean m_signalled;
+
+        public BackoffIdleStrategy(long maxSpins, long maxYields, long minParkNanos, long maxParkNanos){
+            if(maxSpins < 0 || maxYields < 0 || minParkNanos < 1 || maxParkNanos < minParkNanos){
+                throw new IllegalArgumentException();
+            }
+            this.m_maxSpins = maxSpins;
+            this.m_maxYields = maxYields;
+            this.m_minParkNanos = minParkNanos;
+            this.m_maxParkNanos = maxParkNanos;
+            this.m_parkedThread = null;
+            this.m_signalled = false;
+            this.reset();
+        }
+
+        @Override
+        public void idle() {
+            if(this.m_spins < this.m_maxSpins){
+                this.m_spins++;
+            }
+            else if(this.m_yields < this.m_maxYields){
+                this.m_yields++;
+                Thread.yield();
+            }
+            else{
+                // Thread is published before m_signalled is checked: A concurrent signal() either sees the thread
+                // (and unparks it) or its flag is seen here
+                this.m_parkedThread = Thread.currentThread();
+                if(!this.m_signalled) {
+                    LockSupport.parkNanos(this, this.m_parkNanos);
+                }
+                this.m_parkedThread = null;
+                if(this.m_signalled){
+                    this.m_signalled = false;
+                }
+                else {
+                    this.m_parkNanos = Math.min(this.m_parkNanos << 1, this.m_maxParkNanos);
+                }
+            }
+        }
+
+        @Override
+        public void reset() {
+            this.m_spins = 0;
+            this.m_yields = 0;
+            this.m_parkNanos = this.m_minParkNanos;
+        }
+
+        @Override
+        public void signal() {
+            // A signal arriving before the thread parks makes the next park return immediately (see idle())
+            this.m_signalled = true;
+            Thread parkedThread = this.m_parkedThread;
+            if(parkedThread != null){
+                LockSupport.unpark(parkedThread);
+            }
+        }
+
+        @Override
+        public IdleStrategy copy() {
+            return new BackoffIdleStrategy(this.m_maxSpins, this.m_maxYields, this.m_minParkNanos, this.m_maxParkNanos);
+        }
+    }
+
+    // Blocks until signal() is called. Tasks that are not woken up by signals (e.g., transmitters polling
+    // an external source in getNextDataChunk()) re-check for work after at most maxWaitNanos.
+    public static class BlockingIdleStrategy implements IdleStrategy {
+
+        private final long m_maxWaitNanos;
+        private final ReentrantLock SIGNAL_LOCK;
+        private final Condition m_signalCondition;
+        private volatile boolean m_signalled;
+        // Allows signal() to skip the lock while the run thread is not waiting
+        private volatile boolean m_waiting;
+
+        public BlockingIdleStrategy(long maxWaitNanos){
+            if(maxWaitNanos < 1){
+                throw new IllegalArgumentException();
+            }
+            this.m_maxWaitNanos = maxWaitNanos;
+            this.SIGNAL_LOCK = new ReentrantLock();
+            this.m_signalCondition = this.SIGNAL_LOCK.newCondition();
+            this.m_signalled = false;
+            this.m_waiting = false;
+        }
+
+        @Override
+        public void idle() {
+            this.SIGNAL_LOCK.lock();
+            try {
+                this.m_waiting = true;
+                long remainingNanos = this.m_maxWaitNanos;
+                while(!this.m_signalled && remainingNanos > 0){
+                    remainingNanos = this.m_signalCondition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.m_waiting = false;
+                this.m_signalled = false;
+                this.SIGNAL_LOCK.unlock();
+            }
+        }
+
+        @Override
+        public void reset() {}
+
+        @Override
+        public void signal() {
+            if(!this.m_signalled) {
+                this.m_signalled = true;
+                // Either the run thread sees m_signalled before waiting or we see m_waiting here
+                if (this.m_waiting) {
+                    this.SIGNAL_LOCK.lock();
+                    try {
+                        this.m_signalCondition.signal();
+                    } finally {
+                        this.SIGNAL_LOCK.unlock();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public IdleStrategy copy() {
+            return new BlockingIdleStrategy(this.m_maxWaitNanos);
+        }
+
+        public long getMaxWait(TimeUnit unit){
+            return unit.convert(this.m_maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
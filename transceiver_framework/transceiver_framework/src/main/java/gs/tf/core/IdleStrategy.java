@@ -0,0 +1,27 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Decides what a task's run thread does after a work chunk made no progress
+// (e.g., empty input queue or no data chunk available).
+// Instances hold per-task state: Each task works on its own copy (see copy()),
+// the instance provided via ConcurrentTask.setIdleStrategy(...) merely serves as a template.
+public interface IdleStrategy extends WorkSignal {
+
+    // Called by the task's run thread after a work chunk without progress.
+    // May block, but must return early after signal() has been called.
+    // If the calling thread is interrupted, implementations return immediately and keep the interrupt flag raised.
+    void idle();
+
+    // Called by the task's run thread after a work chunk with progress.
+    void reset();
+
+    // Returns a new instance with the same configuration and a fresh state.
+    IdleStrategy copy();
+}
@@ -0,0 +1,124 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.tf.metrics.LatencyTrace;
+import gs.tf.metrics.LatencyTraceStatistics;
+import gs.tf.metrics.LatencyTracing;
+
+import java.util.Collection;
+
+// Stamps the traces of data elements (including the elements of RoutedChunks) at the hops of the task provided
+// to the respective method (see LatencyTracing). Only called if tracing is enabled.
+final class LatencyTracer {
+
+    static final String ENQUEUE = "enqueue";
+    static final String DEQUEUE = "dequeue";
+    static final String FORWARD = "forward";
+    static final String PROCESSED = "processed";
+
+    private LatencyTracer(){
+    }
+
+    private static String getHop(AbstractConcurrentTask task, String event){
+        String className = task.getClass().getName();
+        return className.substring(className.lastIndexOf('.') + 1) + "#" + task.getID() + ":" + event;
+    }
+
+    static void stamp(Collection<?> elements, AbstractConcurrentTask task, String event){
+        long nanos = System.nanoTime();
+        String hop = null;
+        for(Object element : elements){
+            if(element instanceof RoutedChunk){
+                RoutedChunk<?> routedChunk = (RoutedChunk<?>) element;
+                for(int i = 0; i < routedChunk.size(); i++){
+                    hop = stamp(routedChunk.get(i), task, event, hop, nanos);
+                }
+            }
+            else {
+                hop = stamp(element, task, event, hop, nanos);
+            }
+        }
+    }
+
+    // Returns the (lazily created) hop
+    private static String stamp(Object element, AbstractConcurrentTask task, String event, String hop, long nanos){
+        LatencyTrace trace = LatencyTracing.getTrace(element);
+        if(trace != null){
+            if(hop == null){
+                hop = getHop(task, event);
+            }
+            trace.stamp(hop, nanos);
+        }
+        return hop;
+    }
+
+    // Starts a trace for every samplingInterval-th data element. Returns the number of elements since the last started trace.
+    static int sample(Collection<?> elements, int sinceLastSample, int samplingInterval){
+        assert(samplingInterval > 0);
+        for(Object element : elements){
+            if(element instanceof RoutedChunk){
+                RoutedChunk<?> routedChunk = (RoutedChunk<?>) element;
+                for(int i = 0; i < routedChunk.size(); i++){
+                    sinceLastSample = sample(routedChunk.get(i), sinceLastSample, samplingInterval);
+                }
+            }
+            else {
+                sinceLastSample = sample(element, sinceLastSample, samplingInterval);
+            }
+        }
+        return sinceLastSample;
+    }
+
+    // Watermarks are not traced
+    private static int sample(Object element, int sinceLastSample, int samplingInterval){
+        if(element instanceof Watermark){
+            return sinceLastSample;
+        }
+        if(++sinceLastSample >= samplingInterval){
+            LatencyTracing.startTrace(element);
+            return 0;
+        }
+        return sinceLastSample;
+    }
+
+    // Stamps the traces of the provided elements as processed and records them in the provided statistics
+    static void finish(Collection<?> elements, AbstractConcurrentTask task, LatencyTraceStatistics statistics){
+        long nanos = System.nanoTime();
+        String hop = null;
+        for(Object element : elements){
+            if(element instanceof RoutedChunk){
+                RoutedChunk<?> routedChunk = (RoutedChunk<?>) element;
+                for(int i = 0; i < routedChunk.size(); i++){
+                    hop = finish(routedChunk.get(i), task, statistics, hop, nanos);
+                }
+            }
+            else {
+                hop = finish(element, task, statistics, hop, nanos);
+            }
+        }
+    }
+
+    private static String finish(Object element, AbstractConcurrentTask task, LatencyTraceStatistics statistics, String hop, long nanos){
+        LatencyTrace trace = LatencyTracing.getTrace(element);
+        if(trace != null){
+            if(hop == null){
+                hop = getHop(task, PROCESSED);
+            }
+            trace.stamp(hop, nanos);
+            statistics.record(trace);
+        }
+        return hop;
+    }
+
+    // Name of the sink in LatencyTraceStatistics
+    static String getSinkName(AbstractConcurrentTask task){
+        return task.getClass().getName() + "#" + task.getID();
+    }
+}
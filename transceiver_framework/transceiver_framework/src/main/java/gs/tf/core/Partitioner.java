@@ -0,0 +1,33 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Decides to which demux transmitter a demux's source routes each data element
+// (see GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask.setPartitioner(...)).
+// Instances may hold state: Each source works on its own copy (see copy()),
+// the instance provided via setPartitioner(...) merely serves as a template.
+public interface Partitioner<DATA_TYPE> {
+
+    // Current load of the demux transmitters. Only valid during the partition(...) call it is provided to.
+    interface PartitionLoad {
+
+        int getNumPartitions();
+
+        // Number of data elements routed to the provided partition which have not been processed by the receiver
+        // connected to the respective demux transmitter yet (approximation, computed upon each call).
+        int getQueueSize(int partition);
+    }
+
+    // Returns the index (in [0, load.getNumPartitions())) of the demux transmitter the provided data element is
+    // routed to. Only called by the source's run thread, never for watermarks (see Watermark).
+    int partition(DATA_TYPE dataElement, PartitionLoad load);
+
+    // Returns a new instance with the same configuration and a fresh state.
+    Partitioner<DATA_TYPE> copy();
+}
@@ -0,0 +1,415 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.datatypes.LabeledData;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class Partitioners {
+
+    private Partitioners(){}
+
+    // Same as without partitioner, but per data element instead of per data chunk
+    public static class RoundRobinPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        // No volatile required - only accessed by the source's run thread
+        private int m_nextPartition;
+
+        public RoundRobinPartitioner(){
+            this.m_nextPartition = 0;
+        }
+
+        @Override
+        public int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            if(this.m_nextPartition >= load.getNumPartitions()){
+                this.m_nextPartition = 0;
+            }
+            return this.m_nextPartition++;
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new RoundRobinPartitioner<>();
+        }
+    }
+
+    // Routes data elements with equal keys to the same partition (e.g., for per-key state in the downstream transceivers).
+    // The key is extracted by the provided key extractor (the data element itself by default). The key extractor is
+    // shared by all copies and must therefore be stateless.
+    public static class KeyHashPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        private static final Function<Object, Object> IDENTITY = new Function<Object, Object>() {
+            @Override
+            public Object apply(Object dataElement) {
+                return dataElement;
+            }
+        };
+
+        private final Function<? super DATA_TYPE, ?> m_keyExtractor;
+
+        public KeyHashPartitioner(){
+            this.m_keyExtractor = IDENTITY;
+        }
+
+        public KeyHashPartitioner(Function<? super DATA_TYPE, ?> keyExtractor){
+            if(keyExtractor == null){
+                throw new NullPointerException();
+            }
+            this.m_keyExtractor = keyExtractor;
+        }
+
+        protected final Object getKey(DATA_TYPE dataElement){
+            return this.m_keyExtractor.apply(dataElement);
+        }
+
+        @Override
+        public final int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            Object key = this.getKey(dataElement);
+            int hash = key == null ? 0 : key.hashCode();
+            // Spread higher bits (cf. HashMap)
+            hash ^= hash >>> 16;
+            return Math.floorMod(hash, load.getNumPartitions());
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new KeyHashPartitioner<>(this.m_keyExtractor);
+        }
+    }
+
+    // Routes all data elements with the same label (e.g., of the same data stream) to the same partition
+    public static class LabelHashPartitioner extends KeyHashPartitioner<LabeledData<?>> {
+
+        private static final Function<LabeledData<?>, String> LABEL_EXTRACTOR = new Function<LabeledData<?>, String>() {
+            @Override
+            public String apply(LabeledData<?> dataElement) {
+                return dataElement.getLabel();
+            }
+        };
+
+        public LabelHashPartitioner(){
+            super(LABEL_EXTRACTOR);
+        }
+
+        @Override
+        public Partitioner<LabeledData<?>> copy() {
+            return new LabelHashPartitioner();
+        }
+    }
+
+    // Routes each data element to the partition with the smallest queue size. Ties are resolved round robin.
+    // Note: Inspects all partitions per data element (see PowerOfTwoChoicesPartitioner for a cheaper alternative).
+    public static class LeastQueueDepthPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        // No volatile required - only accessed by the source's run thread
+        private int m_nextStart;
+
+        public LeastQueueDepthPartitioner(){
+            this.m_nextStart = 0;
+        }
+
+        @Override
+        public int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            int numPartitions = load.getNumPartitions();
+            if(this.m_nextStart >= numPartitions){
+                this.m_nextStart = 0;
+            }
+            int result = this.m_nextStart;
+            int minQueueSize = load.getQueueSize(result);
+            for(int i = 1; i < numPartitions && minQueueSize > 0; i++){
+                int partition = this.m_nextStart + i < numPartitions ? this.m_nextStart + i : this.m_nextStart + i - numPartitions;
+                int queueSize = load.getQueueSize(partition);
+                if(queueSize < minQueueSize){
+                    minQueueSize = queueSize;
+                    result = partition;
+                }
+            }
+            this.m_nextStart++;
+            return result;
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new LeastQueueDepthPartitioner<>();
+        }
+    }
+
+    // Routes each data element to the less loaded of two randomly chosen partitions
+    public static class PowerOfTwoChoicesPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        private final Long m_seed;
+        private final Random m_rnd;
+
+        public PowerOfTwoChoicesPartitioner(){
+            this(null);
+        }
+
+        public PowerOfTwoChoicesPartitioner(Long seed){
+            this.m_seed = seed;
+            this.m_rnd = seed == null ? new Random() : new Random(seed);
+        }
+
+        @Override
+        public int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            int numPartitions = load.getNumPartitions();
+            if(numPartitions == 1){
+                return 0;
+            }
+            int first = this.m_rnd.nextInt(numPartitions);
+            // Distinct from first
+            int second = this.m_rnd.nextInt(numPartitions - 1);
+            if(second >= first){
+                second++;
+            }
+            return load.getQueueSize(second) < load.getQueueSize(first) ? second : first;
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new PowerOfTwoChoicesPartitioner<>(this.m_seed);
+        }
+    }
+
+    // Smooth weighted round robin: Out of sum(weights) consecutive data elements, the i-th partition receives weights[i]
+    // (interleaved as evenly as possible).
+    public static class WeightedPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        private final int[] m_weights;
+        private final long m_totalWeight;
+        // No volatile required - only accessed by the source's run thread
+        private final long[] m_currentWeights;
+
+        public WeightedPartitioner(List<Integer> weights){
+            this(toArray(weights));
+        }
+
+        public WeightedPartitioner(int... weights){
+            if(weights == null){
+                throw new NullPointerException();
+            }
+            if(weights.length == 0){
+                throw new IllegalArgumentException();
+            }
+            long totalWeight = 0;
+            for(int weight : weights){
+                if(weight < 0){
+                    throw new IllegalArgumentException("Weights must not be negative.");
+                }
+                totalWeight += weight;
+            }
+            if(totalWeight == 0){
+                throw new IllegalArgumentException("At least one weight must be positive.");
+            }
+            this.m_weights = weights.clone();
+            this.m_totalWeight = totalWeight;
+            this.m_currentWeights = new long[weights.length];
+        }
+
+        private static int[] toArray(List<Integer> weights){
+            if(weights == null){
+                throw new NullPointerException();
+            }
+            int[] result = new int[weights.size()];
+            for(int i = 0; i < result.length; i++){
+                result[i] = weights.get(i);
+            }
+            return result;
+        }
+
+        @Override
+        public int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            if(load.getNumPartitions() != this.m_weights.length){
+                throw new IllegalStateException("Number of weights (" + this.m_weights.length + ") differs from " +
+                        "number of partitions (" + load.getNumPartitions() + ").");
+            }
+            int result = 0;
+            for(int i = 0; i < this.m_weights.length; i++){
+                this.m_currentWeights[i] += this.m_weights[i];
+                if(this.m_currentWeights[i] > this.m_currentWeights[result]){
+                    result = i;
+                }
+            }
+            this.m_currentWeights[result] -= this.m_totalWeight;
+            return result;
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new WeightedPartitioner<>(this.m_weights);
+        }
+    }
+
+    // Elastic scaling for stateless downstream transceivers: Only the first getNumActivePartitions() partitions receive
+    // data elements (distributed among them via the provided partitioner, least queue depth by default). The number
+    // of active partitions is re-evaluated every evaluationInterval ms: It is increased by one if the average queue size
+    // of the active partitions exceeds scaleUpQueueSize and has grown since the previous evaluation (i.e., if the active
+    // partitions do not keep up with the input rate). It is decreased by one (but not below minActivePartitions) if the
+    // average queue size has stayed below scaleDownQueueSize for at least scaleDownDelay ms. Retired partitions process
+    // their remaining input and then idle. The number of partitions (i.e., demux transmitters) is the upper bound.
+    public static class ElasticPartitioner<DATA_TYPE> implements Partitioner<DATA_TYPE> {
+
+        private final int m_minActivePartitions;
+        private final int m_scaleUpQueueSize;
+        private final int m_scaleDownQueueSize;
+        private final long m_evaluationInterval;
+        private final long m_scaleDownDelay;
+        private final Partitioner<DATA_TYPE> m_partitioner;
+        private final ActivePartitionLoad m_activeLoad;
+
+        // Written by the source's run thread only, volatile for monitoring (-1: not initialized yet)
+        private volatile int m_numActivePartitions;
+        private volatile double m_processingRate;
+        // No volatile required - only accessed by the source's run thread
+        private long m_nextEvaluationTime;
+        private long m_lastEvaluationTime;
+        private long m_belowScaleDownSince;
+        private long m_numRouted;
+        private long m_lastTotalQueueSize;
+
+        public ElasticPartitioner(int minActivePartitions, int scaleUpQueueSize, int scaleDownQueueSize,
+                                  long evaluationInterval, long scaleDownDelay){
+            this(minActivePartitions, scaleUpQueueSize, scaleDownQueueSize, evaluationInterval, scaleDownDelay,
+                    new LeastQueueDepthPartitioner<DATA_TYPE>());
+        }
+
+        public ElasticPartitioner(int minActivePartitions, int scaleUpQueueSize, int scaleDownQueueSize,
+                                  long evaluationInterval, long scaleDownDelay, Partitioner<DATA_TYPE> partitioner){
+            if(partitioner == null){
+                throw new NullPointerException();
+            }
+            if(minActivePartitions < 1 || scaleDownQueueSize < 0 || scaleUpQueueSize < scaleDownQueueSize ||
+                    evaluationInterval < 1 || scaleDownDelay < 0){
+                throw new IllegalArgumentException();
+            }
+            this.m_minActivePartitions = minActivePartitions;
+            this.m_scaleUpQueueSize = scaleUpQueueSize;
+            this.m_scaleDownQueueSize = scaleDownQueueSize;
+            this.m_evaluationInterval = evaluationInterval;
+            this.m_scaleDownDelay = scaleDownDelay;
+            this.m_partitioner = partitioner.copy();
+            this.m_activeLoad = new ActivePartitionLoad();
+            this.m_numActivePartitions = -1;
+            this.m_processingRate = 0;
+            this.m_belowScaleDownSince = -1;
+            this.m_numRouted = 0;
+            this.m_lastTotalQueueSize = 0;
+        }
+
+        // Partitions currently receiving data elements (-1 if no data element has been partitioned yet)
+        public int getNumActivePartitions(){
+            return this.m_numActivePartitions;
+        }
+
+        // Data elements processed (i.e., removed from the queues) per second by all partitions, as of the last evaluation
+        public double getProcessingRate(){
+            return this.m_processingRate;
+        }
+
+        @Override
+        public int partition(DATA_TYPE dataElement, PartitionLoad load) {
+            int numActivePartitions = this.m_numActivePartitions;
+            if(numActivePartitions < 0){
+                numActivePartitions = Math.min(this.m_minActivePartitions, load.getNumPartitions());
+                this.m_numActivePartitions = numActivePartitions;
+                this.m_lastEvaluationTime = System.nanoTime();
+                this.m_nextEvaluationTime = this.m_lastEvaluationTime + TimeUnit.MILLISECONDS.toNanos(this.m_evaluationInterval);
+            }
+            // Time checks only every 64 data elements
+            else if((this.m_numRouted & 63) == 0 && System.nanoTime() - this.m_nextEvaluationTime >= 0){
+                numActivePartitions = this.evaluate(load, numActivePartitions);
+            }
+            this.m_numRouted++;
+
+            this.m_activeLoad.m_load = load;
+            this.m_activeLoad.m_numPartitions = numActivePartitions;
+            try {
+                int result = this.m_partitioner.partition(dataElement, this.m_activeLoad);
+                if(result < 0 || result >= numActivePartitions){
+                    throw new IllegalStateException("Partitioner returned inactive partition " + result + ".");
+                }
+                return result;
+            }
+            finally {
+                this.m_activeLoad.m_load = null;
+            }
+        }
+
+        private int evaluate(PartitionLoad load, int numActivePartitions){
+            long now = System.nanoTime();
+            int numPartitions = load.getNumPartitions();
+            long activeQueueSize = 0;
+            long totalQueueSize = 0;
+            for(int i = 0; i < numPartitions; i++){
+                int queueSize = load.getQueueSize(i);
+                totalQueueSize += queueSize;
+                if(i < numActivePartitions){
+                    activeQueueSize += queueSize;
+                }
+            }
+            // Processed = routed - queue size increase
+            long numProcessed = this.m_numRouted - (totalQueueSize - this.m_lastTotalQueueSize);
+            this.m_processingRate = numProcessed * 1e9 / Math.max(1, now - this.m_lastEvaluationTime);
+            boolean growing = totalQueueSize > this.m_lastTotalQueueSize;
+            this.m_numRouted = 0;
+            this.m_lastTotalQueueSize = totalQueueSize;
+            this.m_lastEvaluationTime = now;
+            this.m_nextEvaluationTime = now + TimeUnit.MILLISECONDS.toNanos(this.m_evaluationInterval);
+
+            long averageQueueSize = activeQueueSize / numActivePartitions;
+            if(averageQueueSize > this.m_scaleUpQueueSize && growing && numActivePartitions < numPartitions){
+                numActivePartitions++;
+                this.m_belowScaleDownSince = -1;
+            }
+            else if(averageQueueSize < this.m_scaleDownQueueSize && numActivePartitions > this.m_minActivePartitions){
+                if(this.m_belowScaleDownSince < 0){
+                    this.m_belowScaleDownSince = now;
+                }
+                else if(now - this.m_belowScaleDownSince >= TimeUnit.MILLISECONDS.toNanos(this.m_scaleDownDelay)){
+                    numActivePartitions--;
+                    // The delay applies to each retirement
+                    this.m_belowScaleDownSince = now;
+                }
+            }
+            else{
+                this.m_belowScaleDownSince = -1;
+            }
+            this.m_numActivePartitions = numActivePartitions;
+            return numActivePartitions;
+        }
+
+        @Override
+        public Partitioner<DATA_TYPE> copy() {
+            return new ElasticPartitioner<>(this.m_minActivePartitions, this.m_scaleUpQueueSize, this.m_scaleDownQueueSize,
+                    this.m_evaluationInterval, this.m_scaleDownDelay, this.m_partitioner);
+        }
+
+        // View restricted to the active partitions
+        private static class ActivePartitionLoad implements PartitionLoad {
+            private PartitionLoad m_load;
+            private int m_numPartitions;
+
+            @Override
+            public int getNumPartitions() {
+                return this.m_numPartitions;
+            }
+
+            @Override
+            public int getQueueSize(int partition) {
+                if(partition < 0 || partition >= this.m_numPartitions){
+                    throw new IndexOutOfBoundsException();
+                }
+                return this.m_load.getQueueSize(partition);
+            }
+        }
+    }
+}
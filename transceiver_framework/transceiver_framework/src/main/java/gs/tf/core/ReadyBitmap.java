@@ -0,0 +1,90 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free set of indices in [0, size): Producers mark their index as ready (e.g., "queue non-empty"),
+// a consumer searches for and clears ready indices. Bits of different indices may be modified concurrently.
+class ReadyBitmap {
+
+    private final int m_size;
+    private final AtomicLongArray m_words;
+
+    ReadyBitmap(int size){
+        if(size < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_size = size;
+        this.m_words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    int size(){
+        return this.m_size;
+    }
+
+    void set(int index){
+        assert(index >= 0 && index < this.m_size);
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        long word;
+        do {
+            word = this.m_words.get(wordIndex);
+            if((word & mask) != 0){
+                return;
+            }
+        } while(!this.m_words.compareAndSet(wordIndex, word, word | mask));
+    }
+
+    void clear(int index){
+        assert(index >= 0 && index < this.m_size);
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        long word;
+        do {
+            word = this.m_words.get(wordIndex);
+            if((word & mask) == 0){
+                return;
+            }
+        } while(!this.m_words.compareAndSet(wordIndex, word, word & ~mask));
+    }
+
+    int getNumWords(){
+        return this.m_words.length();
+    }
+
+    // Bit i of the result refers to index (wordIndex << 6) + i
+    long getWord(int wordIndex){
+        return this.m_words.get(wordIndex);
+    }
+
+    boolean isSet(int index){
+        assert(index >= 0 && index < this.m_size);
+        return (this.m_words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    // Returns the first ready index at or after fromIndex (wrapping around at size()) or -1 if no index is ready.
+    int nextSetBit(int fromIndex){
+        assert(fromIndex >= 0 && fromIndex < this.m_size);
+        int numWords = this.m_words.length();
+        int wordIndex = fromIndex >>> 6;
+        // Bits of the first word below fromIndex are only considered after wrapping around
+        long word = this.m_words.get(wordIndex) & (-1L << fromIndex);
+        for(int i = 0; i <= numWords; i++){
+            if(word != 0){
+                int result = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                assert(result < this.m_size);
+                return result;
+            }
+            wordIndex = wordIndex + 1 == numWords ? 0 : wordIndex + 1;
+            word = this.m_words.get(wordIndex);
+        }
+        return -1;
+    }
+}
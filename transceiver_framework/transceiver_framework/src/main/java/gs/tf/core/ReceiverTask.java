@@ -20,4 +20,8 @@ public interface ReceiverTask<DATA_IN_TYPE> extends ConcurrentTask {
     void addToInDataQueue(DATA_IN_TYPE dataElement) throws InterruptedException, IllegalStatusException;
     boolean hasInConnection();
     int getInQueueSize();
+    // Number of elements that can currently be added without blocking (Integer.MAX_VALUE if unbounded)
+    int getAvailableCredits();
+    // Capacity of the input queue (Integer.MAX_VALUE if unbounded)
+    int getMaxCredits();
 }
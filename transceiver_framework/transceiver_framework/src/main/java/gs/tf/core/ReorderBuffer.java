@@ -0,0 +1,106 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Bounded min-heap of (index, element) pairs w.r.t. the elements' natural order. Not thread-safe.
+final class ReorderBuffer<E extends Comparable<E>> {
+
+    private final Object[] m_elements;
+    private final int[] m_indices;
+    private int m_size;
+
+    ReorderBuffer(int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_elements = new Object[capacity];
+        this.m_indices = new int[capacity];
+        this.m_size = 0;
+    }
+
+    int size(){
+        return this.m_size;
+    }
+
+    boolean isEmpty(){
+        return this.m_size == 0;
+    }
+
+    void add(int index, E element){
+        if(element == null){
+            throw new NullPointerException();
+        }
+        if(this.m_size == this.m_elements.length){
+            throw new IllegalStateException("Reorder buffer full.");
+        }
+        int pos = this.m_size++;
+        while(pos > 0){
+            int parent = (pos - 1) >>> 1;
+            if(element.compareTo(this.elementAt(parent)) >= 0){
+                break;
+            }
+            this.m_elements[pos] = this.m_elements[parent];
+            this.m_indices[pos] = this.m_indices[parent];
+            pos = parent;
+        }
+        this.m_elements[pos] = element;
+        this.m_indices[pos] = index;
+    }
+
+    // Smallest element (null if empty)
+    E peekElement(){
+        return this.m_size == 0 ? null : this.elementAt(0);
+    }
+
+    // Index of the smallest element
+    int peekIndex(){
+        if(this.m_size == 0){
+            throw new IllegalStateException("Reorder buffer empty.");
+        }
+        return this.m_indices[0];
+    }
+
+    // Removes the smallest element
+    void remove(){
+        if(this.m_size == 0){
+            throw new IllegalStateException("Reorder buffer empty.");
+        }
+        int last = --this.m_size;
+        E element = this.elementAt(last);
+        int index = this.m_indices[last];
+        this.m_elements[last] = null;
+        if(last == 0){
+            return;
+        }
+
+        int pos = 0;
+        while(true){
+            int child = 2 * pos + 1;
+            if(child >= last){
+                break;
+            }
+            if(child + 1 < last && this.elementAt(child + 1).compareTo(this.elementAt(child)) < 0){
+                child++;
+            }
+            if(this.elementAt(child).compareTo(element) >= 0){
+                break;
+            }
+            this.m_elements[pos] = this.m_elements[child];
+            this.m_indices[pos] = this.m_indices[child];
+            pos = child;
+        }
+        this.m_elements[pos] = element;
+        this.m_indices[pos] = index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int pos){
+        return (E) this.m_elements[pos];
+    }
+}
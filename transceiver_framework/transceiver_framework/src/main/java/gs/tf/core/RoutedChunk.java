@@ -0,0 +1,112 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.queues.WeightedBlockingQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Chunk of data elements sharing the same mux/demux index: Transmitted between source transmitter and demux receiver
+// (index: target demux transmitter) and between mux transmitter and target receiver (index: source mux receiver)
+// instead of one (index, element) pair per element.
+// Watermark chunks (see watermark(...)) carry a single Watermark addressed to all demux transmitters (or, from a
+// mux transmitter, the minimum watermark over all mux receivers).
+public final class RoutedChunk<DATA_TYPE> {
+
+    private static final int WATERMARK_INDEX = -1;
+
+    // Weighs routed chunks by their number of data elements (for input queues whose capacity is measured in data elements)
+    static final WeightedBlockingQueue.Weigher<RoutedChunk<?>> SIZE_WEIGHER =
+            new WeightedBlockingQueue.Weigher<RoutedChunk<?>>() {
+                @Override
+                public int getWeight(RoutedChunk<?> routedChunk) {
+                    return routedChunk.getNumDataElements();
+                }
+            };
+
+    private final int m_index;
+    // Random access list, not modified after construction
+    private final List<DATA_TYPE> m_data;
+
+    // Takes ownership of data (i.e., data must not be modified afterwards). Non random access collections are copied.
+    public RoutedChunk(int index, Collection<? extends DATA_TYPE> data){
+        if(data == null){
+            throw new NullPointerException();
+        }
+        if(index < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_index = index;
+        if(data instanceof List && data instanceof RandomAccess){
+            @SuppressWarnings("unchecked")
+            List<DATA_TYPE> dataList = (List<DATA_TYPE>) data;
+            this.m_data = dataList;
+        }
+        else {
+            this.m_data = new ArrayList<>(data);
+        }
+    }
+
+    public RoutedChunk(int index, DATA_TYPE dataElement){
+        if(index < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_index = index;
+        this.m_data = Collections.singletonList(dataElement);
+    }
+
+    // Watermark chunk: Not addressed to a particular index (see isWatermark())
+    static <DATA_TYPE> RoutedChunk<DATA_TYPE> watermark(DATA_TYPE watermark){
+        if(!(watermark instanceof Watermark)){
+            throw new IllegalArgumentException("Watermark does not implement " + Watermark.class.getName() + ".");
+        }
+        return new RoutedChunk<>(watermark);
+    }
+
+    private RoutedChunk(DATA_TYPE watermark){
+        this.m_index = WATERMARK_INDEX;
+        this.m_data = Collections.singletonList(watermark);
+    }
+
+    // Negative for watermark chunks
+    public int getIndex(){
+        return this.m_index;
+    }
+
+    public boolean isWatermark(){
+        return this.m_index == WATERMARK_INDEX;
+    }
+
+    public int size(){
+        return this.m_data.size();
+    }
+
+    // 0 for watermark chunks
+    int getNumDataElements(){
+        return this.m_index == WATERMARK_INDEX ? 0 : this.m_data.size();
+    }
+
+    public DATA_TYPE get(int i){
+        return this.m_data.get(i);
+    }
+
+    // Unmodifiable view
+    public List<DATA_TYPE> getData(){
+        return Collections.unmodifiableList(this.m_data);
+    }
+
+    @Override
+    public String toString(){
+        return "Index: " + this.m_index + ", data: " + this.m_data;
+    }
+}
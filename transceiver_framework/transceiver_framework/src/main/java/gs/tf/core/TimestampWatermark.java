@@ -0,0 +1,64 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.datatypes.GenericTimeComparable;
+import gs.utils.datatypes.LabeledTimestampedData;
+
+import org.apache.commons.collections4.set.UnmodifiableSet;
+
+import java.util.Collections;
+
+// Watermark of streams of TimestampedData (or LabeledTimestampedData) elements: Promises that all subsequent data
+// elements have a timestamp not smaller than the watermark's timestamp. Carries neither data nor label (both null)
+// and ignores annotations (i.e., watermarks are never latency traced).
+public final class TimestampWatermark<DATA_TYPE> extends GenericTimeComparable implements LabeledTimestampedData<DATA_TYPE>, Watermark {
+
+    private static final long serialVersionUID = 3873419783208583399L;
+
+    public TimestampWatermark(long timestamp){
+        super(timestamp);
+    }
+
+    @Override
+    public DATA_TYPE getData() {
+        return null;
+    }
+
+    @Override
+    public String getLabel() {
+        return null;
+    }
+
+    @Override
+    public Object addAnnotation(Object key, Object annotation) {
+        if(key == null){
+            throw new NullPointerException();
+        }
+        return null;
+    }
+
+    @Override
+    public Object getAnnotation(Object key) {
+        if(key == null){
+            throw new NullPointerException();
+        }
+        return null;
+    }
+
+    @Override
+    public UnmodifiableSet<Object> getAnnotationKeys() {
+        return (UnmodifiableSet<Object>) UnmodifiableSet.unmodifiableSet(Collections.<Object>emptySet());
+    }
+
+    @Override
+    public String toString(){
+        return "Watermark: " + this.getTimestamp();
+    }
+}
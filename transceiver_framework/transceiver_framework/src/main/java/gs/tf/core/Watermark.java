@@ -0,0 +1,25 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Marker interface for progress markers ("heartbeats") travelling in-band with regular data elements: A watermark w
+// forwarded via some connection promises that all data elements subsequently forwarded via the same connection are
+// not smaller than w (w.r.t. the data elements' natural order). Watermarks are instances of the respective data type
+// (e.g., TimestampWatermark for TimestampedData streams).
+//
+// Sources emit them periodically (see AbstractTransmitterTask.setWatermarkInterval(...) and createWatermark(), for
+// demux sources GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask.createDemuxWatermark()). Receivers get
+// them via processWatermark(...) instead of processDataElement(...) and discard them by default, i.e., sinks and
+// partitioners never see them. Transceivers forward them once the output produced for the preceding input has been
+// forwarded (see AbstractTransceiverTask.processWatermark(...)), demuxes broadcast them to all outputs and muxes
+// forward the minimum watermark over all inputs. GenericSyncMuxMultiReceiverTask additionally uses them to proceed
+// without waiting for idle inputs. Watermarks are not counted as processed or forwarded elements (see TaskMetrics).
+public interface Watermark {
+
+}
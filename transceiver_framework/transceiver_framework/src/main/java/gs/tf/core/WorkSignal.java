@@ -0,0 +1,18 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+// Target of AbstractConcurrentTask.signalWork(): Either the task's idle strategy or - if the task is executed
+// cooperatively - its scheduler (see CooperativeTaskExecutor).
+public interface WorkSignal {
+
+    // Wakes up the run thread if it is currently idling (or prevents the next idle() call from blocking).
+    // May be called from arbitrary threads.
+    void signal();
+}
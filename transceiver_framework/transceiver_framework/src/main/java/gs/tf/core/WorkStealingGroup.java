@@ -0,0 +1,72 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import java.util.List;
+
+// Receivers processing each other's input (see GenericMultiTransceiverTask.setWorkStealing(...)): A member with empty
+// input queue steals up to half of the queued elements of the member with the largest backlog. Idle members are marked
+// in a ReadyBitmap and signalled as soon as another member's backlog grows, since (as all receivers) they are
+// otherwise only resumed upon their own input.
+final class WorkStealingGroup {
+
+    private final AbstractReceiverTask<?>[] m_members;
+    private final ReadyBitmap m_idleMembers;
+
+    WorkStealingGroup(List<? extends AbstractReceiverTask<?>> members){
+        if(members.isEmpty()){
+            throw new IllegalArgumentException();
+        }
+        this.m_members = members.toArray(new AbstractReceiverTask<?>[members.size()]);
+        this.m_idleMembers = new ReadyBitmap(this.m_members.length);
+    }
+
+    int size(){
+        return this.m_members.length;
+    }
+
+    // Called by the run thread of the member with the provided index after it found its own input queue empty:
+    // Appends at most maxElements stolen elements to batch and returns their number.
+    int steal(int thiefIndex, List<?> batch, int maxElements){
+        assert(thiefIndex >= 0 && thiefIndex < this.m_members.length);
+        // Marked before scanning: Elements added afterwards lead to a signal (see signalIdleMember(...))
+        this.m_idleMembers.set(thiefIndex);
+        int numMembers = this.m_members.length;
+        int victimIndex = -1;
+        int maxSize = 0;
+        // Scan starts after the thief (ties are broken differently per thief)
+        for(int i = 1; i < numMembers; i++){
+            int index = thiefIndex + i < numMembers ? thiefIndex + i : thiefIndex + i - numMembers;
+            int size = this.m_members[index].getInQueueSize();
+            if(size > maxSize){
+                maxSize = size;
+                victimIndex = index;
+            }
+        }
+        if(victimIndex < 0){
+            return 0;
+        }
+        int result = this.m_members[victimIndex].drainForStealing(batch, maxElements);
+        if(result > 0){
+            this.m_idleMembers.clear(thiefIndex);
+        }
+        return result;
+    }
+
+    // Called after elements have been added to the input queue of the member with the provided index while it
+    // presumably is busy: Signals one idle member (if any).
+    void signalIdleMember(int memberIndex){
+        assert(memberIndex >= 0 && memberIndex < this.m_members.length);
+        int idleIndex = this.m_idleMembers.nextSetBit(memberIndex + 1 == this.m_members.length ? 0 : memberIndex + 1);
+        if(idleIndex >= 0 && idleIndex != memberIndex){
+            this.m_idleMembers.clear(idleIndex);
+            this.m_members[idleIndex].signalWork();
+        }
+    }
+}
@@ -12,6 +12,9 @@ import gs.utils.drivers.AbstractDriver;
 import gs.tf.core.ClosedMultiTaskChain;
 import gs.tf.core.NotStartedException;
 import gs.tf.factories.JSONFactory;
+import gs.tf.metrics.LatencyTracing;
+import gs.tf.metrics.MetricsRegistry;
+import gs.tf.metrics.MetricsReporter;
 import gs.utils.Logging;
 import gs.utils.json.JSONTypedArray;
 import gs.utils.json.JSONTypedObject;
@@ -22,6 +25,7 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.*;
 
@@ -37,6 +41,8 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
 
     private static final Logger ROOT_LOGGER = Logger.getLogger("");
     private static final Logger LOGGER = Logger.getLogger(JSONClosedMultiTaskDriver.class.getName());
+    // Fallback for the optional "node" field of root configs
+    public static final String NODE_PROPERTY = "gs.tf.node";
     private final List<ClosedMultiTaskChain> CLOSED_MULTI_TASK_CHAIN_LIST = Collections.synchronizedList(new LinkedList<>());
 
     // No need for volatile - accessed only via synchronization on SHUTDOWN_HOOK_LOCK
@@ -46,6 +52,8 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
     private volatile Thread m_mainThread;
     private volatile ManualResetLogManager m_logManager;
     private volatile String m_inputPath;
+    // Null if no "metrics" entry is present in the current root config
+    private volatile MetricsReporter m_metricsReporter;
 
     // This custom log manager make sure that it does not reset until resetFinally() called manually
     // (reset() is usually called by a logger's own shutdown hook and therefore interferes with logger calls
@@ -106,9 +114,7 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                             } catch (NotStartedException e) {
                                 throw new IllegalStateException("Should not happen", e);
                             }
-                            while (!cmt.isTerminated()) {
-                                Thread.yield();
-                            }
+                            cmt.terminated().join();
                         }
                         else{
                             LOGGER.severe(cmt.getClass().getName()+" not even started.");
@@ -117,6 +123,10 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                     assert(!executorService.isShutdown() && !executorService.isTerminated());
                     executorService.shutdown();
                 }
+                MetricsReporter metricsReporter = m_metricsReporter;
+                if(metricsReporter != null){
+                    metricsReporter.stop();
+                }
                 m_logManager.resetFinally();
                 // This is done by log manager's reset
                /* for(Handler h : ROOT_LOGGER.getHandlers()){
@@ -161,6 +171,7 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
         String transceiverStructureJSON;
         long runFor, sleepInterval, currentSleepInterval, sleptFor;
         JSONFactory factory;
+        String node;
 
         for(String rootConfig : rootConfigs) {
             synchronized (SHUTDOWN_HOOK_LOCK) {
@@ -229,6 +240,35 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
 
                 sleepInterval = jsonObject.getLong("main_sleep_interval");
 
+                // Optional: Only the closed multi task chains placed on this node (see JSONFactory) are created
+                // (default: value of the system property NODE_PROPERTY; if neither is set: all chains)
+                node = jsonObject.containsKey("node") ? jsonObject.getString("node") : System.getProperty(NODE_PROPERTY);
+
+                // Optional: {"file": <path>, "format": "csv" | "json", "interval": <ms>, "jmx": <boolean>}
+                if (jsonObject.containsKey("metrics")) {
+                    JSONTypedObject metricsConfig = jsonObject.getJSONTypedObject("metrics");
+                    String metricsFile = metricsConfig.getString("file");
+                    this.createFileFolder(metricsFile);
+                    MetricsReporter.Format metricsFormat = MetricsReporter.Format.valueOf(
+                            metricsConfig.getString("format").toUpperCase(Locale.ROOT));
+                    MetricsRegistry.setJmxEnabled(metricsConfig.containsKey("jmx") && metricsConfig.getBoolean("jmx"));
+                    MetricsRegistry.setEnabled(true);
+                    this.m_metricsReporter = new MetricsReporter(metricsFile, metricsFormat, metricsConfig.getLong("interval"));
+                }
+                else {
+                    MetricsRegistry.setEnabled(false);
+                    this.m_metricsReporter = null;
+                }
+
+                // Optional: {"sampling_interval": <n>} - traces one out of n elements per source (0: disabled)
+                if (jsonObject.containsKey("latency_tracing")) {
+                    LatencyTracing.setSamplingInterval(
+                            jsonObject.getJSONTypedObject("latency_tracing").getInt("sampling_interval"));
+                }
+                else {
+                    LatencyTracing.setSamplingInterval(0);
+                }
+
                 // TODO Create functionality to abort via key
                 if (runFor <= 0) {
                     throw new IllegalArgumentException();
@@ -241,12 +281,15 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                     throw new RuntimeException(e);
                 }
 
-                if (factory.getClosedMultiTaskChainNames().size() == 0) {
-                    throw new IllegalArgumentException();
+                if (factory.getClosedMultiTaskChainNamesList(node).size() == 0) {
+                    throw new IllegalArgumentException("No closed multi task chains placed on node \"" + node + "\".");
+                }
+                if (node != null) {
+                    LOGGER.info("Config " + rootConfigNo + "/" + rootConfigs.length + ": Running as node \"" + node + "\".");
                 }
             }
 
-            for (String cmtName : factory.getClosedMultiTaskChainNamesList()) {
+            for (String cmtName : factory.getClosedMultiTaskChainNamesList(node)) {
                 synchronized (SHUTDOWN_HOOK_LOCK){
                     if(m_shutdownHookEntered){
                         LOGGER.severe("Aborting due to premature shutdown hook execution.");
@@ -261,6 +304,9 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
             ExecutorService executorService = CLOSED_MULTI_TASK_CHAIN_LIST.iterator().next().getExecutorService();
             assert (executorService != null);
 
+            if (this.m_metricsReporter != null) {
+                this.m_metricsReporter.start();
+            }
             LOGGER.info("Config "+rootConfigNo+"/"+rootConfigs.length+": Starting all closed multi task chains.");
             for (ClosedMultiTaskChain cmt : CLOSED_MULTI_TASK_CHAIN_LIST) {
                 assert (cmt.getExecutorService() == executorService);
@@ -270,9 +316,7 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                         return;
                     } else {
                         executorService.submit(cmt);
-                        while (cmt.isNotStarted()) {
-                            Thread.yield();
-                        }
+                        cmt.started().join();
                     }
                 }
             }
@@ -329,9 +373,7 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                         catch (NotStartedException e){
                             throw new IllegalStateException(e);
                         }
-                        while (!cmt.isTerminated()) {
-                            Thread.yield();
-                        }
+                        cmt.terminated().join();
                     }
                 }
             }
@@ -341,6 +383,12 @@ public class JSONClosedMultiTaskDriver extends AbstractDriver<String> {
                     return;
                 } else {
                     executorService.shutdown();
+                    if (this.m_metricsReporter != null) {
+                        this.m_metricsReporter.stop();
+                        this.m_metricsReporter = null;
+                    }
+                    MetricsRegistry.clear();
+                    LatencyTracing.clear();
                     LOGGER.info("Config " + rootConfigNo + "/" + rootConfigs.length + ": All closed multi task chains terminated and executor service is shutdown.");
                     CLOSED_MULTI_TASK_CHAIN_LIST.clear();
 
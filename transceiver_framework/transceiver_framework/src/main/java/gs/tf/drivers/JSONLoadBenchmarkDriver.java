@@ -0,0 +1,345 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.drivers;
+
+import com.sun.management.OperatingSystemMXBean;
+import gs.tf.core.ClosedMultiTaskChain;
+import gs.tf.core.NotStartedException;
+import gs.tf.factories.JSONFactory;
+import gs.tf.load.LoadGeneration;
+import gs.tf.load.LoadMeasurement;
+import gs.tf.metrics.LatencyHistogram;
+import gs.utils.drivers.AbstractDriver;
+import gs.utils.json.JSONTypedArray;
+import gs.utils.json.JSONTypedObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Determines the max. sustainable throughput of arbitrary transceiver structure JSON topologies (scenarios) containing
+// at least one load generator (gs.tf.load.LoadGenerator*TransmitterTask) and one measuring sink
+// (gs.tf.load.Measuring*ReceiverTask). The offered load starts at "initial_rate" (elements per second over all load
+// generators) and is multiplied by "rate_factor" after each sustainable step until a step is not sustainable (or
+// "max_steps" is reached). The rate between the last sustainable and the first unsustainable step is then refined
+// via "refinement_steps" (optional, default: 3) bisection steps.
+// Each step runs at its offered rate for "warmup_duration" ms and is then measured for "step_duration" ms. A step is
+// sustainable if the sinks received at least "min_throughput_ratio" times the offered rate and (optional)
+// the 99th latency percentile does not exceed "max_latency_p99" ms. Before each step, in-flight elements are drained.
+// Latencies are measured from the time an element was due at its load generator until its arrival at a sink.
+// Scenarios may set system properties (e.g., read by the topology via Integer.getInteger(...) for its number of
+// replicas), which are restored afterwards. The JSON report (see "report_file") lists all steps per scenario.
+// Usage (no ManualResetLogManager required):
+//   java -cp <jar> gs.utils.mains.GenericMain <load benchmark config json> gs.tf.drivers.JSONLoadBenchmarkDriver
+// See './examples/transceiver_framework/muxdemux_load/load_benchmark_config.json' for an example config.
+public class JSONLoadBenchmarkDriver extends AbstractDriver<String> {
+
+    private static final Logger LOGGER = Logger.getLogger(JSONLoadBenchmarkDriver.class.getName());
+
+    private static final long DRAIN_POLL_INTERVAL = 100;
+    private static final long MAX_DRAIN_DURATION = 60000;
+
+    private volatile JSONTypedObject m_config;
+
+    @Override
+    protected void initialize2(String jsonPath) {
+        if(jsonPath == null){
+            throw new NullPointerException("Missing load benchmark config json file path argument.");
+        }
+
+        byte[] readAllBytes;
+        try {
+            readAllBytes = java.nio.file.Files.readAllBytes(Paths.get(jsonPath));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        this.m_config = new JSONTypedObject(new String(readAllBytes));
+    }
+
+    private static class StepResult {
+        private final double m_offeredRate;
+        private final double m_achievedRate;
+        private final long m_numReceived;
+        private final LatencyHistogram m_latencyNanos;
+        // NaN if not available
+        private final double m_cpuNanosPerElement;
+        private final boolean m_sustainable;
+
+        private StepResult(double offeredRate, double achievedRate, long numReceived, LatencyHistogram latencyNanos,
+                           double cpuNanosPerElement, boolean sustainable){
+            this.m_offeredRate = offeredRate;
+            this.m_achievedRate = achievedRate;
+            this.m_numReceived = numReceived;
+            this.m_latencyNanos = latencyNanos;
+            this.m_cpuNanosPerElement = cpuNanosPerElement;
+            this.m_sustainable = sustainable;
+        }
+
+        private String toJSON(){
+            return String.format(Locale.ROOT, "{\"offered_per_s\":%.1f,\"achieved_per_s\":%.1f,\"received\":%d," +
+                            "\"latency_ms_mean\":%.3f,\"latency_ms_p50\":%.3f,\"latency_ms_p90\":%.3f,\"latency_ms_p99\":%.3f," +
+                            "\"latency_ms_p999\":%.3f,\"latency_ms_max\":%.3f,\"cpu_ns_per_element\":%s,\"sustainable\":%b}",
+                    this.m_offeredRate, this.m_achievedRate, this.m_numReceived,
+                    this.m_latencyNanos.getMean() / 1e6,
+                    this.m_latencyNanos.getValueAtPercentile(50) / 1e6,
+                    this.m_latencyNanos.getValueAtPercentile(90) / 1e6,
+                    this.m_latencyNanos.getValueAtPercentile(99) / 1e6,
+                    this.m_latencyNanos.getValueAtPercentile(99.9) / 1e6,
+                    this.m_latencyNanos.getMax() / 1e6,
+                    Double.isNaN(this.m_cpuNanosPerElement) ? "null" : String.format(Locale.ROOT, "%.1f", this.m_cpuNanosPerElement),
+                    this.m_sustainable);
+        }
+    }
+
+    @Override
+    protected void execute2() {
+        JSONTypedObject config = this.m_config;
+
+        JSONTypedArray scenarios = config.getJSONTypedArray("scenarios");
+        double initialRate = config.getDouble("initial_rate");
+        double rateFactor = config.getDouble("rate_factor");
+        int maxSteps = config.getInt("max_steps");
+        int refinementSteps = config.containsKey("refinement_steps") ? config.getInt("refinement_steps") : 3;
+        long warmupDuration = config.getLong("warmup_duration");
+        long stepDuration = config.getLong("step_duration");
+        double minThroughputRatio = config.getDouble("min_throughput_ratio");
+        // Optional, null: No latency bound
+        Double maxLatencyP99 = config.containsKey("max_latency_p99") ? config.getDouble("max_latency_p99") : null;
+        String reportFile = config.getString("report_file");
+
+        if(scenarios.length() == 0 || initialRate <= 0 || rateFactor <= 1 || maxSteps < 1 || refinementSteps < 0 ||
+                warmupDuration < 0 || stepDuration < 1 || minThroughputRatio <= 0 || minThroughputRatio > 1 ||
+                (maxLatencyP99 != null && maxLatencyP99 <= 0)){
+            throw new IllegalArgumentException("Invalid load benchmark config.");
+        }
+
+        File directory = new File(Paths.get(reportFile).toAbsolutePath().getParent().toString());
+        if(!directory.exists() && !directory.mkdirs()){
+            throw new RuntimeException(new IOException("Could not create directories: " + directory));
+        }
+
+        StringBuilder report = new StringBuilder("{\"scenarios\":[");
+        for(int i = 0; i < scenarios.length(); i++){
+            JSONTypedObject scenario = scenarios.getJSONTypedObject(i);
+            String name = scenario.getString("name");
+            List<StepResult> steps = this.executeScenario(scenario, initialRate, rateFactor, maxSteps, refinementSteps,
+                    warmupDuration, stepDuration, minThroughputRatio, maxLatencyP99);
+
+            StepResult best = null;
+            for(StepResult step : steps){
+                if(step.m_sustainable && (best == null || step.m_achievedRate > best.m_achievedRate)){
+                    best = step;
+                }
+            }
+            LOGGER.info("Scenario " + name + ": Max. sustainable throughput: " +
+                    (best == null ? "none" : String.format(Locale.ROOT, "%.1f elements/s", best.m_achievedRate)));
+
+            if(i > 0){
+                report.append(',');
+            }
+            report.append(String.format(Locale.ROOT, "{\"name\":\"%s\",\"max_sustainable_throughput_per_s\":%.1f," +
+                            "\"max_sustainable_offered_per_s\":%.1f,\"steps\":[",
+                    name.replace("\\", "\\\\").replace("\"", "\\\""),
+                    best == null ? 0.0 : best.m_achievedRate, best == null ? 0.0 : best.m_offeredRate));
+            for(int j = 0; j < steps.size(); j++){
+                if(j > 0){
+                    report.append(',');
+                }
+                report.append(steps.get(j).toJSON());
+            }
+            report.append("]}");
+        }
+        report.append("]}");
+
+        try(BufferedWriter reportWriter = new BufferedWriter(new FileWriter(reportFile, false))) {
+            reportWriter.write(report.toString());
+            reportWriter.newLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Error during writing of load benchmark report.", e);
+        }
+    }
+
+    private List<StepResult> executeScenario(JSONTypedObject scenario,
+                                             double initialRate,
+                                             double rateFactor,
+                                             int maxSteps,
+                                             int refinementSteps,
+                                             long warmupDuration,
+                                             long stepDuration,
+                                             double minThroughputRatio,
+                                             Double maxLatencyP99){
+        String name = scenario.getString("name");
+        String transceiverStructureJSON = scenario.getString("transceiver_structure_json");
+
+        // Previous values (null: not set)
+        Map<String, String> previousProperties = new HashMap<>();
+        if(scenario.containsKey("system_properties")){
+            JSONTypedObject properties = scenario.getJSONTypedObject("system_properties");
+            for(String key : properties.keySet()){
+                previousProperties.put(key, System.setProperty(key, properties.getString(key)));
+            }
+        }
+
+        LoadGeneration.clear();
+        List<ClosedMultiTaskChain> chains = new ArrayList<>();
+        try {
+            JSONFactory factory;
+            try {
+                factory = new JSONFactory(transceiverStructureJSON);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            for(String cmtName : factory.getClosedMultiTaskChainNamesList()){
+                chains.add(factory.createClosedMultiTaskChain(cmtName));
+            }
+            if(chains.isEmpty() || LoadGeneration.getNumGenerators() == 0 || LoadGeneration.getRegisteredMeasurements().isEmpty()){
+                throw new IllegalArgumentException("Scenario " + name + " requires at least one closed multi task chain, " +
+                        "load generator and measuring sink.");
+            }
+
+            ExecutorService executorService = chains.get(0).getExecutorService();
+            for(ClosedMultiTaskChain cmt : chains){
+                executorService.submit(cmt);
+            }
+            for(ClosedMultiTaskChain cmt : chains){
+                cmt.started().join();
+            }
+            LOGGER.info("Scenario " + name + ": All closed multi task chains started (" +
+                    LoadGeneration.getNumGenerators() + " load generators, " +
+                    LoadGeneration.getRegisteredMeasurements().size() + " measuring sinks).");
+
+            List<StepResult> steps = new ArrayList<>();
+            try {
+                double lowRate = 0;
+                Double highRate = null;
+                double rate = initialRate;
+                for(int i = 0; i < maxSteps && highRate == null; i++){
+                    StepResult step = this.executeStep(name, rate, warmupDuration, stepDuration, minThroughputRatio, maxLatencyP99);
+                    steps.add(step);
+                    if(step.m_sustainable){
+                        lowRate = rate;
+                        rate *= rateFactor;
+                    }
+                    else{
+                        highRate = rate;
+                    }
+                }
+                for(int i = 0; i < refinementSteps && highRate != null; i++){
+                    rate = (lowRate + highRate) / 2;
+                    StepResult step = this.executeStep(name, rate, warmupDuration, stepDuration, minThroughputRatio, maxLatencyP99);
+                    steps.add(step);
+                    if(step.m_sustainable){
+                        lowRate = rate;
+                    }
+                    else{
+                        highRate = rate;
+                    }
+                }
+            } finally {
+                LoadGeneration.setOfferedRate(0);
+                for(ClosedMultiTaskChain cmt : chains){
+                    try {
+                        cmt.terminate(false);
+                    } catch (NotStartedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    cmt.terminated().join();
+                }
+                executorService.shutdown();
+            }
+            return steps;
+        } finally {
+            LoadGeneration.clear();
+            for(Map.Entry<String, String> entry : previousProperties.entrySet()){
+                if(entry.getValue() == null){
+                    System.clearProperty(entry.getKey());
+                }
+                else{
+                    System.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private StepResult executeStep(String scenarioName,
+                                   double offeredRate,
+                                   long warmupDuration,
+                                   long stepDuration,
+                                   double minThroughputRatio,
+                                   Double maxLatencyP99){
+        List<LoadMeasurement> measurements = LoadGeneration.getRegisteredMeasurements();
+        try {
+            this.drain();
+
+            LoadGeneration.setOfferedRate(offeredRate);
+            Thread.sleep(warmupDuration);
+            for(LoadMeasurement measurement : measurements){
+                measurement.swapLatencyHistogram();
+            }
+            long startReceived = LoadGeneration.getNumReceived();
+            long startCpuNanos = getProcessCpuNanos();
+            long startNanos = System.nanoTime();
+
+            Thread.sleep(stepDuration);
+
+            LatencyHistogram latencyNanos = new LatencyHistogram();
+            for(LoadMeasurement measurement : measurements){
+                latencyNanos.add(measurement.swapLatencyHistogram());
+            }
+            long numReceived = LoadGeneration.getNumReceived() - startReceived;
+            long cpuNanos = getProcessCpuNanos() - startCpuNanos;
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            double achievedRate = numReceived * 1e9 / elapsedNanos;
+            double cpuNanosPerElement = startCpuNanos < 0 || numReceived == 0 ? Double.NaN : (double) cpuNanos / numReceived;
+            boolean sustainable = achievedRate >= minThroughputRatio * offeredRate &&
+                    (maxLatencyP99 == null || latencyNanos.getValueAtPercentile(99) <= maxLatencyP99 * 1e6);
+            StepResult result = new StepResult(offeredRate, achievedRate, numReceived, latencyNanos, cpuNanosPerElement, sustainable);
+            LOGGER.info("Scenario " + scenarioName + ": " + result.toJSON());
+            return result;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Stops the load and waits until the sinks do not receive further elements
+    private void drain() throws InterruptedException {
+        LoadGeneration.setOfferedRate(0);
+        long numReceived = LoadGeneration.getNumReceived();
+        for(long drainedFor = 0; drainedFor < MAX_DRAIN_DURATION; drainedFor += DRAIN_POLL_INTERVAL){
+            Thread.sleep(DRAIN_POLL_INTERVAL);
+            long currentNumReceived = LoadGeneration.getNumReceived();
+            if(currentNumReceived == numReceived){
+                return;
+            }
+            numReceived = currentNumReceived;
+        }
+        LOGGER.warning("In-flight elements not drained within " + TimeUnit.MILLISECONDS.toSeconds(MAX_DRAIN_DURATION) + " s.");
+    }
+
+    // Includes GC and compiler threads, -1 if not supported by the JVM
+    private static long getProcessCpuNanos(){
+        Object operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+        if(operatingSystemMXBean instanceof OperatingSystemMXBean){
+            return ((OperatingSystemMXBean) operatingSystemMXBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
@@ -25,6 +25,8 @@ public class JSONFactory extends AbstractFactory<String, JSONTypedObject> {
     private JSONTypedObject m_concurrentTasks;
     private JSONTypedObject m_multiTasks;
     private JSONTypedObject m_closedMultiTaskChains;
+    // Null if no "nodes" object is present (i.e., if all closed multi task chains run in the same JVM)
+    private JSONTypedObject m_nodes;
 
     private Map<String, JSONTypedObject> m_namesToJSONTypedObjectMap;
 
@@ -136,6 +138,23 @@ public class JSONFactory extends AbstractFactory<String, JSONTypedObject> {
                             }
                             break;
                         }
+                        case "node_host": {
+                            this.getNodeConfig(arg.getString("value"));
+                            continue;
+                        }
+                        case "node_port": {
+                            tempObj = this.getNodeConfig(arg.getString("value")).get("port");
+                            if(!(tempObj instanceof String)){
+                                continue;
+                            }
+                            reference = (String) tempObj;
+                            if(!keys.contains(reference)){
+                                throw new JSONException("Unknown reference name encountered: "+reference);
+                            }
+                            dependencyList = new LinkedList<>();
+                            dependencyList.add(reference);
+                            break;
+                        }
                         case "reference_map": {
                             dependencySet = new HashSet<>();
                             dependencyList = new LinkedList<>();
@@ -204,6 +223,33 @@ public class JSONFactory extends AbstractFactory<String, JSONTypedObject> {
         if(this.m_closedMultiTaskChains.keySet().size() < 1){
             throw new JSONException("At least one key-value pair expected in \"closed_multi_task_chain\" object.");
         }
+
+        // Optional: {"<node name>": {"host": <host name>, "port": <port or name of an Integer object>}, ...}
+        // If present, each closed multi task chain must be placed on one of the nodes via its "node" field.
+        this.m_nodes = result.containsKey("nodes") ? result.getJSONTypedObject("nodes") : null;
+        if(this.m_nodes != null){
+            if(this.m_nodes.keySet().size() < 1){
+                throw new JSONException("At least one key-value pair expected in \"nodes\" object.");
+            }
+            for(String node : this.m_nodes.keySet()){
+                JSONTypedObject nodeConfig = this.m_nodes.getJSONTypedObject(node);
+                nodeConfig.getString("host");
+                if(!(nodeConfig.get("port") instanceof String)){
+                    nodeConfig.getInt("port");
+                }
+            }
+        }
+        for(String key : this.m_closedMultiTaskChains.keySet()){
+            JSONTypedObject chainConfig = this.m_closedMultiTaskChains.getJSONTypedObject(key);
+            if(this.m_nodes == null){
+                if(chainConfig.containsKey("node")){
+                    throw new JSONException("Closed multi task chain \"" + key + "\" placed on a node, but no \"nodes\" object present.");
+                }
+            }
+            else if(!chainConfig.containsKey("node") || !this.m_nodes.containsKey(chainConfig.getString("node"))){
+                throw new JSONException("Closed multi task chain \"" + key + "\" is not placed on a known node.");
+            }
+        }
         Set<String> keySet = new HashSet<>();
         keySet.addAll(this.m_otherObjects.keySet());
         keySet.addAll(this.m_concurrentTasks.keySet());
@@ -402,6 +448,20 @@ public class JSONFactory extends AbstractFactory<String, JSONTypedObject> {
                         result[argNo] = this.getArgObject(referenceName, argClass);
                         break;
                     }
+                    case "node_host": {
+                        result[argNo] = this.getNodeConfig(arg.getString("value")).getString("host");
+                        break;
+                    }
+                    case "node_port": {
+                        JSONTypedObject nodeConfig = this.getNodeConfig(arg.getString("value"));
+                        if(nodeConfig.get("port") instanceof String){
+                            result[argNo] = this.getArgObject(nodeConfig.getString("port"), Integer.class);
+                        }
+                        else {
+                            result[argNo] = nodeConfig.getInt("port");
+                        }
+                        break;
+                    }
                     case "reference_obj_array" : {
                         asObjArray = true;
                     }
@@ -494,6 +554,41 @@ public class JSONFactory extends AbstractFactory<String, JSONTypedObject> {
         }
     }
 
+    private JSONTypedObject getNodeConfig(String node){
+        if(this.m_nodes == null || !this.m_nodes.containsKey(node)){
+            throw new JSONException("Unknown node name: " + node);
+        }
+        return this.m_nodes.getJSONTypedObject(node);
+    }
+
+    // Empty if no "nodes" object is present
+    public Set<String> getNodeNames(){
+        return this.m_nodes == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(new TreeSet<>(this.m_nodes.keySet()));
+    }
+
+    // Null if no "nodes" object is present
+    public String getNodeOf(String closedMultiTaskChainName){
+        if(!this.m_closedMultiTaskChains.containsKey(closedMultiTaskChainName)){
+            throw new JSONException("Unknown closed multi task chain: " + closedMultiTaskChainName);
+        }
+        return this.m_nodes == null ? null : this.m_closedMultiTaskChains.getJSONTypedObject(closedMultiTaskChainName).getString("node");
+    }
+
+    // Names (in the order of getClosedMultiTaskChainNamesList()) of the closed multi task chains placed on the
+    // provided node (null: all chains, e.g., in order to run all nodes in the same JVM).
+    public List<String> getClosedMultiTaskChainNamesList(String node){
+        if(node != null && (this.m_nodes == null || !this.m_nodes.containsKey(node))){
+            throw new JSONException("Unknown node name: " + node);
+        }
+        List<String> result = new ArrayList<>();
+        for(String name : this.getClosedMultiTaskChainNamesList()){
+            if(node == null || node.equals(this.getNodeOf(name))){
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
     private Object getArgObject(String reference_name, Class<?> expectedClass){
         if(reference_name == null || expectedClass == null){
             throw new NullPointerException();
@@ -8,10 +8,26 @@
  
 package gs.tf.factories;
 
+import gs.tf.core.AbstractReceiverTask;
+import gs.tf.core.AbstractTransceiverTask;
+import gs.tf.core.AbstractTransmitterTask;
+import gs.tf.core.ConcurrentTask;
+import gs.tf.core.GenericBroadcastMultiTransceiverTask;
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+import gs.tf.core.GenericMultiTransceiverTask;
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.GenericSyncMuxMultiReceiverTask;
+import gs.tf.core.IdleStrategy;
+import gs.tf.core.Partitioner;
+import gs.utils.queues.BlockingQueues;
+import gs.utils.queues.SpillingBlockingQueue;
+import gs.utils.serialization.ElementSerializer;
+
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -55,4 +71,161 @@ public class StaticFactoryUtils {
             throw new RuntimeException("Could not parse first line as integer.", e);
         }
     }
+
+    // Sets the idle strategy of the provided (not yet started) task and returns the task.
+    // If task is a MultiTask or MultiTaskChain, the strategy is passed on to all managed tasks
+    // which have no explicitly set idle strategy.
+    public static <T extends ConcurrentTask> T withIdleStrategy(T task, IdleStrategy idleStrategy){
+        if(task == null || idleStrategy == null){
+            throw new NullPointerException();
+        }
+        task.setIdleStrategy(idleStrategy);
+        return task;
+    }
+
+    // Sets the type of the internal data queues of the provided (not yet started) task and returns the task.
+    // If task is a MultiTask or MultiTaskChain, the queue type is passed on to all managed tasks
+    // which have no explicitly set queue type.
+    public static <T extends ConcurrentTask> T withQueueType(T task, BlockingQueues.QueueType queueType){
+        if(task == null || queueType == null){
+            throw new NullPointerException();
+        }
+        task.setQueueType(queueType);
+        return task;
+    }
+
+    // Enables/disables credit based flow control for the provided (not yet started) task and returns the task.
+    // If task is a MultiTask or MultiTaskChain, the setting is passed on to all managed tasks
+    // for which it has not been set explicitly.
+    public static <T extends ConcurrentTask> T withCreditBasedFlowControl(T task, boolean creditBasedFlowControl){
+        if(task == null){
+            throw new NullPointerException();
+        }
+        task.setCreditBasedFlowControl(creditBasedFlowControl);
+        return task;
+    }
+
+    // Sets the max number of elements processed at once by the provided (not yet started) receiver and returns it.
+    public static <T extends AbstractReceiverTask<?>> T withMaxBatchSize(T receiverTask, int maxBatchSize){
+        if(receiverTask == null){
+            throw new NullPointerException();
+        }
+        receiverTask.setMaxBatchSize(maxBatchSize);
+        return receiverTask;
+    }
+
+    // Sets the max number of elements processed at once by the provided (not yet started) transceiver and returns it.
+    public static <T extends AbstractTransceiverTask<?, ?>> T withMaxBatchSize(T transceiverTask, int maxBatchSize){
+        if(transceiverTask == null){
+            throw new NullPointerException();
+        }
+        transceiverTask.setMaxBatchSize(maxBatchSize);
+        return transceiverTask;
+    }
+
+    // Enables spilling of the input data queue of the provided (not yet started) receiver to the provided directory and
+    // returns the receiver (see AbstractReceiverTask.setSpilling(...)). If segmentSize is null,
+    // SpillingBlockingQueue.DEFAULT_SEGMENT_SIZE is used. If maxSpillBytes is null, the spilled data is only limited by
+    // the available disk space.
+    public static <D, T extends AbstractReceiverTask<D>> T withSpilling(T receiverTask, ElementSerializer<D> serializer,
+                                                                        String spillDirectory, Integer segmentSize, Long maxSpillBytes){
+        if(receiverTask == null || serializer == null || spillDirectory == null){
+            throw new NullPointerException();
+        }
+        receiverTask.setSpilling(serializer, Paths.get(spillDirectory),
+                segmentSize == null ? SpillingBlockingQueue.DEFAULT_SEGMENT_SIZE : segmentSize,
+                maxSpillBytes == null ? Long.MAX_VALUE : maxSpillBytes);
+        return receiverTask;
+    }
+
+    // See withSpilling(AbstractReceiverTask, ...)
+    public static <D, T extends AbstractTransceiverTask<D, ?>> T withSpilling(T transceiverTask, ElementSerializer<D> serializer,
+                                                                              String spillDirectory, Integer segmentSize, Long maxSpillBytes){
+        if(transceiverTask == null || serializer == null || spillDirectory == null){
+            throw new NullPointerException();
+        }
+        transceiverTask.setSpilling(serializer, Paths.get(spillDirectory),
+                segmentSize == null ? SpillingBlockingQueue.DEFAULT_SEGMENT_SIZE : segmentSize,
+                maxSpillBytes == null ? Long.MAX_VALUE : maxSpillBytes);
+        return transceiverTask;
+    }
+
+    // Allows or denies using the provided (not yet started) transceiver as stage of a FusedTransceiverTask and returns it.
+    public static <T extends AbstractTransceiverTask<?, ?>> T withFusionAllowed(T transceiverTask, boolean fusionAllowed){
+        if(transceiverTask == null){
+            throw new NullPointerException();
+        }
+        transceiverTask.setFusionAllowed(fusionAllowed);
+        return transceiverTask;
+    }
+
+    // Sets the order in which the provided (not yet started) mux visits its mux receivers and returns the mux.
+    public static <T extends GenericMuxMultiReceiverTask<?>> T withMuxSchedulingPolicy(T muxTask,
+                                                                                     GenericMuxMultiReceiverTask.SchedulingPolicy schedulingPolicy){
+        if(muxTask == null || schedulingPolicy == null){
+            throw new NullPointerException();
+        }
+        muxTask.setSchedulingPolicy(schedulingPolicy);
+        return muxTask;
+    }
+
+    // Sets the per mux receiver weights of the provided (not yet started) mux and returns the mux.
+    public static <T extends GenericMuxMultiReceiverTask<?>> T withMuxInputWeights(T muxTask, List<Integer> inputWeights){
+        if(muxTask == null || inputWeights == null){
+            throw new NullPointerException();
+        }
+        int[] weights = new int[inputWeights.size()];
+        for(int i = 0; i < weights.length; i++){
+            weights[i] = inputWeights.get(i);
+        }
+        muxTask.setInputWeights(weights);
+        return muxTask;
+    }
+
+    // Sets the max. out-of-orderness of the provided (not yet started) sync mux and returns the sync mux.
+    public static <T extends GenericSyncMuxMultiReceiverTask<?>> T withMaxOutOfOrderness(T syncMuxTask, int maxOutOfOrderness){
+        if(syncMuxTask == null){
+            throw new NullPointerException();
+        }
+        syncMuxTask.setMaxOutOfOrderness(maxOutOfOrderness);
+        return syncMuxTask;
+    }
+
+    // Sets the watermark interval (ms, null: no watermarks) of the provided (not yet started) transmitter and returns the transmitter.
+    public static <T extends AbstractTransmitterTask<?>> T withWatermarkInterval(T transmitterTask, Long watermarkInterval){
+        if(transmitterTask == null){
+            throw new NullPointerException();
+        }
+        transmitterTask.setWatermarkInterval(watermarkInterval);
+        return transmitterTask;
+    }
+
+    // Sets the partitioner (null: round robin per data chunk) of the provided (not yet started) demux source and returns the source.
+    public static <D, T extends GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask<D>> T withPartitioner(T sourceTask,
+                                                                                                                  Partitioner<? super D> partitioner){
+        if(sourceTask == null){
+            throw new NullPointerException();
+        }
+        sourceTask.setPartitioner(partitioner);
+        return sourceTask;
+    }
+
+    // Sets whether the provided (not yet started) broadcast detaches slow outputs and returns the broadcast.
+    public static <T extends GenericBroadcastMultiTransceiverTask<?>> T withDetachSlowOutputs(T broadcastTask, boolean detachSlowOutputs){
+        if(broadcastTask == null){
+            throw new NullPointerException();
+        }
+        broadcastTask.setDetachSlowOutputs(detachSlowOutputs);
+        return broadcastTask;
+    }
+
+    // Enables/disables work stealing between the internal transceivers of the provided (not yet started) multi transceiver
+    // and returns the multi transceiver.
+    public static <T extends GenericMultiTransceiverTask<?, ?, ?>> T withWorkStealing(T multiTransceiverTask, boolean workStealing){
+        if(multiTransceiverTask == null){
+            throw new NullPointerException();
+        }
+        multiTransceiverTask.setWorkStealing(workStealing);
+        return multiTransceiverTask;
+    }
 }
@@ -0,0 +1,21 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+@Category({"Transceiver Framework"})
+abstract class AbstractTaskEvent extends jdk.jfr.Event {
+    @Label("Task Class")
+    Class<?> taskClass;
+
+    @Label("Task ID")
+    long taskID;
+}
@@ -0,0 +1,27 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One event per forwarded chunk: Disabled by default, enable via a custom .jfc file or
+// -XX:StartFlightRecording:...,settings=<file> with "gs.tf.ChunkForward#enabled=true"
+@Name("gs.tf.ChunkForward")
+@Label("Chunk Forward")
+@Description("A transmitter has forwarded a data chunk to its receiver.")
+@Enabled(false)
+@StackTrace(false)
+final class ChunkForwardEvent extends AbstractTaskEvent {
+    @Label("Chunk Size")
+    int chunkSize;
+}
@@ -0,0 +1,26 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gs.tf.Discard")
+@Label("Discard")
+@Description("Elements have been discarded (timeout, late arrival or interrupt-termination).")
+@StackTrace(false)
+final class DiscardEvent extends AbstractTaskEvent {
+    @Label("Discarded Elements")
+    long numElements;
+
+    @Label("Reason")
+    String reason;
+}
@@ -0,0 +1,100 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+// The only class (apart from the event classes) referencing jdk.jfr: Only loaded if FlightRecording.isAvailable().
+// Events are only allocated and populated if enabled in the current recording(s).
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents(){}
+
+    static void taskStarted(Class<?> taskClass, long taskID){
+        TaskStartEvent event = new TaskStartEvent();
+        if(event.isEnabled()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.commit();
+        }
+    }
+
+    static void taskTerminated(Class<?> taskClass, long taskID, boolean withInterrupt, long runNanos, long numDiscarded){
+        TaskTerminateEvent event = new TaskTerminateEvent();
+        if(event.isEnabled()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.withInterrupt = withInterrupt;
+            event.runNanos = runNanos;
+            event.numDiscarded = numDiscarded;
+            event.commit();
+        }
+    }
+
+    static Object beginQueueStall(){
+        QueueStallEvent event = new QueueStallEvent();
+        if(!event.isEnabled()){
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endQueueStall(Object stall, Class<?> taskClass, long taskID, int numElements, boolean timeout){
+        QueueStallEvent event = (QueueStallEvent) stall;
+        event.end();
+        if(event.shouldCommit()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.numElements = numElements;
+            event.timeout = timeout;
+            event.commit();
+        }
+    }
+
+    static void discarded(Class<?> taskClass, long taskID, long numElements, String reason){
+        DiscardEvent event = new DiscardEvent();
+        if(event.isEnabled()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.numElements = numElements;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+    static void chunkForwarded(Class<?> taskClass, long taskID, int chunkSize){
+        ChunkForwardEvent event = new ChunkForwardEvent();
+        if(event.isEnabled()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.chunkSize = chunkSize;
+            event.commit();
+        }
+    }
+
+    static Object beginSyncMuxWait(){
+        SyncMuxWaitEvent event = new SyncMuxWaitEvent();
+        if(!event.isEnabled()){
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endSyncMuxWait(Object wait, Class<?> taskClass, long taskID, int numMissingInputs, boolean timeout){
+        SyncMuxWaitEvent event = (SyncMuxWaitEvent) wait;
+        event.end();
+        if(event.shouldCommit()){
+            event.taskClass = taskClass;
+            event.taskID = taskID;
+            event.numMissingInputs = numMissingInputs;
+            event.timeout = timeout;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+// Java Flight Recorder events emitted by the framework (category "Transceiver Framework"):
+// - gs.tf.TaskStart / gs.tf.TaskTerminate: Run thread enters/leaves a task.
+// - gs.tf.QueueStall: Enqueuing into a full receiver input queue blocked for at least 10 ms (default threshold).
+// - gs.tf.Discard: Discarded elements with count and reason.
+// - gs.tf.ChunkForward: Size of each forwarded chunk (high volume, disabled by default).
+// - gs.tf.SyncMuxWait: A sync mux waited at least 10 ms (default threshold) for missing inputs.
+// Events cost nothing beyond a (JIT-eliminated) allocation while no recording is active. On JVMs without
+// JFR (jdk.jfr), all methods are no-ops and the begin methods return null.
+public final class FlightRecording {
+
+    public static final String REASON_TIMEOUT = "timeout";
+    public static final String REASON_INTERRUPT = "interrupt-termination";
+    public static final String REASON_LATE = "late";
+    public static final String REASON_SYNC_MUX_TIMEOUT = "sync-mux-timeout";
+    // Remaining elements of an output whose managing transmitter has already terminated
+    public static final String REASON_OUTPUT_TERMINATED = "output-terminated";
+    // Elements sent to a remote transmitter which have not been acknowledged before closing the connection
+    public static final String REASON_UNACKNOWLEDGED = "unacknowledged";
+
+    private static final boolean AVAILABLE = isJFRPresent();
+
+    private FlightRecording(){}
+
+    private static boolean isJFRPresent(){
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecording.class.getClassLoader());
+            return true;
+        }
+        catch(ClassNotFoundException | LinkageError e){
+            return false;
+        }
+    }
+
+    public static boolean isAvailable(){
+        return AVAILABLE;
+    }
+
+    public static void taskStarted(Class<?> taskClass, long taskID){
+        if(AVAILABLE){
+            FlightRecorderEvents.taskStarted(taskClass, taskID);
+        }
+    }
+
+    public static void taskTerminated(Class<?> taskClass, long taskID, boolean withInterrupt, long runNanos, long numDiscarded){
+        if(AVAILABLE){
+            FlightRecorderEvents.taskTerminated(taskClass, taskID, withInterrupt, runNanos, numDiscarded);
+        }
+    }
+
+    // Returns the stall to be passed to endQueueStall(...) or null if the event is disabled.
+    public static Object beginQueueStall(){
+        return AVAILABLE ? FlightRecorderEvents.beginQueueStall() : null;
+    }
+
+    public static void endQueueStall(Object stall, Class<?> taskClass, long taskID, int numElements, boolean timeout){
+        if(stall != null){
+            FlightRecorderEvents.endQueueStall(stall, taskClass, taskID, numElements, timeout);
+        }
+    }
+
+    public static void discarded(Class<?> taskClass, long taskID, long numElements, String reason){
+        if(AVAILABLE){
+            FlightRecorderEvents.discarded(taskClass, taskID, numElements, reason);
+        }
+    }
+
+    public static void chunkForwarded(Class<?> taskClass, long taskID, int chunkSize){
+        if(AVAILABLE){
+            FlightRecorderEvents.chunkForwarded(taskClass, taskID, chunkSize);
+        }
+    }
+
+    // Returns the wait to be passed to endSyncMuxWait(...) or null if the event is disabled.
+    public static Object beginSyncMuxWait(){
+        return AVAILABLE ? FlightRecorderEvents.beginSyncMuxWait() : null;
+    }
+
+    public static void endSyncMuxWait(Object wait, Class<?> taskClass, long taskID, int numMissingInputs, boolean timeout){
+        if(wait != null){
+            FlightRecorderEvents.endSyncMuxWait(wait, taskClass, taskID, numMissingInputs, timeout);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// Recorded by the enqueuing (i.e., upstream) thread
+@Name("gs.tf.QueueStall")
+@Label("Queue Stall")
+@Description("Enqueuing into the input queue of a receiver blocked since the queue was full.")
+@Threshold("10 ms")
+final class QueueStallEvent extends AbstractTaskEvent {
+    @Label("Stalled Elements")
+    int numElements;
+
+    @Label("Timeout")
+    @Description("The stall ended with a timeout (the element has been discarded).")
+    boolean timeout;
+}
@@ -0,0 +1,30 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("gs.tf.SyncMuxWait")
+@Label("Sync Mux Wait")
+@Description("A sync mux could not emit its oldest buffered element since inputs without buffered element might still provide an older one.")
+@Threshold("10 ms")
+@StackTrace(false)
+final class SyncMuxWaitEvent extends AbstractTaskEvent {
+    @Label("Missing Inputs")
+    @Description("Number of inputs without buffered element when the wait began.")
+    int numMissingInputs;
+
+    @Label("Timeout")
+    @Description("The wait ended with the discard of the oldest buffered element.")
+    boolean timeout;
+}
@@ -0,0 +1,21 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gs.tf.TaskStart")
+@Label("Task Start")
+@Description("The run thread has entered a task.")
+@StackTrace(false)
+final class TaskStartEvent extends AbstractTaskEvent {
+}
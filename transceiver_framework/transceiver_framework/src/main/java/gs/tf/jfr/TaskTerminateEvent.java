@@ -0,0 +1,31 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("gs.tf.TaskTerminate")
+@Label("Task Terminate")
+@Description("The run thread is about to leave a terminated task.")
+@StackTrace(false)
+final class TaskTerminateEvent extends AbstractTaskEvent {
+    @Label("With Interrupt")
+    boolean withInterrupt;
+
+    @Label("Run Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long runNanos;
+
+    @Label("Discarded Elements")
+    long numDiscarded;
+}
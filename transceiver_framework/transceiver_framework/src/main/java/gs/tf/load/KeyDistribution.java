@@ -0,0 +1,109 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import java.util.Random;
+
+// Distribution of the keys of generated LoadElement instances over [0, numKeys)
+public enum KeyDistribution {
+    // Keys in cyclic order
+    ROUND_ROBIN,
+    UNIFORM,
+    // Zipf distribution with exponent 1 (key k has probability proportional to 1 / (k + 1))
+    ZIPF;
+
+    // Not thread safe
+    KeyGenerator createKeyGenerator(int numKeys, long seed){
+        if(numKeys <= 0){
+            throw new IllegalArgumentException("Number of keys must be positive.");
+        }
+        switch(this){
+            case ROUND_ROBIN:
+                return new RoundRobinKeyGenerator(numKeys);
+            case UNIFORM:
+                return new UniformKeyGenerator(numKeys, seed);
+            case ZIPF:
+                return new ZipfKeyGenerator(numKeys, seed);
+            default:
+                throw new IllegalStateException("Unknown key distribution: " + this);
+        }
+    }
+
+    interface KeyGenerator {
+        int nextKey();
+    }
+
+    private static final class RoundRobinKeyGenerator implements KeyGenerator {
+        private final int m_numKeys;
+        private int m_nextKey;
+
+        private RoundRobinKeyGenerator(int numKeys){
+            this.m_numKeys = numKeys;
+            this.m_nextKey = 0;
+        }
+
+        @Override
+        public int nextKey(){
+            int result = this.m_nextKey;
+            this.m_nextKey = result + 1 == this.m_numKeys ? 0 : result + 1;
+            return result;
+        }
+    }
+
+    private static final class UniformKeyGenerator implements KeyGenerator {
+        private final int m_numKeys;
+        private final Random m_rnd;
+
+        private UniformKeyGenerator(int numKeys, long seed){
+            this.m_numKeys = numKeys;
+            this.m_rnd = new Random(seed);
+        }
+
+        @Override
+        public int nextKey(){
+            return this.m_rnd.nextInt(this.m_numKeys);
+        }
+    }
+
+    // Inverse transform sampling via binary search over the precomputed cumulative distribution
+    private static final class ZipfKeyGenerator implements KeyGenerator {
+        private final double[] m_cumulativeProbabilities;
+        private final Random m_rnd;
+
+        private ZipfKeyGenerator(int numKeys, long seed){
+            this.m_cumulativeProbabilities = new double[numKeys];
+            double sum = 0;
+            for(int i = 0; i < numKeys; i++){
+                sum += 1.0 / (i + 1);
+                this.m_cumulativeProbabilities[i] = sum;
+            }
+            for(int i = 0; i < numKeys; i++){
+                this.m_cumulativeProbabilities[i] /= sum;
+            }
+            this.m_rnd = new Random(seed);
+        }
+
+        @Override
+        public int nextKey(){
+            double value = this.m_rnd.nextDouble();
+            int low = 0;
+            int high = this.m_cumulativeProbabilities.length - 1;
+            while(low < high){
+                int mid = (low + high) >>> 1;
+                if(this.m_cumulativeProbabilities[mid] <= value){
+                    low = mid + 1;
+                }
+                else{
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
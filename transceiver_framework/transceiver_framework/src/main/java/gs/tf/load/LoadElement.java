@@ -0,0 +1,51 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+// Synthetic data element created by load generators. Ordered by scheduled creation time (e.g., for synchronizing muxes).
+public final class LoadElement implements Comparable<LoadElement> {
+
+    private final int m_key;
+    private final byte[] m_payload;
+    // System.nanoTime() based: The time the element was due according to the offered rate (not the time it was
+    // actually created), i.e., delays of the load generator itself are part of the measured latency
+    private final long m_scheduledNanos;
+
+    public LoadElement(int key, byte[] payload, long scheduledNanos){
+        if(payload == null){
+            throw new NullPointerException();
+        }
+        this.m_key = key;
+        this.m_payload = payload;
+        this.m_scheduledNanos = scheduledNanos;
+    }
+
+    public int getKey(){
+        return this.m_key;
+    }
+
+    // Not copied
+    public byte[] getPayload(){
+        return this.m_payload;
+    }
+
+    public long getScheduledNanos(){
+        return this.m_scheduledNanos;
+    }
+
+    @Override
+    public int compareTo(LoadElement other){
+        return Long.compare(this.m_scheduledNanos, other.m_scheduledNanos);
+    }
+
+    @Override
+    public String toString(){
+        return "Key: " + this.m_key + ", payload size: " + this.m_payload.length;
+    }
+}
@@ -0,0 +1,126 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Process wide control of load generators and registry of measuring sinks (see JSONLoadBenchmarkDriver). Load
+// generators register upon construction and share the offered rate equally. The offered rate is 0 (i.e., no load)
+// until set otherwise.
+public final class LoadGeneration {
+
+    private static final Object REGISTRY_LOCK = new Object();
+    // Guarded by REGISTRY_LOCK
+    private static int m_numGenerators = 0;
+    private static final List<LoadMeasurement> MEASUREMENTS = new ArrayList<>();
+    private static double m_offeredRate = 0;
+
+    // Replaced (never modified) upon each rate change
+    private static volatile GeneratorRate m_generatorRate = new GeneratorRate(0, 0);
+
+    private LoadGeneration(){
+    }
+
+    // Rate of a single load generator. A new version restarts the pacing of all load generators.
+    static final class GeneratorRate {
+        private final double m_elementsPerSecond;
+        private final long m_version;
+
+        private GeneratorRate(double elementsPerSecond, long version){
+            this.m_elementsPerSecond = elementsPerSecond;
+            this.m_version = version;
+        }
+
+        double getElementsPerSecond(){
+            return this.m_elementsPerSecond;
+        }
+
+        long getVersion(){
+            return this.m_version;
+        }
+    }
+
+    static GeneratorRate getGeneratorRate(){
+        return m_generatorRate;
+    }
+
+    // Called by load generators upon construction
+    static void registerGenerator(){
+        synchronized (REGISTRY_LOCK){
+            m_numGenerators++;
+            updateGeneratorRate();
+        }
+    }
+
+    // Called by measuring sinks upon construction
+    static void register(LoadMeasurement measurement){
+        if(measurement == null){
+            throw new NullPointerException();
+        }
+        synchronized (REGISTRY_LOCK){
+            MEASUREMENTS.add(measurement);
+        }
+    }
+
+    // Sum over all load generators in elements per second. Takes effect immediately.
+    public static void setOfferedRate(double elementsPerSecond){
+        if(elementsPerSecond < 0 || Double.isNaN(elementsPerSecond) || Double.isInfinite(elementsPerSecond)){
+            throw new IllegalArgumentException();
+        }
+        synchronized (REGISTRY_LOCK){
+            m_offeredRate = elementsPerSecond;
+            updateGeneratorRate();
+        }
+    }
+
+    public static double getOfferedRate(){
+        synchronized (REGISTRY_LOCK){
+            return m_offeredRate;
+        }
+    }
+
+    // Guarded by REGISTRY_LOCK
+    private static void updateGeneratorRate(){
+        double generatorRate = m_numGenerators == 0 ? 0 : m_offeredRate / m_numGenerators;
+        m_generatorRate = new GeneratorRate(generatorRate, m_generatorRate.getVersion() + 1);
+    }
+
+    public static int getNumGenerators(){
+        synchronized (REGISTRY_LOCK){
+            return m_numGenerators;
+        }
+    }
+
+    // Snapshot in registration order
+    public static List<LoadMeasurement> getRegisteredMeasurements(){
+        synchronized (REGISTRY_LOCK){
+            return new ArrayList<>(MEASUREMENTS);
+        }
+    }
+
+    // Elements received by all registered sinks so far
+    public static long getNumReceived(){
+        long result = 0;
+        for(LoadMeasurement measurement : getRegisteredMeasurements()){
+            result += measurement.getNumReceived();
+        }
+        return result;
+    }
+
+    // Resets the offered rate to 0 and unregisters all load generators and sinks
+    public static void clear(){
+        synchronized (REGISTRY_LOCK){
+            m_numGenerators = 0;
+            MEASUREMENTS.clear();
+            m_offeredRate = 0;
+            updateGeneratorRate();
+        }
+    }
+}
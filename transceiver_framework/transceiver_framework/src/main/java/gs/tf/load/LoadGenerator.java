@@ -0,0 +1,71 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Paces and creates the elements of a single load generator task. Element i (counted from the last rate change) is
+// due at i / rate seconds after the rate change. Elements which are overdue (e.g., since forwarding blocked) are
+// created as soon as possible, i.e., the offered load does not adapt to the throughput of the receivers.
+// Not thread safe: Only used by the thread executing the owning task.
+final class LoadGenerator {
+
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+    private final int m_payloadSize;
+    private final KeyDistribution.KeyGenerator m_keyGenerator;
+
+    private long m_rateVersion;
+    private double m_nanosPerElement;
+    private long m_startNanos;
+    private long m_numCreated;
+
+    LoadGenerator(int payloadSize, KeyDistribution keyDistribution, int numKeys, long seed){
+        if(payloadSize < 0){
+            throw new IllegalArgumentException("Payload size must not be negative.");
+        }
+        this.m_payloadSize = payloadSize;
+        this.m_keyGenerator = keyDistribution.createKeyGenerator(numKeys, seed);
+        this.m_rateVersion = -1;
+        this.m_nanosPerElement = 0;
+        this.m_startNanos = 0;
+        this.m_numCreated = 0;
+        LoadGeneration.registerGenerator();
+    }
+
+    // Returns null if no element is due
+    List<LoadElement> createDueElements(int maxNumElements){
+        LoadGeneration.GeneratorRate rate = LoadGeneration.getGeneratorRate();
+        long now = System.nanoTime();
+        if(rate.getVersion() != this.m_rateVersion){
+            this.m_rateVersion = rate.getVersion();
+            this.m_nanosPerElement = rate.getElementsPerSecond() > 0 ? 1e9 / rate.getElementsPerSecond() : 0;
+            this.m_startNanos = now;
+            this.m_numCreated = 0;
+        }
+        if(this.m_nanosPerElement <= 0){
+            return null;
+        }
+
+        long numDue = (long) ((now - this.m_startNanos) / this.m_nanosPerElement) + 1 - this.m_numCreated;
+        if(numDue <= 0){
+            return null;
+        }
+        int numElements = (int) Math.min(numDue, maxNumElements);
+        List<LoadElement> result = new ArrayList<>(numElements);
+        for(int i = 0; i < numElements; i++){
+            long scheduledNanos = this.m_startNanos + (long) (this.m_numCreated * this.m_nanosPerElement);
+            byte[] payload = this.m_payloadSize == 0 ? EMPTY_PAYLOAD : new byte[this.m_payloadSize];
+            result.add(new LoadElement(this.m_keyGenerator.nextKey(), payload, scheduledNanos));
+            this.m_numCreated++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.core.GenericDemuxMultiTransmitterTask;
+
+import java.util.Collection;
+
+// Demux source variant of LoadGeneratorTransmitterTask: Due elements are distributed round robin per data chunk
+// (unless a partitioner is set)
+public class LoadGeneratorSourceTransmitterTask
+        extends GenericDemuxMultiTransmitterTask.AbstractSourceTransmitterTask<LoadElement> {
+
+    private final LoadGenerator m_loadGenerator;
+
+    public LoadGeneratorSourceTransmitterTask(int maxDataChunkSize,
+                                              int numDemuxTransmitters,
+                                              int payloadSize,
+                                              KeyDistribution keyDistribution,
+                                              int numKeys) {
+        super(maxDataChunkSize, numDemuxTransmitters);
+        this.m_loadGenerator = new LoadGenerator(payloadSize, keyDistribution, numKeys, this.getID());
+    }
+
+    @Override
+    protected Collection<LoadElement> getNextDataChunkForDemux(int demuxIndex) {
+        return this.m_loadGenerator.createDueElements(this.getMaxDataChunkSize());
+    }
+}
@@ -0,0 +1,32 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.core.AbstractTransmitterTask;
+
+import java.util.Collection;
+
+// Forwards LoadElement instances at its share of the offered rate (see LoadGeneration)
+public class LoadGeneratorTransmitterTask extends AbstractTransmitterTask<LoadElement> {
+
+    private final LoadGenerator m_loadGenerator;
+
+    public LoadGeneratorTransmitterTask(int maxDataChunkSize,
+                                        int payloadSize,
+                                        KeyDistribution keyDistribution,
+                                        int numKeys) {
+        super(maxDataChunkSize);
+        this.m_loadGenerator = new LoadGenerator(payloadSize, keyDistribution, numKeys, this.getID());
+    }
+
+    @Override
+    protected Collection<LoadElement> getNextDataChunk() {
+        return this.m_loadGenerator.createDueElements(this.getMaxDataChunkSize());
+    }
+}
@@ -0,0 +1,47 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Received elements and latencies (scheduled creation time of a LoadElement until its arrival) of a single sink.
+// Recording must only be done by the thread executing the sink, all other methods may be called from arbitrary threads.
+public final class LoadMeasurement {
+
+    // Written via lazySet by the recording thread only
+    private final AtomicLong m_numReceived;
+    private volatile LatencyHistogram m_latencyNanos;
+
+    LoadMeasurement(){
+        this.m_numReceived = new AtomicLong(0);
+        this.m_latencyNanos = new LatencyHistogram();
+    }
+
+    // Recording thread only. Elements other than LoadElement instances are counted without latency.
+    void record(Object element, long nowNanos){
+        if(element instanceof LoadElement){
+            this.m_latencyNanos.record(nowNanos - ((LoadElement) element).getScheduledNanos(), 1);
+        }
+        this.m_numReceived.lazySet(this.m_numReceived.get() + 1);
+    }
+
+    public long getNumReceived(){
+        return this.m_numReceived.get();
+    }
+
+    // Returns the latencies recorded since the previous call (or since creation). Latencies recorded concurrently to
+    // this call may end up in either histogram.
+    public LatencyHistogram swapLatencyHistogram(){
+        LatencyHistogram result = this.m_latencyNanos;
+        this.m_latencyNanos = new LatencyHistogram();
+        return result;
+    }
+}
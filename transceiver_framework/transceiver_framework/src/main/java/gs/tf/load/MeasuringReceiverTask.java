@@ -0,0 +1,43 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.core.AbstractReceiverTask;
+
+import java.util.List;
+
+// Sink recording the number and latency of received elements (see LoadMeasurement). Accepts elements of any type.
+public class MeasuringReceiverTask extends AbstractReceiverTask<Object> {
+
+    private final LoadMeasurement m_measurement;
+
+    public MeasuringReceiverTask(Integer inDataQueueCapacity, Long timeoutInterval) {
+        super(inDataQueueCapacity, timeoutInterval);
+        this.m_measurement = new LoadMeasurement();
+        LoadGeneration.register(this.m_measurement);
+    }
+
+    public final LoadMeasurement getMeasurement(){
+        return this.m_measurement;
+    }
+
+    @Override
+    protected void processDataElement(Object dataElement) {
+        this.m_measurement.record(dataElement, System.nanoTime());
+    }
+
+    // One clock read per chunk
+    @Override
+    protected void processDataChunk(List<Object> dataChunk) {
+        long now = System.nanoTime();
+        for(Object dataElement : dataChunk){
+            this.m_measurement.record(dataElement, now);
+        }
+    }
+}
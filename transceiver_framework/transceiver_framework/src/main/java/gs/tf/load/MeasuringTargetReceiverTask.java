@@ -0,0 +1,48 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.core.GenericMuxMultiReceiverTask;
+import gs.tf.core.RoutedChunk;
+
+import java.util.List;
+
+// Mux target variant of MeasuringReceiverTask
+public class MeasuringTargetReceiverTask extends GenericMuxMultiReceiverTask.AbstractTargetReceiverTask<Object> {
+
+    private final LoadMeasurement m_measurement;
+
+    public MeasuringTargetReceiverTask(Integer inDataQueueCapacity,
+                                       Long timeoutInterval,
+                                       int numMuxTransmitters) {
+        super(inDataQueueCapacity, timeoutInterval, numMuxTransmitters);
+        this.m_measurement = new LoadMeasurement();
+        LoadGeneration.register(this.m_measurement);
+    }
+
+    public final LoadMeasurement getMeasurement(){
+        return this.m_measurement;
+    }
+
+    @Override
+    protected void processDataElementFromMux(int muxIndex, Object dataElement) {
+        this.m_measurement.record(dataElement, System.nanoTime());
+    }
+
+    // One clock read per chunk
+    @Override
+    protected void processDataChunkFromMux(List<RoutedChunk<Object>> dataChunk) {
+        long now = System.nanoTime();
+        for(RoutedChunk<Object> routedChunk : dataChunk){
+            for(int i = 0; i < routedChunk.size(); i++){
+                this.m_measurement.record(routedChunk.get(i), now);
+            }
+        }
+    }
+}
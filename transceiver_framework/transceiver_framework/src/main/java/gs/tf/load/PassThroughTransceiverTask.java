@@ -0,0 +1,52 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.load;
+
+import gs.tf.core.AbstractTransceiverTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Forwards its input unchanged (e.g., as placeholder for the stages of a load benchmark topology or to measure the
+// framework's overhead per hop)
+public class PassThroughTransceiverTask<DATA_TYPE> extends AbstractTransceiverTask<DATA_TYPE, DATA_TYPE> {
+
+    // Thread safe since processDataElement(...) and getNextDataChunk() are executed by different threads
+    private final BlockingQueue<DATA_TYPE> m_buffer;
+
+    public PassThroughTransceiverTask(Integer inDataQueueCapacity,
+                                      Long timeoutInterval,
+                                      int maxDataChunkSize,
+                                      ExecutorService executorService) {
+        super(inDataQueueCapacity, timeoutInterval, maxDataChunkSize, executorService);
+        if(inDataQueueCapacity == null){
+            this.m_buffer = new LinkedBlockingQueue<>();
+        }
+        else{
+            this.m_buffer = new ArrayBlockingQueue<>(inDataQueueCapacity);
+        }
+    }
+
+    @Override
+    protected void processDataElement(DATA_TYPE dataElement) throws InterruptedException {
+        putToQueue(this.m_buffer, dataElement);
+    }
+
+    @Override
+    protected Collection<DATA_TYPE> getNextDataChunk() {
+        List<DATA_TYPE> result = new ArrayList<>(Math.min(this.m_buffer.size(), this.getMaxDataChunkSize()));
+        this.m_buffer.drainTo(result, this.getMaxDataChunkSize());
+        return result;
+    }
+}
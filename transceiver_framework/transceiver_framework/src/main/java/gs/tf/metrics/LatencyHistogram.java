@@ -0,0 +1,121 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of non-negative long values (e.g., nanoseconds): Values below 16 are counted exactly, larger
+// values in 8 buckets per power of two (i.e., with a relative error of at most 12.5 %).
+// Recording is allocation-free and must only be done by a single thread (e.g., the run thread of the owning task),
+// all other methods may be called from arbitrary threads (results are approximate while values are being recorded).
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int NUM_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_EXACT_BUCKETS = 2 * NUM_SUB_BUCKETS;
+    // Largest exponent: 62 (Long.MAX_VALUE)
+    private static final int NUM_BUCKETS = NUM_EXACT_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * NUM_SUB_BUCKETS;
+
+    private final AtomicLongArray m_buckets;
+    // Written via lazySet by the recording thread only
+    private final AtomicLongArray m_countSumMax;
+
+    public LatencyHistogram(){
+        this.m_buckets = new AtomicLongArray(NUM_BUCKETS);
+        this.m_countSumMax = new AtomicLongArray(3);
+    }
+
+    private static int getBucketIndex(long value){
+        if(value < NUM_EXACT_BUCKETS){
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (NUM_SUB_BUCKETS - 1);
+        return NUM_EXACT_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * NUM_SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value counted in the bucket with the provided index
+    private static long getBucketUpperBound(int index){
+        if(index < NUM_EXACT_BUCKETS){
+            return index;
+        }
+        int exponent = (index - NUM_EXACT_BUCKETS) / NUM_SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (index - NUM_EXACT_BUCKETS) % NUM_SUB_BUCKETS;
+        long lowerBound = (NUM_SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    // Single recording thread only. Negative values are counted as 0.
+    public void record(long value, long count){
+        if(count <= 0){
+            return;
+        }
+        value = Math.max(0, value);
+        int index = getBucketIndex(value);
+        this.m_buckets.lazySet(index, this.m_buckets.get(index) + count);
+        this.m_countSumMax.lazySet(0, this.m_countSumMax.get(0) + count);
+        this.m_countSumMax.lazySet(1, this.m_countSumMax.get(1) + value * count);
+        if(value > this.m_countSumMax.get(2)){
+            this.m_countSumMax.lazySet(2, value);
+        }
+    }
+
+    // Single recording thread only (e.g., to aggregate the histograms of several tasks)
+    public void add(LatencyHistogram other){
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            long count = other.m_buckets.get(i);
+            if(count > 0){
+                this.m_buckets.lazySet(i, this.m_buckets.get(i) + count);
+            }
+        }
+        this.m_countSumMax.lazySet(0, this.m_countSumMax.get(0) + other.m_countSumMax.get(0));
+        this.m_countSumMax.lazySet(1, this.m_countSumMax.get(1) + other.m_countSumMax.get(1));
+        if(other.m_countSumMax.get(2) > this.m_countSumMax.get(2)){
+            this.m_countSumMax.lazySet(2, other.m_countSumMax.get(2));
+        }
+    }
+
+    public long getCount(){
+        return this.m_countSumMax.get(0);
+    }
+
+    public long getMax(){
+        return this.m_countSumMax.get(2);
+    }
+
+    public double getMean(){
+        long count = this.getCount();
+        return count == 0 ? 0 : (double) this.m_countSumMax.get(1) / count;
+    }
+
+    // Upper bound of the bucket containing the value at the provided percentile (in [0, 100]), 0 if empty
+    public long getValueAtPercentile(double percentile){
+        if(percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException();
+        }
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            counts[i] = this.m_buckets.get(i);
+            total += counts[i];
+        }
+        if(total == 0){
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            cumulative += counts[i];
+            if(cumulative >= target){
+                return Math.min(getBucketUpperBound(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+}
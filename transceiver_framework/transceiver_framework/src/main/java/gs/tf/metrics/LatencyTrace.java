@@ -0,0 +1,73 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import java.util.Arrays;
+
+// Hops (e.g., "FooTargetReceiverTask#26:enqueue") passed by a sampled data element together with the System.nanoTime()
+// at which they were passed (see LatencyTracing). Attached to the element as annotation. Synchronized, since the same
+// element might be passed to several outputs concurrently (e.g., by a GenericBroadcastMultiTransceiverTask), in which
+// case the stamps of all outputs are interleaved.
+public final class LatencyTrace {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] m_hops;
+    private long[] m_nanos;
+    private int m_numStamps;
+
+    public LatencyTrace(){
+        this.m_hops = new String[INITIAL_CAPACITY];
+        this.m_nanos = new long[INITIAL_CAPACITY];
+        this.m_numStamps = 0;
+    }
+
+    public synchronized void stamp(String hop, long nanos){
+        if(hop == null){
+            throw new NullPointerException();
+        }
+        if(this.m_numStamps == this.m_hops.length){
+            this.m_hops = Arrays.copyOf(this.m_hops, 2 * this.m_numStamps);
+            this.m_nanos = Arrays.copyOf(this.m_nanos, 2 * this.m_numStamps);
+        }
+        this.m_hops[this.m_numStamps] = hop;
+        this.m_nanos[this.m_numStamps] = nanos;
+        this.m_numStamps++;
+    }
+
+    public synchronized int getNumStamps(){
+        return this.m_numStamps;
+    }
+
+    public synchronized String getHop(int i){
+        if(i < 0 || i >= this.m_numStamps){
+            throw new IndexOutOfBoundsException();
+        }
+        return this.m_hops[i];
+    }
+
+    public synchronized long getNanos(int i){
+        if(i < 0 || i >= this.m_numStamps){
+            throw new IndexOutOfBoundsException();
+        }
+        return this.m_nanos[i];
+    }
+
+    @Override
+    public synchronized String toString(){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < this.m_numStamps; i++){
+            if(i > 0){
+                sb.append(" -(").append(this.m_nanos[i] - this.m_nanos[i - 1]).append(" ns)-> ");
+            }
+            sb.append(this.m_hops[i]);
+        }
+        return sb.toString();
+    }
+}
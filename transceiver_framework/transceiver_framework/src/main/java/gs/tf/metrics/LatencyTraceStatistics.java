@@ -0,0 +1,87 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-hop and end-to-end latencies of the traces ending at a single sink (see LatencyTracing). A hop latency refers to
+// two consecutive stamps of a trace (e.g., "X:enqueue -> X:dequeue" is the time spent in the input queue of X).
+// Recording must only be done by the run thread of the sink, all other methods may be called from arbitrary threads.
+public final class LatencyTraceStatistics {
+
+    private final String m_sink;
+    private final LatencyHistogram m_endToEndNanos;
+    // Insertion order is irrelevant: Hops are sorted by name in toString()
+    private final ConcurrentHashMap<String, LatencyHistogram> m_hopNanos;
+
+    public LatencyTraceStatistics(String sink){
+        if(sink == null){
+            throw new NullPointerException();
+        }
+        this.m_sink = sink;
+        this.m_endToEndNanos = new LatencyHistogram();
+        this.m_hopNanos = new ConcurrentHashMap<>();
+    }
+
+    public String getSink(){
+        return this.m_sink;
+    }
+
+    public void record(LatencyTrace trace){
+        if(trace == null){
+            throw new NullPointerException();
+        }
+        synchronized (trace) {
+            int numStamps = trace.getNumStamps();
+            if (numStamps < 2) {
+                return;
+            }
+            for (int i = 1; i < numStamps; i++) {
+                String hop = trace.getHop(i - 1) + " -> " + trace.getHop(i);
+                LatencyHistogram histogram = this.m_hopNanos.get(hop);
+                if (histogram == null) {
+                    histogram = new LatencyHistogram();
+                    this.m_hopNanos.put(hop, histogram);
+                }
+                histogram.record(trace.getNanos(i) - trace.getNanos(i - 1), 1);
+            }
+            this.m_endToEndNanos.record(trace.getNanos(numStamps - 1) - trace.getNanos(0), 1);
+        }
+    }
+
+    public LatencyHistogram getEndToEndNanos(){
+        return this.m_endToEndNanos;
+    }
+
+    // Unmodifiable view
+    public Map<String, LatencyHistogram> getHopNanos(){
+        return Collections.unmodifiableMap(this.m_hopNanos);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        sb.append("Latencies of ").append(this.m_endToEndNanos.getCount()).append(" traces ending at ").append(this.m_sink)
+                .append(" (p50 / p99 / max in ms):");
+        append(sb, "end-to-end", this.m_endToEndNanos);
+        for(Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(this.m_hopNanos).entrySet()){
+            append(sb, entry.getKey(), entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String name, LatencyHistogram histogram){
+        sb.append(String.format(Locale.ROOT, "%n  %s: %.3f / %.3f / %.3f", name,
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6));
+    }
+}
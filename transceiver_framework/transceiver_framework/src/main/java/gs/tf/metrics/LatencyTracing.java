@@ -0,0 +1,95 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import gs.utils.datatypes.AnnotatedData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Process wide configuration of end-to-end latency tracing. Disabled by default. If enabled, source transmitters
+// attach a LatencyTrace to every n-th forwarded AnnotatedData element (n: sampling interval). Each receiver input queue
+// enqueue and dequeue and each transmitter forward (including mux and demux tasks) then stamps the trace, and sinks
+// aggregate the traces in LatencyTraceStatistics. If disabled, only a single volatile read per data chunk and hop remains.
+public final class LatencyTracing {
+
+    // Annotation key of the LatencyTrace of an element
+    public static final Object ANNOTATION_KEY = LatencyTrace.class;
+
+    private static final Object STATISTICS_LOCK = new Object();
+    // Guarded by STATISTICS_LOCK
+    private static final List<LatencyTraceStatistics> STATISTICS = new ArrayList<>();
+
+    // 0: Disabled
+    private static volatile int m_samplingInterval = 0;
+
+    private LatencyTracing(){
+    }
+
+    // Each source transmitter traces one out of samplingInterval elements, 0 disables tracing. Takes effect immediately
+    // (i.e., traces started before tracing has been disabled are not completed).
+    public static void setSamplingInterval(int samplingInterval){
+        if(samplingInterval < 0){
+            throw new IllegalArgumentException();
+        }
+        m_samplingInterval = samplingInterval;
+    }
+
+    public static int getSamplingInterval(){
+        return m_samplingInterval;
+    }
+
+    public static boolean isEnabled(){
+        return m_samplingInterval > 0;
+    }
+
+    // Returns null if the provided element is not traced
+    public static LatencyTrace getTrace(Object element){
+        if(element instanceof AnnotatedData){
+            Object trace = ((AnnotatedData<?>) element).getAnnotation(ANNOTATION_KEY);
+            if(trace instanceof LatencyTrace){
+                return (LatencyTrace) trace;
+            }
+        }
+        return null;
+    }
+
+    // Returns the new trace or null if the provided element cannot be traced or is already traced
+    public static LatencyTrace startTrace(Object element){
+        if(!(element instanceof AnnotatedData) || getTrace(element) != null){
+            return null;
+        }
+        LatencyTrace trace = new LatencyTrace();
+        ((AnnotatedData<?>) element).addAnnotation(ANNOTATION_KEY, trace);
+        return trace;
+    }
+
+    // Called by sinks upon start
+    public static void register(LatencyTraceStatistics statistics){
+        if(statistics == null){
+            throw new NullPointerException();
+        }
+        synchronized (STATISTICS_LOCK){
+            STATISTICS.add(statistics);
+        }
+    }
+
+    // Snapshot in registration order
+    public static List<LatencyTraceStatistics> getRegisteredStatistics(){
+        synchronized (STATISTICS_LOCK){
+            return new ArrayList<>(STATISTICS);
+        }
+    }
+
+    public static void clear(){
+        synchronized (STATISTICS_LOCK){
+            STATISTICS.clear();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Process wide registry of the metrics of all started tasks. Disabled by default: Tasks always count their elements
+// (see AbstractConcurrentTask.getMetrics()) but only time their work and are only registered here (and optionally as
+// MBean) if enabled before they start.
+public final class MetricsRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    public static final String JMX_DOMAIN = "gs.tf";
+
+    private static final Object REGISTRY_LOCK = new Object();
+    // Guarded by REGISTRY_LOCK
+    private static final Map<TaskMetrics, ObjectName> REGISTERED_METRICS = new LinkedHashMap<>();
+
+    private static volatile boolean m_enabled = false;
+    private static volatile boolean m_jmxEnabled = false;
+
+    private MetricsRegistry(){
+    }
+
+    public static void setEnabled(boolean enabled){
+        m_enabled = enabled;
+    }
+
+    public static boolean isEnabled(){
+        return m_enabled;
+    }
+
+    // Only affects metrics registered afterwards
+    public static void setJmxEnabled(boolean jmxEnabled){
+        m_jmxEnabled = jmxEnabled;
+    }
+
+    public static boolean isJmxEnabled(){
+        return m_jmxEnabled;
+    }
+
+    // Ignored if disabled or if already registered
+    public static void register(TaskMetrics metrics){
+        if(metrics == null){
+            throw new NullPointerException();
+        }
+        if(!m_enabled){
+            return;
+        }
+        synchronized (REGISTRY_LOCK){
+            if(REGISTERED_METRICS.containsKey(metrics)){
+                return;
+            }
+            ObjectName objectName = null;
+            if(m_jmxEnabled){
+                try {
+                    objectName = new ObjectName(JMX_DOMAIN + ":type=Task,class=" + ObjectName.quote(metrics.getTaskClassName()) +
+                            ",id=" + metrics.getTaskID());
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+                } catch (InstanceAlreadyExistsException e) {
+                    LOGGER.warning("MBean already registered: " + objectName);
+                    objectName = null;
+                } catch (JMException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            REGISTERED_METRICS.put(metrics, objectName);
+        }
+    }
+
+    // Snapshot in registration order
+    public static List<TaskMetrics> getRegisteredMetrics(){
+        synchronized (REGISTRY_LOCK){
+            return new ArrayList<>(REGISTERED_METRICS.keySet());
+        }
+    }
+
+    // Removes all registered metrics and unregisters their MBeans
+    public static void clear(){
+        synchronized (REGISTRY_LOCK){
+            MBeanServer mBeanServer = null;
+            for(ObjectName objectName : REGISTERED_METRICS.values()){
+                if(objectName == null){
+                    continue;
+                }
+                if(mBeanServer == null){
+                    mBeanServer = ManagementFactory.getPlatformMBeanServer();
+                }
+                try {
+                    mBeanServer.unregisterMBean(objectName);
+                } catch (InstanceNotFoundException e) {
+                    // Already unregistered externally
+                } catch (JMException e) {
+                    LOGGER.log(Level.WARNING, "Could not unregister MBean: " + objectName, e);
+                }
+            }
+            REGISTERED_METRICS.clear();
+        }
+    }
+}
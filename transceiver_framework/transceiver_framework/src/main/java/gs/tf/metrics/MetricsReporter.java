@@ -0,0 +1,199 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Periodically dumps the metrics of all tasks registered in MetricsRegistry into a file: One CSV row or JSON object
+// (one per line) per task and interval. Rates and the busy ratio refer to the respective interval,
+// queue depth is sampled at dump time and latency percentiles refer to the whole run so far.
+public class MetricsReporter {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsReporter.class.getName());
+
+    public enum Format{
+        CSV,
+        JSON
+    }
+
+    private static final String CSV_HEADER = "timestamp_ms,task_class,task_id,running,elements_in,elements_out," +
+            "in_per_s,out_per_s,queue_depth,discarded,busy_ratio,processing_ns_p50,processing_ns_p99,processing_ns_max," +
+            "fetch_ns_p50,fetch_ns_p99,fetch_ns_max";
+
+    private static class Snapshot{
+        final long m_nanos;
+        final long m_elementsIn;
+        final long m_elementsOut;
+        final long m_busyNanos;
+
+        Snapshot(long nanos, TaskMetrics metrics){
+            this.m_nanos = nanos;
+            this.m_elementsIn = metrics.getElementsIn();
+            this.m_elementsOut = metrics.getElementsOut();
+            this.m_busyNanos = metrics.getBusyNanos();
+        }
+    }
+
+    private final Path m_path;
+    private final Format m_format;
+    private final long m_interval;
+    private final Object REPORTER_LOCK = new Object();
+
+    // Guarded by REPORTER_LOCK
+    private ScheduledExecutorService m_scheduler;
+    private BufferedWriter m_writer;
+    private final Map<TaskMetrics, Snapshot> m_previousSnapshots;
+
+    // interval in ms
+    public MetricsReporter(String filePath, Format format, long interval){
+        if(filePath == null || format == null){
+            throw new NullPointerException();
+        }
+        if(interval <= 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_path = Paths.get(filePath);
+        this.m_format = format;
+        this.m_interval = interval;
+        this.m_scheduler = null;
+        this.m_writer = null;
+        this.m_previousSnapshots = new IdentityHashMap<>();
+    }
+
+    public void start(){
+        synchronized (REPORTER_LOCK){
+            if(this.m_writer != null){
+                throw new IllegalStateException("Already started.");
+            }
+            try {
+                Path parent = this.m_path.toAbsolutePath().getParent();
+                if(parent != null){
+                    Files.createDirectories(parent);
+                }
+                this.m_writer = Files.newBufferedWriter(this.m_path, StandardCharsets.UTF_8);
+                if(this.m_format == Format.CSV){
+                    this.m_writer.write(CSV_HEADER);
+                    this.m_writer.newLine();
+                    this.m_writer.flush();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            this.m_scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, MetricsReporter.class.getSimpleName());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.m_scheduler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    MetricsReporter.this.dump();
+                }
+            }, this.m_interval, this.m_interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Performs a final dump and closes the file. Ignored if not running.
+    public void stop(){
+        ScheduledExecutorService scheduler;
+        synchronized (REPORTER_LOCK){
+            scheduler = this.m_scheduler;
+            this.m_scheduler = null;
+        }
+        if(scheduler == null){
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(this.m_interval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (REPORTER_LOCK){
+            this.dump();
+            try {
+                this.m_writer.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close metrics file: " + this.m_path, e);
+            }
+            this.m_writer = null;
+            this.m_previousSnapshots.clear();
+        }
+    }
+
+    private void dump(){
+        synchronized (REPORTER_LOCK){
+            if(this.m_writer == null){
+                return;
+            }
+            long timestamp = System.currentTimeMillis();
+            try {
+                for(TaskMetrics metrics : MetricsRegistry.getRegisteredMetrics()){
+                    Snapshot current = new Snapshot(System.nanoTime(), metrics);
+                    Snapshot previous = this.m_previousSnapshots.put(metrics, current);
+                    double inPerSecond, outPerSecond, busyRatio;
+                    if(previous == null){
+                        inPerSecond = metrics.getElementsInPerSecond();
+                        outPerSecond = metrics.getElementsOutPerSecond();
+                        busyRatio = metrics.getBusyRatio();
+                    }
+                    else{
+                        long nanos = current.m_nanos - previous.m_nanos;
+                        inPerSecond = nanos <= 0 ? 0 : (current.m_elementsIn - previous.m_elementsIn) * 1e9 / nanos;
+                        outPerSecond = nanos <= 0 ? 0 : (current.m_elementsOut - previous.m_elementsOut) * 1e9 / nanos;
+                        busyRatio = nanos <= 0 ? 0 : Math.min(1.0, (double) (current.m_busyNanos - previous.m_busyNanos) / nanos);
+                    }
+
+                    if(this.m_format == Format.CSV){
+                        this.m_writer.write(String.format(Locale.ROOT, "%d,%s,%d,%b,%d,%d,%.1f,%.1f,%d,%d,%.4f,%d,%d,%d,%d,%d,%d",
+                                timestamp, metrics.getTaskClassName(), metrics.getTaskID(), metrics.isRunning(),
+                                current.m_elementsIn, current.m_elementsOut, inPerSecond, outPerSecond,
+                                metrics.getQueueDepth(), metrics.getDiscarded(), busyRatio,
+                                metrics.getProcessingNanosP50(), metrics.getProcessingNanosP99(), metrics.getProcessingNanosMax(),
+                                metrics.getFetchNanosP50(), metrics.getFetchNanosP99(), metrics.getFetchNanosMax()));
+                    }
+                    else{
+                        this.m_writer.write(String.format(Locale.ROOT, "{\"timestamp_ms\":%d,\"task_class\":\"%s\",\"task_id\":%d," +
+                                        "\"running\":%b,\"elements_in\":%d,\"elements_out\":%d,\"in_per_s\":%.1f,\"out_per_s\":%.1f," +
+                                        "\"queue_depth\":%d,\"discarded\":%d,\"busy_ratio\":%.4f,\"processing_ns_p50\":%d," +
+                                        "\"processing_ns_p99\":%d,\"processing_ns_max\":%d,\"fetch_ns_p50\":%d," +
+                                        "\"fetch_ns_p99\":%d,\"fetch_ns_max\":%d}",
+                                timestamp, metrics.getTaskClassName(), metrics.getTaskID(), metrics.isRunning(),
+                                current.m_elementsIn, current.m_elementsOut, inPerSecond, outPerSecond,
+                                metrics.getQueueDepth(), metrics.getDiscarded(), busyRatio,
+                                metrics.getProcessingNanosP50(), metrics.getProcessingNanosP99(), metrics.getProcessingNanosMax(),
+                                metrics.getFetchNanosP50(), metrics.getFetchNanosP99(), metrics.getFetchNanosMax()));
+                    }
+                    this.m_writer.newLine();
+                }
+                this.m_writer.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not write metrics file: " + this.m_path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntSupplier;
+
+// Metrics of a single task: Elements processed (in) and forwarded (out), time spent per processed element and per
+// fetched data chunk, discarded elements, busy time and (via a gauge) queue depth.
+// All recording methods except forwarded(...) and discarded(...) must only be called by the run thread of the owning
+// task (transceivers may forward from their internal receiver's thread). Recording
+// is lock-free and allocation-free, all getters may be called from arbitrary threads.
+public final class TaskMetrics implements TaskMetricsMXBean {
+
+    private static final AtomicLongFieldUpdater<TaskMetrics> ELEMENTS_IN_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "m_elementsIn");
+    private static final AtomicLongFieldUpdater<TaskMetrics> ELEMENTS_OUT_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "m_elementsOut");
+    private static final AtomicLongFieldUpdater<TaskMetrics> BUSY_NANOS_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "m_busyNanos");
+    private static final AtomicLongFieldUpdater<TaskMetrics> DISCARDED_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "m_discarded");
+
+    private final String m_taskClassName;
+    private final long m_taskID;
+    private volatile IntSupplier m_queueDepthGauge;
+
+    private volatile long m_elementsIn;
+    private volatile long m_elementsOut;
+    private volatile long m_busyNanos;
+    private volatile long m_discarded;
+    // -1: Not started/finished yet
+    private volatile long m_startNanos;
+    private volatile long m_finishNanos;
+
+    private final LatencyHistogram m_processingNanos;
+    private final LatencyHistogram m_fetchNanos;
+
+    public TaskMetrics(String taskClassName, long taskID){
+        if(taskClassName == null){
+            throw new NullPointerException();
+        }
+        this.m_taskClassName = taskClassName;
+        this.m_taskID = taskID;
+        this.m_queueDepthGauge = null;
+        this.m_elementsIn = 0;
+        this.m_elementsOut = 0;
+        this.m_busyNanos = 0;
+        this.m_discarded = 0;
+        this.m_startNanos = -1;
+        this.m_finishNanos = -1;
+        this.m_processingNanos = new LatencyHistogram();
+        this.m_fetchNanos = new LatencyHistogram();
+    }
+
+    // Null: No queue (depth 0)
+    public void setQueueDepthGauge(IntSupplier queueDepthGauge){
+        this.m_queueDepthGauge = queueDepthGauge;
+    }
+
+    public void started(){
+        this.m_startNanos = System.nanoTime();
+    }
+
+    public void finished(){
+        this.m_finishNanos = System.nanoTime();
+    }
+
+    // numElements elements have been processed within nanos ns (recorded as numElements values of nanos / numElements)
+    public void processed(int numElements, long nanos){
+        if(numElements > 0) {
+            ELEMENTS_IN_UPDATER.lazySet(this, this.m_elementsIn + numElements);
+            this.m_processingNanos.record(nanos / numElements, numElements);
+        }
+    }
+
+    // numElements elements have been processed (untimed, see AbstractConcurrentTask.isTimed())
+    public void processed(int numElements){
+        ELEMENTS_IN_UPDATER.lazySet(this, this.m_elementsIn + numElements);
+    }
+
+    // A non-empty data chunk has been fetched within nanos ns
+    public void fetched(long nanos){
+        this.m_fetchNanos.record(nanos, 1);
+    }
+
+    // May be called by arbitrary threads
+    public void forwarded(int numElements){
+        ELEMENTS_OUT_UPDATER.addAndGet(this, numElements);
+    }
+
+    public void busy(long nanos){
+        BUSY_NANOS_UPDATER.lazySet(this, this.m_busyNanos + nanos);
+    }
+
+    // May be called by arbitrary threads
+    public void discarded(long numElements){
+        DISCARDED_UPDATER.addAndGet(this, numElements);
+    }
+
+    @Override
+    public String getTaskClassName(){
+        return this.m_taskClassName;
+    }
+
+    @Override
+    public long getTaskID(){
+        return this.m_taskID;
+    }
+
+    @Override
+    public boolean isRunning(){
+        return this.m_startNanos >= 0 && this.m_finishNanos < 0;
+    }
+
+    // Run time so far (or total run time if finished) in ns
+    public long getRunNanos(){
+        long start = this.m_startNanos;
+        if(start < 0){
+            return 0;
+        }
+        long finish = this.m_finishNanos;
+        return (finish < 0 ? System.nanoTime() : finish) - start;
+    }
+
+    @Override
+    public long getElementsIn(){
+        return this.m_elementsIn;
+    }
+
+    @Override
+    public long getElementsOut(){
+        return this.m_elementsOut;
+    }
+
+    @Override
+    public double getElementsInPerSecond(){
+        return perSecond(this.m_elementsIn, this.getRunNanos());
+    }
+
+    @Override
+    public double getElementsOutPerSecond(){
+        return perSecond(this.m_elementsOut, this.getRunNanos());
+    }
+
+    private static double perSecond(long count, long nanos){
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public int getQueueDepth(){
+        IntSupplier queueDepthGauge = this.m_queueDepthGauge;
+        return queueDepthGauge == null ? 0 : queueDepthGauge.getAsInt();
+    }
+
+    @Override
+    public long getDiscarded(){
+        return this.m_discarded;
+    }
+
+    public long getBusyNanos(){
+        return this.m_busyNanos;
+    }
+
+    @Override
+    public double getBusyRatio(){
+        long runNanos = this.getRunNanos();
+        return runNanos <= 0 ? 0 : Math.min(1.0, (double) this.m_busyNanos / runNanos);
+    }
+
+    public LatencyHistogram getProcessingNanos(){
+        return this.m_processingNanos;
+    }
+
+    public LatencyHistogram getFetchNanos(){
+        return this.m_fetchNanos;
+    }
+
+    @Override
+    public long getProcessingNanosP50(){
+        return this.m_processingNanos.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getProcessingNanosP99(){
+        return this.m_processingNanos.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getProcessingNanosMax(){
+        return this.m_processingNanos.getMax();
+    }
+
+    @Override
+    public long getFetchNanosP50(){
+        return this.m_fetchNanos.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getFetchNanosP99(){
+        return this.m_fetchNanos.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getFetchNanosMax(){
+        return this.m_fetchNanos.getMax();
+    }
+
+    @Override
+    public String toString(){
+        return this.m_taskClassName + " (ID " + this.m_taskID + "): in: " + this.m_elementsIn + ", out: " + this.m_elementsOut +
+                ", discarded: " + this.m_discarded + ", busy ratio: " + this.getBusyRatio();
+    }
+}
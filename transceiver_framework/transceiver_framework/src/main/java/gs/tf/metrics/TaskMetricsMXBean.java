@@ -0,0 +1,45 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.metrics;
+
+// JMX view of TaskMetrics (see MetricsRegistry.setJmxEnabled(...)). Rates and ratios refer to the whole run time so far.
+public interface TaskMetricsMXBean {
+
+    String getTaskClassName();
+
+    long getTaskID();
+
+    boolean isRunning();
+
+    long getElementsIn();
+
+    long getElementsOut();
+
+    double getElementsInPerSecond();
+
+    double getElementsOutPerSecond();
+
+    int getQueueDepth();
+
+    long getDiscarded();
+
+    double getBusyRatio();
+
+    long getProcessingNanosP50();
+
+    long getProcessingNanosP99();
+
+    long getProcessingNanosMax();
+
+    long getFetchNanosP50();
+
+    long getFetchNanosP99();
+
+    long getFetchNanosMax();
+}
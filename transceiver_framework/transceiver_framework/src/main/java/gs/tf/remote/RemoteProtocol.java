@@ -0,0 +1,140 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.remote;
+
+import gs.utils.serialization.ElementSerializer;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Wire format shared by RemoteReceiverTask (client) and RemoteTransmitterTask (server). Each message consists of
+// an int length (of the remainder of the message), a byte type and the payload:
+// - HELLO (client): int magic, byte version, short name length, UTF-8 stream name
+// - WELCOME (server): long next expected sequence number (-1 if unknown, i.e., nothing received yet), int window
+// - DATA (client): long sequence number of the first element, int number of elements,
+//   per element: int length, serialized element
+// - ACK (server): long number of elements forwarded to the downstream sub-chain (i.e., freed window slots)
+// - END (client): long total number of elements sent
+// Sequence numbers are assigned per stream, counting from 0.
+final class RemoteProtocol {
+
+    static final int MAGIC = 0x47535446; // "GSTF"
+    static final byte VERSION = 1;
+
+    static final byte HELLO = 1;
+    static final byte WELCOME = 2;
+    static final byte DATA = 3;
+    static final byte ACK = 4;
+    static final byte END = 5;
+
+    static final int HEADER_LENGTH = 5;
+    static final int DATA_HEADER_LENGTH = HEADER_LENGTH + 12;
+    static final int MAX_MESSAGE_LENGTH = 1 << 30;
+
+    private RemoteProtocol(){
+    }
+
+    static ByteBuffer createHello(String streamName){
+        byte[] name = streamName.getBytes(StandardCharsets.UTF_8);
+        if(name.length > Short.MAX_VALUE){
+            throw new IllegalArgumentException("Stream name too long.");
+        }
+        ByteBuffer result = ByteBuffer.allocate(HEADER_LENGTH + 7 + name.length);
+        result.putInt(result.capacity() - 4).put(HELLO).putInt(MAGIC).put(VERSION).putShort((short) name.length).put(name);
+        result.flip();
+        return result;
+    }
+
+    // Returns null if the payload is no valid HELLO of this protocol version
+    static String readHello(ByteBuffer payload){
+        if(payload.remaining() < 7 || payload.getInt() != MAGIC || payload.get() != VERSION){
+            return null;
+        }
+        int length = payload.getShort();
+        if(length < 0 || payload.remaining() != length){
+            return null;
+        }
+        byte[] name = new byte[length];
+        payload.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    static ByteBuffer createWelcome(long nextSeq, int window){
+        ByteBuffer result = ByteBuffer.allocate(HEADER_LENGTH + 12);
+        result.putInt(result.capacity() - 4).put(WELCOME).putLong(nextSeq).putInt(window);
+        result.flip();
+        return result;
+    }
+
+    static ByteBuffer createAck(long forwardedSeq){
+        return createSeqMessage(ACK, forwardedSeq);
+    }
+
+    static ByteBuffer createEnd(long totalSeq){
+        return createSeqMessage(END, totalSeq);
+    }
+
+    private static ByteBuffer createSeqMessage(byte type, long seq){
+        ByteBuffer result = ByteBuffer.allocate(HEADER_LENGTH + 8);
+        result.putInt(result.capacity() - 4).put(type).putLong(seq);
+        result.flip();
+        return result;
+    }
+
+    // Encodes elements [fromIndex, toIndex) as one DATA message. The provided buffer is reused if large enough,
+    // the result is a new (exactly sized) buffer ready for writing.
+    static <E> ByteBuffer createData(long firstSeq, List<E> elements, int fromIndex, int toIndex,
+                                     ElementSerializer<? super E> serializer, ByteBuffer[] bufferHolder){
+        ByteBuffer buffer = bufferHolder[0];
+        buffer.clear();
+        buffer.position(DATA_HEADER_LENGTH);
+        int elementStart;
+        for(int i = fromIndex; i < toIndex; i++){
+            elementStart = buffer.position();
+            while(true) {
+                if(buffer.capacity() - elementStart > 4) {
+                    buffer.position(elementStart + 4);
+                    try {
+                        serializer.serialize(elements.get(i), buffer);
+                        break;
+                    } catch (BufferOverflowException e) {
+                        // Retry with a larger buffer
+                    }
+                }
+                buffer = grow(buffer, elementStart);
+                bufferHolder[0] = buffer;
+            }
+            buffer.putInt(elementStart, buffer.position() - elementStart - 4);
+        }
+        int length = buffer.position();
+        if(length - 4 > MAX_MESSAGE_LENGTH){
+            throw new IllegalArgumentException("Data message too large.");
+        }
+        buffer.putInt(0, length - 4);
+        buffer.put(4, DATA);
+        buffer.putLong(5, firstSeq);
+        buffer.putInt(13, toIndex - fromIndex);
+        buffer.flip();
+        ByteBuffer result = ByteBuffer.allocate(length);
+        result.put(buffer);
+        result.flip();
+        return result;
+    }
+
+    // Returns a larger buffer containing the first length bytes of the provided one (positioned after them)
+    private static ByteBuffer grow(ByteBuffer buffer, int length){
+        ByteBuffer result = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, length + 64));
+        buffer.position(0);
+        buffer.limit(length);
+        result.put(buffer);
+        return result;
+    }
+}
@@ -0,0 +1,320 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.remote;
+
+import gs.tf.core.AbstractReceiverTask;
+import gs.tf.jfr.FlightRecording;
+import gs.utils.serialization.ElementSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+// Sink of a sub-chain which sends all received elements to the RemoteTransmitterTask with the same stream name
+// (see RemoteTransport.getInstanceName(...)) listening on the provided host and port, i.e., to the source of a
+// sub-chain running in another JVM. Elements are serialized batch wise (one DATA message per processed chunk) and
+// sent via the non-blocking RemoteTransport. Flow control: At most "window" (as announced by the remote transmitter)
+// elements are in flight, processing blocks otherwise (i.e., back pressure propagates to the upstream sub-chain).
+// Unacknowledged messages are retained and resent after reconnecting (the connection is reestablished with
+// exponential backoff), the remote transmitter discards duplicates.
+public class RemoteReceiverTask<DATA_IN_TYPE> extends AbstractReceiverTask<DATA_IN_TYPE> {
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteReceiverTask.class.getName());
+
+    public static final long MIN_RECONNECT_DELAY = 100;
+    public static final long MAX_RECONNECT_DELAY = 5000;
+    private static final int INITIAL_ENCODING_BUFFER_SIZE = 1 << 16;
+
+    private final ElementSerializer<? super DATA_IN_TYPE> m_serializer;
+    private final String m_host;
+    private final int m_port;
+    private final String m_streamName;
+    private final long m_closeTimeout;
+
+    // Reused for encoding. No volatile necessary, access only via Thread executing this task
+    private final ByteBuffer[] m_encodingBuffer;
+
+    private final ReentrantLock LOCK;
+    private final Condition m_windowCondition;
+    private final Stream m_stream;
+    // Access only via LOCK
+    private RemoteTransport.Connection m_connection;
+    private boolean m_welcomed;
+    private int m_window;
+    private long m_nextSeq;
+    private long m_ackedSeq;
+    private final ArrayDeque<DataMessage> m_unacked;
+    private boolean m_ended;
+    private boolean m_closed;
+    private long m_reconnectDelay;
+
+    private static final class DataMessage {
+        // Sequence number following the last element of the message
+        private final long m_endSeq;
+        private final ByteBuffer m_message;
+
+        private DataMessage(long endSeq, ByteBuffer message){
+            this.m_endSeq = endSeq;
+            this.m_message = message;
+        }
+    }
+
+    // I/O thread only
+    private final class Stream implements RemoteTransport.Handler {
+        @Override
+        public void connected(RemoteTransport.Connection connection) {
+            connection.send(RemoteProtocol.createHello(RemoteReceiverTask.this.m_streamName));
+        }
+
+        @Override
+        public void received(RemoteTransport.Connection connection, byte type, ByteBuffer payload) {
+            RemoteReceiverTask<DATA_IN_TYPE> task = RemoteReceiverTask.this;
+            task.LOCK.lock();
+            try {
+                if(connection != task.m_connection){
+                    return;
+                }
+                switch (type) {
+                    case RemoteProtocol.WELCOME: {
+                        long nextSeq = payload.getLong();
+                        int window = payload.getInt();
+                        if(window < 1){
+                            throw new IllegalStateException("Non-positive window announced.");
+                        }
+                        task.m_window = window;
+                        task.m_welcomed = true;
+                        task.m_reconnectDelay = MIN_RECONNECT_DELAY;
+                        // Resend everything the remote transmitter has not received yet (nextSeq < 0: remote state lost)
+                        for(DataMessage message : task.m_unacked){
+                            if(nextSeq < 0 || message.m_endSeq > nextSeq){
+                                connection.send(message.m_message.duplicate());
+                            }
+                        }
+                        if(task.m_ended){
+                            connection.send(RemoteProtocol.createEnd(task.m_nextSeq));
+                        }
+                        LOGGER.info("Remote stream \"" + task.m_streamName + "\" connected to " +
+                                connection.getRemoteAddress() + " (window: " + window + ").");
+                        task.m_windowCondition.signalAll();
+                        break;
+                    }
+                    case RemoteProtocol.ACK: {
+                        long ackedSeq = payload.getLong();
+                        if(ackedSeq > task.m_ackedSeq) {
+                            task.m_ackedSeq = ackedSeq;
+                            while (!task.m_unacked.isEmpty() && task.m_unacked.peekFirst().m_endSeq <= ackedSeq) {
+                                task.m_unacked.pollFirst();
+                            }
+                            task.m_windowCondition.signalAll();
+                        }
+                        break;
+                    }
+                    default: {
+                        throw new IllegalStateException("Unexpected message type: " + type);
+                    }
+                }
+            }
+            finally {
+                task.LOCK.unlock();
+            }
+        }
+
+        @Override
+        public void closed(RemoteTransport.Connection connection, IOException cause) {
+            RemoteReceiverTask<DATA_IN_TYPE> task = RemoteReceiverTask.this;
+            long reconnectDelay;
+            task.LOCK.lock();
+            try {
+                if(connection != task.m_connection){
+                    return;
+                }
+                if(task.m_welcomed){
+                    LOGGER.warning("Remote stream \"" + task.m_streamName + "\" disconnected" +
+                            (cause == null ? "." : ": " + cause.getMessage()));
+                }
+                task.m_connection = null;
+                task.m_welcomed = false;
+                if(task.m_closed){
+                    return;
+                }
+                reconnectDelay = task.m_reconnectDelay;
+                task.m_reconnectDelay = Math.min(2 * reconnectDelay, MAX_RECONNECT_DELAY);
+            }
+            finally {
+                task.LOCK.unlock();
+            }
+            RemoteTransport.getInstance().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    RemoteReceiverTask.this.connect();
+                }
+            }, reconnectDelay);
+        }
+    }
+
+    public RemoteReceiverTask(Integer inDataQueueCapacity,
+                              Long timeoutInterval,
+                              ElementSerializer<? super DATA_IN_TYPE> serializer,
+                              String host,
+                              int port,
+                              String streamName,
+                              long closeTimeout) {
+        super(inDataQueueCapacity, timeoutInterval);
+        if(serializer == null || host == null || streamName == null){
+            throw new NullPointerException();
+        }
+        if(port < 0 || port > 65535 || closeTimeout < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_serializer = serializer;
+        this.m_host = host;
+        this.m_port = port;
+        this.m_streamName = RemoteTransport.getInstanceName(streamName, false);
+        this.m_closeTimeout = closeTimeout;
+        this.m_encodingBuffer = new ByteBuffer[]{ByteBuffer.allocate(INITIAL_ENCODING_BUFFER_SIZE)};
+
+        this.LOCK = new ReentrantLock();
+        this.m_windowCondition = this.LOCK.newCondition();
+        this.m_stream = new Stream();
+        this.m_connection = null;
+        this.m_welcomed = false;
+        this.m_window = 0;
+        this.m_nextSeq = 0;
+        this.m_ackedSeq = 0;
+        this.m_unacked = new ArrayDeque<>();
+        this.m_ended = false;
+        this.m_closed = false;
+        this.m_reconnectDelay = MIN_RECONNECT_DELAY;
+    }
+
+    public final String getStreamName(){
+        return this.m_streamName;
+    }
+
+    // Any thread
+    private void connect(){
+        this.LOCK.lock();
+        try {
+            if(!this.m_closed && this.m_connection == null) {
+                this.m_connection = RemoteTransport.getInstance().connect(this.m_host, this.m_port, this.m_stream);
+            }
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    protected void preWork(){
+        // IMPORTANT: Always call super.preWork() when overriding this method!
+        super.preWork();
+        this.connect();
+    }
+
+    @Override
+    protected void processDataElement(DATA_IN_TYPE dataElement) throws InterruptedException {
+        throw new UnsupportedOperationException("Elements are processed chunk wise.");
+    }
+
+    // Blocks while the window of the remote transmitter is exhausted (or while not connected)
+    @Override
+    protected void processDataChunk(List<DATA_IN_TYPE> dataChunk) throws InterruptedException {
+        int fromIndex = 0;
+        int toIndex;
+        long firstSeq;
+        while(fromIndex < dataChunk.size()){
+            this.LOCK.lockInterruptibly();
+            try {
+                while(!this.m_welcomed || this.m_nextSeq - this.m_ackedSeq >= this.m_window){
+                    this.m_windowCondition.await();
+                }
+                toIndex = (int) Math.min(dataChunk.size(),
+                        fromIndex + this.m_window - (this.m_nextSeq - this.m_ackedSeq));
+                firstSeq = this.m_nextSeq;
+                this.m_nextSeq += toIndex - fromIndex;
+            }
+            finally {
+                this.LOCK.unlock();
+            }
+
+            // Encoding outside of the lock. Messages are added in sequence order since only this thread adds them.
+            DataMessage message = new DataMessage(firstSeq + toIndex - fromIndex,
+                    RemoteProtocol.createData(firstSeq, dataChunk, fromIndex, toIndex, this.m_serializer, this.m_encodingBuffer));
+
+            this.LOCK.lock();
+            try {
+                this.m_unacked.addLast(message);
+                // Otherwise sent upon the next WELCOME
+                if(this.m_welcomed){
+                    this.m_connection.send(message.m_message.duplicate());
+                }
+            }
+            finally {
+                this.LOCK.unlock();
+            }
+            fromIndex = toIndex;
+        }
+    }
+
+    // Waits (at most closeTimeout ms) until the remote transmitter has forwarded all sent elements, then closes the
+    // connection. Elements still unacknowledged afterwards are considered discarded.
+    @Override
+    protected void postWork() {
+        super.postWork();
+        assert(this.terminateCalledWithInterrupt() != null);
+        long numDiscarded;
+        RemoteTransport.Connection connection;
+        this.LOCK.lock();
+        try {
+            this.m_ended = true;
+            if(this.m_welcomed){
+                this.m_connection.send(RemoteProtocol.createEnd(this.m_nextSeq));
+            }
+            if(!this.terminateCalledWithInterrupt()) {
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(this.m_closeTimeout);
+                while (this.m_ackedSeq < this.m_nextSeq && remainingNanos > 0) {
+                    try {
+                        remainingNanos = this.m_windowCondition.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException("No interrupt should happen at this point.", e);
+                    }
+                }
+            }
+            numDiscarded = this.m_nextSeq - this.m_ackedSeq;
+            this.m_closed = true;
+            connection = this.m_connection;
+            this.m_connection = null;
+            this.m_welcomed = false;
+            this.m_unacked.clear();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+        if(connection != null){
+            connection.close();
+        }
+        LOGGER.info("Remote stream \"" + this.m_streamName + "\" closed after sending " + this.m_nextSeq + " elements.");
+        if(numDiscarded > 0){
+            this.discarded(numDiscarded, this.terminateCalledWithInterrupt() ?
+                    FlightRecording.REASON_INTERRUPT : FlightRecording.REASON_UNACKNOWLEDGED);
+            LOGGER.warning("Remote stream \"" + this.m_streamName + "\": " + numDiscarded +
+                    " elements have not been acknowledged by the remote transmitter before closing.");
+        }
+    }
+
+    @Override
+    public String toString(){
+        return super.toString() + ", remote stream: " + this.m_streamName + " (" + this.m_host + ":" + this.m_port + ")";
+    }
+}
@@ -0,0 +1,331 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.remote;
+
+import gs.tf.core.AbstractTransmitterTask;
+import gs.tf.core.IllegalStatusException;
+import gs.tf.jfr.FlightRecording;
+import gs.utils.serialization.ElementSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+// Source of a sub-chain which forwards the elements sent by the RemoteReceiverTask with the same stream name (see
+// RemoteTransport.getInstanceName(...)), i.e., by the sink of a sub-chain running in another JVM. Listens on the
+// provided port while running (the port is shared with all other RemoteTransmitterTask instances of this JVM
+// listening on it). Received elements are deserialized by the I/O thread of the RemoteTransport and buffered until
+// forwarded, at most "window" elements are buffered (see RemoteReceiverTask). Forwarded elements are acknowledged as
+// soon as a quarter of the window has been forwarded or the buffer has been drained.
+// Note: Since elements are deserialized by the I/O thread shared by all instances, stateful serializers must not be
+// shared between instances. Elements are deserialized exactly once and in order (also across reconnects).
+public class RemoteTransmitterTask<DATA_OUT_TYPE> extends AbstractTransmitterTask<DATA_OUT_TYPE> {
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteTransmitterTask.class.getName());
+
+    private final ElementSerializer<? extends DATA_OUT_TYPE> m_serializer;
+    private final int m_port;
+    private final String m_streamName;
+    private final int m_window;
+    private final int m_ackInterval;
+    private final Stream m_stream;
+
+    // Reused for deserialization, I/O thread only
+    private final ArrayList<DATA_OUT_TYPE> m_received;
+
+    private final ReentrantLock LOCK;
+    // Access only via LOCK
+    private RemoteTransport.Connection m_connection;
+    private final ArrayDeque<DATA_OUT_TYPE> m_buffer;
+    // Sequence number of the next expected element (-1: nothing received yet)
+    private long m_nextSeq;
+    // Sequence number following the last forwarded (respectively acknowledged) element
+    private long m_forwardedSeq;
+    private long m_ackedSeq;
+    // Total number of elements announced via END (-1: not ended yet)
+    private long m_endSeq;
+
+    // I/O thread only
+    private final class Stream implements RemoteTransport.Handler {
+        @Override
+        public void connected(RemoteTransport.Connection connection) {
+            RemoteTransmitterTask<DATA_OUT_TYPE> task = RemoteTransmitterTask.this;
+            RemoteTransport.Connection oldConnection;
+            task.LOCK.lock();
+            try {
+                oldConnection = task.m_connection;
+                task.m_connection = connection;
+                connection.send(RemoteProtocol.createWelcome(task.m_nextSeq, task.m_window));
+                // Acknowledgements sent via the old connection might have been lost
+                if(task.m_nextSeq >= 0){
+                    task.sendAck();
+                }
+            }
+            finally {
+                task.LOCK.unlock();
+            }
+            if(oldConnection != null){
+                LOGGER.warning("Remote stream \"" + task.m_streamName + "\" reconnected, closing previous connection.");
+                oldConnection.close();
+            }
+            else {
+                LOGGER.info("Remote stream \"" + task.m_streamName + "\" connected from " + connection.getRemoteAddress() + ".");
+            }
+        }
+
+        @Override
+        public void received(RemoteTransport.Connection connection, byte type, ByteBuffer payload) {
+            RemoteTransmitterTask<DATA_OUT_TYPE> task = RemoteTransmitterTask.this;
+            switch (type) {
+                case RemoteProtocol.DATA: {
+                    task.receiveData(connection, payload);
+                    break;
+                }
+                case RemoteProtocol.END: {
+                    long endSeq = payload.getLong();
+                    task.LOCK.lock();
+                    try {
+                        if(connection == task.m_connection) {
+                            task.m_endSeq = endSeq;
+                            task.sendAck();
+                        }
+                    }
+                    finally {
+                        task.LOCK.unlock();
+                    }
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException("Unexpected message type: " + type);
+                }
+            }
+        }
+
+        @Override
+        public void closed(RemoteTransport.Connection connection, IOException cause) {
+            RemoteTransmitterTask<DATA_OUT_TYPE> task = RemoteTransmitterTask.this;
+            task.LOCK.lock();
+            try {
+                if(connection == task.m_connection){
+                    task.m_connection = null;
+                    if(task.m_endSeq < 0 || task.m_nextSeq < task.m_endSeq) {
+                        LOGGER.warning("Remote stream \"" + task.m_streamName + "\" disconnected" +
+                                (cause == null ? "." : ": " + cause.getMessage()));
+                    }
+                }
+            }
+            finally {
+                task.LOCK.unlock();
+            }
+        }
+    }
+
+    // window: Max number of received but not yet forwarded elements
+    public RemoteTransmitterTask(int maxDataChunkSize,
+                                 ElementSerializer<? extends DATA_OUT_TYPE> serializer,
+                                 int port,
+                                 String streamName,
+                                 int window) {
+        super(maxDataChunkSize);
+        if(serializer == null || streamName == null){
+            throw new NullPointerException();
+        }
+        if(port < 0 || port > 65535 || window < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_serializer = serializer;
+        this.m_port = port;
+        this.m_streamName = RemoteTransport.getInstanceName(streamName, true);
+        this.m_window = window;
+        this.m_ackInterval = Math.max(1, window / 4);
+        this.m_stream = new Stream();
+        this.m_received = new ArrayList<>();
+
+        this.LOCK = new ReentrantLock();
+        this.m_connection = null;
+        this.m_buffer = new ArrayDeque<>();
+        this.m_nextSeq = -1;
+        this.m_forwardedSeq = -1;
+        this.m_ackedSeq = -1;
+        this.m_endSeq = -1;
+    }
+
+    public final String getStreamName(){
+        return this.m_streamName;
+    }
+
+    // I/O thread only. Elements are deserialized outside of LOCK, which is possible since m_nextSeq is only modified
+    // by the I/O thread.
+    private void receiveData(RemoteTransport.Connection connection, ByteBuffer payload){
+        this.LOCK.lock();
+        try {
+            // Data of replaced (or closed) connections is ignored without deserializing it
+            if(connection != this.m_connection){
+                return;
+            }
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+        long firstSeq = payload.getLong();
+        int count = payload.getInt();
+        long nextSeq = this.m_nextSeq < 0 ? firstSeq : this.m_nextSeq;
+        if(firstSeq > nextSeq){
+            // The sender resends everything from nextSeq on after reconnecting
+            throw new IllegalStateException("Missing elements " + nextSeq + " to " + (firstSeq - 1) + ".");
+        }
+        int limit = payload.limit();
+        int length, end;
+        for(long seq = firstSeq; seq < firstSeq + count; seq++){
+            length = payload.getInt();
+            end = payload.position() + length;
+            if(length < 0 || end > limit){
+                throw new IllegalStateException("Malformed data message.");
+            }
+            // Duplicates (resent after reconnecting) are skipped
+            if(seq >= nextSeq) {
+                payload.limit(end);
+                this.m_received.add(this.m_serializer.deserialize(payload));
+                payload.limit(limit);
+            }
+            payload.position(end);
+        }
+
+        boolean signal;
+        this.LOCK.lock();
+        try {
+            if(connection != this.m_connection){
+                this.m_received.clear();
+                return;
+            }
+            if(this.m_nextSeq < 0){
+                this.m_forwardedSeq = firstSeq;
+                this.m_ackedSeq = firstSeq;
+            }
+            this.m_nextSeq = Math.max(nextSeq, firstSeq + count);
+            signal = this.m_buffer.isEmpty();
+            this.m_buffer.addAll(this.m_received);
+        }
+        finally {
+            this.LOCK.unlock();
+            this.m_received.clear();
+        }
+        if(signal){
+            this.signalWork();
+        }
+    }
+
+    // Access only via LOCK
+    private void sendAck(){
+        if(this.m_connection != null && this.m_forwardedSeq >= 0){
+            this.m_connection.send(RemoteProtocol.createAck(this.m_forwardedSeq));
+            this.m_ackedSeq = this.m_forwardedSeq;
+        }
+    }
+
+    @Override
+    protected void preWork() {
+        // IMPORTANT: Always call super.preWork() when overriding this method!
+        super.preWork();
+        try {
+            RemoteTransport.getInstance().listen(this.m_port, this.m_streamName, this.m_stream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Non blocking
+    @Override
+    protected Collection<DATA_OUT_TYPE> getNextDataChunk() {
+        this.LOCK.lock();
+        try {
+            int size = Math.min(this.getMaxDataChunkSize(), this.m_buffer.size());
+            if(size == 0){
+                return null;
+            }
+            List<DATA_OUT_TYPE> result = new ArrayList<>(size);
+            for(int i = 0; i < size; i++){
+                result.add(this.m_buffer.pollFirst());
+            }
+            this.m_forwardedSeq += size;
+            if(this.m_buffer.isEmpty() || this.m_forwardedSeq - this.m_ackedSeq >= this.m_ackInterval){
+                this.sendAck();
+            }
+            return result;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // New input always arrives via the RemoteTransport I/O thread which calls signalWork()
+    @Override
+    protected boolean isSignalledOnNewWork(){
+        return true;
+    }
+
+    // Forwards the remaining buffered elements (unless terminated with interrupt) and closes the connection.
+    // Elements arriving afterwards are not acknowledged (and hence considered discarded by the sender).
+    @Override
+    protected void postWork() {
+        super.postWork();
+        assert(this.terminateCalledWithInterrupt() != null);
+        RemoteTransport.getInstance().unlisten(this.m_port, this.m_streamName);
+        List<DATA_OUT_TYPE> remaining;
+        RemoteTransport.Connection connection;
+        boolean senderFinished;
+        this.LOCK.lock();
+        try {
+            remaining = new ArrayList<>(this.m_buffer);
+            this.m_buffer.clear();
+            if(!this.terminateCalledWithInterrupt()) {
+                this.m_forwardedSeq += remaining.size();
+                this.sendAck();
+            }
+            senderFinished = this.m_endSeq >= 0 && this.m_nextSeq >= this.m_endSeq;
+            connection = this.m_connection;
+            this.m_connection = null;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+        if(connection != null){
+            connection.close();
+        }
+
+        if(this.terminateCalledWithInterrupt()){
+            if(!remaining.isEmpty()){
+                this.discarded(remaining.size(), FlightRecording.REASON_INTERRUPT);
+                LOGGER.warning("Discarding " + remaining.size() + " received elements due to interrupt-termination.");
+            }
+        }
+        else {
+            for (int i = 0; i < remaining.size(); i += this.getMaxDataChunkSize()) {
+                try {
+                    this.forwardToReceiver(remaining.subList(i, Math.min(remaining.size(), i + this.getMaxDataChunkSize())));
+                } catch (InterruptedException | IllegalStatusException e) {
+                    throw new IllegalStateException("No interrupt should happen at this point.", e);
+                }
+            }
+        }
+        if(!senderFinished){
+            LOGGER.warning("Remote stream \"" + this.m_streamName + "\" terminated before the sender finished.");
+        }
+    }
+
+    @Override
+    public String toString(){
+        return super.toString() + ", remote stream: " + this.m_streamName + " (port: " + this.m_port + ")";
+    }
+}
@@ -0,0 +1,587 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.remote;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Process wide, non-blocking TCP transport for RemoteReceiverTask and RemoteTransmitterTask instances: All socket
+// operations (accepting, connecting, reading, writing) are performed by a single daemon I/O thread using a Selector.
+// A port is shared by all RemoteTransmitterTask instances listening on it, incoming connections are dispatched by
+// the stream name sent with the HELLO message. Handler callbacks are executed by the I/O thread and must not block.
+final class RemoteTransport implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteTransport.class.getName());
+
+    private static final int INITIAL_READ_BUFFER_SIZE = 1 << 16;
+    // Max number of queued messages written via a single (gathering) write
+    private static final int MAX_WRITE_BATCH = 64;
+
+    private static final ReentrantLock INSTANCE_LOCK = new ReentrantLock();
+    // Access only via INSTANCE_LOCK
+    private static RemoteTransport INSTANCE = null;
+    // Stream name -> number of created instances, for client and server side respectively (see getInstanceName(...))
+    private static final Map<String, Integer> CLIENT_INSTANCE_COUNTS = new HashMap<>();
+    private static final Map<String, Integer> SERVER_INSTANCE_COUNTS = new HashMap<>();
+
+    // I/O thread only
+    interface Handler {
+        // Called once the connection has been established (server side: once a valid HELLO has been received)
+        void connected(Connection connection);
+        // The payload starts after the message type and must not be retained
+        void received(Connection connection, byte type, ByteBuffer payload);
+        // Called exactly once per connection (also after connection failures and explicit close() calls)
+        void closed(Connection connection, IOException cause);
+    }
+
+    static final class Connection {
+        private final RemoteTransport m_transport;
+        private final SocketChannel m_channel;
+        // I/O thread only
+        private Handler m_handler;
+        private SelectionKey m_key;
+        private ByteBuffer m_readBuffer;
+        private ByteBuffer[] m_writeBatch;
+        private int m_writeBatchSize;
+        private boolean m_closed;
+
+        private final ConcurrentLinkedQueue<ByteBuffer> m_outbox;
+        // True while this connection is contained in the flush requests of the transport
+        private final AtomicBoolean m_flushRequested;
+        private volatile boolean m_closeRequested;
+
+        private Connection(RemoteTransport transport, SocketChannel channel, Handler handler){
+            this.m_transport = transport;
+            this.m_channel = channel;
+            this.m_handler = handler;
+            this.m_key = null;
+            this.m_readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+            this.m_writeBatch = new ByteBuffer[MAX_WRITE_BATCH];
+            this.m_writeBatchSize = 0;
+            this.m_closed = false;
+            this.m_outbox = new ConcurrentLinkedQueue<>();
+            this.m_flushRequested = new AtomicBoolean(false);
+            this.m_closeRequested = false;
+        }
+
+        // Any thread: Queues the provided message (which must not be modified anymore) for sending.
+        // Messages sent after this connection has been closed are silently dropped.
+        void send(ByteBuffer message){
+            this.m_outbox.add(message);
+            this.m_transport.requestFlush(this);
+        }
+
+        // Any thread: Closes this connection after trying to send the already queued messages
+        void close(){
+            this.m_closeRequested = true;
+            this.m_transport.requestFlush(this);
+        }
+
+        String getRemoteAddress(){
+            try {
+                return String.valueOf(this.m_channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "unknown";
+            }
+        }
+    }
+
+    // Shared by all RemoteTransmitterTask instances listening on the same port
+    private static final class Server {
+        private final ServerSocketChannel m_channel;
+        private final int m_port;
+        private final ConcurrentHashMap<String, Handler> m_streams;
+
+        private Server(ServerSocketChannel channel, int port){
+            this.m_channel = channel;
+            this.m_port = port;
+            this.m_streams = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Handles new server connections until a valid HELLO has been received
+    private final class HelloHandler implements Handler {
+        private final Server m_server;
+
+        private HelloHandler(Server server){
+            this.m_server = server;
+        }
+
+        @Override
+        public void connected(Connection connection) {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public void received(Connection connection, byte type, ByteBuffer payload) {
+            String streamName = type == RemoteProtocol.HELLO ? RemoteProtocol.readHello(payload) : null;
+            Handler streamHandler = streamName == null ? null : this.m_server.m_streams.get(streamName);
+            if(streamHandler == null){
+                LOGGER.warning("Rejecting connection from " + connection.getRemoteAddress() + " on port " +
+                        this.m_server.m_port + (streamName == null ?
+                        ": Invalid HELLO message." : ": Unknown stream \"" + streamName + "\"."));
+                RemoteTransport.this.closeConnection(connection, null);
+            }
+            else {
+                connection.m_handler = streamHandler;
+                streamHandler.connected(connection);
+            }
+        }
+
+        @Override
+        public void closed(Connection connection, IOException cause) {
+        }
+    }
+
+    private final Selector m_selector;
+    private final Thread m_thread;
+    private final ConcurrentLinkedQueue<Runnable> m_tasks;
+    private final ConcurrentLinkedQueue<Connection> m_flushRequests;
+
+    // Access only via SERVER_LOCK
+    private final ReentrantLock SERVER_LOCK;
+    private final Map<Integer, Server> m_servers;
+
+    // I/O thread only
+    private final List<ScheduledTask> m_scheduledTasks;
+
+    private static final class ScheduledTask {
+        private final long m_dueNanos;
+        private final Runnable m_runnable;
+
+        private ScheduledTask(long dueNanos, Runnable runnable){
+            this.m_dueNanos = dueNanos;
+            this.m_runnable = runnable;
+        }
+    }
+
+    private RemoteTransport() throws IOException {
+        this.m_selector = Selector.open();
+        this.m_tasks = new ConcurrentLinkedQueue<>();
+        this.m_flushRequests = new ConcurrentLinkedQueue<>();
+        this.SERVER_LOCK = new ReentrantLock();
+        this.m_servers = new HashMap<>();
+        this.m_scheduledTasks = new ArrayList<>();
+        this.m_thread = new Thread(this, "gs-tf-remote-transport");
+        this.m_thread.setDaemon(true);
+    }
+
+    static RemoteTransport getInstance(){
+        INSTANCE_LOCK.lock();
+        try {
+            if(INSTANCE == null){
+                try {
+                    INSTANCE = new RemoteTransport();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                INSTANCE.m_thread.start();
+            }
+            return INSTANCE;
+        }
+        finally {
+            INSTANCE_LOCK.unlock();
+        }
+    }
+
+    // Stream names may be reused by several instances (e.g., by all lanes of a multi task created via
+    // "reference_list"): The k-th instance created with a given name (counting from 0) is named "<name>#<k>". Since
+    // both sides count independently, the k-th client instance is connected to the k-th server instance.
+    static String getInstanceName(String streamName, boolean server){
+        if(streamName == null){
+            throw new NullPointerException();
+        }
+        Map<String, Integer> counts = server ? SERVER_INSTANCE_COUNTS : CLIENT_INSTANCE_COUNTS;
+        INSTANCE_LOCK.lock();
+        try {
+            Integer count = counts.get(streamName);
+            count = count == null ? 0 : count;
+            counts.put(streamName, count + 1);
+            return streamName + "#" + count;
+        }
+        finally {
+            INSTANCE_LOCK.unlock();
+        }
+    }
+
+    // Any thread: Binds the port (if not already bound by this transport) and dispatches incoming connections
+    // for the provided stream to the provided handler.
+    void listen(int port, String streamName, Handler handler) throws IOException {
+        if(streamName == null || handler == null){
+            throw new NullPointerException();
+        }
+        this.SERVER_LOCK.lock();
+        try {
+            Server server = this.m_servers.get(port);
+            if(server == null){
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                try {
+                    channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                    channel.bind(new InetSocketAddress(port));
+                    channel.configureBlocking(false);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+                final Server newServer = new Server(channel, port);
+                server = newServer;
+                this.m_servers.put(port, newServer);
+                this.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            newServer.m_channel.register(RemoteTransport.this.m_selector, SelectionKey.OP_ACCEPT, newServer);
+                        } catch (ClosedChannelException e) {
+                            // Closed via unlisten(...) in the meantime
+                        }
+                    }
+                });
+                LOGGER.info("Listening for remote streams on port " + port + ".");
+            }
+            if(server.m_streams.putIfAbsent(streamName, handler) != null){
+                throw new IllegalStateException("Stream \"" + streamName + "\" is already registered on port " + port + ".");
+            }
+        }
+        finally {
+            this.SERVER_LOCK.unlock();
+        }
+    }
+
+    // Any thread: New connections for the provided stream are rejected from now on, the port is released if this was
+    // the last stream registered for it. Already established connections are not affected.
+    void unlisten(int port, String streamName){
+        this.SERVER_LOCK.lock();
+        try {
+            Server server = this.m_servers.get(port);
+            if(server == null || server.m_streams.remove(streamName) == null){
+                throw new IllegalStateException("Stream \"" + streamName + "\" is not registered on port " + port + ".");
+            }
+            if(server.m_streams.isEmpty()){
+                this.m_servers.remove(port);
+                try {
+                    // Also cancels the selection key
+                    server.m_channel.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not close server socket on port " + port + ".", e);
+                }
+                this.m_selector.wakeup();
+                LOGGER.info("Stopped listening for remote streams on port " + port + ".");
+            }
+        }
+        finally {
+            this.SERVER_LOCK.unlock();
+        }
+    }
+
+    // Any thread: Opens a client connection, the handler is notified via connected(...) or closed(...).
+    Connection connect(String host, int port, Handler handler){
+        if(host == null || handler == null){
+            throw new NullPointerException();
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        final Connection connection = new Connection(this, channel, handler);
+        final InetSocketAddress address = new InetSocketAddress(host, port);
+        this.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    connection.m_channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    if(connection.m_channel.connect(address)){
+                        RemoteTransport.this.registerConnection(connection, SelectionKey.OP_READ);
+                        connection.m_handler.connected(connection);
+                    }
+                    else {
+                        RemoteTransport.this.registerConnection(connection, SelectionKey.OP_CONNECT);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    RemoteTransport.this.closeConnection(connection, e instanceof IOException ? (IOException) e : new IOException(e));
+                }
+            }
+        });
+        return connection;
+    }
+
+    // Any thread: Executes the provided runnable via the I/O thread
+    void execute(Runnable runnable){
+        this.m_tasks.add(runnable);
+        this.m_selector.wakeup();
+    }
+
+    // Any thread: Executes the provided runnable via the I/O thread after (at least) the provided delay
+    void schedule(final Runnable runnable, long delayMillis){
+        final long dueNanos = System.nanoTime() + delayMillis * 1000000L;
+        this.execute(new Runnable() {
+            @Override
+            public void run() {
+                RemoteTransport.this.m_scheduledTasks.add(new ScheduledTask(dueNanos, runnable));
+            }
+        });
+    }
+
+    private void requestFlush(Connection connection){
+        if(connection.m_flushRequested.compareAndSet(false, true)){
+            this.m_flushRequests.add(connection);
+            this.m_selector.wakeup();
+        }
+    }
+
+    private void registerConnection(Connection connection, int interestOps) throws ClosedChannelException {
+        connection.m_key = connection.m_channel.register(this.m_selector, interestOps, connection);
+    }
+
+    @Override
+    public void run() {
+        while(true){
+            try {
+                this.runTasks();
+                this.processFlushRequests();
+                long timeoutMillis = this.runScheduledTasks();
+                if(!this.m_tasks.isEmpty() || !this.m_flushRequests.isEmpty()){
+                    this.m_selector.selectNow();
+                }
+                else {
+                    this.m_selector.select(timeoutMillis);
+                }
+                Iterator<SelectionKey> iterator = this.m_selector.selectedKeys().iterator();
+                while(iterator.hasNext()){
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if(key.attachment() instanceof Server){
+                        this.accept((Server) key.attachment());
+                    }
+                    else {
+                        this.process((Connection) key.attachment(), key);
+                    }
+                }
+            } catch (Throwable e) {
+                // The I/O thread must survive failures of individual handlers
+                LOGGER.log(Level.SEVERE, "Unexpected exception in remote transport I/O thread.", e);
+            }
+        }
+    }
+
+    private void runTasks(){
+        Runnable task;
+        while((task = this.m_tasks.poll()) != null){
+            task.run();
+        }
+    }
+
+    // Returns the select timeout until the next scheduled task is due (0: no scheduled tasks)
+    private long runScheduledTasks(){
+        if(this.m_scheduledTasks.isEmpty()){
+            return 0;
+        }
+        long now = System.nanoTime();
+        long minRemaining = Long.MAX_VALUE;
+        List<ScheduledTask> due = null;
+        Iterator<ScheduledTask> iterator = this.m_scheduledTasks.iterator();
+        while(iterator.hasNext()){
+            ScheduledTask task = iterator.next();
+            long remaining = task.m_dueNanos - now;
+            if(remaining <= 0){
+                iterator.remove();
+                if(due == null){
+                    due = new ArrayList<>();
+                }
+                due.add(task);
+            }
+            else {
+                minRemaining = Math.min(minRemaining, remaining);
+            }
+        }
+        if(due != null){
+            for(ScheduledTask task : due){
+                task.m_runnable.run();
+            }
+            return 1;
+        }
+        return Math.max(1, minRemaining / 1000000L);
+    }
+
+    private void processFlushRequests(){
+        Connection connection;
+        while((connection = this.m_flushRequests.poll()) != null){
+            connection.m_flushRequested.set(false);
+            if(connection.m_closed){
+                connection.m_outbox.clear();
+            }
+            else if(connection.m_closeRequested){
+                // Best effort attempt to send the remaining messages first
+                this.flush(connection);
+                this.closeConnection(connection, null);
+            }
+            else {
+                this.flush(connection);
+            }
+        }
+    }
+
+    private void flush(Connection connection){
+        try {
+            // Otherwise flushed once connected
+            if(connection.m_key != null && (connection.m_key.interestOps() & SelectionKey.OP_CONNECT) == 0) {
+                this.write(connection);
+            }
+        } catch (IOException e) {
+            this.closeConnection(connection, e);
+        } catch (CancelledKeyException e) {
+            this.closeConnection(connection, null);
+        }
+    }
+
+    private void accept(Server server){
+        SocketChannel channel;
+        try {
+            while((channel = server.m_channel.accept()) != null){
+                Connection connection = new Connection(this, channel, new HelloHandler(server));
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    this.registerConnection(connection, SelectionKey.OP_READ);
+                } catch (IOException e) {
+                    this.closeConnection(connection, e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not accept connection on port " + server.m_port + ".", e);
+        }
+    }
+
+    private void process(Connection connection, SelectionKey key){
+        try {
+            if(key.isConnectable()){
+                connection.m_channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                connection.m_handler.connected(connection);
+                this.write(connection);
+            }
+            if(!connection.m_closed && key.isReadable()){
+                this.read(connection);
+            }
+            if(!connection.m_closed && key.isWritable()){
+                this.write(connection);
+            }
+        } catch (IOException e) {
+            this.closeConnection(connection, e);
+        } catch (CancelledKeyException e) {
+            this.closeConnection(connection, null);
+        } catch (RuntimeException e) {
+            // E.g., a handler failing to deserialize a received element
+            LOGGER.log(Level.SEVERE, "Closing connection to " + connection.getRemoteAddress() + " due to an unexpected exception.", e);
+            this.closeConnection(connection, new IOException(e));
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.m_readBuffer;
+        int numRead = connection.m_channel.read(buffer);
+        if(numRead < 0){
+            throw new IOException("Connection closed by peer.");
+        }
+        buffer.flip();
+        int length, limit;
+        while(!connection.m_closed && buffer.remaining() >= 4){
+            length = buffer.getInt(buffer.position());
+            if(length < 1 || length > RemoteProtocol.MAX_MESSAGE_LENGTH){
+                throw new IOException("Invalid message length: " + length);
+            }
+            if(buffer.remaining() - 4 < length){
+                if(length + 4 > buffer.capacity()){
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(length + 4, buffer.capacity() * 2));
+                    larger.put(buffer);
+                    larger.flip();
+                    connection.m_readBuffer = larger;
+                    buffer = larger;
+                }
+                break;
+            }
+            limit = buffer.limit();
+            buffer.position(buffer.position() + 4);
+            buffer.limit(buffer.position() + length);
+            byte type = buffer.get();
+            int end = buffer.limit();
+            connection.m_handler.received(connection, type, buffer);
+            buffer.limit(limit);
+            buffer.position(end);
+        }
+        buffer.compact();
+    }
+
+    private void write(Connection connection) throws IOException {
+        ByteBuffer[] batch = connection.m_writeBatch;
+        ByteBuffer message;
+        while(true) {
+            // Refill the batch (remaining buffers of previous partial writes come first)
+            while(connection.m_writeBatchSize < batch.length && (message = connection.m_outbox.poll()) != null){
+                batch[connection.m_writeBatchSize++] = message;
+            }
+            if(connection.m_writeBatchSize == 0){
+                break;
+            }
+            connection.m_channel.write(batch, 0, connection.m_writeBatchSize);
+            int numWritten = 0;
+            while(numWritten < connection.m_writeBatchSize && !batch[numWritten].hasRemaining()){
+                numWritten++;
+            }
+            if(numWritten > 0){
+                System.arraycopy(batch, numWritten, batch, 0, connection.m_writeBatchSize - numWritten);
+                for(int i = connection.m_writeBatchSize - numWritten; i < connection.m_writeBatchSize; i++){
+                    batch[i] = null;
+                }
+                connection.m_writeBatchSize -= numWritten;
+            }
+            if(connection.m_writeBatchSize > 0 && batch[0].hasRemaining() && numWritten == 0){
+                // Socket buffer full
+                connection.m_key.interestOps(connection.m_key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        connection.m_key.interestOps(connection.m_key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    private void closeConnection(Connection connection, IOException cause){
+        if(connection.m_closed){
+            return;
+        }
+        connection.m_closed = true;
+        connection.m_outbox.clear();
+        try {
+            connection.m_channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        connection.m_handler.closed(connection, cause);
+    }
+}
@@ -12,9 +12,11 @@ import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.logging.Logger;
 
 public class Concurrency {
 
+    private static final Logger LOGGER = Logger.getLogger(Concurrency.class.getName());
     private static final Map<String, Long> s_nextID_map;
 
     static {
@@ -61,6 +63,26 @@ public class Concurrency {
         return -1;
     }
 
+    // Returns a factory for virtual threads named namePrefix + counter or null if the running JVM
+    // does not support virtual threads (Java 21+). Resolved via reflection in order to keep the Java 8 target.
+    public static ThreadFactory createVirtualThreadFactory(String namePrefix){
+        if(namePrefix == null){
+            throw new NullPointerException();
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    public static boolean areVirtualThreadsSupported(){
+        return createVirtualThreadFactory("") != null;
+    }
+
     public interface ExceptionHandler {
         void handleException(Runnable r, Throwable t);
     }
@@ -112,6 +134,34 @@ public class Concurrency {
             return result;
         }
 
+        // Executes each task on a new virtual thread. Falls back to newCachedThreadPool(h)
+        // if the running JVM does not support virtual threads.
+        public static ExceptionHandlerThreadPoolExecutor newVirtualThreadPool(ExceptionHandler h){
+            ThreadFactory threadFactory = createVirtualThreadFactory("virtual-task-");
+            if(threadFactory == null){
+                LOGGER.warning("Virtual threads not supported by the running JVM. Falling back to platform threads.");
+                return newCachedThreadPool(h);
+            }
+
+            // Virtual threads are cheap to create and should not be pooled -> zero keep alive time
+            ExceptionHandlerThreadPoolExecutor result =
+                    new ExceptionHandlerThreadPoolExecutor(0, Integer.MAX_VALUE,
+                            0L, TimeUnit.SECONDS,
+                            new SynchronousQueue<>(),
+                            threadFactory);
+
+            result.setExceptionHandler(h);
+            return result;
+        }
+
+        public static ExceptionHandlerThreadPoolExecutor newVirtualThreadPoolExecutor(PrintStream out){
+            return newVirtualThreadPool(new PrintExceptionHandler(out));
+        }
+
+        public static ExceptionHandlerThreadPoolExecutor newVirtualThreadPoolExecutor(){
+            return newVirtualThreadPool(new PrintExceptionHandler(null));
+        }
+
         public static ExceptionHandlerThreadPoolExecutor newCachedThreadPoolExecutor(PrintStream out){
             return newCachedThreadPool(new PrintExceptionHandler(out));
         }
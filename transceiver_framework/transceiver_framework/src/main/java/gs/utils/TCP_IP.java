@@ -67,4 +67,8 @@ public class TCP_IP {
         }
     }
 
+    // Prints a free port (e.g., for shell scripts starting several JVMs which communicate via TCP)
+    public static void main(String[] args) {
+        System.out.println(findFreePort());
+    }
 }
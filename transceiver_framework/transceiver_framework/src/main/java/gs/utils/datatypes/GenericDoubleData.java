@@ -9,6 +9,9 @@
 package gs.utils.datatypes;
 
 public class GenericDoubleData extends GenericLabeledTimestampedData<Double> implements DoubleData {
+
+    private static final long serialVersionUID = -7932411390021573735L;
+
     public GenericDoubleData(long timestamp, String label, Double data) {
         super(timestamp, label, data);
     }
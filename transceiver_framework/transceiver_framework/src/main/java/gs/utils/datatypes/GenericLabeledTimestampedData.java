@@ -10,6 +10,8 @@ package gs.utils.datatypes;
 
 public class GenericLabeledTimestampedData<DATA_TYPE> extends GenericTimestampedData<DATA_TYPE> implements LabeledTimestampedData<DATA_TYPE> {
 
+    private static final long serialVersionUID = -6247015125204067057L;
+
     private final String m_label;
 
     protected GenericLabeledTimestampedData(long timestamp, String label, DATA_TYPE data) {
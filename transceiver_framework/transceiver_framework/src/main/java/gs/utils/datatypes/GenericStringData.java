@@ -9,6 +9,9 @@
 package gs.utils.datatypes;
 
 public class GenericStringData extends GenericLabeledTimestampedData<String> implements StringData {
+
+    private static final long serialVersionUID = -3804471806655669204L;
+
     public GenericStringData(long timestamp, String label, String data) {
         super(timestamp, label, data);
     }
@@ -8,7 +8,13 @@
  
 package gs.utils.datatypes;
 
-public class GenericTimeComparable implements TimeComparable {
+import java.io.Serializable;
+
+// Serializable for generic fallbacks (e.g., JavaElementSerializer), see gs.utils.serialization for compact codecs
+public class GenericTimeComparable implements TimeComparable, Serializable {
+
+    private static final long serialVersionUID = -3721485457580615784L;
+
     private final long m_timestamp;
 
     public GenericTimeComparable(long timestamp){
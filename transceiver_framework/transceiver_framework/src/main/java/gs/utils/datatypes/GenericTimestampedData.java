@@ -15,6 +15,8 @@ import java.util.concurrent.ConcurrentMap;
 
 public class GenericTimestampedData<DATA_TYPE> extends GenericTimeComparable implements TimestampedData<DATA_TYPE> {
 
+    private static final long serialVersionUID = 4144520294736634576L;
+
     private final DATA_TYPE m_data;
 
     private final ConcurrentMap<Object, Object> m_annotations;
@@ -0,0 +1,320 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded array based ring buffer. Subclasses implement the producer side (see offer(E)).
+// Consumers claim the consumer side via a single CAS on the consumer owner (released by an ordered store, see
+// claimConsumer()), so a single consumer never blocks and never parks. Concurrent consumers (e.g., a task draining the
+// queue of another task during termination) are serialized: They yield until the current owner released its claim.
+// Blocking operations spin once and then park with exponential backoff. Threads waiting on the other
+// side are unparked early. Nulls are not permitted. Iterators are snapshots and do not support remove().
+public abstract class AbstractRingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final long MIN_PARK_NANOS = 1000L;
+    private static final long MAX_PARK_NANOS = 100000L;
+
+    private final int m_capacity;
+    private final int m_mask;
+    final AtomicReferenceArray<E> m_buffer;
+    // Index of the next element to be consumed. Written only by the current consumer.
+    final AtomicLong m_consumerIndex;
+    // Thread currently consuming (null: none)
+    private final AtomicReference<Thread> m_consumer;
+
+    private final AtomicReference<Thread> m_notEmptyWaiter;
+    private final AtomicReference<Thread> m_notFullWaiter;
+
+    AbstractRingBlockingQueue(int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_capacity = capacity;
+        int bufferSize = 1;
+        while(bufferSize < capacity){
+            bufferSize <<= 1;
+            if(bufferSize <= 0){
+                throw new IllegalArgumentException("Capacity too large.");
+            }
+        }
+        this.m_mask = bufferSize - 1;
+        this.m_buffer = new AtomicReferenceArray<>(bufferSize);
+        this.m_consumerIndex = new AtomicLong(0);
+        this.m_consumer = new AtomicReference<>(null);
+        this.m_notEmptyWaiter = new AtomicReference<>(null);
+        this.m_notFullWaiter = new AtomicReference<>(null);
+    }
+
+    // Index of the next slot to be claimed by a producer. Note: May lag behind the consumer index
+    // (e.g., the SPSC producer publishes its index after the element, so the consumer may already have consumed
+    // the element while still observing the previous producer index).
+    abstract long getProducerIndex();
+
+    final int getCapacity(){
+        return this.m_capacity;
+    }
+
+    final int slot(long index){
+        return (int) (index & this.m_mask);
+    }
+
+    // Must be called by producers after an element has been inserted
+    final void signalNotEmpty(){
+        Thread waiter = this.m_notEmptyWaiter.get();
+        if(waiter != null){
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void signalNotFull(){
+        Thread waiter = this.m_notFullWaiter.get();
+        if(waiter != null){
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    // Must be paired with releaseConsumer() (not reentrant)
+    private void claimConsumer(){
+        Thread currentThread = Thread.currentThread();
+        while(!this.m_consumer.compareAndSet(null, currentThread)){
+            Thread.yield();
+        }
+    }
+
+    // Ordered store suffices: The next claiming CAS reads it (i.e., sees all writes of this consumer)
+    private void releaseConsumer(){
+        this.m_consumer.lazySet(null);
+    }
+
+    // Requires a consumer claim. Returns null if empty.
+    private E pollClaimed(){
+        long consumerIndex = this.m_consumerIndex.get();
+        int slot = this.slot(consumerIndex);
+        E result = this.m_buffer.get(slot);
+        if(result == null){
+            if(consumerIndex >= this.getProducerIndex()){
+                return null;
+            }
+            // Slot claimed by a producer which has not yet inserted its element
+            do {
+                Thread.yield();
+                result = this.m_buffer.get(slot);
+            } while(result == null);
+        }
+        this.m_buffer.lazySet(slot, null);
+        this.m_consumerIndex.lazySet(consumerIndex + 1);
+        return result;
+    }
+
+    @Override
+    public E poll() {
+        E result;
+        this.claimConsumer();
+        try {
+            result = this.pollClaimed();
+        }
+        finally {
+            this.releaseConsumer();
+        }
+        if(result != null){
+            this.signalNotFull();
+        }
+        return result;
+    }
+
+    @Override
+    public E peek() {
+        this.claimConsumer();
+        try {
+            long consumerIndex = this.m_consumerIndex.get();
+            if(consumerIndex >= this.getProducerIndex()){
+                return null;
+            }
+            int slot = this.slot(consumerIndex);
+            E result = this.m_buffer.get(slot);
+            while(result == null){
+                Thread.yield();
+                result = this.m_buffer.get(slot);
+            }
+            return result;
+        }
+        finally {
+            this.releaseConsumer();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return this.drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == null){
+            throw new NullPointerException();
+        }
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+
+        int result = 0;
+        E element;
+        this.claimConsumer();
+        try {
+            while(result < maxElements && (element = this.pollClaimed()) != null){
+                c.add(element);
+                result++;
+            }
+        }
+        finally {
+            this.releaseConsumer();
+        }
+        if(result > 0){
+            this.signalNotFull();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if(!this.offer(e)){
+            this.awaitOffer(e, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        return this.offer(e) || this.awaitOffer(e, unit.toNanos(timeout));
+    }
+
+    private boolean awaitOffer(E e, long timeoutNanos) throws InterruptedException {
+        final Thread currentThread = Thread.currentThread();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        long parkNanos = MIN_PARK_NANOS;
+        long remainingNanos = timeoutNanos;
+        try {
+            while (true) {
+                if(Thread.interrupted()){
+                    throw new InterruptedException();
+                }
+                this.m_notFullWaiter.set(currentThread);
+                if(this.offer(e)){
+                    return true;
+                }
+                if(timeoutNanos != Long.MAX_VALUE){
+                    remainingNanos = deadline - System.nanoTime();
+                    if(remainingNanos <= 0){
+                        return false;
+                    }
+                }
+                LockSupport.parkNanos(this, Math.min(parkNanos, remainingNanos));
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+        }
+        finally {
+            this.m_notFullWaiter.compareAndSet(currentThread, null);
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E result = this.poll();
+        return result != null ? result : this.awaitPoll(Long.MAX_VALUE);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E result = this.poll();
+        return result != null ? result : this.awaitPoll(unit.toNanos(timeout));
+    }
+
+    private E awaitPoll(long timeoutNanos) throws InterruptedException {
+        final Thread currentThread = Thread.currentThread();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        long parkNanos = MIN_PARK_NANOS;
+        long remainingNanos = timeoutNanos;
+        E result;
+        try {
+            while (true) {
+                if(Thread.interrupted()){
+                    throw new InterruptedException();
+                }
+                this.m_notEmptyWaiter.set(currentThread);
+                result = this.poll();
+                if(result != null){
+                    return result;
+                }
+                if(timeoutNanos != Long.MAX_VALUE){
+                    remainingNanos = deadline - System.nanoTime();
+                    if(remainingNanos <= 0){
+                        return null;
+                    }
+                }
+                LockSupport.parkNanos(this, Math.min(parkNanos, remainingNanos));
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+        }
+        finally {
+            this.m_notEmptyWaiter.compareAndSet(currentThread, null);
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    @Override
+    public int size() {
+        long consumerIndex, producerIndex;
+        do {
+            consumerIndex = this.m_consumerIndex.get();
+            producerIndex = this.getProducerIndex();
+        } while(consumerIndex != this.m_consumerIndex.get());
+        return (int) Math.max(0, Math.min(this.m_capacity, producerIndex - consumerIndex));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.m_consumerIndex.get() >= this.getProducerIndex();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return this.m_capacity - this.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>(this.size());
+        this.claimConsumer();
+        try {
+            long producerIndex = this.getProducerIndex();
+            E element;
+            for(long i = this.m_consumerIndex.get(); i < producerIndex; i++){
+                element = this.m_buffer.get(this.slot(i));
+                if(element != null) {
+                    snapshot.add(element);
+                }
+            }
+        }
+        finally {
+            this.releaseConsumer();
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+}
@@ -0,0 +1,72 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class BlockingQueues {
+
+    public enum QueueType {
+        // ArrayBlockingQueue with fair lock (default)
+        FAIR_ARRAY,
+        // ArrayBlockingQueue with non-fair lock
+        ARRAY,
+        LINKED,
+        // Lock-free, at most one producer at a time
+        SPSC_RING,
+        // Lock-free, arbitrary number of concurrent producers
+        MPSC_RING
+    }
+
+    public static final QueueType DEFAULT_QUEUE_TYPE = QueueType.FAIR_ARRAY;
+
+    private BlockingQueues(){}
+
+    // Returns true if queues of the provided type may be consumed by multiple threads concurrently
+    public static boolean isMultiConsumer(QueueType queueType){
+        if(queueType == null){
+            throw new NullPointerException();
+        }
+        return queueType != QueueType.SPSC_RING && queueType != QueueType.MPSC_RING;
+    }
+
+    // If capacity is null, an unbounded LinkedBlockingQueue is returned for the lock based queue types.
+    // Ring buffer based queue types require a capacity.
+    public static <E> BlockingQueue<E> create(QueueType queueType, Integer capacity){
+        if(queueType == null){
+            throw new NullPointerException();
+        }
+        if(capacity != null && capacity < 1){
+            throw new IllegalArgumentException();
+        }
+
+        switch(queueType){
+            case FAIR_ARRAY:
+                return capacity == null ? new LinkedBlockingQueue<E>() : new ArrayBlockingQueue<E>(capacity, true);
+            case ARRAY:
+                return capacity == null ? new LinkedBlockingQueue<E>() : new ArrayBlockingQueue<E>(capacity, false);
+            case LINKED:
+                return capacity == null ? new LinkedBlockingQueue<E>() : new LinkedBlockingQueue<E>(capacity);
+            case SPSC_RING:
+                if(capacity == null){
+                    throw new IllegalArgumentException("Queue type " + queueType + " requires a capacity.");
+                }
+                return new SPSCRingBlockingQueue<>(capacity);
+            case MPSC_RING:
+                if(capacity == null){
+                    throw new IllegalArgumentException("Queue type " + queueType + " requires a capacity.");
+                }
+                return new MPSCRingBlockingQueue<>(capacity);
+            default:
+                throw new IllegalStateException("Unknown queue type: " + queueType);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free ring buffer for multiple concurrent producers: Producers claim slots via compare-and-set.
+public class MPSCRingBlockingQueue<E> extends AbstractRingBlockingQueue<E> {
+
+    private final AtomicLong m_producerIndex;
+
+    public MPSCRingBlockingQueue(int capacity) {
+        super(capacity);
+        this.m_producerIndex = new AtomicLong(0);
+    }
+
+    @Override
+    long getProducerIndex() {
+        return this.m_producerIndex.get();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        long producerIndex;
+        do {
+            producerIndex = this.m_producerIndex.get();
+            if(producerIndex - this.m_consumerIndex.get() >= this.getCapacity()){
+                return false;
+            }
+        } while(!this.m_producerIndex.compareAndSet(producerIndex, producerIndex + 1));
+
+        this.m_buffer.lazySet(this.slot(producerIndex), e);
+        this.signalNotEmpty();
+        return true;
+    }
+}
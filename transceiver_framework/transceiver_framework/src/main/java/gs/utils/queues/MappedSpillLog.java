@@ -0,0 +1,253 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import gs.utils.serialization.ElementSerializer;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.logging.Logger;
+
+// FIFO log of serialized elements in memory-mapped segment files on local disk (records: int length + serialized element).
+// Writes go to the last segment, a new segment is started once a record does not fit anymore. Fully consumed segments
+// are deleted, except for the last one which is reused once the log is empty (see clear()). Segment files are only
+// valid during the lifetime of the log, i.e., they are not recovered after a restart.
+// Not thread safe: Access must be serialized (see SpillingBlockingQueue).
+final class MappedSpillLog<E> {
+
+    private static final Logger LOGGER = Logger.getLogger(MappedSpillLog.class.getName());
+    private static final int INITIAL_RECORD_BUFFER_SIZE = 256;
+    private static final int LENGTH_BYTES = 4;
+    private static final int RESERVE_BUFFER_SIZE = 64 * 1024;
+
+    private static final class Segment {
+        private final Path m_path;
+        private final MappedByteBuffer m_buffer;
+        private int m_writePosition;
+        private int m_readPosition;
+
+        private Segment(Path path, MappedByteBuffer buffer){
+            this.m_path = path;
+            this.m_buffer = buffer;
+            this.m_writePosition = 0;
+            this.m_readPosition = 0;
+        }
+    }
+
+    private final ElementSerializer<E> m_serializer;
+    private final Path m_directory;
+    private final int m_segmentSize;
+    private final long m_maxBytes;
+    // First: Segment currently read, last: Segment currently written
+    private final ArrayDeque<Segment> m_segments;
+    // Elements are serialized here first (their size is not known in advance)
+    private ByteBuffer m_recordBuffer;
+    private long m_numElements;
+    // Bytes of all records not consumed yet
+    private long m_numBytes;
+
+    MappedSpillLog(ElementSerializer<E> serializer, Path directory, int segmentSize, long maxBytes){
+        if(serializer == null || directory == null){
+            throw new NullPointerException();
+        }
+        if(segmentSize <= LENGTH_BYTES || maxBytes < 0){
+            throw new IllegalArgumentException();
+        }
+        this.m_serializer = serializer;
+        this.m_directory = directory;
+        this.m_segmentSize = segmentSize;
+        this.m_maxBytes = maxBytes;
+        this.m_segments = new ArrayDeque<>();
+        this.m_recordBuffer = ByteBuffer.allocate(INITIAL_RECORD_BUFFER_SIZE);
+        this.m_numElements = 0;
+        this.m_numBytes = 0;
+    }
+
+    long size(){
+        return this.m_numElements;
+    }
+
+    boolean isEmpty(){
+        return this.m_numElements == 0;
+    }
+
+    long getNumBytes(){
+        return this.m_numBytes;
+    }
+
+    boolean isFull(){
+        return this.m_numBytes >= this.m_maxBytes;
+    }
+
+    // Returns false if the record would exceed the max. number of bytes or if no new segment could be created.
+    boolean append(E element){
+        ByteBuffer record = this.serialize(element);
+        long recordSize = (long) LENGTH_BYTES + record.remaining();
+        if(this.m_numBytes + recordSize > this.m_maxBytes){
+            return false;
+        }
+
+        Segment segment = this.m_segments.peekLast();
+        if(segment == null || segment.m_buffer.capacity() - segment.m_writePosition < recordSize){
+            if(recordSize > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("Serialized element too large.");
+            }
+            segment = this.createSegment((int) Math.max(this.m_segmentSize, recordSize));
+            if(segment == null){
+                return false;
+            }
+            this.m_segments.addLast(segment);
+        }
+
+        MappedByteBuffer buffer = segment.m_buffer;
+        try {
+            buffer.putInt(segment.m_writePosition, record.remaining());
+            buffer.position(segment.m_writePosition + LENGTH_BYTES);
+            buffer.put(record);
+        }
+        catch(InternalError e){
+            // Fault upon accessing the mapping (e.g., the segment file has been truncated). The record is not added.
+            LOGGER.warning("Could not write to spill segment " + segment.m_path + ": " + e);
+            return false;
+        }
+        segment.m_writePosition += (int) recordSize;
+        this.m_numElements++;
+        this.m_numBytes += recordSize;
+        return true;
+    }
+
+    // Returns null if empty
+    E remove(){
+        if(this.m_numElements == 0){
+            return null;
+        }
+        Segment segment = this.m_segments.peekFirst();
+        // Segments are only created for a record, consumed segments are deleted or reset: The first segment holds a record
+        assert(segment.m_readPosition < segment.m_writePosition);
+
+        MappedByteBuffer buffer = segment.m_buffer;
+        int length = buffer.getInt(segment.m_readPosition);
+        int start = segment.m_readPosition + LENGTH_BYTES;
+        E result;
+        buffer.limit(start + length);
+        buffer.position(start);
+        try {
+            result = this.m_serializer.deserialize(buffer);
+        }
+        finally {
+            buffer.limit(buffer.capacity());
+        }
+        if(result == null){
+            throw new IllegalStateException("Serializer returned null.");
+        }
+
+        segment.m_readPosition = start + length;
+        this.m_numElements--;
+        this.m_numBytes -= LENGTH_BYTES + length;
+        if(segment.m_readPosition == segment.m_writePosition){
+            if(this.m_segments.size() > 1) {
+                this.m_segments.removeFirst();
+                this.deleteSegment(segment);
+            }
+            else{
+                // Reused for the next records (avoids re-creating a segment for each spill episode)
+                assert(this.m_numElements == 0);
+                segment.m_readPosition = 0;
+                segment.m_writePosition = 0;
+            }
+        }
+        return result;
+    }
+
+    // Discards all elements without deserializing them and deletes all segment files
+    void clear(){
+        Segment segment;
+        while((segment = this.m_segments.pollFirst()) != null){
+            this.deleteSegment(segment);
+        }
+        this.m_numElements = 0;
+        this.m_numBytes = 0;
+    }
+
+    // Returns the record buffer (flipped) containing the serialized element
+    private ByteBuffer serialize(E element){
+        while(true) {
+            this.m_recordBuffer.clear();
+            try {
+                this.m_serializer.serialize(element, this.m_recordBuffer);
+                this.m_recordBuffer.flip();
+                return this.m_recordBuffer;
+            }
+            catch(BufferOverflowException e){
+                if(this.m_recordBuffer.capacity() > Integer.MAX_VALUE / 2){
+                    throw new IllegalArgumentException("Serialized element too large.", e);
+                }
+                this.m_recordBuffer = ByteBuffer.allocate(this.m_recordBuffer.capacity() * 2);
+            }
+        }
+    }
+
+    // Returns null if the segment could not be created (e.g., disk full)
+    private Segment createSegment(int size){
+        Path path = null;
+        try {
+            Files.createDirectories(this.m_directory);
+            path = Files.createTempFile(this.m_directory, "spill-", ".seg");
+            // The mapping remains valid after the channel has been closed
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                reserve(channel, size);
+                return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+        catch(IOException e){
+            LOGGER.warning("Could not create spill segment in " + this.m_directory + ": " + e);
+            if(path != null){
+                try {
+                    Files.deleteIfExists(path);
+                }
+                catch(IOException e2){
+                    LOGGER.warning("Could not delete spill segment " + path + ": " + e2);
+                }
+            }
+            return null;
+        }
+    }
+
+    // Allocates the disk space of the segment by writing zeros: Writing to a mapping of a sparse file fails with SIGBUS
+    // (i.e., an InternalError) instead of an IOException if the disk is full.
+    private static void reserve(FileChannel channel, int size) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(Math.min(size, RESERVE_BUFFER_SIZE));
+        long position = 0;
+        while(position < size){
+            zeros.clear();
+            if(size - position < zeros.capacity()){
+                zeros.limit((int) (size - position));
+            }
+            position += channel.write(zeros, position);
+        }
+        channel.force(false);
+    }
+
+    // The mapping itself is released once the buffer has been garbage collected
+    private void deleteSegment(Segment segment){
+        try {
+            Files.deleteIfExists(segment.m_path);
+        }
+        catch(IOException e){
+            LOGGER.warning("Could not delete spill segment " + segment.m_path + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free ring buffer for a single producer: Concurrent producers are NOT permitted
+// (consecutive producers must be ordered by some happens-before relation, e.g., a common lock).
+public class SPSCRingBlockingQueue<E> extends AbstractRingBlockingQueue<E> {
+
+    private final AtomicLong m_producerIndex;
+    // Producer's (possibly outdated) view of the consumer index - avoids reading the
+    // consumer's cache line on every insertion. No volatile required - only accessed by the producer.
+    private long m_cachedConsumerIndex;
+
+    public SPSCRingBlockingQueue(int capacity) {
+        super(capacity);
+        this.m_producerIndex = new AtomicLong(0);
+        this.m_cachedConsumerIndex = 0;
+    }
+
+    @Override
+    long getProducerIndex() {
+        return this.m_producerIndex.get();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        long producerIndex = this.m_producerIndex.get();
+        if(producerIndex - this.m_cachedConsumerIndex >= this.getCapacity()){
+            this.m_cachedConsumerIndex = this.m_consumerIndex.get();
+            if(producerIndex - this.m_cachedConsumerIndex >= this.getCapacity()){
+                return false;
+            }
+        }
+        this.m_buffer.lazySet(this.slot(producerIndex), e);
+        this.m_producerIndex.lazySet(producerIndex + 1);
+        this.signalNotEmpty();
+        return true;
+    }
+}
@@ -0,0 +1,297 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import gs.utils.serialization.ElementSerializer;
+
+import java.nio.file.Path;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+// Bounded in-memory ring buffer which spills elements exceeding its capacity to a memory-mapped, segmented log on local
+// disk (see MappedSpillLog) instead of rejecting them. Once elements have been spilled, all subsequent elements are
+// spilled as well until the consumer has replayed the log, i.e., the FIFO order is retained.
+// Insertion only fails (or blocks) if the spilled data would exceed maxSpillBytes or if no new segment could be created.
+// All operations are serialized via a single lock (as in ArrayBlockingQueue). Nulls are not permitted.
+// Iteration is not supported (spilled elements are only accessible by consuming them).
+public class SpillingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final Logger LOGGER = Logger.getLogger(SpillingBlockingQueue.class.getName());
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final int m_capacity;
+    private final Path m_spillDirectory;
+    private final ReentrantLock LOCK;
+    private final Condition m_notEmptyCondition;
+    private final Condition m_notFullCondition;
+    // Access only via LOCK. Elements in m_memory are always older than those in m_log.
+    private final ArrayDeque<E> m_memory;
+    private final MappedSpillLog<E> m_log;
+
+    // capacity: Max. number of elements held in memory
+    public SpillingBlockingQueue(int capacity, ElementSerializer<E> serializer, Path spillDirectory,
+                                 int segmentSize, long maxSpillBytes){
+        if(capacity < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_capacity = capacity;
+        this.m_spillDirectory = spillDirectory;
+        this.m_log = new MappedSpillLog<>(serializer, spillDirectory, segmentSize, maxSpillBytes);
+        this.m_memory = new ArrayDeque<>(capacity);
+        this.LOCK = new ReentrantLock();
+        this.m_notEmptyCondition = this.LOCK.newCondition();
+        this.m_notFullCondition = this.LOCK.newCondition();
+    }
+
+    // Requires LOCK
+    private boolean offerLocked(E e){
+        if(this.m_log.isEmpty() && this.m_memory.size() < this.m_capacity){
+            this.m_memory.addLast(e);
+        }
+        else{
+            boolean firstSpilled = this.m_log.isEmpty();
+            if(!this.m_log.append(e)){
+                return false;
+            }
+            if(firstSpilled){
+                LOGGER.fine("Queue capacity of " + this.m_capacity + " exceeded: Spilling elements to " + this.m_spillDirectory + ".");
+            }
+        }
+        this.m_notEmptyCondition.signal();
+        return true;
+    }
+
+    // Requires LOCK. Returns null if empty.
+    private E pollLocked(){
+        E result = this.m_memory.pollFirst();
+        if(result == null && (result = this.m_log.remove()) != null && this.m_log.isEmpty()){
+            LOGGER.fine("Spilled elements in " + this.m_spillDirectory + " have been replayed.");
+        }
+        if(result != null){
+            this.m_notFullCondition.signal();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        this.LOCK.lock();
+        try {
+            return this.offerLocked(e);
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        this.offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        long remainingNanos = unit.toNanos(timeout);
+        this.LOCK.lockInterruptibly();
+        try {
+            while(!this.offerLocked(e)){
+                if(remainingNanos <= 0){
+                    return false;
+                }
+                remainingNanos = this.m_notFullCondition.awaitNanos(remainingNanos);
+            }
+            return true;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        this.LOCK.lock();
+        try {
+            return this.pollLocked();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return this.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        this.LOCK.lockInterruptibly();
+        try {
+            E result;
+            while((result = this.pollLocked()) == null){
+                if(remainingNanos <= 0){
+                    return null;
+                }
+                remainingNanos = this.m_notEmptyCondition.awaitNanos(remainingNanos);
+            }
+            return result;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Deserializes the oldest spilled element if no element is held in memory.
+    @Override
+    public E peek() {
+        this.LOCK.lock();
+        try {
+            E result = this.m_memory.peekFirst();
+            if(result == null && !this.m_log.isEmpty()){
+                // Move the oldest spilled element to memory (its successors remain spilled, i.e., the order is retained)
+                result = this.m_log.remove();
+                this.m_memory.addLast(result);
+            }
+            return result;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return this.drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == null){
+            throw new NullPointerException();
+        }
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        int result = 0;
+        E element;
+        this.LOCK.lock();
+        try {
+            while(result < maxElements && (element = this.pollLocked()) != null){
+                c.add(element);
+                result++;
+            }
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+        return result;
+    }
+
+    // Discards all elements (spilled ones without deserializing them) and deletes the spill segment files.
+    // The latter are otherwise retained while the queue is empty (for subsequent spilling).
+    @Override
+    public void clear() {
+        this.LOCK.lock();
+        try {
+            this.m_memory.clear();
+            this.m_log.clear();
+            this.m_notFullCondition.signal();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    @Override
+    public int size() {
+        this.LOCK.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, this.m_memory.size() + this.m_log.size());
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        this.LOCK.lock();
+        try {
+            return this.m_memory.isEmpty() && this.m_log.isEmpty();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // The number of further elements which can be spilled depends on their serialized size:
+    // Integer.MAX_VALUE as long as the spill log is not full.
+    @Override
+    public int remainingCapacity() {
+        this.LOCK.lock();
+        try {
+            if(!this.m_log.isFull()){
+                return Integer.MAX_VALUE;
+            }
+            return this.m_log.isEmpty() ? this.m_capacity - this.m_memory.size() : 0;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    public long getNumSpilledElements(){
+        this.LOCK.lock();
+        try {
+            return this.m_log.size();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    public long getNumSpilledBytes(){
+        this.LOCK.lock();
+        try {
+            return this.m_log.getNumBytes();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException("Spilled elements can only be accessed by consuming them.");
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[capacity=" + this.m_capacity + ", size=" + this.size() +
+                ", spilled elements=" + this.getNumSpilledElements() + ", spilled bytes=" + this.getNumSpilledBytes() + "]";
+    }
+}
@@ -0,0 +1,275 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded queue whose capacity is measured in the total weight of its elements (e.g., the number of data elements of
+// queued chunks) instead of their number. An element is accepted if its weight fits into the remaining capacity or
+// if the queue is empty (i.e., a single element may exceed the capacity, which prevents elements heavier than the
+// capacity from blocking forever). remainingCapacity() is measured in weight as well.
+// All operations are serialized via a single lock (as in ArrayBlockingQueue). Nulls are not permitted.
+// Iteration works on a snapshot.
+public class WeightedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    public interface Weigher<E> {
+        // Must be non-negative and constant for the same element
+        int getWeight(E element);
+    }
+
+    private final int m_capacity;
+    private final Weigher<? super E> m_weigher;
+    private final ReentrantLock LOCK;
+    private final Condition m_notEmptyCondition;
+    private final Condition m_notFullCondition;
+    // Access only via LOCK
+    private final ArrayDeque<E> m_elements;
+    private long m_weight;
+
+    // capacity: Max. total weight of the queued elements
+    public WeightedBlockingQueue(int capacity, Weigher<? super E> weigher){
+        if(weigher == null){
+            throw new NullPointerException();
+        }
+        if(capacity < 1){
+            throw new IllegalArgumentException();
+        }
+        this.m_capacity = capacity;
+        this.m_weigher = weigher;
+        this.LOCK = new ReentrantLock();
+        this.m_notEmptyCondition = this.LOCK.newCondition();
+        this.m_notFullCondition = this.LOCK.newCondition();
+        this.m_elements = new ArrayDeque<>();
+        this.m_weight = 0;
+    }
+
+    private int getWeight(E e){
+        int result = this.m_weigher.getWeight(e);
+        if(result < 0){
+            throw new IllegalArgumentException("Negative weight: " + result);
+        }
+        return result;
+    }
+
+    // Requires LOCK
+    private boolean offerLocked(E e, int weight){
+        if(!this.m_elements.isEmpty() && this.m_weight + weight > this.m_capacity){
+            return false;
+        }
+        this.m_elements.addLast(e);
+        this.m_weight += weight;
+        this.m_notEmptyCondition.signal();
+        return true;
+    }
+
+    // Requires LOCK. Returns null if empty.
+    private E pollLocked(){
+        E result = this.m_elements.pollFirst();
+        if(result != null){
+            this.m_weight -= this.getWeight(result);
+            // Freed weight might suffice for several waiting producers
+            this.m_notFullCondition.signalAll();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        int weight = this.getWeight(e);
+        this.LOCK.lock();
+        try {
+            return this.offerLocked(e, weight);
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        this.offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if(e == null){
+            throw new NullPointerException();
+        }
+        int weight = this.getWeight(e);
+        long remainingNanos = unit.toNanos(timeout);
+        this.LOCK.lockInterruptibly();
+        try {
+            while(!this.offerLocked(e, weight)){
+                if(remainingNanos <= 0){
+                    return false;
+                }
+                remainingNanos = this.m_notFullCondition.awaitNanos(remainingNanos);
+            }
+            return true;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        this.LOCK.lock();
+        try {
+            return this.pollLocked();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return this.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        this.LOCK.lockInterruptibly();
+        try {
+            E result;
+            while((result = this.pollLocked()) == null){
+                if(remainingNanos <= 0){
+                    return null;
+                }
+                remainingNanos = this.m_notEmptyCondition.awaitNanos(remainingNanos);
+            }
+            return result;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        this.LOCK.lock();
+        try {
+            return this.m_elements.peekFirst();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return this.drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == null){
+            throw new NullPointerException();
+        }
+        if(c == this){
+            throw new IllegalArgumentException();
+        }
+        int result = 0;
+        E element;
+        this.LOCK.lock();
+        try {
+            while(result < maxElements && (element = this.pollLocked()) != null){
+                c.add(element);
+                result++;
+            }
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        this.LOCK.lock();
+        try {
+            this.m_elements.clear();
+            this.m_weight = 0;
+            this.m_notFullCondition.signalAll();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    @Override
+    public int size() {
+        this.LOCK.lock();
+        try {
+            return this.m_elements.size();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    // Note: Result is immediately outdated.
+    public long getWeight() {
+        this.LOCK.lock();
+        try {
+            return this.m_weight;
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    public int getCapacity(){
+        return this.m_capacity;
+    }
+
+    // Measured in weight. Note: Result is immediately outdated.
+    @Override
+    public int remainingCapacity() {
+        this.LOCK.lock();
+        try {
+            return (int) Math.max(0, this.m_capacity - this.m_weight);
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        this.LOCK.lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(this.m_elements)).iterator();
+        }
+        finally {
+            this.LOCK.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[capacity=" + this.m_capacity + ", size=" + this.size() +
+                ", weight=" + this.getWeight() + "]";
+    }
+}
@@ -0,0 +1,237 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import gs.utils.datatypes.LabeledTimestampedData;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+// Compact binary codec for LabeledTimestampedData (without reflection, subclasses encode the data value).
+// Single element (see serialize(...)): byte flags, zigzag varint timestamp, label (see CompactCoding.putString(...)),
+// value, [annotations]. Single elements are encoded without state, i.e., they may be deserialized in any order.
+// Batch (see serializeBatch(...)): varint number of elements, per element: byte flags, zigzag varint timestamp delta
+// (w.r.t. the previous element of the batch, the first one w.r.t. 0), label (new labels: string, otherwise the varint
+// index of the label within the batch's label dictionary, i.e., in order of first occurrence), value, [annotations].
+// Annotations: varint number, per annotation: key string, byte type, value. Only annotations with String keys and
+// String, Long, Integer, Double or Boolean values are encoded, others (e.g., process local latency traces) are dropped.
+public abstract class AbstractLabeledTimestampedDataSerializer<DATA_TYPE, ELEMENT_TYPE extends LabeledTimestampedData<DATA_TYPE>>
+        implements BatchSerializer<ELEMENT_TYPE> {
+
+    private static final byte FLAG_ANNOTATIONS = 1;
+    private static final byte FLAG_NEW_LABEL = 2;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+
+    // Reused (cleared per element respectively batch), instances are not thread safe
+    private final HashMap<String, Integer> m_labelIndices;
+    private final ArrayList<String> m_labels;
+    // Alternating keys and values of the encodable annotations of the current element
+    private final ArrayList<Object> m_annotations;
+
+    protected AbstractLabeledTimestampedDataSerializer(){
+        this.m_labelIndices = new HashMap<>();
+        this.m_labels = new ArrayList<>();
+        this.m_annotations = new ArrayList<>();
+    }
+
+    // Writes the (non-null) value at the buffer's position
+    protected abstract void writeValue(DATA_TYPE value, ByteBuffer buffer);
+
+    protected abstract DATA_TYPE readValue(ByteBuffer buffer);
+
+    protected abstract ELEMENT_TYPE create(long timestamp, String label, DATA_TYPE value);
+
+    @Override
+    public void serialize(ELEMENT_TYPE element, ByteBuffer buffer) {
+        boolean annotated = this.collectAnnotations(element);
+        buffer.put(annotated ? FLAG_ANNOTATIONS : 0);
+        CompactCoding.putZigZagLong(element.getTimestamp(), buffer);
+        CompactCoding.putString(element.getLabel(), buffer);
+        this.writeValue(element.getData(), buffer);
+        if(annotated){
+            this.writeAnnotations(buffer);
+        }
+    }
+
+    @Override
+    public ELEMENT_TYPE deserialize(ByteBuffer buffer) {
+        byte flags = buffer.get();
+        long timestamp = CompactCoding.getZigZagLong(buffer);
+        String label = CompactCoding.getString(buffer);
+        ELEMENT_TYPE result = this.create(timestamp, label, this.readValue(buffer));
+        if((flags & FLAG_ANNOTATIONS) != 0){
+            this.readAnnotations(buffer, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void serializeBatch(List<? extends ELEMENT_TYPE> elements, int fromIndex, int toIndex, ByteBuffer buffer) {
+        if(fromIndex < 0 || toIndex > elements.size() || fromIndex > toIndex){
+            throw new IndexOutOfBoundsException();
+        }
+        this.m_labelIndices.clear();
+        try {
+            CompactCoding.putVarInt(toIndex - fromIndex, buffer);
+            long previousTimestamp = 0;
+            ELEMENT_TYPE element;
+            Integer labelIndex;
+            boolean annotated;
+            for (int i = fromIndex; i < toIndex; i++) {
+                element = elements.get(i);
+                labelIndex = this.m_labelIndices.get(element.getLabel());
+                annotated = this.collectAnnotations(element);
+                buffer.put((byte) ((annotated ? FLAG_ANNOTATIONS : 0) | (labelIndex == null ? FLAG_NEW_LABEL : 0)));
+                CompactCoding.putZigZagLong(element.getTimestamp() - previousTimestamp, buffer);
+                previousTimestamp = element.getTimestamp();
+                if (labelIndex == null) {
+                    this.m_labelIndices.put(element.getLabel(), this.m_labelIndices.size());
+                    CompactCoding.putString(element.getLabel(), buffer);
+                } else {
+                    CompactCoding.putVarInt(labelIndex, buffer);
+                }
+                this.writeValue(element.getData(), buffer);
+                if (annotated) {
+                    this.writeAnnotations(buffer);
+                }
+            }
+        }
+        finally {
+            this.m_labelIndices.clear();
+        }
+    }
+
+    @Override
+    public int deserializeBatch(ByteBuffer buffer, Collection<? super ELEMENT_TYPE> result) {
+        int count = CompactCoding.getVarInt(buffer);
+        this.m_labels.clear();
+        try {
+            long timestamp = 0;
+            byte flags;
+            String label;
+            int labelIndex;
+            ELEMENT_TYPE element;
+            for (int i = 0; i < count; i++) {
+                flags = buffer.get();
+                timestamp += CompactCoding.getZigZagLong(buffer);
+                if ((flags & FLAG_NEW_LABEL) != 0) {
+                    label = CompactCoding.getString(buffer);
+                    this.m_labels.add(label);
+                } else {
+                    labelIndex = CompactCoding.getVarInt(buffer);
+                    if (labelIndex >= this.m_labels.size()) {
+                        throw new IllegalStateException("Malformed label index: " + labelIndex);
+                    }
+                    label = this.m_labels.get(labelIndex);
+                }
+                element = this.create(timestamp, label, this.readValue(buffer));
+                if ((flags & FLAG_ANNOTATIONS) != 0) {
+                    this.readAnnotations(buffer, element);
+                }
+                result.add(element);
+            }
+        }
+        finally {
+            this.m_labels.clear();
+        }
+        return count;
+    }
+
+    // Returns true if the element has at least one encodable annotation (which are stored in m_annotations)
+    private boolean collectAnnotations(ELEMENT_TYPE element){
+        this.m_annotations.clear();
+        Object value;
+        for(Object key : element.getAnnotationKeys()){
+            if(key instanceof String) {
+                value = element.getAnnotation(key);
+                if (value instanceof String || value instanceof Long || value instanceof Integer ||
+                        value instanceof Double || value instanceof Boolean) {
+                    this.m_annotations.add(key);
+                    this.m_annotations.add(value);
+                }
+            }
+        }
+        return !this.m_annotations.isEmpty();
+    }
+
+    private void writeAnnotations(ByteBuffer buffer){
+        CompactCoding.putVarInt(this.m_annotations.size() / 2, buffer);
+        Object value;
+        for(int i = 0; i < this.m_annotations.size(); i += 2){
+            CompactCoding.putString((String) this.m_annotations.get(i), buffer);
+            value = this.m_annotations.get(i + 1);
+            if(value instanceof String){
+                buffer.put(TYPE_STRING);
+                CompactCoding.putString((String) value, buffer);
+            }
+            else if(value instanceof Long){
+                buffer.put(TYPE_LONG);
+                CompactCoding.putZigZagLong((Long) value, buffer);
+            }
+            else if(value instanceof Integer){
+                buffer.put(TYPE_INTEGER);
+                CompactCoding.putZigZagLong((Integer) value, buffer);
+            }
+            else if(value instanceof Double){
+                buffer.put(TYPE_DOUBLE);
+                buffer.putDouble((Double) value);
+            }
+            else {
+                buffer.put(TYPE_BOOLEAN);
+                buffer.put((byte) ((Boolean) value ? 1 : 0));
+            }
+        }
+        this.m_annotations.clear();
+    }
+
+    private void readAnnotations(ByteBuffer buffer, ELEMENT_TYPE element){
+        int count = CompactCoding.getVarInt(buffer);
+        String key;
+        Object value;
+        byte type;
+        for(int i = 0; i < count; i++){
+            key = CompactCoding.getString(buffer);
+            type = buffer.get();
+            switch (type) {
+                case TYPE_STRING: {
+                    value = CompactCoding.getString(buffer);
+                    break;
+                }
+                case TYPE_LONG: {
+                    value = CompactCoding.getZigZagLong(buffer);
+                    break;
+                }
+                case TYPE_INTEGER: {
+                    value = (int) CompactCoding.getZigZagLong(buffer);
+                    break;
+                }
+                case TYPE_DOUBLE: {
+                    value = buffer.getDouble();
+                    break;
+                }
+                case TYPE_BOOLEAN: {
+                    value = buffer.get() != 0;
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException("Malformed annotation type: " + type);
+                }
+            }
+            element.addAnnotation(key, value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+
+// ElementSerializer which additionally supports encoding whole batches of elements as one self-contained unit,
+// allowing for a more compact representation (e.g., state shared across the elements of a batch). Batches may be
+// decoded in any order and by any instance of the same implementation, the per element methods are unaffected.
+public interface BatchSerializer<E> extends ElementSerializer<E> {
+
+    // Writes elements [fromIndex, toIndex) at the buffer's position and advances the latter.
+    // Throws a BufferOverflowException if the remaining buffer space is too small: The caller retries the whole batch
+    // with a larger buffer (the buffer's position is undefined in this case).
+    void serializeBatch(List<? extends E> elements, int fromIndex, int toIndex, ByteBuffer buffer);
+
+    // Reads a batch written by serializeBatch(...) from the buffer's position, adds its elements (in order) to the
+    // provided collection and returns their number. The results must not refer to the buffer.
+    int deserializeBatch(ByteBuffer buffer, Collection<? super E> result);
+}
@@ -0,0 +1,108 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Primitives of the compact binary format (see AbstractLabeledTimestampedDataSerializer): Unsigned LEB128 varints,
+// zigzag encoding for signed values (small absolute values result in short varints) and length prefixed UTF-8 strings.
+// As with any ByteBuffer access, writing throws a BufferOverflowException if the remaining buffer space is too small.
+// Reading throws an IllegalStateException upon malformed input.
+public final class CompactCoding {
+
+    private CompactCoding(){
+    }
+
+    public static void putVarLong(long value, ByteBuffer buffer){
+        while((value & ~0x7FL) != 0){
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarLong(ByteBuffer buffer){
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if(shift > 63){
+                throw new IllegalStateException("Malformed varint.");
+            }
+            b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return result;
+    }
+
+    // Non-negative values only
+    public static void putVarInt(int value, ByteBuffer buffer){
+        if(value < 0){
+            throw new IllegalArgumentException();
+        }
+        putVarLong(value, buffer);
+    }
+
+    public static int getVarInt(ByteBuffer buffer){
+        long result = getVarLong(buffer);
+        if(result > Integer.MAX_VALUE){
+            throw new IllegalStateException("Malformed varint.");
+        }
+        return (int) result;
+    }
+
+    public static void putZigZagLong(long value, ByteBuffer buffer){
+        putVarLong((value << 1) ^ (value >> 63), buffer);
+    }
+
+    public static long getZigZagLong(ByteBuffer buffer){
+        long value = getVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Varint byte length followed by the UTF-8 bytes. Pure ASCII strings are written without intermediate copy.
+    public static void putString(String value, ByteBuffer buffer){
+        int length = value.length();
+        int i = 0;
+        while(i < length && value.charAt(i) < 0x80){
+            i++;
+        }
+        if(i == length){
+            putVarInt(length, buffer);
+            for(i = 0; i < length; i++){
+                buffer.put((byte) value.charAt(i));
+            }
+        }
+        else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length, buffer);
+            buffer.put(bytes);
+        }
+    }
+
+    public static String getString(ByteBuffer buffer){
+        int length = getVarInt(buffer);
+        if(length > buffer.remaining()){
+            throw new IllegalStateException("Malformed string length: " + length);
+        }
+        String result;
+        if(buffer.hasArray()){
+            result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import gs.utils.datatypes.DoubleData;
+import gs.utils.datatypes.GenericDoubleData;
+
+import java.nio.ByteBuffer;
+
+// Values are written in raw IEEE 754 format (8 bytes)
+public class DoubleDataSerializer extends AbstractLabeledTimestampedDataSerializer<Double, DoubleData> {
+
+    @Override
+    protected void writeValue(Double value, ByteBuffer buffer) {
+        buffer.putDouble(value);
+    }
+
+    @Override
+    protected Double readValue(ByteBuffer buffer) {
+        return buffer.getDouble();
+    }
+
+    @Override
+    protected DoubleData create(long timestamp, String label, Double value) {
+        return new GenericDoubleData(timestamp, label, value);
+    }
+}
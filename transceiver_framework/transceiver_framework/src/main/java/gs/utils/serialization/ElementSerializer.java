@@ -0,0 +1,25 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import java.nio.ByteBuffer;
+
+// Binary (de-)serialization of single elements, e.g., for spilling queues to disk.
+// Implementations may be stateful as long as elements are deserialized in the order they were serialized
+// (by the same instance). Instances are not required to be thread safe.
+public interface ElementSerializer<E> {
+
+    // Writes element at the buffer's position and advances the latter.
+    // Throws a BufferOverflowException if the remaining buffer space is too small: The caller retries with a larger buffer.
+    void serialize(E element, ByteBuffer buffer);
+
+    // Reads an element written by serialize(...) from the buffer's position, the buffer's limit marks the end of
+    // the serialized element. The result must not refer to the buffer (which may be reused or unmapped afterwards).
+    E deserialize(ByteBuffer buffer);
+}
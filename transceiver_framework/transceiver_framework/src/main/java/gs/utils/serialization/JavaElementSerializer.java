@@ -0,0 +1,53 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+// Fallback serializer based on Java serialization: Works for any Serializable element, but is slow and verbose
+// (each element is written as separate object stream).
+public class JavaElementSerializer<E extends Serializable> implements ElementSerializer<E> {
+
+    private final Class<E> m_elementClass;
+
+    public JavaElementSerializer(Class<E> elementClass){
+        if(elementClass == null){
+            throw new NullPointerException();
+        }
+        this.m_elementClass = elementClass;
+    }
+
+    @Override
+    public void serialize(E element, ByteBuffer buffer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(element);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        buffer.put(bytes.toByteArray());
+    }
+
+    @Override
+    public E deserialize(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return this.m_elementClass.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
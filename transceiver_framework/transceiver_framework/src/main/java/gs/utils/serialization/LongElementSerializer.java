@@ -0,0 +1,25 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+
+package gs.utils.serialization;
+
+import java.nio.ByteBuffer;
+
+public class LongElementSerializer implements ElementSerializer<Long> {
+
+    @Override
+    public void serialize(Long element, ByteBuffer buffer) {
+        buffer.putLong(element);
+    }
+
+    @Override
+    public Long deserialize(ByteBuffer buffer) {
+        return buffer.getLong();
+    }
+}
@@ -0,0 +1,33 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.serialization;
+
+import gs.utils.datatypes.GenericStringData;
+import gs.utils.datatypes.StringData;
+
+import java.nio.ByteBuffer;
+
+// Values are written as length prefixed UTF-8 (see CompactCoding.putString(...))
+public class StringDataSerializer extends AbstractLabeledTimestampedDataSerializer<String, StringData> {
+
+    @Override
+    protected void writeValue(String value, ByteBuffer buffer) {
+        CompactCoding.putString(value, buffer);
+    }
+
+    @Override
+    protected String readValue(ByteBuffer buffer) {
+        return CompactCoding.getString(buffer);
+    }
+
+    @Override
+    protected StringData create(long timestamp, String label, String value) {
+        return new GenericStringData(timestamp, label, value);
+    }
+}
@@ -0,0 +1,103 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.Concurrency;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CooperativeTaskExecutorTest {
+
+    private static final int NUM_ROUNDS = 200;
+
+    private static CooperativeTaskExecutor createExecutor(int numWorkers){
+        return new CooperativeTaskExecutor(numWorkers, 64, 10000L, 10000000L,
+                new Concurrency.PrintExceptionHandler(null));
+    }
+
+    // Regression: A worker must not consume the WAKE_UP of another worker (which then blocks forever)
+    @Test
+    public void shutdownWithoutWorkTerminates() throws InterruptedException {
+        CooperativeTaskExecutor executor;
+        for(int i = 0; i < NUM_ROUNDS; i++){
+            executor = createExecutor(2 + i % 7);
+            executor.shutdown();
+            assertTrue("Round " + i, executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shutdownAfterWorkTerminates() throws InterruptedException {
+        CooperativeTaskExecutor executor;
+        final AtomicInteger counter = new AtomicInteger(0);
+        Runnable increment = new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+        for(int i = 0; i < NUM_ROUNDS; i++){
+            executor = createExecutor(2 + i % 7);
+            for(int j = 0; j < 16; j++){
+                executor.execute(increment);
+            }
+            executor.shutdown();
+            assertTrue("Round " + i, executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(16 * NUM_ROUNDS, counter.get());
+    }
+
+    // Blocked workers are compensated by at most maxSpareWorkers spare workers
+    @Test
+    public void spareWorkersAreCapped() throws InterruptedException {
+        final int maxSpareWorkers = 2;
+        final int numBlocking = 5;
+        CooperativeTaskExecutor executor = new CooperativeTaskExecutor(1, 64, 10000L, 10000000L, maxSpareWorkers,
+                new Concurrency.PrintExceptionHandler(null));
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger numEntered = new AtomicInteger(0);
+        final AtomicInteger numFinished = new AtomicInteger(0);
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                CooperativeTaskExecutor.beginBlocking();
+                numEntered.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                numFinished.incrementAndGet();
+            }
+        };
+        for(int i = 0; i < numBlocking; i++){
+            executor.execute(blocking);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while(numEntered.get() < 1 + maxSpareWorkers && System.nanoTime() < deadline){
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(1 + maxSpareWorkers, numEntered.get());
+        assertEquals(maxSpareWorkers, executor.getNumSpareWorkers());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(numBlocking, numFinished.get());
+    }
+}
@@ -0,0 +1,192 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import gs.utils.Concurrency;
+import gs.utils.datatypes.GenericTimeComparable;
+import gs.utils.datatypes.TimeComparable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GenericSyncMuxMultiReceiverTaskTest {
+
+    private static final int MAX_DATA_CHUNK_SIZE = 4;
+    private static final long AWAIT_TIMEOUT_MILLIS = 10000L;
+
+    // Forwards the elements added via add(...) in order
+    private static class ScriptedTransmitterTask extends AbstractTransmitterTask<TimeComparable> {
+
+        private final Queue<TimeComparable> m_pending;
+
+        ScriptedTransmitterTask() {
+            super(MAX_DATA_CHUNK_SIZE);
+            this.m_pending = new ConcurrentLinkedQueue<>();
+        }
+
+        void add(TimeComparable... elements){
+            this.m_pending.addAll(Arrays.asList(elements));
+            this.signalWork();
+        }
+
+        @Override
+        protected Collection<TimeComparable> getNextDataChunk() {
+            List<TimeComparable> result = new ArrayList<>(MAX_DATA_CHUNK_SIZE);
+            TimeComparable element;
+            while(result.size() < MAX_DATA_CHUNK_SIZE && (element = this.m_pending.poll()) != null){
+                result.add(element);
+            }
+            return result;
+        }
+    }
+
+    // Records the received data elements' timestamps and watermarks ("W" + timestamp) in arrival order
+    private static class RecordingTargetReceiverTask extends GenericMuxMultiReceiverTask.AbstractTargetReceiverTask<TimeComparable> {
+
+        private final List<String> m_received;
+
+        RecordingTargetReceiverTask(int numMuxTransmitters) {
+            super(null, null, numMuxTransmitters);
+            this.m_received = Collections.synchronizedList(new ArrayList<String>());
+        }
+
+        @Override
+        protected void processDataElementFromMux(int muxIndex, TimeComparable dataElement) {
+            this.m_received.add(Long.toString(dataElement.getTimestamp()));
+        }
+
+        @Override
+        protected void processWatermarkFromMux(TimeComparable watermark) {
+            this.m_received.add("W" + watermark.getTimestamp());
+        }
+
+        List<String> getReceived(){
+            synchronized (this.m_received) {
+                return new ArrayList<>(this.m_received);
+            }
+        }
+
+        void awaitReceived(int numReceived) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+            while(this.m_received.size() < numReceived && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static TimeComparable[] data(long... timestamps){
+        TimeComparable[] result = new TimeComparable[timestamps.length];
+        for(int i = 0; i < timestamps.length; i++){
+            result[i] = new GenericTimeComparable(timestamps[i]);
+        }
+        return result;
+    }
+
+    private static TimeComparable watermark(long timestamp){
+        return new TimestampWatermark<>(timestamp);
+    }
+
+    private static ClosedMultiTaskChain createChain(List<ScriptedTransmitterTask> sources,
+                                                    GenericSyncMuxMultiReceiverTask<TimeComparable> syncMux,
+                                                    ExecutorService executorService) throws UnacceptedConcurrentTaskException {
+        GenericMultiTransmitterTask<TimeComparable, ScriptedTransmitterTask> transmitters =
+                new GenericMultiTransmitterTask<>(sources, executorService);
+        Map<MultiTask<?>, Collection<MultiTask<?>>> multiTaskConnectionDAG = new HashMap<>();
+        multiTaskConnectionDAG.put(transmitters, Collections.<MultiTask<?>>singletonList(syncMux));
+        return new GenericClosedMultiTaskChain(Arrays.<MultiTask<?>>asList(transmitters, syncMux),
+                multiTaskConnectionDAG, executorService);
+    }
+
+    private static GenericSyncMuxMultiReceiverTask<TimeComparable> createSyncMux(RecordingTargetReceiverTask targetReceiver,
+                                                                                 int numInputs,
+                                                                                 ExecutorService executorService){
+        // Inputs are never discarded, fixed seed for reproducible tie breaking
+        return new GenericSyncMuxMultiReceiverTask<>(targetReceiver, numInputs, MAX_DATA_CHUNK_SIZE, null, null,
+                executorService, Long.MAX_VALUE, 42L);
+    }
+
+    private static void terminate(ClosedMultiTaskChain chain, ExecutorService executorService) throws Exception {
+        chain.terminate(false);
+        chain.terminated().join();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    // An input without data holds back all other inputs until it provides a watermark. The minimum watermark over
+    // all inputs is forwarded after the data elements preceding it.
+    @Test
+    public void idleInputAdvancesViaWatermarks() throws Exception {
+        ExecutorService executorService = Concurrency.ExceptionHandlerThreadPoolExecutor.newCachedThreadPoolExecutor();
+        List<ScriptedTransmitterTask> sources = Arrays.asList(new ScriptedTransmitterTask(), new ScriptedTransmitterTask());
+        RecordingTargetReceiverTask targetReceiver = new RecordingTargetReceiverTask(sources.size());
+        ClosedMultiTaskChain chain = createChain(sources, createSyncMux(targetReceiver, sources.size(), executorService),
+                executorService);
+        executorService.submit(chain);
+        chain.started().join();
+
+        sources.get(0).add(data(1, 2, 3));
+        Thread.sleep(200);
+        assertEquals(Collections.<String>emptyList(), targetReceiver.getReceived());
+
+        sources.get(1).add(watermark(10));
+        targetReceiver.awaitReceived(3);
+        assertEquals(Arrays.asList("1", "2", "3"), targetReceiver.getReceived());
+
+        sources.get(0).add(watermark(5));
+        targetReceiver.awaitReceived(4);
+        sources.get(1).add(data(11));
+        sources.get(0).add(data(12));
+        targetReceiver.awaitReceived(5);
+        assertEquals(Arrays.asList("1", "2", "3", "W5", "11"), targetReceiver.getReceived());
+
+        terminate(chain, executorService);
+        assertEquals(Arrays.asList("1", "2", "3", "W5", "11", "12"), targetReceiver.getReceived());
+    }
+
+    // Elements out of order by at most the max. out-of-orderness are reordered, later elements are dropped.
+    // Watermarks release held back elements.
+    @Test
+    public void boundedOutOfOrderness() throws Exception {
+        ExecutorService executorService = Concurrency.ExceptionHandlerThreadPoolExecutor.newCachedThreadPoolExecutor();
+        List<ScriptedTransmitterTask> sources = Collections.singletonList(new ScriptedTransmitterTask());
+        RecordingTargetReceiverTask targetReceiver = new RecordingTargetReceiverTask(sources.size());
+        GenericSyncMuxMultiReceiverTask<TimeComparable> syncMux = createSyncMux(targetReceiver, sources.size(), executorService);
+        syncMux.setMaxOutOfOrderness(2);
+        ClosedMultiTaskChain chain = createChain(sources, syncMux, executorService);
+        executorService.submit(chain);
+        chain.started().join();
+
+        sources.get(0).add(data(3, 1, 2, 6, 4, 5, 9, 7, 8, 0));
+        targetReceiver.awaitReceived(7);
+        Thread.sleep(200);
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7"), targetReceiver.getReceived());
+        assertEquals(1, syncMux.getNumDroppedLateElements());
+
+        sources.get(0).add(watermark(10));
+        targetReceiver.awaitReceived(10);
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "W10"), targetReceiver.getReceived());
+
+        terminate(chain, executorService);
+        assertEquals(1, syncMux.getNumDroppedLateElements());
+    }
+}
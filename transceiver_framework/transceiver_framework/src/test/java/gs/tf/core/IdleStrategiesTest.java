@@ -0,0 +1,57 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+public class IdleStrategiesTest {
+
+    private static final long PARK_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MAX_WAKE_UP_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    // Parks immediately
+    private static IdleStrategies.BackoffIdleStrategy createBackoff(){
+        return new IdleStrategies.BackoffIdleStrategy(0, 0, PARK_NANOS, PARK_NANOS);
+    }
+
+    // Regression: A signal arriving before the thread parks must not be lost
+    @Test
+    public void backoffSignalBeforeParkIsNotLost(){
+        IdleStrategies.BackoffIdleStrategy idleStrategy = createBackoff();
+        idleStrategy.signal();
+        long startNanos = System.nanoTime();
+        idleStrategy.idle();
+        assertTrue(System.nanoTime() - startNanos < MAX_WAKE_UP_NANOS);
+    }
+
+    @Test
+    public void backoffSignalWakesUpParkedThread() throws InterruptedException {
+        final IdleStrategies.BackoffIdleStrategy idleStrategy = createBackoff();
+        Thread signaller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                idleStrategy.signal();
+            }
+        });
+        long startNanos = System.nanoTime();
+        signaller.start();
+        idleStrategy.idle();
+        assertTrue(System.nanoTime() - startNanos < MAX_WAKE_UP_NANOS);
+        signaller.join();
+    }
+}
@@ -0,0 +1,54 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.tf.core;
+
+import org.junit.Test;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class PartitionersTest {
+
+    private static final int NUM_PARTITIONS = 16;
+
+    private static final Partitioner.PartitionLoad LOAD = new Partitioner.PartitionLoad() {
+        @Override
+        public int getNumPartitions() {
+            return NUM_PARTITIONS;
+        }
+
+        @Override
+        public int getQueueSize(int partition) {
+            return 0;
+        }
+    };
+
+    // Regression: Copies (as used by the demux sources) must keep the key extraction
+    @Test
+    public void keyHashPartitionerCopyKeepsKeyExtractor(){
+        Partitioner<String> partitioner = new Partitioners.KeyHashPartitioner<>(new Function<String, Object>() {
+            @Override
+            public Object apply(String dataElement) {
+                return dataElement.substring(0, 1);
+            }
+        });
+        Partitioner<String> copy = partitioner.copy();
+        for(int i = 0; i < 100; i++){
+            assertEquals(copy.partition("k", LOAD), copy.partition("k" + i, LOAD));
+            assertEquals(partitioner.partition("k" + i, LOAD), copy.partition("k" + i, LOAD));
+        }
+    }
+
+    @Test
+    public void keyHashPartitionerDefaultsToElementKey(){
+        Partitioner<String> copy = new Partitioners.KeyHashPartitioner<String>().copy();
+        assertEquals(Math.floorMod("key".hashCode() ^ ("key".hashCode() >>> 16), NUM_PARTITIONS), copy.partition("key", LOAD));
+    }
+}
@@ -0,0 +1,224 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBlockingQueueTest {
+
+    private static final int CAPACITY = 4;
+    private static final int NUM_ELEMENTS = 50000;
+    private static final long TIMEOUT_MILLIS = 50;
+
+    // Elements are encoded as producer * NUM_ELEMENTS + sequence number
+    private static Thread startProducer(final BlockingQueue<Integer> queue, final int producer){
+        Thread result = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for(int i = 0; i < NUM_ELEMENTS; i++){
+                        // Alternates between blocking and timed insertions
+                        if(i % 2 == 0){
+                            queue.put(producer * NUM_ELEMENTS + i);
+                        }
+                        else {
+                            while(!queue.offer(producer * NUM_ELEMENTS + i, 1, TimeUnit.MILLISECONDS)){
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        result.start();
+        return result;
+    }
+
+    // Consumes all elements of numProducers producers (alternating between take(), timed poll() and drainTo(...))
+    // and checks that each producer's elements arrive completely and in order
+    private static void consumeAll(BlockingQueue<Integer> queue, int numProducers) throws InterruptedException {
+        int[] nextSequenceNumbers = new int[numProducers];
+        List<Integer> batch = new ArrayList<>();
+        Integer element;
+        int numConsumed = 0;
+        while(numConsumed < numProducers * NUM_ELEMENTS){
+            switch(numConsumed % 3){
+                case 0:
+                    batch.add(queue.take());
+                    break;
+                case 1:
+                    element = queue.poll(1, TimeUnit.MILLISECONDS);
+                    if(element != null){
+                        batch.add(element);
+                    }
+                    break;
+                default:
+                    if(queue.drainTo(batch, CAPACITY - 1) == 0){
+                        batch.add(queue.take());
+                    }
+            }
+            for(int value : batch){
+                assertEquals(nextSequenceNumbers[value / NUM_ELEMENTS]++, value % NUM_ELEMENTS);
+            }
+            numConsumed += batch.size();
+            batch.clear();
+        }
+        for(int i = 0; i < numProducers; i++){
+            assertEquals(NUM_ELEMENTS, nextSequenceNumbers[i]);
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void spscTransfersAllElementsInOrder() throws InterruptedException {
+        BlockingQueue<Integer> queue = new SPSCRingBlockingQueue<>(CAPACITY);
+        Thread producer = startProducer(queue, 0);
+        consumeAll(queue, 1);
+        producer.join();
+    }
+
+    @Test
+    public void mpscTransfersAllElementsInProducerOrder() throws InterruptedException {
+        int numProducers = 4;
+        BlockingQueue<Integer> queue = new MPSCRingBlockingQueue<>(CAPACITY);
+        List<Thread> producers = new ArrayList<>();
+        for(int i = 0; i < numProducers; i++){
+            producers.add(startProducer(queue, i));
+        }
+        consumeAll(queue, numProducers);
+        for(Thread producer : producers){
+            producer.join();
+        }
+    }
+
+    @Test
+    public void timedOperationsTimeOut() throws InterruptedException {
+        List<BlockingQueue<Integer>> queues = new ArrayList<>();
+        queues.add(new SPSCRingBlockingQueue<Integer>(CAPACITY));
+        queues.add(new MPSCRingBlockingQueue<Integer>(CAPACITY));
+        long startNanos;
+        for(BlockingQueue<Integer> queue : queues){
+            startNanos = System.nanoTime();
+            assertNull(queue.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS));
+
+            for(int i = 0; i < CAPACITY; i++){
+                assertTrue(queue.offer(i));
+            }
+            assertEquals(0, queue.remainingCapacity());
+            startNanos = System.nanoTime();
+            assertFalse(queue.offer(CAPACITY, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS));
+
+            List<Integer> drained = new ArrayList<>();
+            assertEquals(CAPACITY, queue.drainTo(drained));
+            assertEquals(0, (int) drained.get(0));
+            assertEquals(CAPACITY - 1, (int) drained.get(CAPACITY - 1));
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    // Blocked producers and consumers are woken up by the other side
+    @Test
+    public void blockedOperationsResume() throws InterruptedException {
+        final BlockingQueue<Integer> queue = new SPSCRingBlockingQueue<>(1);
+        final AtomicInteger taken = new AtomicInteger(-1);
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(queue.take());
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        consumer.start();
+        Thread.sleep(TIMEOUT_MILLIS);
+        queue.put(1);
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(1, taken.get());
+
+        queue.put(2);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.put(3);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        producer.start();
+        Thread.sleep(TIMEOUT_MILLIS);
+        assertEquals(2, (int) queue.take());
+        producer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(producer.isAlive());
+        assertEquals(3, (int) queue.take());
+    }
+
+    // Concurrent consumers (e.g., a drain during termination) are serialized: Each element is consumed exactly once
+    @Test
+    public void concurrentConsumersConsumeEachElementOnce() throws InterruptedException {
+        final BlockingQueue<Integer> queue = new SPSCRingBlockingQueue<>(CAPACITY);
+        final AtomicReferenceArray<Integer> consumed = new AtomicReferenceArray<>(NUM_ELEMENTS);
+        final AtomicInteger numConsumed = new AtomicInteger(0);
+        List<Thread> consumers = new ArrayList<>();
+        for(int i = 0; i < 2; i++){
+            final boolean draining = i == 0;
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    List<Integer> batch = new ArrayList<>();
+                    Integer element;
+                    while(numConsumed.get() < NUM_ELEMENTS){
+                        if(draining){
+                            queue.drainTo(batch);
+                        }
+                        else if((element = queue.poll()) != null){
+                            batch.add(element);
+                        }
+                        for(int value : batch){
+                            assertNull(consumed.getAndSet(value, value));
+                        }
+                        numConsumed.addAndGet(batch.size());
+                        batch.clear();
+                    }
+                }
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+        Thread producer = startProducer(queue, 0);
+        producer.join();
+        for(Thread consumer : consumers){
+            consumer.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(consumer.isAlive());
+        }
+        assertEquals(NUM_ELEMENTS, numConsumed.get());
+        for(int i = 0; i < NUM_ELEMENTS; i++){
+            assertEquals(i, (int) consumed.get(i));
+        }
+    }
+}
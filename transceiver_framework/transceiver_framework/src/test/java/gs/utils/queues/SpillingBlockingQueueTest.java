@@ -0,0 +1,136 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import gs.utils.serialization.LongElementSerializer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpillingBlockingQueueTest {
+
+    private static final int CAPACITY = 8;
+    // 8 records (int length + long) per segment
+    private static final int SEGMENT_SIZE = 8 * 12;
+
+    private Path m_directory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.m_directory = Files.createTempDirectory("spilling-queue-test-");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.m_directory)) {
+            for(Path path : paths){
+                Files.delete(path);
+            }
+        }
+        Files.delete(this.m_directory);
+    }
+
+    private SpillingBlockingQueue<Long> createQueue(Path spillDirectory, long maxSpillBytes){
+        return new SpillingBlockingQueue<>(CAPACITY, new LongElementSerializer(), spillDirectory, SEGMENT_SIZE, maxSpillBytes);
+    }
+
+    private int countSegmentFiles() throws IOException {
+        int result = 0;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.m_directory, "spill-*.seg")) {
+            for(Path path : paths){
+                // Disk space is reserved upon creation
+                assertEquals(SEGMENT_SIZE, Files.size(path));
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void spillAndReplayRetainsOrder() throws IOException {
+        SpillingBlockingQueue<Long> queue = this.createQueue(this.m_directory, Long.MAX_VALUE);
+        int numElements = 1000;
+        for(long i = 0; i < numElements; i++){
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(numElements, queue.size());
+        assertEquals(numElements - CAPACITY, queue.getNumSpilledElements());
+        assertEquals(12L * (numElements - CAPACITY), queue.getNumSpilledBytes());
+        assertTrue(this.countSegmentFiles() > 1);
+
+        // Interleaved producing and consuming while spilled elements are replayed
+        long next = 0;
+        for(long i = numElements; i < 2 * numElements; i++){
+            assertEquals(Long.valueOf(next++), queue.poll());
+            assertTrue(queue.offer(i));
+        }
+        List<Long> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for(Long element : remaining){
+            assertEquals(Long.valueOf(next++), element);
+        }
+        assertEquals(2 * numElements, next);
+        assertNull(queue.poll());
+        assertEquals(0, queue.getNumSpilledElements());
+        // The last segment is retained for subsequent spilling until cleared
+        assertEquals(1, this.countSegmentFiles());
+        queue.clear();
+        assertEquals(0, this.countSegmentFiles());
+    }
+
+    @Test
+    public void offerFailsOnceSpillLimitIsReached() throws InterruptedException {
+        SpillingBlockingQueue<Long> queue = this.createQueue(this.m_directory, 2 * 12);
+        for(long i = 0; i < CAPACITY + 2; i++){
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(-1L));
+        assertFalse(queue.offer(-1L, 10, TimeUnit.MILLISECONDS));
+        assertEquals(Long.valueOf(0), queue.poll());
+        // Freed memory slots are not used while spilled elements remain (FIFO order)
+        assertFalse(queue.offer(-1L));
+        for(long i = 1; i < CAPACITY + 2; i++){
+            assertEquals(Long.valueOf(i), queue.poll());
+        }
+        assertTrue(queue.offer(CAPACITY + 2L));
+        queue.clear();
+    }
+
+    // Segment creation failures (e.g., disk full) are reported via offer(...) (i.e., the caller blocks or times out)
+    @Test
+    public void offerFailsIfNoSegmentCanBeCreated() throws IOException, InterruptedException {
+        Path file = Files.createFile(this.m_directory.resolve("not-a-directory"));
+        SpillingBlockingQueue<Long> queue = this.createQueue(file, Long.MAX_VALUE);
+        for(long i = 0; i < CAPACITY; i++){
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(-1L));
+        assertFalse(queue.offer(-1L, 10, TimeUnit.MILLISECONDS));
+        assertEquals(Long.valueOf(0), queue.poll());
+        assertTrue(queue.offer((long) CAPACITY));
+        for(long i = 1; i <= CAPACITY; i++){
+            assertEquals(Long.valueOf(i), queue.poll());
+        }
+        assertEquals(0, queue.getNumSpilledElements());
+    }
+}
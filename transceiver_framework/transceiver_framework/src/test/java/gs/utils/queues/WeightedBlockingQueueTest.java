@@ -0,0 +1,99 @@
+/**  
+ *    Copyright (c) 2018 Grzegorz Stepien
+ *
+ *    This file and its contents are provided under the BSD 3-clause license.
+ *    For more details, see './LICENSE.md'
+ *    (where '.' represents this program's root directory).
+ */
+ 
+package gs.utils.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedBlockingQueueTest {
+
+    private static final WeightedBlockingQueue.Weigher<List<?>> SIZE_WEIGHER = new WeightedBlockingQueue.Weigher<List<?>>() {
+        @Override
+        public int getWeight(List<?> element) {
+            return element.size();
+        }
+    };
+
+    private static List<Integer> chunk(int size){
+        return new ArrayList<>(Collections.nCopies(size, size));
+    }
+
+    @Test
+    public void capacityIsMeasuredInWeight() throws InterruptedException {
+        WeightedBlockingQueue<List<Integer>> queue = new WeightedBlockingQueue<>(10, SIZE_WEIGHER);
+        assertTrue(queue.offer(chunk(4)));
+        assertTrue(queue.offer(chunk(6)));
+        assertEquals(0, queue.remainingCapacity());
+        assertFalse(queue.offer(chunk(1)));
+        assertFalse(queue.offer(chunk(1), 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.size());
+        assertEquals(10, queue.getWeight());
+
+        assertEquals(4, queue.poll().size());
+        assertEquals(4, queue.remainingCapacity());
+        assertFalse(queue.offer(chunk(5)));
+        assertTrue(queue.offer(chunk(4)));
+
+        List<List<Integer>> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(Arrays.asList(chunk(6), chunk(4)), drained);
+        assertEquals(0, queue.getWeight());
+        assertNull(queue.poll());
+    }
+
+    // A single element heavier than the capacity must not block forever
+    @Test
+    public void heavyElementIsAcceptedIfEmpty(){
+        WeightedBlockingQueue<List<Integer>> queue = new WeightedBlockingQueue<>(10, SIZE_WEIGHER);
+        assertTrue(queue.offer(chunk(25)));
+        assertEquals(0, queue.remainingCapacity());
+        assertFalse(queue.offer(chunk(0)));
+        queue.clear();
+        assertTrue(queue.offer(chunk(0)));
+        assertTrue(queue.offer(chunk(10)));
+    }
+
+    @Test
+    public void blockedProducerResumesOnceWeightIsFreed() throws InterruptedException {
+        final WeightedBlockingQueue<List<Integer>> queue = new WeightedBlockingQueue<>(10, SIZE_WEIGHER);
+        final int numChunks = 1000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for(int i = 0; i < numChunks; i++){
+                        queue.put(chunk(1 + i % 10));
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        producer.start();
+        List<Integer> chunk;
+        for(int i = 0; i < numChunks; i++){
+            chunk = queue.poll(10, TimeUnit.SECONDS);
+            assertEquals(1 + i % 10, chunk.size());
+            assertTrue(queue.getWeight() <= 10);
+        }
+        producer.join(10000);
+        assertFalse(producer.isAlive());
+        assertTrue(queue.isEmpty());
+    }
+}